@@ -144,6 +144,12 @@ public interface Status
         TransactionTimedOut( ClientError,
                 "The transaction has not completed within the specified timeout. You may want to retry with a longer " +
                 "timeout." ),
+        TransactionMemoryLimitExceeded( ClientError,
+                "The transaction state has grown beyond the configured maximum size for a single transaction. " +
+                "You may want to split the work into smaller transactions." ),
+        GlobalTransactionMemoryLimitExceeded( TransientError,
+                "The transaction was terminated to keep the memory used by all active transactions below the " +
+                "configured global limit. Retrying the transaction may succeed." ),
         InvalidBookmark( ClientError,
                 "Supplied bookmark cannot be interpreted. You should only supply a bookmark previously that was " +
                 "previously generated by Neo4j. Maybe you have generated your own bookmark, " +
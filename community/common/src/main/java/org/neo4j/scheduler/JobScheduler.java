@@ -210,6 +210,16 @@ public interface JobScheduler extends Lifecycle
          */
         public static final Group cypherWorker = new Group( "CypherWorker" );
 
+        /**
+         * Recording and planning of frequently executed Cypher queries across restarts.
+         */
+        public static final Group cypherQueryCacheWarmup = new Group( "CypherQueryCacheWarmup" );
+
+        /**
+         * Re-planning of Cypher queries whose cached plans have become stale.
+         */
+        public static final Group cypherReplanning = new Group( "CypherReplanning" );
+
         /**
          * VM pause monitor
          */
@@ -55,6 +55,11 @@ public class PropertyChain<RECORD extends PrimitiveRecord, REPORT extends Consis
             {
                 engine.report().propertyNotFirstInChain( firstProp );
             }
+            if ( record.hasInlinedProperties() && !record.inlinesProperties( firstProp ) )
+            {
+                // Readers use the copy instead of the first record, so it must be the same
+                engine.report().inlinedPropertiesDifferFromChain( firstProp );
+            }
 
             try ( PrimitiveIntSet keys = Primitive.intSet();
                   MandatoryProperties.Check<RECORD,REPORT> mandatory = mandatoryProperties.apply( record ) )
@@ -68,6 +73,10 @@ public class PropertyChain<RECORD extends PrimitiveRecord, REPORT extends Consis
                 }
             }
         }
+        else if ( record.hasInlinedProperties() )
+        {
+            engine.report().inlinedPropertiesWithoutChain();
+        }
     }
 
     private void checkChainItem( PropertyRecord property, CheckerEngine<RECORD,REPORT> engine,
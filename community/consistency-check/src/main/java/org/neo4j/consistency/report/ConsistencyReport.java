@@ -116,6 +116,12 @@ public interface ConsistencyReport
 
         @Documented( "The property chain does not contain a property that is mandatory for this entity." )
         void missingMandatoryProperty( int key );
+
+        @Documented( "The copy of the first property record carried by the record differs from that record." )
+        void inlinedPropertiesDifferFromChain( PropertyRecord property );
+
+        @Documented( "The record carries a copy of a first property record, but has no property chain." )
+        void inlinedPropertiesWithoutChain();
     }
 
     interface NeoStoreConsistencyReport extends PrimitiveConsistencyReport
@@ -32,10 +32,13 @@ import org.neo4j.kernel.impl.store.DynamicNodeLabels;
 import org.neo4j.kernel.impl.store.DynamicRecordAllocator;
 import org.neo4j.kernel.impl.store.InlineNodeLabels;
 import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyType;
 import org.neo4j.kernel.impl.store.allocator.ReusableRecordsAllocator;
 import org.neo4j.kernel.impl.store.record.DynamicRecord;
 import org.neo4j.kernel.impl.store.record.LabelTokenRecord;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyKeyTokenRecord;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
 import org.neo4j.kernel.impl.store.record.Record;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
@@ -144,6 +147,39 @@ public class NodeRecordCheckTest
         verifyNoMoreInteractions( report );
     }
 
+    @Test
+    public void shouldReportInlinedPropertiesDifferingFromFirstPropertyRecord()
+    {
+        // given
+        NodeRecord node = inUse( new NodeRecord( 42, false, NONE, 11 ) );
+        PropertyRecord property = add( inUse( new PropertyRecord( 11 ) ) );
+        PropertyBlock block = propertyBlock( new PropertyKeyTokenRecord( 1 ), PropertyType.INT, 7 );
+        property.addPropertyBlock( block );
+        node.setInlinedProperties( block.getValueBlocks(), block.getValueBlocks().length, 12 );
+
+        // when
+        ConsistencyReport.NodeConsistencyReport report = check( node );
+
+        // then
+        verify( report ).inlinedPropertiesDifferFromChain( property );
+        verifyNoMoreInteractions( report );
+    }
+
+    @Test
+    public void shouldReportInlinedPropertiesWithoutPropertyChain()
+    {
+        // given
+        NodeRecord node = inUse( new NodeRecord( 42, false, NONE, NONE ) );
+        node.setInlinedProperties( new long[]{1}, 1, NONE );
+
+        // when
+        ConsistencyReport.NodeConsistencyReport report = check( node );
+
+        // then
+        verify( report ).inlinedPropertiesWithoutChain();
+        verifyNoMoreInteractions( report );
+    }
+
     @Test
     public void shouldReportRelationshipForOtherNodes()
     {
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_4.planner.logical
+
+import java.util.concurrent.Executor
+import java.util.function.BiFunction
+
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import org.neo4j.cypher.internal.compiler.v3_4.planner.logical.CardinalityFeedback.Observation
+import org.neo4j.cypher.internal.compiler.v3_4.planner.logical.Metrics.{CardinalityModel, QueryGraphCardinalityModel, QueryGraphSolverInput}
+import org.neo4j.cypher.internal.frontend.v3_4.semantics.SemanticTable
+import org.neo4j.cypher.internal.ir.v3_4.PlannerQuery
+import org.neo4j.cypher.internal.planner.v3_4.spi.GraphStatistics
+import org.neo4j.cypher.internal.util.v3_4.Cardinality
+
+import scala.collection.mutable
+
+/**
+  * Row counts observed while executing plans, by the query that the cardinality model was asked to estimate for the
+  * operator producing the rows.
+  *
+  * Executions of the same query with different parameters see different row counts, so each new observation only
+  * moves the remembered cardinality half way towards it. At most `maxQueries` queries are remembered, the least
+  * frequently observed ones are evicted first.
+  *
+  * Every observation also remembers what the statistics estimated for the query at the time. Once the statistics
+  * estimate something else, the data has changed and the observation is dropped.
+  */
+class CardinalityFeedback(maxQueries: Int) {
+
+  // evicting on the recording thread keeps the number of remembered queries bounded at all times
+  private val observations: Cache[PlannerQuery, Observation] =
+    Caffeine.newBuilder().maximumSize(maxQueries).executor(new Executor {
+      override def execute(command: Runnable): Unit = command.run()
+    }).build[PlannerQuery, Observation]()
+
+  private val smoothing = new BiFunction[Observation, Observation, Observation] {
+    override def apply(remembered: Observation, observed: Observation): Observation =
+      if (CardinalityFeedback.drifted(remembered.estimate, observed.estimate)) observed
+      else Observation(Cardinality((remembered.rows.amount + observed.rows.amount) / 2), observed.estimate)
+  }
+
+  /**
+    * @param estimate what the statistics estimate for the query now
+    */
+  def observed(query: PlannerQuery, estimate: Cardinality): Option[Cardinality] = {
+    val observation = observations.getIfPresent(query)
+    if (observation == null)
+      None
+    else if (CardinalityFeedback.drifted(observation.estimate, estimate)) {
+      observations.asMap().remove(query, observation)
+      None
+    }
+    else
+      Some(observation.rows)
+  }
+
+  /**
+    * @param estimate what the statistics estimated for the query when the plan producing the rows was planned
+    */
+  def record(query: PlannerQuery, rows: Long, estimate: Cardinality): Unit =
+    observations.asMap().merge(query, Observation(Cardinality(rows), estimate), smoothing)
+}
+
+object CardinalityFeedback {
+
+  case class Observation(rows: Cardinality, estimate: Cardinality)
+
+  // The estimates of the statistics change a little with every update, observations survive anything less than this
+  private val DRIFT_FACTOR = 2.0
+
+  def drifted(before: Cardinality, now: Cardinality): Boolean = {
+    val larger = math.max(before.amount, now.amount)
+    val smaller = math.max(math.min(before.amount, now.amount), 1.0)
+    larger / smaller > DRIFT_FACTOR
+  }
+}
+
+/**
+  * Uses the observed cardinality of a query instead of the estimate, as long as the query is planned from scratch.
+  * Queries planned on top of the rows of another plan (the right hand side of an apply, or the tail of a query) are
+  * estimated from their input cardinality, which is not what was observed.
+  *
+  * A model is created for every planning, and remembers which of its answers could have come from the feedback, so
+  * that only the rows of those operators are fed back.
+  */
+class CardinalityFeedbackModel(inner: CardinalityModel, val feedback: CardinalityFeedback) extends CardinalityModel {
+
+  private val replaceable = mutable.Map[PlannerQuery, (Cardinality, Cardinality)]()
+
+  override def apply(query: PlannerQuery, input: QueryGraphSolverInput, semanticTable: SemanticTable): Cardinality = {
+    if (input.inboundCardinality == Cardinality.SINGLE && query.queryGraph.argumentIds.isEmpty) {
+      val estimate = inner(query, input, semanticTable)
+      val cardinality = feedback.observed(query, estimate).getOrElse(estimate)
+      replaceable(query) = (cardinality, estimate)
+      cardinality
+    }
+    else
+      inner(query, input, semanticTable)
+  }
+
+  /**
+    * @return what the statistics estimated for the query, if this model answered `cardinality` when asked about it
+    *         and the answer could have come from the feedback
+    */
+  def replaceableEstimate(query: PlannerQuery, cardinality: Cardinality): Option[Cardinality] =
+    replaceable.get(query).collect { case (answered, estimate) if answered == cardinality => estimate }
+}
+
+case class CardinalityFeedbackMetricsFactory(metricsFactory: MetricsFactory, feedback: CardinalityFeedback) extends MetricsFactory {
+  def newCardinalityEstimator(queryGraphCardinalityModel: QueryGraphCardinalityModel, evaluator: ExpressionEvaluator): CardinalityModel =
+    new CardinalityFeedbackModel(metricsFactory.newCardinalityEstimator(queryGraphCardinalityModel, evaluator), feedback)
+
+  def newCostModel() = metricsFactory.newCostModel()
+
+  def newQueryGraphCardinalityModel(statistics: GraphStatistics) =
+    metricsFactory.newQueryGraphCardinalityModel(statistics)
+}
@@ -27,7 +27,7 @@ import org.neo4j.cypher.internal.frontend.v3_4.semantics.SemanticTable
 import org.neo4j.cypher.internal.ir.v3_4.Selections
 import org.neo4j.cypher.internal.planner.v3_4.spi.{GraphStatistics, IndexDescriptor}
 import org.neo4j.cypher.internal.planner.v3_4.spi.GraphStatistics._
-import org.neo4j.cypher.internal.util.v3_4.{Cardinality, LabelId, Selectivity}
+import org.neo4j.cypher.internal.util.v3_4.{Cardinality, LabelId, PropertyKeyId, Selectivity}
 import org.neo4j.cypher.internal.v3_4.expressions._
 import org.neo4j.cypher.internal.v3_4.logical.plans.PrefixRange
 
@@ -240,7 +240,7 @@ case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: Sel
           case (Some(labelId), Some(propertyKeyId)) =>
             val descriptor = IndexDescriptor(labelId, propertyKeyId)
             val selectivity: Option[Selectivity] = stats.indexPropertyExistsSelectivity(descriptor)
-            selectivity
+            selectivity.orElse(calculateSelectivityForPropertyCount(labelId, propertyKeyId))
 
           case _ =>
             Some(Selectivity.ZERO)
@@ -250,4 +250,8 @@ case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: Sel
     val result = combiner.orTogetherSelectivities(indexPropertyExistsSelectivities).getOrElse(DEFAULT_PROPERTY_SELECTIVITY)
     result
   }
+
+  // Without an index, use the count of labeled nodes having the property, if the database keeps one
+  private def calculateSelectivityForPropertyCount(labelId: LabelId, propertyKeyId: PropertyKeyId): Option[Selectivity] =
+    stats.nodesWithPropertyCardinality(labelId, propertyKeyId).flatMap(_ / stats.nodesWithLabelCardinality(Some(labelId)))
 }
@@ -134,7 +134,17 @@ case class PatternSelectivityCalculator(stats: GraphStatistics, combiner: Select
     combinedSelectivity
   }
 
-  private def calculateLabelSelectivity(specs: Seq[TokenSpec[LabelId]], totalNbrOfNodes: Cardinality): Selectivity = {
+  private def calculateLabelSelectivity(specs: Seq[TokenSpec[LabelId]], totalNbrOfNodes: Cardinality): Selectivity =
+    specs match {
+      // Two labels on the same node are not independent, use the count of nodes having both if the database keeps one
+      case Seq(SpecifiedAndKnown(label: LabelId), SpecifiedAndKnown(otherLabel: LabelId)) =>
+        stats.nodesWithLabelsCardinality(label, otherLabel).flatMap(_ / totalNbrOfNodes)
+          .getOrElse(calculateIndependentLabelSelectivity(specs, totalNbrOfNodes))
+      case _ =>
+        calculateIndependentLabelSelectivity(specs, totalNbrOfNodes)
+    }
+
+  private def calculateIndependentLabelSelectivity(specs: Seq[TokenSpec[LabelId]], totalNbrOfNodes: Cardinality): Selectivity = {
     val selectivities = specs map {
       case SpecifiedButUnknown() => Selectivity.ZERO
       case Unspecified => Selectivity.ONE
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_4.planner.logical
+
+import org.neo4j.cypher.internal.compiler.v3_4.planner.logical.Metrics.{CardinalityModel, QueryGraphSolverInput}
+import org.neo4j.cypher.internal.frontend.v3_4.semantics.SemanticTable
+import org.neo4j.cypher.internal.ir.v3_4.{PlannerQuery, QueryGraph, RegularPlannerQuery}
+import org.neo4j.cypher.internal.util.v3_4.Cardinality
+import org.neo4j.cypher.internal.util.v3_4.test_helpers.CypherFunSuite
+
+class CardinalityFeedbackTest extends CypherFunSuite {
+
+  private val a = RegularPlannerQuery(QueryGraph(patternNodes = Set("a")))
+  private val b = RegularPlannerQuery(QueryGraph(patternNodes = Set("b")))
+  private val estimate: CardinalityModel = (_: PlannerQuery, _: QueryGraphSolverInput, _: SemanticTable) => Cardinality(42)
+
+  test("should move half way towards each new observation") {
+    val feedback = new CardinalityFeedback(10)
+
+    feedback.record(a, 100, Cardinality(42))
+    feedback.observed(a, Cardinality(42)) should equal(Some(Cardinality(100)))
+
+    feedback.record(a, 0, Cardinality(42))
+    feedback.observed(a, Cardinality(42)) should equal(Some(Cardinality(50)))
+    feedback.observed(b, Cardinality(42)) should equal(None)
+  }
+
+  test("should evict queries once full") {
+    val feedback = new CardinalityFeedback(1)
+
+    feedback.record(a, 100, Cardinality(42))
+    feedback.record(b, 100, Cardinality(42))
+    feedback.record(b, 200, Cardinality(42))
+
+    (feedback.observed(a, Cardinality(42)) ++ feedback.observed(b, Cardinality(42))).size should be <= 1
+  }
+
+  test("should drop observations once the statistics estimate something else") {
+    val feedback = new CardinalityFeedback(10)
+    feedback.record(a, 100, Cardinality(42))
+
+    feedback.observed(a, Cardinality(50)) should equal(Some(Cardinality(100)))
+    feedback.observed(a, Cardinality(420)) should equal(None)
+    feedback.observed(a, Cardinality(42)) should equal(None)
+  }
+
+  test("should start over when recording against a different statistics estimate") {
+    val feedback = new CardinalityFeedback(10)
+    feedback.record(a, 100, Cardinality(42))
+
+    feedback.record(a, 1000, Cardinality(420))
+
+    feedback.observed(a, Cardinality(420)) should equal(Some(Cardinality(1000)))
+  }
+
+  test("should use the observed cardinality of queries planned from scratch") {
+    val feedback = new CardinalityFeedback(10)
+    feedback.record(a, 7, Cardinality(42))
+    val model = new CardinalityFeedbackModel(estimate, feedback)
+
+    model(a, QueryGraphSolverInput.empty, new SemanticTable()) should equal(Cardinality(7))
+    model(b, QueryGraphSolverInput.empty, new SemanticTable()) should equal(Cardinality(42))
+    model.replaceableEstimate(a, Cardinality(7)) should equal(Some(Cardinality(42)))
+    model.replaceableEstimate(b, Cardinality(42)) should equal(Some(Cardinality(42)))
+    model.replaceableEstimate(b, Cardinality(7)) should equal(None)
+  }
+
+  test("should estimate queries planned on top of other rows") {
+    val withArguments = RegularPlannerQuery(QueryGraph(patternNodes = Set("a"), argumentIds = Set("a")))
+    val feedback = new CardinalityFeedback(10)
+    feedback.record(a, 7, Cardinality(42))
+    feedback.record(withArguments, 7, Cardinality(42))
+    val model = new CardinalityFeedbackModel(estimate, feedback)
+
+    model(a, QueryGraphSolverInput.empty.copy(inboundCardinality = Cardinality(5)), new SemanticTable()) should equal(Cardinality(42))
+    model(withArguments, QueryGraphSolverInput.empty, new SemanticTable()) should equal(Cardinality(42))
+    model.replaceableEstimate(a, Cardinality(42)) should equal(None)
+    model.replaceableEstimate(withArguments, Cardinality(42)) should equal(None)
+  }
+}
@@ -28,6 +28,7 @@ import org.neo4j.cypher.internal.frontend.v3_4.semantics.SemanticTable
 import org.neo4j.cypher.internal.ir.v3_4._
 import org.neo4j.cypher.internal.planner.v3_4.spi.{GraphStatistics, IndexDescriptor}
 import org.neo4j.cypher.internal.v3_4.expressions._
+import org.neo4j.cypher.internal.v3_4.functions
 
 class ExpressionSelectivityCalculatorTest extends CypherFunSuite with AstConstructionTestSupport {
 
@@ -155,4 +156,33 @@ class ExpressionSelectivityCalculatorTest extends CypherFunSuite with AstConstru
     val expr = HasLabels(null, Seq(LabelName("Foo")(pos)))(pos)
     calculator(expr) should equal(Selectivity.of(1.0 / 10.0).get)
   }
+
+  test("should use the count of labeled nodes having the property for existence without an index") {
+    val stats = mock[GraphStatistics]
+    when(stats.indexPropertyExistsSelectivity(index)).thenReturn(None)
+    when(stats.nodesWithLabelCardinality(Some(index.label))).thenReturn(Cardinality(1000))
+    when(stats.nodesWithPropertyCardinality(index.label, index.property)).thenReturn(Some(Cardinality(250)))
+
+    existsSelectivity(stats) should equal(Selectivity.of(0.25).get)
+  }
+
+  test("should default existence selectivity without an index or a count of labeled nodes having the property") {
+    val stats = mock[GraphStatistics]
+    when(stats.indexPropertyExistsSelectivity(index)).thenReturn(None)
+    when(stats.nodesWithPropertyCardinality(index.label, index.property)).thenReturn(None)
+
+    existsSelectivity(stats) should equal(GraphStatistics.DEFAULT_PROPERTY_SELECTIVITY)
+  }
+
+  private def existsSelectivity(stats: GraphStatistics): Selectivity = {
+    implicit val semanticTable = SemanticTable()
+    semanticTable.resolvedLabelNames.put("A", index.label)
+    semanticTable.resolvedPropertyKeyNames.put("prop", index.property)
+
+    implicit val selections = mock[Selections]
+    when(selections.labelsOnNode("a")).thenReturn(Set(LabelName("A")(pos)))
+    val calculator = ExpressionSelectivityCalculator(stats, IndependenceCombiner)
+
+    calculator(FunctionInvocation(FunctionName(functions.Exists.name)(pos), Property(varFor("a"), PropertyKeyName("prop")(pos))(pos))(pos))
+  }
 }
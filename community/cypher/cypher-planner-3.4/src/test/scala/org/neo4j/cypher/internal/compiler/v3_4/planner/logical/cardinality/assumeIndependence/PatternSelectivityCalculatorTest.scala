@@ -118,4 +118,37 @@ class PatternSelectivityCalculatorTest extends CypherFunSuite  with AstConstruct
 
     result should equal(Selectivity.ONE)
   }
+
+  test("should use the count of nodes having both labels of a node when known") {
+    val stats = twoLabelStatistics(Some(Cardinality(50)))
+
+    twoLabelSelectivity(stats).factor should equal(0.04 +- 0.0001)
+  }
+
+  test("should assume two labels of a node are independent when their count is unknown") {
+    val stats = twoLabelStatistics(None)
+
+    twoLabelSelectivity(stats).factor should equal(0.16 +- 0.0001)
+  }
+
+  // Half of the nodes have each label, and 1000 relationships start at nodes with either label
+  private def twoLabelStatistics(nodesWithBothLabels: Option[Cardinality]): GraphStatistics = {
+    val stats: GraphStatistics = mock[GraphStatistics]
+    when(stats.nodesWithLabelCardinality(any())).thenReturn(Cardinality(50))
+    when(stats.nodesWithLabelsCardinality(any(), any())).thenReturn(nodesWithBothLabels)
+    when(stats.nodesAllCardinality()).thenReturn(Cardinality(100))
+    when(stats.cardinalityByLabelsAndRelationshipType(any(), any(), any())).thenReturn(Cardinality(1000))
+    stats
+  }
+
+  private def twoLabelSelectivity(stats: GraphStatistics): Selectivity = {
+    val calculator = PatternSelectivityCalculator(stats, IndependenceCombiner)
+    val relationship = PatternRelationship("r", ("a", "b"), SemanticDirection.OUTGOING, Seq.empty, SimplePatternLength)
+
+    val labels = Seq(LabelName("A")(pos), LabelName("B")(pos))
+
+    implicit val semanticTable = new SemanticTable(resolvedLabelNames = mutable.Map("A" -> LabelId(0), "B" -> LabelId(1)))
+    implicit val selections = Selections(labels.map(l => Predicate(Set[String]("a"), HasLabels(varFor("a"), Seq(l))(pos))).toSet)
+    calculator.apply(relationship, Map.empty)
+  }
 }
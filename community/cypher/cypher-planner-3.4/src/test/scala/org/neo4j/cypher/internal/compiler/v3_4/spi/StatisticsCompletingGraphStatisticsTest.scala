@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_4.spi
+
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito.{never, verify, when}
+import org.neo4j.cypher.internal.planner.v3_4.spi.{GraphStatistics, StatisticsCompletingGraphStatistics}
+import org.neo4j.cypher.internal.util.v3_4.test_helpers.CypherFunSuite
+import org.neo4j.cypher.internal.util.v3_4.{Cardinality, LabelId, RelTypeId}
+
+class StatisticsCompletingGraphStatisticsTest extends CypherFunSuite {
+
+  private val label2 = LabelId(2)
+  private val label4 = LabelId(4)
+  private val relType = RelTypeId(1)
+
+  test("uses the count of relationships between two labels when known") {
+    val inner = mock[GraphStatistics]
+    when(inner.cardinalityBetweenLabels(label2, Some(relType), label4)).thenReturn(Some(Cardinality(7)))
+    val statistics = new StatisticsCompletingGraphStatistics(inner)
+
+    statistics.cardinalityByLabelsAndRelationshipType(Some(label2), Some(relType), Some(label4)) should equal(Cardinality(7))
+    verify(inner, never()).cardinalityByLabelsAndRelationshipType(any(), any(), any())
+  }
+
+  test("estimates relationships between two labels by the smaller one sided count when unknown") {
+    val inner = mock[GraphStatistics]
+    when(inner.cardinalityBetweenLabels(label2, None, label4)).thenReturn(None)
+    when(inner.cardinalityByLabelsAndRelationshipType(Some(label2), None, None)).thenReturn(Cardinality(20))
+    when(inner.cardinalityByLabelsAndRelationshipType(None, None, Some(label4))).thenReturn(Cardinality(12))
+    val statistics = new StatisticsCompletingGraphStatistics(inner)
+
+    statistics.cardinalityByLabelsAndRelationshipType(Some(label2), None, Some(label4)) should equal(Cardinality(12))
+  }
+
+  test("does not look for relationships between labels when one side is unlabeled") {
+    val inner = mock[GraphStatistics]
+    when(inner.cardinalityByLabelsAndRelationshipType(Some(label2), Some(relType), None)).thenReturn(Cardinality(20))
+    val statistics = new StatisticsCompletingGraphStatistics(inner)
+
+    statistics.cardinalityByLabelsAndRelationshipType(Some(label2), Some(relType), None) should equal(Cardinality(20))
+    verify(inner, never()).cardinalityBetweenLabels(any(), any(), any())
+  }
+}
@@ -60,10 +60,13 @@ public class CommunityCypherEngineProvider extends QueryEngineProvider
         CommunityCompatibilityFactory compatibilityFactory =
                 new CommunityCompatibilityFactory( queryService, monitors, logProvider );
         deps.satisfyDependencies( compatibilityFactory );
-        return createEngine( queryService, config, logProvider, compatibilityFactory );
+        ExecutionEngine engine = createEngine( queryService, config, logProvider, compatibilityFactory );
+        // Only the engine of the database remembers its hottest queries, engines created elsewhere leave the file alone
+        engine.startQueryCacheWarmup();
+        return engine;
     }
 
-    private QueryExecutionEngine createEngine( GraphDatabaseCypherService queryService, Config config,
+    private ExecutionEngine createEngine( GraphDatabaseCypherService queryService, Config config,
             LogProvider logProvider, CommunityCompatibilityFactory compatibilityFactory )
     {
         return config.get( GraphDatabaseSettings.snapshot_query ) ?
@@ -118,4 +118,13 @@ public class ExecutionEngine implements QueryExecutionEngine
     {
         return inner.clearQueryCaches();
     }
+
+    /**
+     * Plans the queries remembered from before the restart once the database is available, and starts remembering
+     * the most frequently executed queries of this engine. Only the engine of the database should do this.
+     */
+    public void startQueryCacheWarmup()
+    {
+        inner.startQueryCacheWarmup();
+    }
 }
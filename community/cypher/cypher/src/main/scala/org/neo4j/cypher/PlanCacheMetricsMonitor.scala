@@ -26,13 +26,24 @@ import org.neo4j.cypher.internal.StringCacheMonitor
 class PlanCacheMetricsMonitor extends StringCacheMonitor {
   private val counter = new AtomicLong()
   private val waitTime = new AtomicLong()
+  private val backgroundReplans = new AtomicLong()
+  private val backgroundPlanningTime = new AtomicLong()
 
   override def cacheDiscard(ignored1: String, ignored2: String, secondsSinceReplan: Int): Unit = {
     counter.incrementAndGet()
     waitTime.addAndGet(secondsSinceReplan)
   }
 
+  override def backgroundReplanCompleted(ignored: String, planningTimeMillis: Long): Unit = {
+    backgroundReplans.incrementAndGet()
+    backgroundPlanningTime.addAndGet(planningTimeMillis)
+  }
+
   def numberOfReplans: Long = counter.get()
 
   def replanWaitTime: Long = waitTime.get()
+
+  def numberOfBackgroundReplans: Long = backgroundReplans.get()
+
+  def backgroundReplanTime: Long = backgroundPlanningTime.get()
 }
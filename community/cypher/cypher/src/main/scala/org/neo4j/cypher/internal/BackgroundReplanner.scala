@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.neo4j.cypher.internal.compatibility.Replanner
+import org.neo4j.logging.Log
+import org.neo4j.scheduler.JobScheduler
+import org.neo4j.scheduler.JobScheduler.Groups
+
+import scala.util.control.NonFatal
+
+/**
+  * Plans replacements for stale query plans in background jobs, at most `maxConcurrentReplans` at a time. Queries
+  * that find their plan to be stale while all jobs are busy keep using it, and ask again on their next execution.
+  *
+  * @param plan plans a query in a transaction of its own
+  */
+class BackgroundReplanner[T](scheduler: JobScheduler,
+                             maxConcurrentReplans: Int,
+                             monitor: StringCacheMonitor,
+                             log: Log)
+                            (plan: String => T) extends Replanner[T] {
+
+  private val inFlight = ConcurrentHashMap.newKeySet[String]()
+  private val running = new AtomicInteger()
+
+  override def replan(userKey: String, install: T => Unit): Unit = {
+    if (inFlight.add(userKey)) {
+      if (reserve()) {
+        monitor.backgroundReplanScheduled(userKey)
+        try {
+          scheduler.schedule(Groups.cypherReplanning, new Runnable {
+            override def run(): Unit = try replanNow(userKey, install) finally release(userKey)
+          })
+        } catch {
+          // e.g. during shutdown, the stale plan is still good enough for this query
+          case NonFatal(e) =>
+            release(userKey)
+            log.debug(s"Could not schedule re-planning of stale query: $userKey", e)
+        }
+      } else {
+        inFlight.remove(userKey)
+      }
+    }
+  }
+
+  private def release(userKey: String): Unit = {
+    running.decrementAndGet()
+    inFlight.remove(userKey)
+  }
+
+  private def reserve(): Boolean = {
+    var current = running.get()
+    while (current < maxConcurrentReplans) {
+      if (running.compareAndSet(current, current + 1))
+        return true
+      current = running.get()
+    }
+    false
+  }
+
+  private def replanNow(userKey: String, install: T => Unit): Unit = {
+    val start = System.nanoTime()
+    try {
+      install(plan(userKey))
+      monitor.backgroundReplanCompleted(userKey, (System.nanoTime() - start) / 1000000)
+    } catch {
+      // the stale plan stays in the cache, and the next execution of the query tries again
+      case NonFatal(e) => log.debug(s"Could not re-plan stale query in the background: $userKey", e)
+    }
+  }
+}
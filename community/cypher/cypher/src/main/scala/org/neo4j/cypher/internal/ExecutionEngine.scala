@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal
 
+import java.io.File
 import java.util.{Map => JavaMap}
 
 import org.neo4j.cypher._
@@ -31,17 +32,26 @@ import org.neo4j.cypher.internal.tracing.{CompilationTracer, TimingCompilationTr
 import org.neo4j.graphdb.Result
 import org.neo4j.graphdb.config.Setting
 import org.neo4j.graphdb.factory.GraphDatabaseSettings
-import org.neo4j.internal.kernel.api.SchemaRead
-import org.neo4j.internal.kernel.api.security.AccessMode
+import org.neo4j.internal.kernel.api.security.{AccessMode, LoginContext}
+import org.neo4j.internal.kernel.api.{SchemaRead, Transaction}
+import org.neo4j.io.fs.FileSystemAbstraction
 import org.neo4j.kernel.api.query.SchemaIndexUsage
 import org.neo4j.kernel.configuration.Config
-import org.neo4j.kernel.impl.query.{QueryExecutionMonitor, TransactionalContext}
+import org.neo4j.kernel.impl.coreapi.PropertyContainerLocker
+import org.neo4j.kernel.impl.query.clientconnection.ClientConnectionInfo
+import org.neo4j.kernel.impl.query.{Neo4jTransactionalContextFactory, QueryExecutionMonitor, TransactionalContext}
 import org.neo4j.kernel.monitoring.{Monitors => KernelMonitors}
-import org.neo4j.kernel.{GraphDatabaseQueryService, api}
+import org.neo4j.kernel.{AvailabilityGuard, GraphDatabaseQueryService, api}
 import org.neo4j.logging.{LogProvider, NullLogProvider}
-import org.neo4j.values.virtual.MapValue
+import org.neo4j.scheduler.JobScheduler
+import org.neo4j.values.virtual.{MapValue, VirtualValues}
 
-trait StringCacheMonitor extends CypherCacheMonitor[String, api.Statement]
+import scala.util.control.NonFatal
+
+trait StringCacheMonitor extends CypherCacheMonitor[String, api.Statement] {
+  def backgroundReplanScheduled(query: String) {}
+  def backgroundReplanCompleted(query: String, planningTimeMillis: Long) {}
+}
 
 /**
   * This class construct and initialize both the cypher compiler and the cypher runtime, which is a very expensive
@@ -73,6 +83,7 @@ class ExecutionEngine(val queryService: GraphDatabaseQueryService,
   private val executionMonitor = kernelMonitors.newMonitor(classOf[QueryExecutionMonitor])
 
   private val cacheAccessor = new MonitoringCacheAccessor[String, (ExecutionPlan, Map[String, Any], Seq[String])](cacheMonitor)
+  private val replanner = createReplanner()
 
   private val preParsedQueries = new LFUCache[String, PreParsedQuery](getPlanCacheSize)
   private val parsedQueries = new LFUCache[String, ParsedQuery](getPlanCacheSize)
@@ -143,9 +154,13 @@ class ExecutionEngine(val queryService: GraphDatabaseQueryService,
 
   @throws(classOf[SyntaxException])
   protected def planQuery(transactionalContext: TransactionalContext): (PreparedPlanExecution, TransactionalContextWrapper, Seq[String]) = {
-    val executingQuery = transactionalContext.executingQuery()
-    val queryText = executingQuery.queryText()
-    executionMonitor.startQueryExecution(executingQuery)
+    executionMonitor.startQueryExecution(transactionalContext.executingQuery())
+    preparePlan(transactionalContext)
+  }
+
+  @throws(classOf[SyntaxException])
+  private def preparePlan(transactionalContext: TransactionalContext): (PreparedPlanExecution, TransactionalContextWrapper, Seq[String]) = {
+    val queryText = transactionalContext.executingQuery().queryText()
     val phaseTracer = compilationTracer.compileQuery(queryText)
     try {
 
@@ -174,7 +189,7 @@ class ExecutionEngine(val queryService: GraphDatabaseQueryService,
           val cache: QueryCache[String, (ExecutionPlan, Map[String, Any], Seq[String])] = getOrCreateFromSchemaState(tc.schemaRead, {
             cacheMonitor.cacheFlushDetected(tc.statement)
             val lruCache = new LFUCache[String, (ExecutionPlan, Map[String, Any], Seq[String])](getPlanCacheSize)
-            new QueryCache(cacheAccessor, lruCache)
+            new QueryCache(cacheAccessor, lruCache, replanner)
           })
 
           def isStale(plan: ExecutionPlan, ignored1: Map[String, Any], ignored2: Seq[String]) = plan.isStale(lastCommittedTxId, tc)
@@ -277,6 +292,92 @@ class ExecutionEngine(val queryService: GraphDatabaseQueryService,
     operations.schemaStateGetOrCreate(this, javaCreator)
   }
 
+  /**
+    * Plans the queries remembered in the database directory once the database is available, and remembers the
+    * hottest queries of this engine from then on. Only the engine of the database calls this, so that a single
+    * engine owns the file.
+    */
+  def startQueryCacheWarmup(): Unit = {
+    val warmupSize = optGraphSetting[java.lang.Integer](
+      queryService, GraphDatabaseSettings.query_cache_warmup_size,
+      GraphDatabaseSettings.query_cache_warmup_size.getDefaultValue.toInt)
+    if (warmupSize > 0) {
+      val config = resolver.resolveDependency(classOf[Config])
+      val file = new File(config.get(GraphDatabaseSettings.database_path), QueryCacheWarmup.FILE_NAME)
+      val warmup = new QueryCacheWarmup(
+        resolver.resolveDependency(classOf[FileSystemAbstraction]),
+        file,
+        warmupSize,
+        config.get(GraphDatabaseSettings.query_cache_warmup_threads),
+        config.get(GraphDatabaseSettings.query_cache_warmup_record_interval).toMillis,
+        resolver.resolveDependency(classOf[JobScheduler]),
+        resolver.resolveDependency(classOf[AvailabilityGuard]),
+        log)(hottestQueriesToRemember, planWithoutExecuting)
+      warmup.start()
+    }
+  }
+
+  /**
+    * The remembered queries are written to disk in plain text, so only queries without literals or procedure calls
+    * are remembered. Those could carry passwords or other values that are not meant to outlive the query.
+    */
+  private def hottestQueriesToRemember(limit: Int): Seq[String] =
+    preParsedQueries.hottest(getPlanCacheSize).view.filter { queryText =>
+      try {
+        QueryCacheWarmup.isSafeToRemember(queryDispatcher.preParseQuery(queryText).statement)
+      } catch {
+        case NonFatal(_) => false
+      }
+    }.take(limit).force
+
+  /**
+    * Plans the query and puts the plan in the query cache, in a transaction of its own that is rolled back.
+    */
+  private def planWithoutExecuting(queryText: String): Unit =
+    inPlanningTransaction(queryText) { context =>
+      val (_, wrappedContext, _) = preparePlan(context)
+      wrappedContext.close(success = false)
+    }
+
+  private def createReplanner(): Option[Replanner[(ExecutionPlan, Map[String, Any], Seq[String])]] = {
+    val config = resolver.resolveDependency(classOf[Config])
+    if (config.get(GraphDatabaseSettings.cypher_replan_in_background))
+      Some(new BackgroundReplanner(
+        resolver.resolveDependency(classOf[JobScheduler]),
+        config.get(GraphDatabaseSettings.cypher_replan_in_background_threads),
+        cacheMonitor,
+        log)(planBypassingCache))
+    else
+      None
+  }
+
+  /**
+    * Plans the query without looking in the query cache of this engine, in a transaction of its own that is
+    * rolled back. The plan caches of the compilers still see the stale plan and replace it.
+    */
+  private def planBypassingCache(queryText: String): (ExecutionPlan, Map[String, Any], Seq[String]) =
+    inPlanningTransaction(queryText) { context =>
+      val tc = TransactionalContextWrapper(context)
+      val revertable = tc.restrictCurrentTransaction(tc.securityContext.withMode(AccessMode.Static.READ))
+      try {
+        val parsedQuery = parsePreParsedQuery(preParseQuery(queryText), CompilationPhaseTracer.NO_TRACING)
+        parsedQuery.plan(tc, CompilationPhaseTracer.NO_TRACING)
+      } finally {
+        revertable.close()
+        tc.close(success = false)
+      }
+    }
+
+  private def inPlanningTransaction[T](queryText: String)(f: TransactionalContext => T): T = {
+    val contextFactory = Neo4jTransactionalContextFactory.create(queryService, new PropertyContainerLocker)
+    val tx = queryService.beginTransaction(Transaction.Type.explicit, LoginContext.AUTH_DISABLED)
+    try {
+      f(contextFactory.newContext(ClientConnectionInfo.EMBEDDED_CONNECTION, tx, queryText, VirtualValues.EMPTY_MAP))
+    } finally {
+      tx.close()
+    }
+  }
+
   def prettify(query: String): String = Prettifier(query)
 
   def isPeriodicCommit(query: String) = parseQuery(query).isPeriodicCommit
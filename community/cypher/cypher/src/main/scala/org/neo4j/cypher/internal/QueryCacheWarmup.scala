@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal
+
+import java.io.{BufferedInputStream, BufferedOutputStream, DataInputStream, DataOutputStream, File, IOException}
+import java.nio.charset.StandardCharsets.UTF_8
+import java.nio.file.StandardCopyOption.REPLACE_EXISTING
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{ConcurrentLinkedQueue, TimeUnit}
+
+import org.neo4j.cypher.internal.frontend.v3_4.ast.UnresolvedCall
+import org.neo4j.cypher.internal.frontend.v3_4.parser.CypherParser
+import org.neo4j.cypher.internal.util.v3_4.Foldable._
+import org.neo4j.cypher.internal.v3_4.expressions.{NumberLiteral, StringLiteral}
+import org.neo4j.io.fs.FileSystemAbstraction
+import org.neo4j.kernel.AvailabilityGuard
+import org.neo4j.kernel.AvailabilityGuard.AvailabilityListener
+import org.neo4j.logging.Log
+import org.neo4j.scheduler.JobScheduler
+import org.neo4j.scheduler.JobScheduler.{Groups, JobHandle}
+
+import scala.collection.JavaConverters._
+import scala.util.control.NonFatal
+
+/**
+  * Remembers the most frequently executed queries across restarts.
+  *
+  * The hottest query strings are written to a file at a fixed interval while the database is available. The first
+  * time the database becomes available, the queries in that file are planned again by a few background jobs, so that
+  * the first executions of those queries find their plans in the query cache. All jobs are cancelled as soon as the
+  * database becomes unavailable or shuts down.
+  *
+  * @param hottestQueries the currently most frequently executed queries that are safe to write to disk, the most
+  *                       frequent first
+  * @param plan plans a query and puts it in the query cache, without executing it
+  */
+class QueryCacheWarmup(fs: FileSystemAbstraction,
+                       file: File,
+                       size: Int,
+                       threads: Int,
+                       recordIntervalMillis: Long,
+                       scheduler: JobScheduler,
+                       availability: AvailabilityGuard,
+                       log: Log)
+                      (hottestQueries: Int => Seq[String], plan: String => Unit) extends AvailabilityListener {
+
+  private val runningWarmups = new AtomicInteger()
+  private var warmedUp = false
+  private var warmups: Seq[JobHandle] = Seq.empty
+  private var recording: Option[JobHandle] = None
+
+  /**
+    * The query engine is created while the database is starting, so the jobs are tied to the availability of the
+    * database rather than to a lifecycle that would never see a start.
+    */
+  def start(): Unit = {
+    availability.addListener(this)
+    if (availability.isAvailable)
+      available()
+  }
+
+  override def available(): Unit = synchronized {
+    if (!warmedUp) {
+      warmedUp = true
+      val queries = new ConcurrentLinkedQueue[String](readRemembered().asJava)
+      if (!queries.isEmpty) {
+        log.info(s"Planning ${queries.size()} remembered queries in the background")
+        warmups = for (_ <- 0 until threads) yield {
+          runningWarmups.incrementAndGet()
+          scheduler.schedule(Groups.cypherQueryCacheWarmup, new Runnable {
+            override def run(): Unit = try warmUp(queries) finally runningWarmups.decrementAndGet()
+          })
+        }
+      }
+    }
+    if (recording.isEmpty) {
+      recording = Some(scheduler.scheduleRecurring(Groups.cypherQueryCacheWarmup, new Runnable {
+        override def run(): Unit = record()
+      }, recordIntervalMillis, recordIntervalMillis, TimeUnit.MILLISECONDS))
+    }
+  }
+
+  override def unavailable(): Unit = synchronized {
+    recording.foreach(_.cancel(false))
+    recording = None
+    warmups.foreach(_.cancel(false))
+    warmups = Seq.empty
+  }
+
+  private def readRemembered(): Seq[String] =
+    try {
+      QueryCacheWarmup.read(fs, file).take(size)
+    } catch {
+      // a torn or older file is not worth failing the startup over
+      case NonFatal(e) =>
+        log.warn(s"Could not read the remembered queries from $file, the query cache starts empty", e)
+        Seq.empty
+    }
+
+  private def warmUp(queries: ConcurrentLinkedQueue[String]): Unit = {
+    var query = queries.poll()
+    while (query != null && availability.isAvailable) {
+      try {
+        plan(query)
+      } catch {
+        // the schema may have changed since the query was recorded, it will fail again when executed
+        case NonFatal(e) => log.debug("Could not plan a remembered query", e)
+      }
+      query = queries.poll()
+    }
+  }
+
+  private def record(): Unit = {
+    // Until the warmup is done the query cache is missing queries that were hot before the restart
+    if (runningWarmups.get() == 0) {
+      try {
+        QueryCacheWarmup.write(fs, file, hottestQueries(size))
+      } catch {
+        case NonFatal(e) => log.warn(s"Could not write the most frequently executed queries to $file", e)
+      }
+    }
+  }
+}
+
+object QueryCacheWarmup {
+
+  val FILE_NAME = "cypher-query-cache"
+
+  private val parser = new CypherParser
+
+  /**
+    * The file is readable by anyone with access to the database directory, so a query is only remembered when it
+    * cannot carry a secret: it calls no procedures and all its values are passed as parameters.
+    *
+    * @param statement the query text without any pre-parser options
+    */
+  def isSafeToRemember(statement: String): Boolean =
+    !parser.parse(statement).treeExists {
+      case _: UnresolvedCall => true
+      case _: StringLiteral => true
+      case _: NumberLiteral => true
+    }
+
+  /**
+    * @return the queries in the file, the most frequently executed first
+    * @throws IOException if the file is torn or not a file of remembered queries
+    */
+  def read(fs: FileSystemAbstraction, file: File): Seq[String] = {
+    if (!fs.fileExists(file))
+      return Seq.empty
+
+    var remaining = fs.getFileSize(file)
+    val in = new DataInputStream(new BufferedInputStream(fs.openAsInputStream(file)))
+    try {
+      val count = in.readInt()
+      remaining -= 4
+      // every query takes at least the four bytes of its length
+      if (count < 0 || count > remaining / 4)
+        throw new IOException(s"$file cannot hold $count queries in $remaining bytes")
+      val queries = new Array[String](count)
+      for (i <- queries.indices) {
+        val length = in.readInt()
+        remaining -= 4
+        if (length < 0 || length > remaining)
+          throw new IOException(s"$file cannot hold a query of $length bytes in the remaining $remaining bytes")
+        val bytes = new Array[Byte](length)
+        in.readFully(bytes)
+        remaining -= length
+        queries(i) = new String(bytes, UTF_8)
+      }
+      queries
+    } finally {
+      in.close()
+    }
+  }
+
+  def write(fs: FileSystemAbstraction, file: File, queries: Seq[String]): Unit = {
+    val temporary = new File(file.getParentFile, file.getName + ".tmp")
+    val out = new DataOutputStream(new BufferedOutputStream(fs.openAsOutputStream(temporary, false)))
+    try {
+      out.writeInt(queries.size)
+      queries.foreach { query =>
+        val bytes = query.getBytes(UTF_8)
+        out.writeInt(bytes.length)
+        out.write(bytes)
+      }
+    } finally {
+      out.close()
+    }
+    fs.renameFile(temporary, file, REPLACE_EXISTING)
+  }
+}
@@ -24,13 +24,26 @@ import org.neo4j.cypher.internal.compiler.v3_4.{CacheCheckResult, FineToReuse, N
 trait CacheAccessor[K <: AnyRef, T <: AnyRef] {
   def getOrElseUpdate(cache: LFUCache[K, T])(key: K, f: => T): T
   def put(cache: LFUCache[K, T])(key: K, value: T, userKey: String, secondsSinceReplan: Int): T
+  def replace(cache: LFUCache[K, T])(key: K, stale: T, value: T, userKey: String, secondsSinceReplan: Int): Boolean
 }
 
 trait PlanProducer[T] {
   def produceWithExistingTX: T
 }
 
-class QueryCache[K <: AnyRef, T <: AnyRef](cacheAccessor: CacheAccessor[K, T], cache: LFUCache[K, T]) {
+/**
+  * Produces replacements for stale plans outside of the transaction of the query that found them to be stale.
+  */
+trait Replanner[T] {
+  /**
+    * Plans the query again at some later point, and hands the new plan to `install`. Does nothing if the query is
+    * already being re-planned.
+    */
+  def replan(userKey: String, install: T => Unit): Unit
+}
+
+class QueryCache[K <: AnyRef, T <: AnyRef](cacheAccessor: CacheAccessor[K, T], cache: LFUCache[K, T],
+                                           replanner: Option[Replanner[T]] = None) {
   def getOrElseUpdate(key: K, userKey: String, checkPlanStillValid: T => CacheCheckResult, produce: PlanProducer[T]): (T, Boolean) = {
     if (cache.size == 0)
       (produce.produceWithExistingTX, false)
@@ -46,6 +59,10 @@ class QueryCache[K <: AnyRef, T <: AnyRef](cacheAccessor: CacheAccessor[K, T], c
       else {
         // We found a matching plan in the cache. let's make sure it's OK to use again.
         checkPlanStillValid(plan) match {
+          case NeedsReplan(secondsSinceReplan) if replanner.isDefined =>
+            // Keep using the stale plan until its replacement is ready, instead of making this query wait for it
+            replanner.get.replan(userKey, newPlan => cacheAccessor.replace(cache)(key, plan, newPlan, userKey, secondsSinceReplan))
+            (plan, false)
           case NeedsReplan(secondsSinceReplan) =>
             val newPlan = produce.produceWithExistingTX
             cacheAccessor.put(cache)(key, newPlan, userKey, secondsSinceReplan)
@@ -81,4 +98,12 @@ class MonitoringCacheAccessor[K <: AnyRef, T <: AnyRef](monitor: CypherCacheHitM
     monitor.cacheDiscard(key, userKey, secondsSinceReplan)
     value
   }
+
+  override def replace(cache: LFUCache[K, T])(key: K, stale: T, value: T, userKey: String, secondsSinceReplan: Int): Boolean = {
+    // the cache may have been flushed, or the plan replaced already, while the replacement was being planned
+    val replaced = cache.replace(key, stale, value)
+    if (replaced)
+      monitor.cacheDiscard(key, userKey, secondsSinceReplan)
+    replaced
+  }
 }
@@ -23,6 +23,8 @@ import java.util.function.Function
 
 import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
 
+import scala.collection.JavaConverters._
+
 class LFUCache[K <: AnyRef, V <: AnyRef](val size: Int) extends ((K, => V) => V) {
 
   val inner: Cache[K, V] = Caffeine.newBuilder().maximumSize(size).build[K, V]()
@@ -43,10 +45,25 @@ class LFUCache[K <: AnyRef, V <: AnyRef](val size: Int) extends ((K, => V) => V)
 
   def remove(key: K): Option[V] = Option(inner.asMap().remove(key))
 
+  /**
+    * Replaces the value of the key, but only if it still is `oldValue`.
+    * @return true if the value was replaced
+    */
+  def replace(key: K, oldValue: V, newValue: V): Boolean = inner.asMap().replace(key, oldValue, newValue)
+
   def containsKey(key: K) = inner.asMap().containsKey(key)
 
   def apply(key: K, value: => V): V = getOrElseUpdate(key, value)
 
+  /**
+    * @return at most `limit` keys, the most frequently used first
+    */
+  def hottest(limit: Int): Seq[K] = {
+    val eviction = inner.policy().eviction()
+    if (eviction.isPresent) eviction.get().hottest(limit).keySet().asScala.toIndexedSeq
+    else IndexedSeq.empty
+  }
+
   /**
     * Method for clearing the LRUCache
     * @return the number of elements in the cache prior to the clearing
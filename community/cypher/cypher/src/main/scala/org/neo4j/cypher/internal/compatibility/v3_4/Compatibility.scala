@@ -29,10 +29,11 @@ import org.neo4j.cypher.internal.compatibility.v3_4.runtime._
 import org.neo4j.cypher.internal.compatibility.v3_4.runtime.executionplan.{ExecutionPlan => ExecutionPlan_v3_4}
 import org.neo4j.cypher.internal.compatibility.v3_4.runtime.helpers.simpleExpressionEvaluator
 import org.neo4j.cypher.internal.compatibility.v3_4.runtime.phases.CompilationState
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.profiler.CardinalitySampler
 import org.neo4j.cypher.internal.compiler.v3_4
 import org.neo4j.cypher.internal.compiler.v3_4._
 import org.neo4j.cypher.internal.compiler.v3_4.phases.LogicalPlanState
-import org.neo4j.cypher.internal.compiler.v3_4.planner.logical.{CachedMetricsFactory, SimpleMetricsFactory}
+import org.neo4j.cypher.internal.compiler.v3_4.planner.logical.{CachedMetricsFactory, CardinalityFeedback, CardinalityFeedbackMetricsFactory, MetricsFactory, SimpleMetricsFactory}
 import org.neo4j.cypher.internal.frontend.v3_4.ast.Statement
 import org.neo4j.cypher.internal.frontend.v3_4.helpers.rewriting.RewriterStepSequencer
 import org.neo4j.cypher.internal.frontend.v3_4.phases._
@@ -83,6 +84,12 @@ case class Compatibility[CONTEXT <: CommunityRuntimeContext,
     new CypherCompilerFactory().costBasedCompiler(config, clock, monitors, rewriterSequencer,
       maybePlannerNameV3_4, maybeUpdateStrategy, contextCreatorV3_4)
 
+  private val metricsFactory: MetricsFactory =
+    if (CardinalitySampler.ENABLED)
+      CardinalityFeedbackMetricsFactory(CachedMetricsFactory(SimpleMetricsFactory), new CardinalityFeedback(CardinalitySampler.MAX_QUERIES))
+    else
+      CachedMetricsFactory(SimpleMetricsFactory)
+
   private def queryGraphSolver = LatestRuntimeVariablePlannerCompatibility.
     createQueryGraphSolver(maybePlannerNameV3_4.getOrElse(CostBasedPlannerName.default), monitors, config)
 
@@ -110,7 +117,7 @@ case class Compatibility[CONTEXT <: CommunityRuntimeContext,
         val context = contextCreatorV3_4.create(planningTracer, notificationLogger, planContext,
                                                         syntacticQuery.queryText, preParsedQuery.debugOptions,
                                                         Some(preParsedQuery.offset), monitors,
-                                                        CachedMetricsFactory(SimpleMetricsFactory), queryGraphSolver,
+                                                        metricsFactory, queryGraphSolver,
                                                         config, maybeUpdateStrategy.getOrElse(defaultUpdateStrategy),
                                                         clock, logicalPlanIdGen, simpleExpressionEvaluator)
         //Prepare query for caching
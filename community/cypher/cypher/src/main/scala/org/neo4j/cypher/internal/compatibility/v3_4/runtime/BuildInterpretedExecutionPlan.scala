@@ -21,8 +21,9 @@ package org.neo4j.cypher.internal.compatibility.v3_4.runtime
 
 import org.neo4j.cypher.internal.compatibility.v3_4.runtime.executionplan._
 import org.neo4j.cypher.internal.compatibility.v3_4.runtime.phases.CompilationState
-import org.neo4j.cypher.internal.compatibility.v3_4.runtime.profiler.Profiler
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.profiler.{CardinalitySampler, Profiler}
 import org.neo4j.cypher.internal.compiler.v3_4.phases._
+import org.neo4j.cypher.internal.compiler.v3_4.planner.logical.CardinalityFeedbackModel
 import org.neo4j.cypher.internal.frontend.v3_4.PlannerName
 import org.neo4j.cypher.internal.frontend.v3_4.phases.CompilationPhaseTracer.CompilationPhase.PIPE_BUILDING
 import org.neo4j.cypher.internal.frontend.v3_4.phases.{InternalNotificationLogger, Phase}
@@ -30,7 +31,7 @@ import org.neo4j.cypher.internal.planner.v3_4.spi.GraphStatistics
 import org.neo4j.cypher.internal.planner.v3_4.spi.PlanningAttributes.{Cardinalities, ReadOnlies}
 import org.neo4j.cypher.internal.runtime.interpreted.UpdateCountingQueryContext
 import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.{CommunityExpressionConverter, ExpressionConverters}
-import org.neo4j.cypher.internal.runtime.{ExecutionMode, InternalExecutionResult, ProfileMode, QueryContext}
+import org.neo4j.cypher.internal.runtime.{ExecutionMode, InternalExecutionResult, NormalMode, ProfileMode, QueryContext}
 import org.neo4j.cypher.internal.util.v3_4.PeriodicCommitInOpenTransactionException
 import org.neo4j.cypher.internal.v3_4.logical.plans.{IndexUsage, LogicalPlan}
 import org.neo4j.values.virtual.MapValue
@@ -57,25 +58,41 @@ object BuildInterpretedExecutionPlan extends Phase[CommunityRuntimeContext, Logi
     val PipeInfo(pipe, updating, periodicCommitInfo, fp, planner) = pipeInfo
     val columns = from.statement().returnColumns
     val resultBuilderFactory = new InterpretedExecutionResultBuilderFactory(pipeInfo, columns, logicalPlan)
+    val fingerprint = context.createFingerprintReference(fp)
+    val sampler = cardinalitySampler(from, logicalPlan, context, fingerprint)
     val func = getExecutionPlanFunction(periodicCommitInfo, updating, resultBuilderFactory,
-                                        context.notificationLogger, InterpretedRuntimeName, readOnlies, cardinalities)
+                                        context.notificationLogger, InterpretedRuntimeName, readOnlies, cardinalities,
+                                        sampler)
 
     val execPlan: ExecutionPlan = new InterpretedExecutionPlan(func,
       logicalPlan,
       periodicCommitInfo.isDefined,
       planner,
-      context.createFingerprintReference(fp))
+      fingerprint)
 
     new CompilationState(from, Success(execPlan))
   }
 
+  /**
+    * Samples the row counts of plans built by a planner that takes them into account.
+    */
+  def cardinalitySampler(from: LogicalPlanState, logicalPlan: LogicalPlan, context: CommunityRuntimeContext,
+                         fingerprint: PlanFingerprintReference): Option[CardinalitySampler] =
+    context.metrics.cardinality match {
+      case model: CardinalityFeedbackModel =>
+        CardinalitySampler(logicalPlan, from.solveds, from.cardinalities, model, fingerprint)
+      case _ =>
+        None
+    }
+
   def getExecutionPlanFunction(periodicCommit: Option[PeriodicCommitInfo],
                                updating: Boolean,
                                resultBuilderFactory: ExecutionResultBuilderFactory,
                                notificationLogger: InternalNotificationLogger,
                                runtimeName: RuntimeName,
                                readOnlies: ReadOnlies,
-                               cardinalities: Cardinalities):
+                               cardinalities: Cardinalities,
+                               sampler: Option[CardinalitySampler] = None):
   (QueryContext, ExecutionMode, MapValue) => InternalExecutionResult =
     (queryContext: QueryContext, planType: ExecutionMode, params: MapValue) => {
       val builder = resultBuilderFactory.create()
@@ -93,6 +110,8 @@ object BuildInterpretedExecutionPlan extends Phase[CommunityRuntimeContext, Logi
 
       if (profiling)
         builder.setPipeDecorator(new Profiler(queryContext.transactionalContext.databaseInfo))
+      else if (planType == NormalMode)
+        sampler.flatMap(_.nextSample()).foreach(builder.setPipeDecorator)
 
       builder.build(planType, params, notificationLogger, runtimeName, readOnlies, cardinalities)
     }
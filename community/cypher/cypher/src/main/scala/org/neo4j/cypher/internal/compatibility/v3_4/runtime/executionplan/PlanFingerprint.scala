@@ -33,7 +33,24 @@ case class PlanFingerprint(creationTimeMillis: Long, lastCheckTimeMillis: Long,
 class PlanFingerprintReference(clock: Clock, divergence: StatsDivergenceCalculator,
                                private var fingerprint: Option[PlanFingerprint]) {
 
+  private val creationTimeMillis = clock.millis()
+  @volatile private var misestimated = false
+
+  /**
+    * Executing the plan has shown that its cardinality estimates are far off. It will be replanned once the minimum
+    * replan interval has passed, so that plans of queries with varying row counts are not replanned all the time.
+    */
+  def markMisestimated(): Unit = misestimated = true
+
   def checkPlanReusability(lastCommittedTxId: () => Long, statistics: GraphStatistics): CacheCheckResult = {
+    lazy val currentTimeMillis = clock.millis()
+    if (misestimated && divergence.shouldCheck(currentTimeMillis, creationTimeMillis))
+      NeedsReplan(((currentTimeMillis - creationTimeMillis) / 1000).toInt)
+    else
+      checkStatistics(lastCommittedTxId, statistics)
+  }
+
+  private def checkStatistics(lastCommittedTxId: () => Long, statistics: GraphStatistics): CacheCheckResult = {
     fingerprint.fold[CacheCheckResult](FineToReuse) { f =>
       lazy val currentTimeMillis = clock.millis()
       lazy val currentTxId = lastCommittedTxId()
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compatibility.v3_4.runtime.profiler
+
+import java.util.concurrent.atomic.AtomicLong
+
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.executionplan.PlanFingerprintReference
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.profiler.CardinalitySampler.CountedOperator
+import org.neo4j.cypher.internal.compiler.v3_4.planner.logical.{CardinalityFeedback, CardinalityFeedbackModel}
+import org.neo4j.cypher.internal.ir.v3_4.PlannerQuery
+import org.neo4j.cypher.internal.planner.v3_4.spi.PlanningAttributes.{Cardinalities, Solveds}
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{NullPipeDecorator, Pipe, PipeDecorator, QueryState}
+import org.neo4j.cypher.internal.runtime.planDescription.InternalPlanDescription
+import org.neo4j.cypher.internal.util.v3_4.Cardinality
+import org.neo4j.cypher.internal.util.v3_4.attribution.Id
+import org.neo4j.cypher.internal.v3_4.logical.plans._
+import org.neo4j.util.FeatureToggles
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+  * Counts the rows produced by the operators of a plan during a sample of its executions, and feeds them back to the
+  * planner as the observed cardinalities of the queries those operators solved. A plan whose counts turn out to be
+  * far off its estimates is marked for replanning, so that repeatedly executed queries converge on plans built from
+  * what was observed.
+  *
+  * Only operators that are executed once per query, and run to completion, are counted. That excludes everything on
+  * the right hand side of applies and joins, and everything below a limit. Of those, only operators whose estimate
+  * the feedback can replace are counted, under the query the cardinality model was asked about. Counting any other
+  * operator would mark its plan as misestimated after every replanning.
+  */
+class CardinalitySampler(root: Id,
+                         operators: IndexedSeq[CountedOperator],
+                         feedback: CardinalityFeedback,
+                         fingerprint: PlanFingerprintReference,
+                         sampleInterval: Int) {
+
+  private val executions = new AtomicLong()
+  private val offsets: Map[Id, Int] = operators.map(_.id).zipWithIndex.toMap
+
+  /**
+    * @return a decorator counting the rows of this execution, if it is one of the sampled executions
+    */
+  def nextSample(): Option[PipeDecorator] =
+    if (executions.incrementAndGet() % sampleInterval == 0) Some(new RowCounter) else None
+
+  private def report(rows: Array[Long], executed: Array[Boolean]): Unit = {
+    var misestimated = false
+    var i = 0
+    while (i < operators.length) {
+      // some operators are folded into others by the runtime, and never show up on their own
+      if (executed(i)) {
+        val operator = operators(i)
+        feedback.record(operator.query, rows(i), operator.statisticsEstimate)
+        misestimated ||= CardinalitySampler.diverges(operator.cardinality.amount, rows(i))
+      }
+      i += 1
+    }
+    if (misestimated)
+      fingerprint.markMisestimated()
+  }
+
+  private class RowCounter extends PipeDecorator {
+    private val rows = new Array[Long](operators.length)
+    private val executed = new Array[Boolean](operators.length)
+    private var reported = false
+
+    override def decorate(pipe: Pipe, iter: Iterator[ExecutionContext]): Iterator[ExecutionContext] = {
+      val offset = offsets.getOrElse(pipe.id, -1)
+      if (offset < 0) iter
+      else new Iterator[ExecutionContext] {
+        executed(offset) = true
+
+        override def hasNext: Boolean = {
+          val hasNext = iter.hasNext
+          // the root is only exhausted once all counted operators below it are
+          if (!hasNext && pipe.id == root && !reported) {
+            reported = true
+            report(rows, executed)
+          }
+          hasNext
+        }
+
+        override def next(): ExecutionContext = {
+          rows(offset) += 1
+          iter.next()
+        }
+      }
+    }
+
+    override def decorate(pipe: Pipe, state: QueryState): QueryState = state
+
+    override def decorate(plan: () => InternalPlanDescription, verifyProfileReady: () => Unit): () => InternalPlanDescription = plan
+
+    override def innerDecorator(pipe: Pipe): PipeDecorator = NullPipeDecorator
+  }
+}
+
+object CardinalitySampler {
+
+  val ENABLED: Boolean = FeatureToggles.flag(classOf[CardinalitySampler], "enabled", false)
+  val SAMPLE_INTERVAL: Int = FeatureToggles.getInteger(classOf[CardinalitySampler], "sampleInterval", 100)
+  val MAX_QUERIES: Int = FeatureToggles.getInteger(classOf[CardinalitySampler], "maxQueries", 10000)
+
+  // Estimates within this factor of what was observed are good enough, and so are estimates of small row counts
+  private val DIVERGENCE_FACTOR = 10.0
+  private val MIN_ROWS = 100.0
+
+  def diverges(estimated: Double, rows: Long): Boolean = {
+    val larger = math.max(estimated, rows)
+    val smaller = math.max(math.min(estimated, rows), 1.0)
+    larger >= MIN_ROWS && larger / smaller > DIVERGENCE_FACTOR
+  }
+
+  /**
+    * @param query what the cardinality model was asked about for the operator
+    * @param cardinality what the cardinality model answered, which may already come from the feedback
+    * @param statisticsEstimate what the statistics alone estimated
+    */
+  case class CountedOperator(id: Id, query: PlannerQuery, cardinality: Cardinality, statisticsEstimate: Cardinality)
+
+  /**
+    * @param model the cardinality model the plan was planned with
+    * @return a sampler for the plan, unless it has nothing worth counting
+    */
+  def apply(plan: LogicalPlan, solveds: Solveds, cardinalities: Cardinalities,
+            model: CardinalityFeedbackModel, fingerprint: PlanFingerprintReference): Option[CardinalitySampler] = {
+    val operators = new ArrayBuffer[CountedOperator]
+    countedOperators(plan).foreach { operator =>
+      if (solveds.isDefinedAt(operator.id) && cardinalities.isDefinedAt(operator.id)) {
+        val query = solveds.get(operator.id)
+        val cardinality = cardinalities.get(operator.id)
+        // operators estimated under another query, or from the rows of another plan, are left out
+        model.replaceableEstimate(query, cardinality).foreach { estimate =>
+          operators += CountedOperator(operator.id, query, cardinality, estimate)
+        }
+      }
+    }
+    if (operators.isEmpty) None
+    else Some(new CardinalitySampler(plan.id, operators.toIndexedSeq, model.feedback, fingerprint, SAMPLE_INTERVAL))
+  }
+
+  private def countedOperators(plan: LogicalPlan): Seq[LogicalPlan] = plan match {
+    // the operators below stop being pulled from once the limit is reached
+    case _: Limit => Seq(plan)
+    // both sides are read to the end, once
+    case _: Union => plan +: (countedOperators(plan.lhs.get) ++ countedOperators(plan.rhs.get))
+    case _ => plan +: plan.lhs.map(countedOperators).getOrElse(Seq.empty)
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal
+
+import org.mockito.ArgumentMatchers.{any, anyInt, anyLong, anyString, same}
+import org.mockito.Mockito.{never, times, verify}
+import org.neo4j.cypher.internal.compatibility.{LFUCache, MonitoringCacheAccessor, PlanProducer, QueryCache}
+import org.neo4j.cypher.internal.compiler.v3_4.{FineToReuse, NeedsReplan}
+import org.neo4j.cypher.internal.util.v3_4.test_helpers.CypherFunSuite
+import org.neo4j.logging.NullLog
+import org.neo4j.scheduler.JobScheduler
+import org.neo4j.scheduler.JobScheduler.Groups
+
+import scala.collection.JavaConverters._
+
+class BackgroundReplannerTest extends CypherFunSuite {
+
+  private val scheduler = mock[JobScheduler]
+  private val monitor = mock[StringCacheMonitor]
+
+  test("should keep using the stale plan until it has been re-planned") {
+    val replanner = new BackgroundReplanner[String](scheduler, 2, monitor, NullLog.getInstance)(query => s"new $query")
+    val cache = new QueryCache(new MonitoringCacheAccessor[String, String](monitor), new LFUCache[String, String](10), Some(replanner))
+    cache.getOrElseUpdate("key", "q", _ => FineToReuse, producer("old q")) should equal(("old q", true))
+
+    cache.getOrElseUpdate("key", "q", _ => NeedsReplan(1), producer("unexpected")) should equal(("old q", false))
+    cache.getOrElseUpdate("key", "q", _ => NeedsReplan(1), producer("unexpected")) should equal(("old q", false))
+    runScheduledJobs(1)
+
+    cache.getOrElseUpdate("key", "q", _ => FineToReuse, producer("unexpected")) should equal(("new q", false))
+    verify(monitor).cacheDiscard("key", "q", 1)
+    verify(monitor).backgroundReplanCompleted(same("q"), anyLong())
+  }
+
+  test("should not replace a plan that was replaced while re-planning") {
+    val replanner = new BackgroundReplanner[String](scheduler, 2, monitor, NullLog.getInstance)(query => s"new $query")
+    val lfuCache = new LFUCache[String, String](10)
+    val cache = new QueryCache(new MonitoringCacheAccessor[String, String](monitor), lfuCache, Some(replanner))
+    cache.getOrElseUpdate("key", "q", _ => FineToReuse, producer("old q"))
+    cache.getOrElseUpdate("key", "q", _ => NeedsReplan(1), producer("unexpected"))
+
+    lfuCache.put("key", "other q")
+    runScheduledJobs(1)
+
+    lfuCache.get("key") should equal(Some("other q"))
+    verify(monitor, never()).cacheDiscard(anyString(), anyString(), anyInt())
+  }
+
+  test("should re-plan a query only once at a time") {
+    val replanner = new BackgroundReplanner[String](scheduler, 2, monitor, NullLog.getInstance)(query => query)
+
+    replanner.replan("q", _ => ())
+    replanner.replan("q", _ => ())
+    runScheduledJobs(1)
+    replanner.replan("q", _ => ())
+
+    verify(scheduler, times(2)).schedule(same(Groups.cypherReplanning), any[Runnable]())
+  }
+
+  test("should not re-plan more queries at a time than allowed") {
+    val replanner = new BackgroundReplanner[String](scheduler, 1, monitor, NullLog.getInstance)(query => query)
+
+    replanner.replan("q1", _ => ())
+    replanner.replan("q2", _ => ())
+    runScheduledJobs(1)
+    replanner.replan("q2", _ => ())
+
+    verify(scheduler, times(2)).schedule(same(Groups.cypherReplanning), any[Runnable]())
+  }
+
+  test("should try again after failing to re-plan") {
+    val replanner = new BackgroundReplanner[String](scheduler, 1, monitor, NullLog.getInstance)(
+      _ => throw new IllegalStateException("no planning today"))
+    var installed = false
+
+    replanner.replan("q", _ => installed = true)
+    runScheduledJobs(1)
+    replanner.replan("q", _ => installed = true)
+
+    installed should be(false)
+    verify(scheduler, times(2)).schedule(same(Groups.cypherReplanning), any[Runnable]())
+  }
+
+  private def producer(plan: String) = new PlanProducer[String] {
+    override def produceWithExistingTX: String = plan
+  }
+
+  private def runScheduledJobs(count: Int): Unit = {
+    val jobs = argCaptor[Runnable]
+    verify(scheduler, times(count)).schedule(same(Groups.cypherReplanning), jobs.capture())
+    jobs.getAllValues.asScala.foreach(_.run())
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal
+
+import java.io.{File, IOException}
+import java.time.Clock
+import java.util.concurrent.TimeUnit
+
+import org.mockito.ArgumentMatchers.{any, anyLong, anyString, same}
+import org.mockito.Mockito.{never, verify, when}
+import org.neo4j.cypher.internal.util.v3_4.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction
+import org.neo4j.kernel.AvailabilityGuard
+import org.neo4j.kernel.AvailabilityGuard.availabilityRequirement
+import org.neo4j.logging.{Log, NullLog}
+import org.neo4j.scheduler.JobScheduler
+import org.neo4j.scheduler.JobScheduler.{Groups, JobHandle}
+
+class QueryCacheWarmupTest extends CypherFunSuite {
+
+  private val fs = new EphemeralFileSystemAbstraction
+  private val file = new File("db", QueryCacheWarmup.FILE_NAME)
+
+  override protected def afterEach() {
+    fs.close()
+    super.afterEach()
+  }
+
+  test("should read back the written queries in order") {
+    fs.mkdirs(file.getParentFile)
+    val queries = Seq("MATCH (n) RETURN n", "MATCH (n:Person {name: $name})\nRETURN n.åäö", "RETURN 1")
+
+    QueryCacheWarmup.write(fs, file, queries)
+
+    QueryCacheWarmup.read(fs, file) should equal(queries)
+  }
+
+  test("should replace previously written queries") {
+    fs.mkdirs(file.getParentFile)
+    QueryCacheWarmup.write(fs, file, Seq("RETURN 1", "RETURN 2"))
+
+    QueryCacheWarmup.write(fs, file, Seq("RETURN 3"))
+
+    QueryCacheWarmup.read(fs, file) should equal(Seq("RETURN 3"))
+  }
+
+  test("should not remember anything without a file") {
+    QueryCacheWarmup.read(fs, file) should be(empty)
+  }
+
+  test("should reject a truncated file") {
+    writeBytes(0, 0, 0, 2, 0, 0)
+
+    an[IOException] should be thrownBy QueryCacheWarmup.read(fs, file)
+  }
+
+  test("should reject a file with a negative number of queries") {
+    writeBytes(-1, -1, -1, -1)
+
+    an[IOException] should be thrownBy QueryCacheWarmup.read(fs, file)
+  }
+
+  test("should reject a query longer than the file") {
+    writeBytes(0, 0, 0, 1, 127, -1, -1, -1, 0)
+
+    an[IOException] should be thrownBy QueryCacheWarmup.read(fs, file)
+  }
+
+  test("should only remember queries that cannot carry secrets") {
+    QueryCacheWarmup.isSafeToRemember("MATCH (n:Person {name: $name}) RETURN n") should be(true)
+    QueryCacheWarmup.isSafeToRemember("MATCH (n:Person {name: 'Alice'}) RETURN n") should be(false)
+    QueryCacheWarmup.isSafeToRemember("MATCH (n) RETURN n LIMIT 10") should be(false)
+    QueryCacheWarmup.isSafeToRemember("CALL dbms.security.changePassword($password)") should be(false)
+  }
+
+  test("should log a corrupt file and start with an empty query cache") {
+    writeBytes(0, 0, 0, 2, 0, 0)
+    val log = mock[Log]
+    val scheduler = schedulerWithHandle(mock[JobHandle])
+
+    warmup(scheduler, new AvailabilityGuard(Clock.systemUTC(), NullLog.getInstance), log).start()
+
+    verify(log).warn(anyString(), any[Throwable]())
+    verify(scheduler, never()).schedule(same(Groups.cypherQueryCacheWarmup), any[Runnable]())
+  }
+
+  test("should plan the remembered queries once the database is available") {
+    fs.mkdirs(file.getParentFile)
+    QueryCacheWarmup.write(fs, file, Seq("RETURN $x"))
+    val scheduler = schedulerWithHandle(mock[JobHandle])
+    val availability = new AvailabilityGuard(Clock.systemUTC(), NullLog.getInstance)
+    val requirement = availabilityRequirement("starting")
+    availability.require(requirement)
+
+    warmup(scheduler, availability, NullLog.getInstance).start()
+    verify(scheduler, never()).schedule(same(Groups.cypherQueryCacheWarmup), any[Runnable]())
+
+    availability.fulfill(requirement)
+    verify(scheduler).schedule(same(Groups.cypherQueryCacheWarmup), any[Runnable]())
+  }
+
+  test("should stop recording when the database becomes unavailable") {
+    val recording = mock[JobHandle]
+    val scheduler = schedulerWithHandle(recording)
+    val availability = new AvailabilityGuard(Clock.systemUTC(), NullLog.getInstance)
+
+    warmup(scheduler, availability, NullLog.getInstance).start()
+    verify(scheduler).scheduleRecurring(same(Groups.cypherQueryCacheWarmup), any[Runnable](), anyLong(), anyLong(),
+                                        same(TimeUnit.MILLISECONDS))
+
+    availability.shutdown()
+    verify(recording).cancel(false)
+  }
+
+  private def warmup(scheduler: JobScheduler, availability: AvailabilityGuard, log: Log) =
+    new QueryCacheWarmup(fs, file, 10, 1, 1000, scheduler, availability, log)(_ => Seq.empty, _ => ())
+
+  private def schedulerWithHandle(handle: JobHandle): JobScheduler = {
+    val scheduler = mock[JobScheduler]
+    when(scheduler.schedule(any[JobScheduler.Group](), any[Runnable]())).thenReturn(handle)
+    when(scheduler.scheduleRecurring(any[JobScheduler.Group](), any[Runnable](), anyLong(), anyLong(),
+                                     any[TimeUnit]())).thenReturn(handle)
+    scheduler
+  }
+
+  private def writeBytes(bytes: Byte*): Unit = {
+    fs.mkdirs(file.getParentFile)
+    val out = fs.openAsOutputStream(file, false)
+    out.write(bytes.toArray)
+    out.close()
+  }
+}
@@ -48,4 +48,16 @@ class LFUCacheTest extends CypherFunSuite {
     cache.get("D").isEmpty should be (true)
     cache.get("E").isEmpty should be (true)
   }
+
+  test("should list the hottest keys within the limit") {
+    val cache = new LFUCache[String, String](5)
+
+    cache.put("A","A")
+    cache.put("B","B")
+    cache.put("C","C")
+
+    cache.hottest(10).toSet should equal(Set("A", "B", "C"))
+    cache.hottest(2) should have size 2
+    cache.hottest(0) should be(empty)
+  }
 }
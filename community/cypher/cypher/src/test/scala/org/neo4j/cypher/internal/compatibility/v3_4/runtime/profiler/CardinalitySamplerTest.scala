@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compatibility.v3_4.runtime.profiler
+
+import org.mockito.Mockito.{never, verify}
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.executionplan.PlanFingerprintReference
+import org.neo4j.cypher.internal.compiler.v3_4.planner.logical.Metrics.{CardinalityModel, QueryGraphSolverInput}
+import org.neo4j.cypher.internal.compiler.v3_4.planner.logical.{CardinalityFeedback, CardinalityFeedbackModel}
+import org.neo4j.cypher.internal.frontend.v3_4.semantics.SemanticTable
+import org.neo4j.cypher.internal.ir.v3_4.{PlannerQuery, QueryGraph, RegularPlannerQuery}
+import org.neo4j.cypher.internal.planner.v3_4.spi.PlanningAttributes.{Cardinalities, Solveds}
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{ArgumentPipe, PipeDecorator}
+import org.neo4j.cypher.internal.util.v3_4.attribution.SequentialIdGen
+import org.neo4j.cypher.internal.util.v3_4.{Cardinality, InputPosition}
+import org.neo4j.cypher.internal.util.v3_4.test_helpers.CypherFunSuite
+import org.neo4j.cypher.internal.v3_4.expressions.SignedDecimalIntegerLiteral
+import org.neo4j.cypher.internal.v3_4.logical.plans._
+
+class CardinalitySamplerTest extends CypherFunSuite {
+
+  private implicit val idGen = new SequentialIdGen()
+  private var fingerprint: PlanFingerprintReference = _
+  private var feedback: CardinalityFeedback = _
+
+  override protected def beforeEach(): Unit = {
+    super.beforeEach()
+    fingerprint = mock[PlanFingerprintReference]
+    feedback = new CardinalityFeedback(100)
+  }
+
+  test("should feed back the row counts of every sampled execution") {
+    val plan = Apply(AllNodesScan("a", Set.empty), AllNodesScan("b", Set("a")))
+    val sampler = samplerFor(plan, estimate = 1000)
+
+    sampler.nextSample() should be(None)
+    val decorator = sample(sampler)
+
+    execute(decorator, plan.left, 1000)
+    execute(decorator, plan, 1000)
+
+    feedback.observed(query("a"), Cardinality(1000)) should equal(Some(Cardinality(1000)))
+    feedback.observed(query("apply"), Cardinality(1000)) should equal(Some(Cardinality(1000)))
+    verify(fingerprint, never()).markMisestimated()
+  }
+
+  test("should mark plans with estimates far off the row counts") {
+    val plan = Apply(AllNodesScan("a", Set.empty), AllNodesScan("b", Set("a")))
+    val sampler = samplerFor(plan, estimate = 10)
+    val decorator = sample(sampler)
+
+    execute(decorator, plan.left, 1000)
+    execute(decorator, plan, 1000)
+
+    verify(fingerprint).markMisestimated()
+  }
+
+  test("should not feed back executions that were not read to the end") {
+    val plan = AllNodesScan("a", Set.empty)
+    val sampler = samplerFor(plan, estimate = 10)
+    val decorator = sample(sampler)
+
+    val rows = decorator.decorate(ArgumentPipe()(plan.id), Iterator.fill(1000)(ExecutionContext.empty))
+    rows.take(10).foreach(identity)
+
+    feedback.observed(query("a"), Cardinality(10)) should equal(None)
+    verify(fingerprint, never()).markMisestimated()
+  }
+
+  test("should not count operators that are not read to the end once per execution") {
+    val rhs = AllNodesScan("b", Set("a"))
+    val limited = AllNodesScan("c", Set.empty)
+    val plan = Apply(Limit(limited, SignedDecimalIntegerLiteral("1")(InputPosition.NONE), DoNotIncludeTies), rhs)
+    val sampler = samplerFor(plan, estimate = 1)
+    val decorator = sample(sampler)
+
+    execute(decorator, limited, 5)
+    execute(decorator, rhs, 5)
+    execute(decorator, plan.left, 1)
+    execute(decorator, plan, 5)
+
+    feedback.observed(query("limit"), Cardinality(1)) should equal(Some(Cardinality(1)))
+    feedback.observed(query("c"), Cardinality(1)) should equal(None)
+    feedback.observed(query("b"), Cardinality(1)) should equal(None)
+  }
+
+  test("should stop marking a plan once it has been replanned with the row counts") {
+    val plan = AllNodesScan("a", Set.empty)
+    val decorator = sample(samplerFor(plan, estimate = 10))
+    execute(decorator, plan, 1000)
+    verify(fingerprint).markMisestimated()
+
+    val replanned = AllNodesScan("a", Set.empty)
+    val replannedFingerprint = mock[PlanFingerprintReference]
+    val replannedDecorator = sample(samplerFor(replanned, estimate = 10, replannedFingerprint))
+    execute(replannedDecorator, replanned, 1000)
+
+    verify(replannedFingerprint, never()).markMisestimated()
+  }
+
+  test("should not count operators estimated under another query than they solved") {
+    val plan = AllNodesScan("a", Set.empty)
+    val model = new CardinalityFeedbackModel(statistics(10), feedback)
+    val solveds = new Solveds
+    val cardinalities = new Cardinalities
+    solveds.set(plan.id, query("a"))
+    // like an index seek, that is estimated with predicates it does not report as solved
+    cardinalities.set(plan.id, model(query("a", "b"), QueryGraphSolverInput.empty, new SemanticTable()))
+
+    CardinalitySampler(plan, solveds, cardinalities, model, fingerprint) should be(None)
+  }
+
+  test("should not count operators estimated from the rows of another plan") {
+    val plan = AllNodesScan("a", Set.empty)
+    val model = new CardinalityFeedbackModel(statistics(10), feedback)
+    val solveds = new Solveds
+    val cardinalities = new Cardinalities
+    solveds.set(plan.id, query("a"))
+    cardinalities.set(plan.id, model(query("a"), QueryGraphSolverInput.empty.copy(inboundCardinality = Cardinality(5)),
+                                     new SemanticTable()))
+
+    CardinalitySampler(plan, solveds, cardinalities, model, fingerprint) should be(None)
+  }
+
+  private def samplerFor(plan: LogicalPlan, estimate: Double,
+                         reference: PlanFingerprintReference = fingerprint): CardinalitySampler = {
+    // what planning does, one operator at a time
+    val model = new CardinalityFeedbackModel(statistics(estimate), feedback)
+    val solveds = new Solveds
+    val cardinalities = new Cardinalities
+    plan.flatten.foreach { operator =>
+      solveds.set(operator.id, query(name(operator)))
+      cardinalities.set(operator.id, model(query(name(operator)), QueryGraphSolverInput.empty, new SemanticTable()))
+    }
+    CardinalitySampler(plan, solveds, cardinalities, model, reference).get
+  }
+
+  private def statistics(estimate: Double): CardinalityModel =
+    (_: PlannerQuery, _: QueryGraphSolverInput, _: SemanticTable) => Cardinality(estimate)
+
+  private def sample(sampler: CardinalitySampler): PipeDecorator =
+    Iterator.continually(sampler.nextSample()).flatten.next()
+
+  private def name(plan: LogicalPlan): String = plan match {
+    case AllNodesScan(node, _) => node
+    case _: Limit => "limit"
+    case _ => "apply"
+  }
+
+  private def query(nodes: String*) = RegularPlannerQuery(QueryGraph(patternNodes = nodes.toSet))
+
+  private def execute(decorator: PipeDecorator, plan: LogicalPlan, rows: Int): Unit =
+    decorator.decorate(ArgumentPipe()(plan.id), Iterator.fill(rows)(ExecutionContext.empty)).foreach(identity)
+}
@@ -20,7 +20,7 @@
 package org.neo4j.cypher.internal.runtime.interpreted
 
 import org.neo4j.cypher.internal.planner.v3_4.spi.{GraphStatistics, IndexDescriptor, StatisticsCompletingGraphStatistics}
-import org.neo4j.cypher.internal.util.v3_4.{Cardinality, LabelId, RelTypeId, Selectivity}
+import org.neo4j.cypher.internal.util.v3_4.{Cardinality, LabelId, PropertyKeyId, RelTypeId, Selectivity}
 import org.neo4j.internal.kernel.api.{Read, SchemaRead}
 import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException
 import org.neo4j.kernel.impl.api.store.DefaultIndexReference
@@ -66,6 +66,18 @@ object TransactionBoundGraphStatistics {
     def cardinalityByLabelsAndRelationshipType(fromLabel: Option[LabelId], relTypeId: Option[RelTypeId], toLabel: Option[LabelId]): Cardinality =
       atLeastOne(read.countsForRelationshipWithoutTxState(fromLabel, relTypeId, toLabel))
 
+    override def nodesWithLabelsCardinality(labelId: LabelId, otherLabelId: LabelId): Option[Cardinality] =
+      ifKnown(read.countsForNodeWithLabelsWithoutTxState(labelId.id, otherLabelId.id))
+
+    override def nodesWithPropertyCardinality(labelId: LabelId, propertyKeyId: PropertyKeyId): Option[Cardinality] =
+      ifKnown(read.countsForNodeWithPropertyWithoutTxState(labelId.id, propertyKeyId.id))
+
+    override def cardinalityBetweenLabels(fromLabel: LabelId, relTypeId: Option[RelTypeId], toLabel: LabelId): Option[Cardinality] =
+      ifKnown(read.countsForRelationshipBetweenLabelsWithoutTxState(fromLabel.id, relTypeId.map(_.id).getOrElse(Read.ANY_RELATIONSHIP_TYPE), toLabel.id))
+
+    private def ifKnown(count: Long): Option[Cardinality] =
+      if (count == Read.UNKNOWN_COUNT) None else Some(atLeastOne(count))
+
     /**
       * Due to the way cardinality calculations work, zero is a bit dangerous, as it cancels out
       * any cost that it multiplies with. To avoid this pitfall, we determine that the least count
@@ -22,6 +22,7 @@ package org.neo4j.cypher.internal.runtime.interpreted.pipes
 import java.util.Comparator
 
 import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.spill.{MapRowSpillFormat, SpillingSorter}
 import org.neo4j.cypher.internal.util.v3_4.attribution.Id
 import org.neo4j.values.{AnyValue, AnyValues}
 
@@ -34,11 +35,10 @@ case class SortPipe(source: Pipe, orderBy: Seq[ColumnOrder])
     .map(new ExecutionContextOrdering(_))
     .reduceLeft[Comparator[ExecutionContext]]((a, b) => a.thenComparing(b))
 
-  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
-    val array = input.toArray
-    java.util.Arrays.sort(array, comparator)
-    array.toIterator
-  }
+  private val sorter = new SpillingSorter(comparator, MapRowSpillFormat)
+
+  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] =
+    sorter.sort(input, state.query.resources)
 }
 
 private class ExecutionContextOrdering(order: ColumnOrder) extends scala.Ordering[ExecutionContext] {
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.spill
+
+import java.util.function.BiConsumer
+
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.{ArrayValue, TextArray, TextValue}
+import org.neo4j.values.virtual._
+
+/**
+  * Rough estimates of how much heap the values of a row take, used to decide when a sort spills. They only need to
+  * tell small rows from large ones, so object headers and padding are not counted exactly.
+  */
+object EstimatedHeapSize {
+  private final val OBJECT = 16L
+  private final val REFERENCE = 8L
+
+  def of(value: AnyValue): Long = value match {
+    case null => 0
+    // Entities stay on heap when their row is spilled, see SpilledValueWriter, so spilling does not free them
+    case _: VirtualNodeValue | _: VirtualRelationshipValue | _: PathValue => REFERENCE
+    case text: TextValue => of(text.stringValue())
+    case texts: TextArray =>
+      var size = OBJECT + REFERENCE * texts.length()
+      var i = 0
+      while (i < texts.length()) {
+        size += of(texts.stringValue(i))
+        i += 1
+      }
+      size
+    case array: ArrayValue => OBJECT + REFERENCE * array.length()
+    case list: ListValue =>
+      var size = OBJECT + REFERENCE * list.size()
+      var i = 0
+      while (i < list.size()) {
+        size += of(list.value(i))
+        i += 1
+      }
+      size
+    case map: MapValue =>
+      var size = OBJECT
+      map.foreach(new BiConsumer[String, AnyValue] {
+        override def accept(key: String, element: AnyValue): Unit = size += 2 * REFERENCE + of(key) + of(element)
+      })
+      size
+    case _ => OBJECT + REFERENCE
+  }
+
+  def of(string: String): Long = OBJECT + 2L * string.length
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.spill
+
+import java.io.{DataInputStream, DataOutputStream}
+
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+
+/**
+  * Describes how the rows of a pipe are written to and read back from a spill file.
+  */
+trait RowSpillFormat[T] {
+  def write(row: T, out: DataOutputStream, values: SpilledValueWriter): Unit
+
+  def read(in: DataInputStream, values: SpilledValueReader): T
+
+  /**
+    * @return roughly how many bytes of heap the row takes, see [[EstimatedHeapSize]].
+    */
+  def estimatedHeapSize(row: T): Long
+}
+
+/**
+  * Rows of the interpreted runtime, which map variable names to values.
+  */
+object MapRowSpillFormat extends RowSpillFormat[ExecutionContext] {
+  override def write(row: ExecutionContext, out: DataOutputStream, values: SpilledValueWriter): Unit = {
+    out.writeInt(row.size)
+    row.foreach {
+      case (key, value) =>
+        out.writeUTF(key)
+        values.write(value)
+    }
+  }
+
+  override def read(in: DataInputStream, values: SpilledValueReader): ExecutionContext = {
+    val row = ExecutionContext.empty
+    var i = in.readInt()
+    while (i > 0) {
+      val key = in.readUTF()
+      row += key -> values.read()
+      i -= 1
+    }
+    row
+  }
+
+  override def estimatedHeapSize(row: ExecutionContext): Long = {
+    var size = 0L
+    row.foreach {
+      case (key, value) => size += EstimatedHeapSize.of(key) + EstimatedHeapSize.of(value)
+    }
+    size
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.spill
+
+import java.io.DataInputStream
+import java.nio.charset.StandardCharsets
+import java.time._
+
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.ValueWriter.ArrayType
+import org.neo4j.values.storable._
+import org.neo4j.values.virtual.VirtualValues
+
+/**
+  * Reads back values written by [[SpilledValueWriter]]. Nodes, relationships and paths are taken from the same
+  * `entities` that the writer kept them in.
+  */
+class SpilledValueReader(in: DataInputStream, entities: IndexedSeq[AnyValue]) {
+
+  import SpilledValues._
+
+  def read(): AnyValue = in.readByte().toInt match {
+    case NULL => Values.NO_VALUE
+    case TRUE => Values.TRUE
+    case FALSE => Values.FALSE
+    case BYTE => Values.byteValue(in.readByte())
+    case SHORT => Values.shortValue(in.readShort())
+    case INT => Values.intValue(in.readInt())
+    case LONG => Values.longValue(in.readLong())
+    case FLOAT => Values.floatValue(in.readFloat())
+    case DOUBLE => Values.doubleValue(in.readDouble())
+    case STRING => Values.stringValue(readText())
+    case CHAR => Values.charValue(in.readChar())
+    case ARRAY => readArray()
+    case BYTE_ARRAY =>
+      val bytes = new Array[Byte](in.readInt())
+      in.readFully(bytes)
+      Values.byteArray(bytes)
+    case POINT =>
+      val crs = CoordinateReferenceSystem.get(in.readInt())
+      val coordinate = Array.fill(in.readByte().toInt)(in.readDouble())
+      Values.pointValue(crs, coordinate: _*)
+    case DURATION => DurationValue.duration(in.readLong(), in.readLong(), in.readLong(), in.readInt())
+    case DATE => DateValue.date(LocalDate.ofEpochDay(in.readLong()))
+    case LOCAL_TIME => LocalTimeValue.localTime(in.readLong())
+    case TIME =>
+      val time = LocalTime.ofNanoOfDay(in.readLong())
+      TimeValue.time(OffsetTime.of(time, ZoneOffset.ofTotalSeconds(in.readInt())))
+    case LOCAL_DATE_TIME =>
+      LocalDateTimeValue.localDateTime(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC))
+    case DATE_TIME =>
+      val instant = Instant.ofEpochSecond(in.readLong(), in.readInt())
+      DateTimeValue.datetime(ZonedDateTime.ofInstant(instant, ZoneId.of(readText())))
+    case ENTITY => entities(in.readInt())
+    case MAP =>
+      val size = in.readInt()
+      val keys = new Array[String](size)
+      val values = new Array[AnyValue](size)
+      var i = 0
+      while (i < size) {
+        keys(i) = read().asInstanceOf[TextValue].stringValue()
+        values(i) = read()
+        i += 1
+      }
+      VirtualValues.map(keys, values)
+    case LIST => VirtualValues.list(readValues(in.readInt()): _*)
+    case ABSENT => null
+    case tag => throw new IllegalStateException(s"Unknown value tag $tag in spill file")
+  }
+
+  private def readArray(): AnyValue = {
+    val arrayType = ArrayType.values()(in.readByte())
+    val elements = readValues(in.readInt())
+    def objects[T: scala.reflect.ClassTag]: Array[T] = elements.map(_.asInstanceOf[Value].asObjectCopy().asInstanceOf[T])
+    def numbers = elements.map(_.asInstanceOf[NumberValue])
+
+    arrayType match {
+      case ArrayType.BYTE => Values.byteArray(numbers.map(_.longValue().toByte))
+      case ArrayType.SHORT => Values.shortArray(numbers.map(_.longValue().toShort))
+      case ArrayType.INT => Values.intArray(numbers.map(_.longValue().toInt))
+      case ArrayType.LONG => Values.longArray(numbers.map(_.longValue()))
+      case ArrayType.FLOAT => Values.floatArray(numbers.map(_.doubleValue().toFloat))
+      case ArrayType.DOUBLE => Values.doubleArray(numbers.map(_.doubleValue()))
+      case ArrayType.BOOLEAN => Values.booleanArray(elements.map(_.asInstanceOf[BooleanValue].booleanValue()))
+      case ArrayType.STRING => Values.stringArray(elements.map(_.asInstanceOf[TextValue].stringValue()): _*)
+      case ArrayType.CHAR => Values.charArray(elements.map(_.asInstanceOf[TextValue].stringValue().charAt(0)))
+      case ArrayType.POINT => Values.pointArray(elements.map(_.asInstanceOf[PointValue]))
+      case ArrayType.ZONED_DATE_TIME => Values.dateTimeArray(objects[ZonedDateTime])
+      case ArrayType.LOCAL_DATE_TIME => Values.localDateTimeArray(objects[LocalDateTime])
+      case ArrayType.DATE => Values.dateArray(objects[LocalDate])
+      case ArrayType.ZONED_TIME => Values.timeArray(objects[OffsetTime])
+      case ArrayType.LOCAL_TIME => Values.localTimeArray(objects[LocalTime])
+      case ArrayType.DURATION => Values.durationArray(elements.map(_.asInstanceOf[DurationValue]))
+    }
+  }
+
+  private def readValues(size: Int): Array[AnyValue] = {
+    val values = new Array[AnyValue](size)
+    var i = 0
+    while (i < size) {
+      values(i) = read()
+      i += 1
+    }
+    values
+  }
+
+  private def readText(): String = {
+    val bytes = new Array[Byte](in.readInt())
+    in.readFully(bytes)
+    new String(bytes, StandardCharsets.UTF_8)
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.spill
+
+import java.io.{DataOutputStream, IOException}
+import java.nio.charset.StandardCharsets
+import java.time._
+import java.util.function.BiConsumer
+
+import org.neo4j.values.{AnyValue, AnyValueWriter}
+import org.neo4j.values.storable.ValueWriter.ArrayType
+import org.neo4j.values.storable.{CoordinateReferenceSystem, TextArray, TextValue}
+import org.neo4j.values.virtual._
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+  * Writes values to a spill file. Every value starts with one of the tags in [[SpilledValues]], followed by its
+  * data. Nodes, relationships and paths are not written at all. They are added to `entities`, which stays on heap,
+  * and only their position in it goes to the file. Looking them up again by id would fail for entities that were
+  * deleted earlier in the same transaction, and would lose whatever the value already held.
+  */
+class SpilledValueWriter(out: DataOutputStream, entities: ArrayBuffer[AnyValue]) extends AnyValueWriter[IOException] {
+
+  import SpilledValues._
+
+  def write(value: AnyValue): Unit = value match {
+    // Slots that have not been assigned yet hold null, which is not the same as NO_VALUE
+    case null => out.writeByte(ABSENT)
+    case _: VirtualNodeValue | _: VirtualRelationshipValue | _: PathValue =>
+      out.writeByte(ENTITY)
+      out.writeInt(entities.size)
+      entities += value
+    // Lists and maps are walked here rather than in writeTo, so that the entities in them are kept as well
+    case list: ListValue =>
+      beginList(list.size())
+      var i = 0
+      while (i < list.size()) {
+        write(list.value(i))
+        i += 1
+      }
+    case map: MapValue =>
+      beginMap(map.size())
+      map.foreach(new BiConsumer[String, AnyValue] {
+        override def accept(key: String, element: AnyValue): Unit = {
+          writeString(key)
+          write(element)
+        }
+      })
+    case _ => value.writeTo(this)
+  }
+
+  override def writeNull(): Unit = out.writeByte(NULL)
+
+  override def writeBoolean(value: Boolean): Unit = out.writeByte(if (value) TRUE else FALSE)
+
+  override def writeInteger(value: Byte): Unit = {
+    out.writeByte(BYTE)
+    out.writeByte(value)
+  }
+
+  override def writeInteger(value: Short): Unit = {
+    out.writeByte(SHORT)
+    out.writeShort(value)
+  }
+
+  override def writeInteger(value: Int): Unit = {
+    out.writeByte(INT)
+    out.writeInt(value)
+  }
+
+  override def writeInteger(value: Long): Unit = {
+    out.writeByte(LONG)
+    out.writeLong(value)
+  }
+
+  override def writeFloatingPoint(value: Float): Unit = {
+    out.writeByte(FLOAT)
+    out.writeFloat(value)
+  }
+
+  override def writeFloatingPoint(value: Double): Unit = {
+    out.writeByte(DOUBLE)
+    out.writeDouble(value)
+  }
+
+  override def writeString(value: String): Unit = {
+    out.writeByte(STRING)
+    writeText(value)
+  }
+
+  override def writeString(value: Char): Unit = {
+    out.writeByte(CHAR)
+    out.writeChar(value)
+  }
+
+  override def beginArray(size: Int, arrayType: ArrayType): Unit = {
+    out.writeByte(ARRAY)
+    out.writeByte(arrayType.ordinal())
+    out.writeInt(size)
+  }
+
+  override def endArray(): Unit = {}
+
+  override def writeByteArray(value: Array[Byte]): Unit = {
+    out.writeByte(BYTE_ARRAY)
+    out.writeInt(value.length)
+    out.write(value)
+  }
+
+  override def writePoint(crs: CoordinateReferenceSystem, coordinate: Array[Double]): Unit = {
+    out.writeByte(POINT)
+    out.writeInt(crs.getCode)
+    out.writeByte(coordinate.length)
+    coordinate.foreach(out.writeDouble)
+  }
+
+  override def writeDuration(months: Long, days: Long, seconds: Long, nanos: Int): Unit = {
+    out.writeByte(DURATION)
+    out.writeLong(months)
+    out.writeLong(days)
+    out.writeLong(seconds)
+    out.writeInt(nanos)
+  }
+
+  override def writeDate(localDate: LocalDate): Unit = {
+    out.writeByte(DATE)
+    out.writeLong(localDate.toEpochDay)
+  }
+
+  override def writeLocalTime(localTime: LocalTime): Unit = {
+    out.writeByte(LOCAL_TIME)
+    out.writeLong(localTime.toNanoOfDay)
+  }
+
+  override def writeTime(offsetTime: OffsetTime): Unit = {
+    out.writeByte(TIME)
+    out.writeLong(offsetTime.toLocalTime.toNanoOfDay)
+    out.writeInt(offsetTime.getOffset.getTotalSeconds)
+  }
+
+  override def writeLocalDateTime(localDateTime: LocalDateTime): Unit = {
+    out.writeByte(LOCAL_DATE_TIME)
+    out.writeLong(localDateTime.toEpochSecond(ZoneOffset.UTC))
+    out.writeInt(localDateTime.getNano)
+  }
+
+  override def writeDateTime(zonedDateTime: ZonedDateTime): Unit = {
+    out.writeByte(DATE_TIME)
+    out.writeLong(zonedDateTime.toEpochSecond)
+    out.writeInt(zonedDateTime.getNano)
+    writeText(zonedDateTime.getZone.getId)
+  }
+
+  override def writeNodeReference(nodeId: Long): Unit = throw entitiesAreKeptOnHeap()
+
+  override def writeNode(nodeId: Long, labels: TextArray, properties: MapValue): Unit = throw entitiesAreKeptOnHeap()
+
+  override def writeRelationshipReference(relId: Long): Unit = throw entitiesAreKeptOnHeap()
+
+  override def writeRelationship(relId: Long, startNodeId: Long, endNodeId: Long, `type`: TextValue,
+                                 properties: MapValue): Unit = throw entitiesAreKeptOnHeap()
+
+  override def beginMap(size: Int): Unit = {
+    out.writeByte(MAP)
+    out.writeInt(size)
+  }
+
+  override def endMap(): Unit = {}
+
+  override def beginList(size: Int): Unit = {
+    out.writeByte(LIST)
+    out.writeInt(size)
+  }
+
+  override def endList(): Unit = {}
+
+  override def writePath(nodes: Array[NodeValue], relationships: Array[RelationshipValue]): Unit =
+    throw entitiesAreKeptOnHeap()
+
+  private def entitiesAreKeptOnHeap() =
+    new IllegalStateException("Nodes, relationships and paths are kept on heap, and never written to a spill file")
+
+  // writeUTF is limited to 64k, which is not enough for property values
+  private def writeText(value: String): Unit = {
+    val bytes = value.getBytes(StandardCharsets.UTF_8)
+    out.writeInt(bytes.length)
+    out.write(bytes)
+  }
+}
+
+object SpilledValues {
+  final val NULL = 0
+  final val TRUE = 1
+  final val FALSE = 2
+  final val BYTE = 3
+  final val SHORT = 4
+  final val INT = 5
+  final val LONG = 6
+  final val FLOAT = 7
+  final val DOUBLE = 8
+  final val STRING = 9
+  final val CHAR = 10
+  final val ARRAY = 11
+  final val BYTE_ARRAY = 12
+  final val POINT = 13
+  final val DURATION = 14
+  final val DATE = 15
+  final val LOCAL_TIME = 16
+  final val TIME = 17
+  final val LOCAL_DATE_TIME = 18
+  final val DATE_TIME = 19
+  final val ENTITY = 20
+  final val MAP = 21
+  final val LIST = 22
+  final val ABSENT = 23
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.spill
+
+import java.io._
+import java.nio.file.{Files, Path}
+import java.util.{Comparator, PriorityQueue}
+
+import org.neo4j.cypher.internal.runtime.CloseableResource
+import org.neo4j.cypher.internal.runtime.interpreted.ResourceManager
+import org.neo4j.util.FeatureToggles
+import org.neo4j.values.AnyValue
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ArrayBuffer
+
+/**
+  * Sorts rows with a bounded amount of them on heap. Input is buffered until the estimated size of the buffered rows
+  * reaches the limit, then the buffer is sorted and written to a temporary file as a run. Sizing runs by bytes rather
+  * than rows keeps sorts of wide rows, or rows holding long strings or lists, from using far more heap than others. Once all input is consumed, the runs and the rows still in
+  * memory are merged. Input that fits within the limit is sorted in memory, without touching the disk.
+  *
+  * Every run is traced by the resources of the query, so its file is closed and deleted when the query ends, even if
+  * the result is not consumed to the end. A run that has been read completely is released right away.
+  */
+class SpillingSorter[T <: AnyRef](comparator: Comparator[T],
+                                  format: RowSpillFormat[T],
+                                  bytesInMemory: Long = SpillingSorter.BYTES_IN_MEMORY) {
+
+  def sort(input: Iterator[T], resources: CloseableResource): Iterator[T] = {
+    val buffer = new java.util.ArrayList[T]()
+    val runs = new ArrayBuffer[SpilledRun]()
+    // Shared by all runs of this sort, see SpilledValueWriter
+    val entities = new ArrayBuffer[AnyValue]()
+    var bufferedBytes = 0L
+    try {
+      while (input.hasNext) {
+        val row = input.next()
+        buffer.add(row)
+        bufferedBytes += format.estimatedHeapSize(row)
+        if (bufferedBytes >= bytesInMemory) {
+          buffer.sort(comparator)
+          runs += spill(buffer, entities, resources)
+          buffer.clear()
+          bufferedBytes = 0
+        }
+      }
+    } catch {
+      case e: Throwable =>
+        runs.foreach(release(_, resources))
+        throw e
+    }
+
+    buffer.sort(comparator)
+    if (runs.isEmpty)
+      buffer.iterator().asScala
+    else
+      merge(runs.map(read(_, entities, resources)) :+ buffer.iterator().asScala)
+  }
+
+  private def spill(rows: java.util.List[T], entities: ArrayBuffer[AnyValue], resources: CloseableResource): SpilledRun = {
+    val run = new SpilledRun(Files.createTempFile("neo4j-sort", ".run"))
+    trace(run, resources)
+    val out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run.file), SpillingSorter.BUFFER_SIZE))
+    try {
+      val values = new SpilledValueWriter(out, entities)
+      out.writeInt(rows.size())
+      rows.asScala.foreach(format.write(_, out, values))
+    } finally {
+      out.close()
+    }
+    run
+  }
+
+  private def read(run: SpilledRun, entities: ArrayBuffer[AnyValue], resources: CloseableResource): Iterator[T] =
+    new Iterator[T] {
+      private val in = run.open()
+      private val values = new SpilledValueReader(in, entities)
+      private var remaining = in.readInt()
+
+      override def hasNext: Boolean = remaining > 0
+
+      override def next(): T = {
+        val row = format.read(in, values)
+        remaining -= 1
+        if (remaining == 0) {
+          release(run, resources)
+        }
+        row
+      }
+    }
+
+  private def trace(run: SpilledRun, resources: CloseableResource): Unit = resources match {
+    case manager: ResourceManager => manager.trace(run)
+    case _ =>
+  }
+
+  private def release(run: SpilledRun, resources: CloseableResource): Unit = resources match {
+    case manager: ResourceManager => manager.release(run)
+    case _ => run.close()
+  }
+
+  private def merge(runs: Seq[Iterator[T]]): Iterator[T] = {
+    // Ties are broken by run, so rows that compare equal keep the order they were read in
+    val heads = new PriorityQueue[RunHead](runs.size, new Comparator[RunHead] {
+      override def compare(a: RunHead, b: RunHead): Int = {
+        val c = comparator.compare(a.row, b.row)
+        if (c != 0) c else Integer.compare(a.run, b.run)
+      }
+    })
+    runs.zipWithIndex.foreach {
+      case (run, index) => if (run.hasNext) heads.add(new RunHead(run.next(), run, index))
+    }
+
+    new Iterator[T] {
+      override def hasNext: Boolean = !heads.isEmpty
+
+      override def next(): T = {
+        val head = heads.poll()
+        val row = head.row
+        if (head.rows.hasNext) {
+          head.row = head.rows.next()
+          heads.add(head)
+        }
+        row
+      }
+    }
+  }
+
+  private class RunHead(var row: T, val rows: Iterator[T], val run: Int)
+}
+
+object SpillingSorter {
+  /**
+    * The estimated number of bytes of rows a single sort keeps on heap before it starts spilling sorted runs to disk.
+    * Defaults to a sixteenth of the maximum heap, so that a few large sorts running at once still fit.
+    */
+  val BYTES_IN_MEMORY: Long =
+    FeatureToggles.getLong(classOf[SpillingSorter[_]], "bytesInMemory", Runtime.getRuntime.maxMemory() / 16)
+
+  private[spill] val BUFFER_SIZE = 64 * 1024
+}
+
+/**
+  * A sorted run in a temporary file. Closing it closes the stream it is read from, and deletes the file.
+  */
+private[spill] class SpilledRun(val file: Path) extends AutoCloseable {
+  private var in: DataInputStream = _
+
+  def open(): DataInputStream = {
+    in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), SpillingSorter.BUFFER_SIZE))
+    in
+  }
+
+  override def close(): Unit = try {
+    if (in != null) in.close()
+  } finally {
+    in = null
+    Files.deleteIfExists(file)
+  }
+}
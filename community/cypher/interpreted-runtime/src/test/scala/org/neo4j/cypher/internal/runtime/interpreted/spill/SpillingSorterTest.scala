@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.spill
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, DataInputStream, DataOutputStream}
+import java.nio.file.Files
+import java.time._
+import java.util.Comparator
+
+import org.neo4j.cypher.internal.runtime.interpreted.{ExecutionContext, ResourceManager}
+import org.neo4j.cypher.internal.util.v3_4.test_helpers.CypherFunSuite
+import org.neo4j.values.storable.Values._
+import org.neo4j.values.storable.{CoordinateReferenceSystem, DateValue, DurationValue, Values}
+import org.neo4j.values.virtual._
+import org.neo4j.values.{AnyValue, AnyValues}
+
+import scala.collection.mutable.ArrayBuffer
+
+class SpillingSorterTest extends CypherFunSuite {
+
+  private val byX = new Comparator[ExecutionContext] {
+    override def compare(a: ExecutionContext, b: ExecutionContext): Int = AnyValues.COMPARATOR.compare(a("x"), b("x"))
+  }
+
+  test("sorts input that fits in memory") {
+    val sorter = new SpillingSorter(byX, MapRowSpillFormat, bytesInMemory = sizeOfRows(100))
+
+    sorter.sort(rows(5, 3, 1, 4, 2), new ResourceManager).map(_("x")).toList should equal((1 to 5).map(intValue))
+  }
+
+  test("sorts input spilled over several runs") {
+    val sorter = new SpillingSorter(byX, MapRowSpillFormat, bytesInMemory = sizeOfRows(3))
+    val input = scala.util.Random.shuffle((1 to 100).toList)
+
+    sorter.sort(rows(input: _*), new ResourceManager).map(_("x")).toList should equal((1 to 100).map(intValue))
+  }
+
+  test("keeps all columns of spilled rows") {
+    val sorter = new SpillingSorter(byX, MapRowSpillFormat, bytesInMemory = sizeOfRows(1))
+    val input = Iterator(
+      ExecutionContext.from("x" -> intValue(2), "y" -> stringValue("two")),
+      ExecutionContext.from("x" -> intValue(1), "y" -> stringValue("one")))
+
+    sorter.sort(input, new ResourceManager).map(row => (row("x"), row("y"))).toList should equal(List(
+      (intValue(1), stringValue("one")),
+      (intValue(2), stringValue("two"))))
+  }
+
+  test("writes and reads back values") {
+    val values: Seq[AnyValue] = Seq(
+      NO_VALUE, TRUE, FALSE, byteValue(1), shortValue(2), intValue(3), longValue(4), floatValue(5.5f), doubleValue(6.5),
+      stringValue("x" * 70000), charValue('c'),
+      longArray(Array(1L, 2L)), stringArray("a", "b"), byteArray(Array[Byte](1, 2)), charArray(Array('a', 'b')),
+      pointValue(CoordinateReferenceSystem.WGS84, 12.0, 56.0),
+      DurationValue.duration(1, 2, 3, 4),
+      DateValue.date(LocalDate.of(2018, 1, 2)),
+      Values.dateArray(Array(LocalDate.of(2018, 1, 2))),
+      Values.temporalValue(LocalTime.of(12, 30)),
+      Values.temporalValue(OffsetTime.of(12, 30, 0, 0, ZoneOffset.ofHours(2))),
+      Values.temporalValue(LocalDateTime.of(2018, 1, 2, 12, 30)),
+      Values.temporalValue(ZonedDateTime.of(2018, 1, 2, 12, 30, 0, 0, ZoneId.of("Europe/Stockholm"))),
+      VirtualValues.list(intValue(1), stringValue("two")),
+      VirtualValues.map(Array("a", "b"), Array(intValue(1), VirtualValues.list(intValue(2)))))
+
+    val entities = new ArrayBuffer[AnyValue]()
+    val bytes = new ByteArrayOutputStream()
+    val writer = new SpilledValueWriter(new DataOutputStream(bytes), entities)
+    values.foreach(writer.write)
+    writer.write(null)
+
+    val reader = new SpilledValueReader(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray)), entities)
+    values.map(_ => reader.read()) should equal(values)
+    reader.read() should be(null)
+    entities shouldBe empty
+  }
+
+  test("reads back the same entity values, without looking them up in the transaction") {
+    // Entities deleted earlier in the transaction can no longer be looked up by id, so they must not be
+    val start = VirtualValues.nodeValue(1, stringArray("A"), VirtualValues.EMPTY_MAP)
+    val end = VirtualValues.nodeValue(2, stringArray("B"), VirtualValues.EMPTY_MAP)
+    val relationship = VirtualValues.relationshipValue(3, start, end, stringValue("R"), VirtualValues.EMPTY_MAP)
+    val path = VirtualValues.path(Array[NodeValue](start, end), Array[RelationshipValue](relationship))
+    val list = VirtualValues.list(start, intValue(1))
+    val map = VirtualValues.map(Array("r"), Array[AnyValue](relationship))
+
+    val entities = new ArrayBuffer[AnyValue]()
+    val bytes = new ByteArrayOutputStream()
+    val writer = new SpilledValueWriter(new DataOutputStream(bytes), entities)
+    Seq(start, relationship, path, list, map).foreach(writer.write)
+
+    val reader = new SpilledValueReader(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray)), entities)
+    reader.read() should be theSameInstanceAs start
+    reader.read() should be theSameInstanceAs relationship
+    reader.read() should be theSameInstanceAs path
+    reader.read().asInstanceOf[ListValue].value(0) should be theSameInstanceAs start
+    reader.read().asInstanceOf[MapValue].get("r") should be theSameInstanceAs relationship
+  }
+
+  test("deletes the runs of a result that is not consumed to the end when the query ends") {
+    val sorter = new SpillingSorter(byX, MapRowSpillFormat, bytesInMemory = sizeOfRows(2))
+    val resources = new ResourceManager
+
+    val result = sorter.sort(rows(6, 5, 4, 3, 2, 1), resources)
+    result.next()
+    val runs = resources.allResources.toList.map(_.asInstanceOf[SpilledRun])
+    runs should have size 3
+    all(runs.map(run => Files.exists(run.file))) should be(true)
+
+    resources.close(success = true)
+    all(runs.map(run => Files.exists(run.file))) should be(false)
+  }
+
+  test("releases runs as soon as they have been read") {
+    val sorter = new SpillingSorter(byX, MapRowSpillFormat, bytesInMemory = sizeOfRows(2))
+    val resources = new ResourceManager
+
+    val result = sorter.sort(rows(6, 5, 4, 3, 2, 1), resources)
+    val runs = resources.allResources.toList.map(_.asInstanceOf[SpilledRun])
+    result.map(_("x")).toList should equal((1 to 6).map(intValue))
+
+    resources.allResources shouldBe empty
+    all(runs.map(run => Files.exists(run.file))) should be(false)
+  }
+
+  test("spills rows by their estimated size rather than their number") {
+    val sorter = new SpillingSorter(byX, MapRowSpillFormat, bytesInMemory = sizeOfRows(10))
+    val small = new ResourceManager
+    val large = new ResourceManager
+
+    sorter.sort(rows(3, 2, 1), small)
+    val result = sorter.sort(Iterator(3, 2, 1).map(x =>
+      ExecutionContext.from("x" -> intValue(x), "y" -> stringValue("y" * 1000))), large)
+
+    small.allResources shouldBe empty
+    large.allResources should not be empty
+    result.map(_("x")).toList should equal((1 to 3).map(intValue))
+  }
+
+  test("estimates the size of nested values") {
+    val small = VirtualValues.list(intValue(1))
+    val large = VirtualValues.map(Array("a"), Array[AnyValue](VirtualValues.list(stringValue("x" * 100), intValue(1))))
+
+    EstimatedHeapSize.of(large) should be > EstimatedHeapSize.of(small) + 200
+    EstimatedHeapSize.of(stringArray("x" * 100)) should be > EstimatedHeapSize.of(longArray(Array(1L)))
+  }
+
+  private def sizeOfRows(count: Int): Long = count * MapRowSpillFormat.estimatedHeapSize(rows(1).next())
+
+  private def rows(xs: Int*): Iterator[ExecutionContext] = xs.iterator.map(x => ExecutionContext.from("x" -> intValue(x)))
+}
@@ -19,7 +19,7 @@
  */
 package org.neo4j.cypher.internal.planner.v3_4.spi
 
-import org.neo4j.cypher.internal.util.v3_4.{Cardinality, LabelId, RelTypeId, Selectivity}
+import org.neo4j.cypher.internal.util.v3_4.{Cardinality, LabelId, PropertyKeyId, RelTypeId, Selectivity}
 
 object GraphStatistics {
   val DEFAULT_RANGE_SELECTIVITY          = Selectivity.of(0.3).get
@@ -62,6 +62,23 @@ trait GraphStatistics {
       indexPropertyExistsSelectivity(:X, prop) = s => |MATCH (a:X)| * s = |MATCH (a:X) WHERE has(x.prop)|
    */
   def indexPropertyExistsSelectivity(index: IndexDescriptor): Option[Selectivity]
+
+  /*
+      The statistics below are only available from databases that are configured to keep them
+
+      nodesWithLabelsCardinality(:X, :Y) = |MATCH (a:X:Y)|
+   */
+  def nodesWithLabelsCardinality(labelId: LabelId, otherLabelId: LabelId): Option[Cardinality] = None
+
+  /*
+      nodesWithPropertyCardinality(:X, prop) = |MATCH (a:X) WHERE has(a.prop)|
+   */
+  def nodesWithPropertyCardinality(labelId: LabelId, propertyKeyId: PropertyKeyId): Option[Cardinality] = None
+
+  /*
+      cardinalityBetweenLabels(:X, :T, :Y) = |MATCH (:X)-[:T]->(:Y)|
+   */
+  def cardinalityBetweenLabels(fromLabel: LabelId, relTypeId: Option[RelTypeId], toLabel: LabelId): Option[Cardinality] = None
 }
 
 class DelegatingGraphStatistics(delegate: GraphStatistics) extends GraphStatistics {
@@ -78,6 +95,15 @@ class DelegatingGraphStatistics(delegate: GraphStatistics) extends GraphStatisti
     delegate.indexPropertyExistsSelectivity(index)
 
   override def nodesAllCardinality(): Cardinality = delegate.nodesAllCardinality()
+
+  override def nodesWithLabelsCardinality(labelId: LabelId, otherLabelId: LabelId): Option[Cardinality] =
+    delegate.nodesWithLabelsCardinality(labelId, otherLabelId)
+
+  override def nodesWithPropertyCardinality(labelId: LabelId, propertyKeyId: PropertyKeyId): Option[Cardinality] =
+    delegate.nodesWithPropertyCardinality(labelId, propertyKeyId)
+
+  override def cardinalityBetweenLabels(fromLabel: LabelId, relTypeId: Option[RelTypeId], toLabel: LabelId): Option[Cardinality] =
+    delegate.cardinalityBetweenLabels(fromLabel, relTypeId, toLabel)
 }
 
 class StatisticsCompletingGraphStatistics(delegate: GraphStatistics)
@@ -85,12 +111,11 @@ class StatisticsCompletingGraphStatistics(delegate: GraphStatistics)
 
   override def cardinalityByLabelsAndRelationshipType(fromLabel: Option[LabelId], relTypeId: Option[RelTypeId], toLabel: Option[LabelId]): Cardinality =
     (fromLabel, toLabel) match {
-      case (Some(_), Some(_)) =>
-        // TODO: read real counts from readOperations when they are gonna be properly computed and updated
-        Cardinality.min(
+      case (Some(from), Some(to)) =>
+        cardinalityBetweenLabels(from, relTypeId, to).getOrElse(Cardinality.min(
           super.cardinalityByLabelsAndRelationshipType(fromLabel, relTypeId, None),
           super.cardinalityByLabelsAndRelationshipType(None, relTypeId, toLabel)
-        )
+        ))
       case _ =>
         super.cardinalityByLabelsAndRelationshipType(fromLabel, relTypeId, toLabel)
     }
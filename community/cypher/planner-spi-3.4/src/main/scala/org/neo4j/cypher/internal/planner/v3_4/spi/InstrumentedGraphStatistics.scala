@@ -21,7 +21,7 @@ package org.neo4j.cypher.internal.planner.v3_4.spi
 
 import java.lang.Math.{abs, max}
 
-import org.neo4j.cypher.internal.util.v3_4.{Cardinality, LabelId, RelTypeId, Selectivity}
+import org.neo4j.cypher.internal.util.v3_4.{Cardinality, LabelId, PropertyKeyId, RelTypeId, Selectivity}
 
 import scala.collection.mutable
 
@@ -31,6 +31,9 @@ case object NodesAllCardinality extends StatisticsKey
 case class CardinalityByLabelsAndRelationshipType(lhs: Option[LabelId], relType: Option[RelTypeId], rhs: Option[LabelId]) extends StatisticsKey
 case class IndexSelectivity(index: IndexDescriptor) extends StatisticsKey
 case class IndexPropertyExistsSelectivity(index: IndexDescriptor) extends StatisticsKey
+case class NodesWithLabelsCardinality(labelId: LabelId, otherLabelId: LabelId) extends StatisticsKey
+case class NodesWithPropertyCardinality(labelId: LabelId, propertyKeyId: PropertyKeyId) extends StatisticsKey
+case class CardinalityBetweenLabels(lhs: LabelId, relType: Option[RelTypeId], rhs: LabelId) extends StatisticsKey
 
 class MutableGraphStatisticsSnapshot(val map: mutable.Map[StatisticsKey, Double] = mutable.Map.empty) {
   def freeze: GraphStatisticsSnapshot = GraphStatisticsSnapshot(map.toMap)
@@ -52,6 +55,12 @@ case class GraphStatisticsSnapshot(statsValues: Map[StatisticsKey, Double] = Map
         instrumented.indexSelectivity(index)
       case IndexPropertyExistsSelectivity(index) =>
         instrumented.indexPropertyExistsSelectivity(index)
+      case NodesWithLabelsCardinality(labelId, otherLabelId) =>
+        instrumented.nodesWithLabelsCardinality(labelId, otherLabelId)
+      case NodesWithPropertyCardinality(labelId, propertyKeyId) =>
+        instrumented.nodesWithPropertyCardinality(labelId, propertyKeyId)
+      case CardinalityBetweenLabels(lhs, relType, rhs) =>
+        instrumented.cardinalityBetweenLabels(lhs, relType, rhs)
     }
     snapshot.freeze
   }
@@ -97,4 +106,22 @@ case class InstrumentedGraphStatistics(inner: GraphStatistics, snapshot: Mutable
   }
 
   override def nodesAllCardinality(): Cardinality = snapshot.map.getOrElseUpdate(NodesAllCardinality, inner.nodesAllCardinality().amount)
+
+  override def nodesWithLabelsCardinality(labelId: LabelId, otherLabelId: LabelId): Option[Cardinality] = {
+    val cardinality = inner.nodesWithLabelsCardinality(labelId, otherLabelId)
+    snapshot.map.getOrElseUpdate(NodesWithLabelsCardinality(labelId, otherLabelId), cardinality.fold(0.0)(_.amount))
+    cardinality
+  }
+
+  override def nodesWithPropertyCardinality(labelId: LabelId, propertyKeyId: PropertyKeyId): Option[Cardinality] = {
+    val cardinality = inner.nodesWithPropertyCardinality(labelId, propertyKeyId)
+    snapshot.map.getOrElseUpdate(NodesWithPropertyCardinality(labelId, propertyKeyId), cardinality.fold(0.0)(_.amount))
+    cardinality
+  }
+
+  override def cardinalityBetweenLabels(fromLabel: LabelId, relTypeId: Option[RelTypeId], toLabel: LabelId): Option[Cardinality] = {
+    val cardinality = inner.cardinalityBetweenLabels(fromLabel, relTypeId, toLabel)
+    snapshot.map.getOrElseUpdate(CardinalityBetweenLabels(fromLabel, relTypeId, toLabel), cardinality.fold(0.0)(_.amount))
+    cardinality
+  }
 }
@@ -300,6 +300,19 @@ public abstract class IndexQuery
             return exactValue.equals( value );
         }
 
+        /**
+         * Compares a string with the stored value of the property, without reading that value into a {@link Value}.
+         */
+        @Override
+        public boolean acceptsValueAt( PropertyCursor property )
+        {
+            if ( exactValue instanceof TextValue )
+            {
+                return property.valueEqualTo( ((TextValue) exactValue).stringValue() );
+            }
+            return super.acceptsValueAt( property );
+        }
+
         @Override
         public ValueGroup valueGroup()
         {
@@ -28,6 +28,7 @@ public interface Read
 {
     int ANY_LABEL = -1;
     int ANY_RELATIONSHIP_TYPE = -1;
+    long UNKNOWN_COUNT = -1;
 
     /**
      * Seek all nodes matching the provided index query in an index.
@@ -227,6 +228,44 @@ public interface Read
      */
     long countsForRelationshipWithoutTxState( int startLabelId, int typeId, int endLabelId );
 
+    /**
+     * The number of nodes in the graph having both of the given labels, without taking into account anything in the
+     * transaction state, i.e. {@code MATCH (n:LBL1:LBL2) RETURN count(n)}.
+     * <p>
+     * Such counts are optional, and only kept by databases configured to do so.
+     *
+     * @param labelId a label of the nodes to get the count for.
+     * @param otherLabelId another label of the nodes to get the count for.
+     * @return the number of matching nodes in the graph, or {@link #UNKNOWN_COUNT} if not known.
+     */
+    long countsForNodeWithLabelsWithoutTxState( int labelId, int otherLabelId );
+
+    /**
+     * The number of nodes in the graph having the given label and a property with the given key, without taking into
+     * account anything in the transaction state, i.e. {@code MATCH (n:LBL) WHERE exists(n.prop) RETURN count(n)}.
+     * <p>
+     * Such counts are optional, and only kept by databases configured to do so.
+     *
+     * @param labelId the label of the nodes to get the count for.
+     * @param propertyKeyId the property key of the nodes to get the count for.
+     * @return the number of matching nodes in the graph, or {@link #UNKNOWN_COUNT} if not known.
+     */
+    long countsForNodeWithPropertyWithoutTxState( int labelId, int propertyKeyId );
+
+    /**
+     * The number of relationships in the graph of the given type, or of any type, between nodes with both a given
+     * start label and a given end label, without taking into account anything in the transaction state,
+     * i.e. {@code MATCH (:LHS)-[r:REL]->(:RHS) RETURN count(r)}.
+     * <p>
+     * Such counts are optional, and only kept by databases configured to do so.
+     *
+     * @param startLabelId the label of the start node of relationships to get the count for.
+     * @param typeId       the type of relationships to get a count for, or {@link #ANY_RELATIONSHIP_TYPE}.
+     * @param endLabelId   the label of the end node of relationships to get the count for.
+     * @return the number of matching relationships in the graph, or {@link #UNKNOWN_COUNT} if not known.
+     */
+    long countsForRelationshipBetweenLabelsWithoutTxState( int startLabelId, int typeId, int endLabelId );
+
     /**
      * Count of the total number of nodes in the database including changes in the current transaction.
      *
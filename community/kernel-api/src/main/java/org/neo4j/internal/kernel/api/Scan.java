@@ -27,5 +27,14 @@ package org.neo4j.internal.kernel.api;
  */
 public interface Scan<Cursor extends org.neo4j.internal.kernel.api.Cursor>
 {
-    void initialize( Cursor cursor );
+    /**
+     * Reserves the next batch of this scan and initializes the given cursor to iterate over it. Any number of threads
+     * may reserve batches concurrently, each using its own cursor, and every entity is part of exactly one batch.
+     *
+     * @param cursor the cursor to initialize, owned by the calling thread.
+     * @param sizeHint the approximate number of entities to reserve. The batch may be larger, to align with the pages
+     * of the underlying store, and will contain fewer entities since not all of them are in use.
+     * @return {@code true} if a batch was reserved, {@code false} if the scan is exhausted.
+     */
+    boolean reserveBatch( Cursor cursor, int sizeHint );
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.kernel.api;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public abstract class ParallelScanTestBase<G extends KernelAPIReadTestSupport> extends KernelAPIReadTestBase<G>
+{
+    private static final int N_NODES = 10_000;
+    private static final Set<Long> NODE_IDS = new TreeSet<>();
+    private static final Set<Long> LABELED_NODE_IDS = new TreeSet<>();
+    private static final Set<Long> RELATIONSHIP_IDS = new TreeSet<>();
+    private static final Set<Long> TYPED_RELATIONSHIP_IDS = new TreeSet<>();
+
+    @Override
+    void createTestGraph( GraphDatabaseService graphDb )
+    {
+        List<Node> deleted = new ArrayList<>();
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            Node previous = null;
+            for ( int i = 0; i < N_NODES; i++ )
+            {
+                Node node = graphDb.createNode();
+                if ( i % 3 == 0 )
+                {
+                    deleted.add( node );
+                    continue;
+                }
+                NODE_IDS.add( node.getId() );
+                if ( i % 5 == 0 )
+                {
+                    node.addLabel( Label.label( "Foo" ) );
+                    LABELED_NODE_IDS.add( node.getId() );
+                }
+                if ( previous != null )
+                {
+                    RelationshipType type = RelationshipType.withName( i % 2 == 0 ? "EVEN" : "ODD" );
+                    Relationship relationship = previous.createRelationshipTo( node, type );
+                    RELATIONSHIP_IDS.add( relationship.getId() );
+                    if ( i % 2 == 0 )
+                    {
+                        TYPED_RELATIONSHIP_IDS.add( relationship.getId() );
+                    }
+                }
+                previous = node;
+            }
+            tx.success();
+        }
+
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            for ( Node node : deleted )
+            {
+                node.delete();
+            }
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldScanAllNodesInBatches()
+    {
+        try ( NodeCursor nodes = cursors.allocateNodeCursor() )
+        {
+            assertEquals( NODE_IDS, scanInBatches( read.allNodesScan(), nodes, 100, NodeCursor::nodeReference ) );
+        }
+    }
+
+    @Test
+    public void shouldScanAllNodesInOneBatchWithLargeSizeHint()
+    {
+        Scan<NodeCursor> scan = read.allNodesScan();
+        try ( NodeCursor nodes = cursors.allocateNodeCursor() )
+        {
+            assertTrue( scan.reserveBatch( nodes, Integer.MAX_VALUE ) );
+            Set<Long> ids = new TreeSet<>();
+            while ( nodes.next() )
+            {
+                ids.add( nodes.nodeReference() );
+            }
+            assertEquals( NODE_IDS, ids );
+            assertFalse( scan.reserveBatch( nodes, Integer.MAX_VALUE ) );
+        }
+    }
+
+    @Test
+    public void shouldScanLabeledNodesInBatches()
+    {
+        int label = token.nodeLabel( "Foo" );
+        try ( NodeLabelIndexCursor nodes = cursors.allocateNodeLabelIndexCursor() )
+        {
+            assertEquals( LABELED_NODE_IDS,
+                    scanInBatches( read.nodeLabelScan( label ), nodes, 100, NodeLabelIndexCursor::nodeReference ) );
+        }
+    }
+
+    @Test
+    public void shouldScanAllRelationshipsInBatches()
+    {
+        try ( RelationshipScanCursor relationships = cursors.allocateRelationshipScanCursor() )
+        {
+            assertEquals( RELATIONSHIP_IDS, scanInBatches( read.allRelationshipsScan(), relationships, 100,
+                    RelationshipScanCursor::relationshipReference ) );
+        }
+    }
+
+    @Test
+    public void shouldScanRelationshipsOfTypeInBatches()
+    {
+        int type = token.relationshipType( "EVEN" );
+        try ( RelationshipScanCursor relationships = cursors.allocateRelationshipScanCursor() )
+        {
+            assertEquals( TYPED_RELATIONSHIP_IDS, scanInBatches( read.relationshipTypeScan( type ), relationships, 100,
+                    RelationshipScanCursor::relationshipReference ) );
+        }
+    }
+
+    @Test
+    public void shouldScanNodesFromMultipleThreads() throws Exception
+    {
+        assertEquals( NODE_IDS, scanConcurrently( read.allNodesScan(), CursorFactory::allocateNodeCursor, NodeCursor::nodeReference ) );
+    }
+
+    @Test
+    public void shouldScanLabeledNodesFromMultipleThreads() throws Exception
+    {
+        int label = token.nodeLabel( "Foo" );
+        assertEquals( LABELED_NODE_IDS, scanConcurrently( read.nodeLabelScan( label ), CursorFactory::allocateNodeLabelIndexCursor,
+                NodeLabelIndexCursor::nodeReference ) );
+    }
+
+    @Test
+    public void shouldScanRelationshipsFromMultipleThreads() throws Exception
+    {
+        assertEquals( RELATIONSHIP_IDS, scanConcurrently( read.allRelationshipsScan(), CursorFactory::allocateRelationshipScanCursor,
+                RelationshipScanCursor::relationshipReference ) );
+    }
+
+    private static <C extends Cursor> Set<Long> scanInBatches( Scan<C> scan, C cursor, int sizeHint, ToLongFunction<C> reference )
+    {
+        Set<Long> ids = new TreeSet<>();
+        while ( scan.reserveBatch( cursor, sizeHint ) )
+        {
+            while ( cursor.next() )
+            {
+                assertTrue( "should only see each entity once", ids.add( reference.applyAsLong( cursor ) ) );
+            }
+        }
+        return ids;
+    }
+
+    private <C extends Cursor> Set<Long> scanConcurrently( Scan<C> scan, Function<CursorFactory,C> allocate,
+            ToLongFunction<C> reference ) throws Exception
+    {
+        int threads = 4;
+        // Cursors are allocated and closed on this thread, since the cursor pool is not thread safe
+        List<C> threadCursors = new ArrayList<>();
+        for ( int i = 0; i < threads; i++ )
+        {
+            threadCursors.add( allocate.apply( cursors ) );
+        }
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try
+        {
+            Set<Long> ids = ConcurrentHashMap.newKeySet();
+            List<Future<?>> futures = new ArrayList<>();
+            for ( C cursor : threadCursors )
+            {
+                futures.add( executor.submit( () ->
+                {
+                    while ( scan.reserveBatch( cursor, 64 ) )
+                    {
+                        while ( cursor.next() )
+                        {
+                            assertTrue( "should only see each entity once", ids.add( reference.applyAsLong( cursor ) ) );
+                        }
+                    }
+                } ) );
+            }
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+            return new TreeSet<>( ids );
+        }
+        finally
+        {
+            executor.shutdown();
+            threadCursors.forEach( Cursor::close );
+        }
+    }
+}
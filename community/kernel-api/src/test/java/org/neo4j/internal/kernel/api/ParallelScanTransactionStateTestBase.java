@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.kernel.api;
+
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public abstract class ParallelScanTransactionStateTestBase<G extends KernelAPIWriteTestSupport> extends KernelAPIWriteTestBase<G>
+{
+    @Test
+    public void shouldSeeNodesAddedAndNotRemovedInTransaction() throws Exception
+    {
+        Set<Long> expected = new TreeSet<>();
+        long deleted;
+        try ( Transaction tx = session.beginTransaction() )
+        {
+            for ( int i = 0; i < 1000; i++ )
+            {
+                expected.add( tx.dataWrite().nodeCreate() );
+            }
+            deleted = tx.dataWrite().nodeCreate();
+            tx.success();
+        }
+
+        try ( Transaction tx = session.beginTransaction() )
+        {
+            tx.dataWrite().nodeDelete( deleted );
+            for ( int i = 0; i < 1000; i++ )
+            {
+                expected.add( tx.dataWrite().nodeCreate() );
+            }
+
+            Scan<NodeCursor> scan = tx.dataRead().allNodesScan();
+            Set<Long> ids = new TreeSet<>();
+            try ( NodeCursor nodes = tx.cursors().allocateNodeCursor() )
+            {
+                while ( scan.reserveBatch( nodes, 100 ) )
+                {
+                    while ( nodes.next() )
+                    {
+                        assertTrue( "should only see each node once", ids.add( nodes.nodeReference() ) );
+                    }
+                }
+            }
+            assertEquals( expected, ids );
+        }
+    }
+
+    @Test
+    public void shouldSeeLabelChangesInTransaction() throws Exception
+    {
+        Set<Long> expected = new TreeSet<>();
+        long unlabeled;
+        int label;
+        try ( Transaction tx = session.beginTransaction() )
+        {
+            label = tx.tokenWrite().labelGetOrCreateForName( "Label" );
+            for ( int i = 0; i < 1000; i++ )
+            {
+                long node = tx.dataWrite().nodeCreate();
+                tx.dataWrite().nodeAddLabel( node, label );
+                expected.add( node );
+            }
+            unlabeled = tx.dataWrite().nodeCreate();
+            tx.dataWrite().nodeAddLabel( unlabeled, label );
+            tx.success();
+        }
+
+        try ( Transaction tx = session.beginTransaction() )
+        {
+            tx.dataWrite().nodeRemoveLabel( unlabeled, label );
+            for ( int i = 0; i < 1000; i++ )
+            {
+                long node = tx.dataWrite().nodeCreate();
+                tx.dataWrite().nodeAddLabel( node, label );
+                expected.add( node );
+            }
+
+            Scan<NodeLabelIndexCursor> scan = tx.dataRead().nodeLabelScan( label );
+            Set<Long> ids = new TreeSet<>();
+            try ( NodeLabelIndexCursor nodes = tx.cursors().allocateNodeLabelIndexCursor() )
+            {
+                while ( scan.reserveBatch( nodes, 100 ) )
+                {
+                    while ( nodes.next() )
+                    {
+                        assertTrue( "should only see each node once", ids.add( nodes.nodeReference() ) );
+                    }
+                }
+            }
+            assertEquals( expected, ids );
+        }
+    }
+
+    @Test
+    public void shouldSeeAllLabelChangesWhenReusingCursorOfBatch() throws Exception
+    {
+        try ( Transaction tx = session.beginTransaction() )
+        {
+            Set<Long> expected = new TreeSet<>();
+            int label = tx.tokenWrite().labelGetOrCreateForName( "Label" );
+            for ( int i = 0; i < 1000; i++ )
+            {
+                long node = tx.dataWrite().nodeCreate();
+                tx.dataWrite().nodeAddLabel( node, label );
+                expected.add( node );
+            }
+
+            try ( NodeLabelIndexCursor nodes = tx.cursors().allocateNodeLabelIndexCursor() )
+            {
+                Scan<NodeLabelIndexCursor> scan = tx.dataRead().nodeLabelScan( label );
+                assertTrue( scan.reserveBatch( nodes, 100 ) );
+                while ( nodes.next() )
+                {
+                    // drain the first batch only
+                }
+
+                tx.dataRead().nodeLabelScan( label, nodes );
+                Set<Long> ids = new TreeSet<>();
+                while ( nodes.next() )
+                {
+                    ids.add( nodes.nodeReference() );
+                }
+                assertEquals( expected, ids );
+            }
+        }
+    }
+
+    @Test
+    public void shouldSeeRelationshipsAddedInTransaction() throws Exception
+    {
+        Set<Long> expected = new TreeSet<>();
+        try ( Transaction tx = session.beginTransaction() )
+        {
+            long start = tx.dataWrite().nodeCreate();
+            int type = tx.tokenWrite().relationshipTypeGetOrCreateForName( "R" );
+            for ( int i = 0; i < 1000; i++ )
+            {
+                expected.add( tx.dataWrite().relationshipCreate( start, type, tx.dataWrite().nodeCreate() ) );
+            }
+
+            Scan<RelationshipScanCursor> scan = tx.dataRead().allRelationshipsScan();
+            Set<Long> ids = new TreeSet<>();
+            try ( RelationshipScanCursor relationships = tx.cursors().allocateRelationshipScanCursor() )
+            {
+                while ( scan.reserveBatch( relationships, 100 ) )
+                {
+                    while ( relationships.next() )
+                    {
+                        assertTrue( "should only see each relationship once", ids.add( relationships.relationshipReference() ) );
+                    }
+                }
+            }
+            assertEquals( expected, ids );
+        }
+    }
+}
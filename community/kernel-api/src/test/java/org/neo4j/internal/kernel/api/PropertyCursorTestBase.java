@@ -252,6 +252,70 @@ public abstract class PropertyCursorTestBase<G extends KernelAPIReadTestSupport>
         }
     }
 
+    @Test
+    public void shouldCompareStringProperties()
+    {
+        assertEqualTo( charProp, "x", "y" );
+        assertEqualTo( emptyStringProp, "", "hello" );
+        assertEqualTo( shortStringProp, "hello", "hellO" );
+        assertEqualTo( shortStringProp, "hello", "" );
+        assertEqualTo( utf8Prop, chinese, "hello" );
+        if ( supportsBigProperties() )
+        {
+            assertEqualTo( longStringProp, LONG_STRING, LONG_STRING.substring( 1 ) );
+            assertEqualTo( longStringProp, LONG_STRING, "hello" );
+        }
+
+        // Numbers are never equal to strings
+        assertEqualTo( intProp, null, "13" );
+    }
+
+    @Test
+    public void shouldAcceptExactQueriesAtProperties()
+    {
+        assertExactQuery( charProp, 'x', "y" );
+        assertExactQuery( shortStringProp, "hello", "hellO" );
+        assertExactQuery( utf8Prop, chinese, "hello" );
+        assertExactQuery( intProp, 13, "13" );
+        if ( supportsBigProperties() )
+        {
+            assertExactQuery( longStringProp, LONG_STRING, LONG_STRING.substring( 1 ) );
+        }
+    }
+
+    private void assertExactQuery( long nodeId, Object equal, Object notEqual )
+    {
+        try ( NodeCursor node = cursors.allocateNodeCursor();
+              PropertyCursor props = cursors.allocatePropertyCursor() )
+        {
+            read.singleNode( nodeId, node );
+            assertTrue( "node by reference", node.next() );
+
+            node.properties( props );
+            assertTrue( "has properties", props.next() );
+            assertTrue( "equal value", IndexQuery.exact( props.propertyKey(), equal ).acceptsValueAt( props ) );
+            assertFalse( "different value", IndexQuery.exact( props.propertyKey(), notEqual ).acceptsValueAt( props ) );
+        }
+    }
+
+    private void assertEqualTo( long nodeId, String equal, String notEqual )
+    {
+        try ( NodeCursor node = cursors.allocateNodeCursor();
+              PropertyCursor props = cursors.allocatePropertyCursor() )
+        {
+            read.singleNode( nodeId, node );
+            assertTrue( "node by reference", node.next() );
+
+            node.properties( props );
+            assertTrue( "has properties", props.next() );
+            if ( equal != null )
+            {
+                assertTrue( "equal value", props.valueEqualTo( equal ) );
+            }
+            assertFalse( "different value", props.valueEqualTo( notEqual ) );
+        }
+    }
+
     private void assertAccessSingleProperty( long nodeId, Object expectedValue )
     {
         // given
@@ -127,6 +127,24 @@ public class StubRead implements Read
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public long countsForNodeWithLabelsWithoutTxState( int labelId, int otherLabelId )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long countsForNodeWithPropertyWithoutTxState( int labelId, int propertyKeyId )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long countsForRelationshipBetweenLabelsWithoutTxState( int startLabelId, int typeId, int endLabelId )
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public long nodesGetCount()
     {
@@ -211,6 +211,23 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Integer> query_cache_size =
             buildSetting( "dbms.query_cache_size", INTEGER, "1000" ).constraint( min( 0 ) ).build();
 
+    @Description( "The number of most frequently executed Cypher queries to remember across restarts. These queries " +
+                  "are planned again in the background when the database starts, so that their first executions " +
+                  "find a plan in the query cache. A value of 0 disables this." )
+    public static final Setting<Integer> query_cache_warmup_size =
+            buildSetting( "dbms.query_cache_warmup_size", INTEGER, "0" ).constraint( min( 0 ) ).build();
+
+    @Description( "The number of threads planning remembered queries when the database starts." )
+    @Internal
+    public static final Setting<Integer> query_cache_warmup_threads =
+            buildSetting( "unsupported.cypher.query_cache_warmup_threads", INTEGER, "2" ).constraint( min( 1 ) ).build();
+
+    @Description( "How often the most frequently executed queries are written to disk, to be planned again when " +
+                  "the database starts." )
+    @Internal
+    public static final Setting<Duration> query_cache_warmup_record_interval =
+            setting( "unsupported.cypher.query_cache_warmup_record_interval", DURATION, "5m" );
+
     @Description( "The threshold when a plan is considered stale. If any of the underlying " +
                   "statistics used to create the plan have changed more than this value, " +
                   "the plan will be considered stale and will be replanned. Change is calculated as " +
@@ -264,6 +281,17 @@ public class GraphDatabaseSettings implements LoadableConfig
                   "after a sufficiently long time interval." )
     public static final Setting<Duration> cypher_min_replan_interval = setting( "cypher.min_replan_interval", DURATION, "10s" );
 
+    @Description( "Re-plan queries with stale plans in the background. Until the new plan is ready, queries keep " +
+                  "using the stale plan, so that no query has to wait for the planner because the statistics " +
+                  "have changed." )
+    public static final Setting<Boolean> cypher_replan_in_background =
+            setting( "cypher.replan_in_background", BOOLEAN, FALSE );
+
+    @Description( "The maximum number of queries re-planned in the background at the same time." )
+    @Internal
+    public static final Setting<Integer> cypher_replan_in_background_threads =
+            buildSetting( "unsupported.cypher.replan_in_background_threads", INTEGER, "2" ).constraint( min( 1 ) ).build();
+
     @Description( "Large databases might change slowly, and to prevent queries from never being replanned " +
                   "the divergence threshold set by cypher.statistics_divergence_threshold is configured to " +
                   "shrink over time. The algorithm used to manage this change is set by " +
@@ -581,6 +609,34 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Boolean> rebuild_idgenerators_fast =
             setting( "unsupported.dbms.id_generator_fast_rebuild_enabled", BOOLEAN, TRUE );
 
+    @Description( "Keep free ids in persistent trees instead of in id files. Freed ids can be reused right away, " +
+            "and ids that were free before a crash are found again by scanning the store in the background " +
+            "after recovery, rather than being lost or found by scanning the store during startup." )
+    @Internal
+    public static final Setting<Boolean> persistent_free_ids =
+            setting( "unsupported.dbms.id_generator_persistent_free_ids", BOOLEAN, FALSE );
+
+    @Description( "Interval between batches of online defragmentation, which moves the property chains of nodes " +
+            "and the relationship group chains of dense nodes into contiguous records. Nodes are visited in id order " +
+            "in small transactions, skipping nodes that are locked by other transactions. Disabled when set to 0, " +
+            "and always on read only databases and cluster members." )
+    @Internal
+    public static final Setting<Duration> online_defragmentation_interval =
+            setting( "unsupported.dbms.online_defragmentation.interval", DURATION, "0s" );
+
+    @Description( "Number of nodes visited by each batch of online defragmentation." )
+    @Internal
+    public static final Setting<Integer> online_defragmentation_batch_size =
+            buildSetting( "unsupported.dbms.online_defragmentation.batch_size", INTEGER, "100" ).constraint( min( 1 ) ).build();
+
+    @Description( "Keep counts of nodes per pair of labels, of nodes per label having a property key and of " +
+            "relationships per type between nodes with a given start label and end label, for the Cypher planner. " +
+            "The counts are held in memory, built by scanning the whole store in the background when the database " +
+            "starts and kept up to date as transactions are applied. The planner does not use them until built." )
+    @Internal
+    public static final Setting<Boolean> extended_counts =
+            setting( "unsupported.dbms.counts.extended", BOOLEAN, FALSE );
+
     @Description( "Specifies if engine should run cypher query based on a snapshot of accessed data. " +
             "Query will be restarted in case if concurrent modification of data will be detected." )
     @Internal
@@ -920,6 +976,20 @@ public class GraphDatabaseSettings implements LoadableConfig
             options( TransactionStateMemoryAllocation.class, true ),
             TransactionStateMemoryAllocation.ON_HEAP.name() ).build();
 
+    @Description( "Limit the amount of memory that the state of a single transaction may use. A transaction whose " +
+            "state grows beyond this limit is terminated by the transaction monitor. " +
+            "Zero means that there is no limit." )
+    @Dynamic
+    public static final Setting<Long> transaction_state_max_size = buildSetting(
+            "dbms.memory.transaction.max_size", BYTES, "0" ).constraint( min( 0L ) ).build();
+
+    @Description( "Limit the amount of memory that the state of all active transactions together may use. " +
+            "When exceeded, the largest transactions are terminated by the transaction monitor until the total is " +
+            "below the limit again. Zero means that there is no limit." )
+    @Dynamic
+    public static final Setting<Long> transaction_state_global_max_size = buildSetting(
+            "dbms.memory.transaction.global_max_size", BYTES, "0" ).constraint( min( 0L ) ).build();
+
     // Needed to validate config, accessed via reflection
     @SuppressWarnings( "unused" )
     public static final HttpConnectorValidator httpValidator = new HttpConnectorValidator();
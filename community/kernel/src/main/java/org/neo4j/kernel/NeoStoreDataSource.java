@@ -51,6 +51,7 @@ import org.neo4j.kernel.impl.api.CommitProcessFactory;
 import org.neo4j.kernel.impl.api.DatabaseSchemaState;
 import org.neo4j.kernel.impl.api.ExplicitIndexProviderLookup;
 import org.neo4j.kernel.impl.api.KernelImpl;
+import org.neo4j.kernel.impl.api.KernelTransactionMemoryMonitor;
 import org.neo4j.kernel.impl.api.KernelTransactionMonitorScheduler;
 import org.neo4j.kernel.impl.api.KernelTransactionTimeoutMonitor;
 import org.neo4j.kernel.impl.api.KernelTransactions;
@@ -81,10 +82,13 @@ import org.neo4j.kernel.impl.locking.StatementLocksFactory;
 import org.neo4j.kernel.impl.logging.LogService;
 import org.neo4j.kernel.impl.newapi.DefaultCursors;
 import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.OnlineDefragmenter;
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordChainCompactor;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.id.IdController;
 import org.neo4j.kernel.impl.store.MetaDataStore;
 import org.neo4j.kernel.impl.store.StoreId;
+import org.neo4j.kernel.impl.store.counts.ExtendedCounts;
 import org.neo4j.kernel.impl.store.format.RecordFormatPropertyConfigurator;
 import org.neo4j.kernel.impl.store.format.RecordFormatSelector;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
@@ -690,6 +694,10 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
                 databaseSchemaState, indexingService ) );
 
         buildTransactionMonitor( kernelTransactions, clock, config );
+        buildOnlineDefragmenter( transactionCommitProcess, transactionIdStore, kernelTransactions, availabilityGuard,
+                clock );
+        // Started after recovery, since recovered transactions may already be in the store it is built from
+        life.add( dependencies.resolveDependency( ExtendedCounts.class ) );
 
         final KernelImpl kernel = new KernelImpl( kernelTransactions, hooks, databaseHealth, transactionMonitor, procedures,
                 config, storageEngine );
@@ -751,6 +759,27 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
                 new KernelTransactionMonitorScheduler( kernelTransactionTimeoutMonitor, scheduler,
                         config.get( GraphDatabaseSettings.transaction_monitor_check_interval ).toMillis() );
         life.add( transactionMonitorScheduler );
+
+        KernelTransactionMemoryMonitor kernelTransactionMemoryMonitor =
+                new KernelTransactionMemoryMonitor( kernelTransactions, config, logService );
+        dependencies.satisfyDependency( kernelTransactionMemoryMonitor );
+        life.add( new KernelTransactionMonitorScheduler( kernelTransactionMemoryMonitor, scheduler,
+                config.get( GraphDatabaseSettings.transaction_monitor_check_interval ).toMillis() ) );
+    }
+
+    private void buildOnlineDefragmenter( TransactionCommitProcess transactionCommitProcess,
+            TransactionIdStore transactionIdStore, KernelTransactions kernelTransactions,
+            AvailabilityGuard availabilityGuard, Clock clock )
+    {
+        // Cluster members commit through their leader or master, or not at all, so only single instances defragment
+        if ( readOnly || operationalMode != OperationalMode.single )
+        {
+            return;
+        }
+        RecordChainCompactor compactor = dependencies.resolveDependency( RecordChainCompactor.class );
+        life.add( new OnlineDefragmenter( compactor, transactionCommitProcess, statementLocksFactory,
+                transactionHeaderInformationFactory, transactionIdStore, kernelTransactions, availabilityGuard,
+                scheduler, clock, config, logService ) );
     }
 
     @Override
@@ -1087,6 +1087,19 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             return transaction.collectionsFactory.getMemoryTracker().usedDirectMemory();
         }
 
+        /**
+         * Returns an estimate of the memory used by the state of the current transaction, both on- and off-heap.
+         * Record state and commands are derived from the transaction state at commit and are proportional to it.
+         *
+         * @return estimated amount of memory used by the transaction state in bytes.
+         */
+        long transactionStateBytes()
+        {
+            TxState txState = transaction.txState;
+            long heapBytes = txState != null ? txState.estimatedHeapUsage() : 0;
+            return heapBytes + directAllocatedBytes();
+        }
+
         /**
          * Return CPU time used by current transaction in milliseconds
          * @return the current CPU time used by the transaction, in milliseconds.
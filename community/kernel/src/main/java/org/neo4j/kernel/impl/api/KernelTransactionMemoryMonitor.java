@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.api.KernelTransactionHandle;
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.logging.Log;
+
+/**
+ * Transaction monitor that checks how much memory the state of active transactions uses.
+ * Transactions with a state larger than {@link GraphDatabaseSettings#transaction_state_max_size} are terminated.
+ * When the state of all active transactions together is larger than
+ * {@link GraphDatabaseSettings#transaction_state_global_max_size}, the largest transactions are terminated until
+ * the total is below the limit again.
+ * <p>
+ * Limits are enforced when the monitor runs rather than when memory is allocated, so a transaction may temporarily
+ * grow beyond its limit by what it manages to allocate between two checks.
+ */
+public class KernelTransactionMemoryMonitor implements Runnable
+{
+    private static final Comparator<TransactionMemory> LARGEST_FIRST =
+            Comparator.comparingLong( ( TransactionMemory tx ) -> tx.bytes ).reversed();
+
+    private final KernelTransactions kernelTransactions;
+    private final Config config;
+    private final Log log;
+    private volatile long totalTransactionStateBytes;
+
+    public KernelTransactionMemoryMonitor( KernelTransactions kernelTransactions, Config config, LogService logService )
+    {
+        this.kernelTransactions = kernelTransactions;
+        this.config = config;
+        this.log = logService.getInternalLog( KernelTransactionMemoryMonitor.class );
+    }
+
+    @Override
+    public synchronized void run()
+    {
+        long maxSize = config.get( GraphDatabaseSettings.transaction_state_max_size );
+        long globalMaxSize = config.get( GraphDatabaseSettings.transaction_state_global_max_size );
+
+        Set<KernelTransactionHandle> activeTransactions = kernelTransactions.activeTransactions();
+        List<TransactionMemory> transactions = new ArrayList<>( activeTransactions.size() );
+        long total = 0;
+        for ( KernelTransactionHandle activeTransaction : activeTransactions )
+        {
+            long bytes = activeTransaction.transactionStatistic().getTransactionStateBytes();
+            if ( maxSize > 0 && bytes > maxSize )
+            {
+                if ( activeTransaction.markForTermination( Status.Transaction.TransactionMemoryLimitExceeded ) )
+                {
+                    log.warn( "Transaction %s terminated, its state uses %d bytes which exceeds the limit of %d bytes.",
+                            activeTransaction, bytes, maxSize );
+                }
+                continue;
+            }
+            transactions.add( new TransactionMemory( activeTransaction, bytes ) );
+            total += bytes;
+        }
+        totalTransactionStateBytes = total;
+
+        if ( globalMaxSize > 0 && total > globalMaxSize )
+        {
+            transactions.sort( LARGEST_FIRST );
+            for ( TransactionMemory transaction : transactions )
+            {
+                if ( total <= globalMaxSize )
+                {
+                    break;
+                }
+                if ( transaction.handle.markForTermination( Status.Transaction.GlobalTransactionMemoryLimitExceeded ) )
+                {
+                    log.warn( "Transaction %s terminated, its state uses %d bytes and the state of all active " +
+                              "transactions exceeds the global limit of %d bytes.",
+                            transaction.handle, transaction.bytes, globalMaxSize );
+                }
+                total -= transaction.bytes;
+            }
+        }
+    }
+
+    /**
+     * @return the amount of memory used by the state of all active transactions, as observed by the latest check.
+     */
+    public long totalTransactionStateBytes()
+    {
+        return totalTransactionStateBytes;
+    }
+
+    private static class TransactionMemory
+    {
+        private final KernelTransactionHandle handle;
+        private final long bytes;
+
+        TransactionMemory( KernelTransactionHandle handle, long bytes )
+        {
+            this.handle = handle;
+            this.bytes = bytes;
+        }
+    }
+}
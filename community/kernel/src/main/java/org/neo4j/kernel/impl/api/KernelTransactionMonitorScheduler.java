@@ -28,15 +28,15 @@ import static org.neo4j.scheduler.JobScheduler.Groups.transactionTimeoutMonitor;
 
 public class KernelTransactionMonitorScheduler extends LifecycleAdapter
 {
-    private final KernelTransactionTimeoutMonitor kernelTransactionTimeoutMonitor;
+    private final Runnable transactionMonitor;
     private final JobScheduler scheduler;
     private final long checkIntervalMillis;
     private JobScheduler.JobHandle monitorJobHandle;
 
-    public KernelTransactionMonitorScheduler( KernelTransactionTimeoutMonitor kernelTransactionTimeoutMonitor,
-            JobScheduler scheduler, long checkIntervalMillis )
+    public KernelTransactionMonitorScheduler( Runnable transactionMonitor, JobScheduler scheduler,
+            long checkIntervalMillis )
     {
-        this.kernelTransactionTimeoutMonitor = kernelTransactionTimeoutMonitor;
+        this.transactionMonitor = transactionMonitor;
         this.scheduler = scheduler;
         this.checkIntervalMillis = checkIntervalMillis;
     }
@@ -46,7 +46,7 @@ public class KernelTransactionMonitorScheduler extends LifecycleAdapter
     {
         if ( checkIntervalMillis > 0 )
         {
-            monitorJobHandle = scheduler.scheduleRecurring( transactionTimeoutMonitor, kernelTransactionTimeoutMonitor,
+            monitorJobHandle = scheduler.scheduleRecurring( transactionTimeoutMonitor, transactionMonitor,
                     checkIntervalMillis, TimeUnit.MILLISECONDS );
         }
     }
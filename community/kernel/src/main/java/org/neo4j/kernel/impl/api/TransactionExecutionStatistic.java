@@ -29,6 +29,7 @@ public class TransactionExecutionStatistic
 
     private final Long heapAllocatedBytes;
     private final Long directAllocatedBytes;
+    private final long transactionStateBytes;
     private final Long cpuTimeMillis;
     private final long waitTimeMillis;
     private final long elapsedTimeMillis;
@@ -40,6 +41,7 @@ public class TransactionExecutionStatistic
     {
         heapAllocatedBytes = null;
         directAllocatedBytes = null;
+        transactionStateBytes = 0;
         cpuTimeMillis = null;
         waitTimeMillis = -1;
         elapsedTimeMillis = -1;
@@ -56,6 +58,7 @@ public class TransactionExecutionStatistic
         this.waitTimeMillis = NANOSECONDS.toMillis( statistics.getWaitingTimeNanos( nowNanos ) );
         this.heapAllocatedBytes = nullIfNegative( statistics.heapAllocatedBytes() );
         this.directAllocatedBytes = nullIfNegative( statistics.directAllocatedBytes() );
+        this.transactionStateBytes = statistics.transactionStateBytes();
         this.cpuTimeMillis = nullIfNegative( statistics.cpuTimeMillis() );
         this.pageFaults = statistics.totalTransactionPageCacheFaults();
         this.pageHits = statistics.totalTransactionPageCacheHits();
@@ -73,6 +76,11 @@ public class TransactionExecutionStatistic
         return directAllocatedBytes;
     }
 
+    public long getTransactionStateBytes()
+    {
+        return transactionStateBytes;
+    }
+
     public Long getCpuTimeMillis()
     {
         return cpuTimeMillis;
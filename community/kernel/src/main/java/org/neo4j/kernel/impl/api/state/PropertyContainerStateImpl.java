@@ -79,6 +79,16 @@ class PropertyContainerStateImpl implements PropertyContainerState
         }
     }
 
+    /**
+     * @return number of property changes currently tracked, where changing the same property twice counts once.
+     */
+    int propertyChangeCount()
+    {
+        return (addedProperties == null ? 0 : addedProperties.size()) +
+               (changedProperties == null ? 0 : changedProperties.size()) +
+               (removedProperties == null ? 0 : removedProperties.size());
+    }
+
     void changeProperty( int propertyKeyId, Value value )
     {
         if ( addedProperties != null && addedProperties.containsKey( propertyKeyId ) )
@@ -21,13 +21,13 @@ package org.neo4j.kernel.impl.api.state;
 
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.function.Consumer;
 
+import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveIntObjectVisitor;
 import org.neo4j.collection.primitive.PrimitiveIntSet;
@@ -66,6 +66,7 @@ import org.neo4j.storageengine.api.RelationshipItem;
 import org.neo4j.storageengine.api.StorageProperty;
 import org.neo4j.storageengine.api.txstate.DiffSetsVisitor;
 import org.neo4j.storageengine.api.txstate.NodeState;
+import org.neo4j.storageengine.api.txstate.PrimitiveLongDiffSetsVisitor;
 import org.neo4j.storageengine.api.txstate.PrimitiveLongReadableDiffSets;
 import org.neo4j.storageengine.api.txstate.PropertyContainerState;
 import org.neo4j.storageengine.api.txstate.ReadableDiffSets;
@@ -79,6 +80,7 @@ import org.neo4j.values.storable.ValueGroup;
 import org.neo4j.values.storable.ValueTuple;
 import org.neo4j.values.storable.Values;
 
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.emptySet;
 import static org.neo4j.collection.primitive.PrimitiveLongCollections.toPrimitiveIterator;
 import static org.neo4j.helpers.collection.Iterables.map;
 import static org.neo4j.values.storable.Values.NO_VALUE;
@@ -96,12 +98,18 @@ import static org.neo4j.values.storable.Values.NO_VALUE;
  */
 public class TxState implements TransactionState, RelationshipVisitor.Home
 {
+    /**
+     * Rough number of heap bytes that a single tracked change adds to the transaction state, covering the map entries,
+     * diff set entries and state objects that are typically created to track it.
+     */
+    static final long ESTIMATED_BYTES_PER_CHANGE = 128;
+
     /**
      * This factory must be used only for creating collections representing internal state that doesn't leak outside this class.
      */
     private final CollectionsFactory collectionsFactory;
 
-    private PrimitiveIntObjectMap<DiffSets<Long>> labelStatesMap;
+    private PrimitiveIntObjectMap<PrimitiveLongDiffSets> labelStatesMap;
     private PrimitiveLongObjectMap<NodeStateImpl> nodeStatesMap;
     private PrimitiveLongObjectMap<RelationshipStateImpl> relationshipStatesMap;
 
@@ -128,6 +136,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
 
     private boolean hasChanges;
     private boolean hasDataChanges;
+    private long trackedChanges;
 
     public TxState()
     {
@@ -187,7 +196,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         // Created nodes
         if ( nodes != null )
         {
-            nodes.accept( createdNodesVisitor( visitor ) );
+            nodes.visit( createdNodesVisitor( visitor ) );
         }
 
         if ( relationships != null )
@@ -202,7 +211,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         // Deleted nodes
         if ( nodes != null )
         {
-            nodes.accept( deletedNodesVisitor( visitor ) );
+            nodes.visit( deletedNodesVisitor( visitor ) );
         }
 
         for ( NodeState node : modifiedNodes() )
@@ -246,24 +255,24 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         }
     }
 
-    private static DiffSetsVisitor<Long> deletedNodesVisitor( final TxStateVisitor visitor )
+    private static PrimitiveLongDiffSetsVisitor deletedNodesVisitor( final TxStateVisitor visitor )
     {
-        return new DiffSetsVisitor.Adapter<Long>()
+        return new PrimitiveLongDiffSetsVisitor.Adapter()
         {
             @Override
-            public void visitRemoved( Long element )
+            public void visitRemoved( long element )
             {
                 visitor.visitDeletedNode( element );
             }
         };
     }
 
-    private static DiffSetsVisitor<Long> createdNodesVisitor( final TxStateVisitor visitor )
+    private static PrimitiveLongDiffSetsVisitor createdNodesVisitor( final TxStateVisitor visitor )
     {
-        return new DiffSetsVisitor.Adapter<Long>()
+        return new PrimitiveLongDiffSetsVisitor.Adapter()
         {
             @Override
-            public void visitAdded( Long element )
+            public void visitAdded( long element )
             {
                 visitor.visitCreatedNode( element );
             }
@@ -361,23 +370,23 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         return nodeStatesMap == null ? Iterables.empty() : Iterables.cast( nodeStatesMap.values() );
     }
 
-    private DiffSets<Long> getOrCreateLabelStateNodeDiffSets( int labelId )
+    private PrimitiveLongDiffSets getOrCreateLabelStateNodeDiffSets( int labelId )
     {
         if ( labelStatesMap == null )
         {
             labelStatesMap = collectionsFactory.newIntObjectMap();
         }
-        return labelStatesMap.computeIfAbsent( labelId, unused -> new DiffSets<>() );
+        return labelStatesMap.computeIfAbsent( labelId, unused -> collectionsFactory.newLongDiffSets() );
     }
 
-    private ReadableDiffSets<Long> getLabelStateNodeDiffSets( int labelId )
+    private PrimitiveLongReadableDiffSets getLabelStateNodeDiffSets( int labelId )
     {
         if ( labelStatesMap == null )
         {
-            return ReadableDiffSets.Empty.instance();
+            return PrimitiveLongReadableDiffSets.EMPTY;
         }
-        final DiffSets<Long> nodeDiffSets = labelStatesMap.get( labelId );
-        return ReadableDiffSets.Empty.ifNull( nodeDiffSets );
+        final PrimitiveLongDiffSets nodeDiffSets = labelStatesMap.get( labelId );
+        return nodeDiffSets == null ? PrimitiveLongReadableDiffSets.EMPTY : nodeDiffSets;
     }
 
     @Override
@@ -414,16 +423,48 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     }
 
     private void changed()
+    {
+        changed( 1 );
+    }
+
+    private void changed( long trackedChangesDelta )
     {
         hasChanges = true;
+        trackedChanges += trackedChangesDelta;
+    }
+
+    /**
+     * Estimates the amount of heap memory used by this transaction state, based on the number of changes it currently
+     * tracks. Overwriting a change does not add to the estimate, and undoing one, like removing a property that was
+     * added in this transaction, takes it away again.
+     * Memory allocated off-heap through the {@link CollectionsFactory} is tracked separately by its memory tracker.
+     * This method may be called by other threads than the one owning the transaction state, in which case the
+     * returned estimate may be slightly stale.
+     *
+     * @return estimated number of heap bytes held by this transaction state.
+     */
+    public long estimatedHeapUsage()
+    {
+        return trackedChanges * ESTIMATED_BYTES_PER_CHANGE;
     }
 
     private void dataChanged()
     {
-        changed();
+        dataChanged( 1 );
+    }
+
+    private void dataChanged( long trackedChangesDelta )
+    {
+        changed( trackedChangesDelta );
         hasDataChanges = true;
     }
 
+    private static int labelChangeCount( ReadableDiffSets<Integer> labelDiffSets )
+    {
+        // label changes are tracked both per node and per label
+        return 2 * (labelDiffSets.getAdded().size() + labelDiffSets.getRemoved().size());
+    }
+
     @Override
     public void nodeDoCreate( long id )
     {
@@ -436,12 +477,14 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     {
         nodes().remove( nodeId );
 
+        long discardedChanges = 0;
         if ( nodeStatesMap != null )
         {
             NodeStateImpl nodeState = nodeStatesMap.remove( nodeId );
             if ( nodeState != null )
             {
                 ReadableDiffSets<Integer> diff = nodeState.labelDiffSets();
+                discardedChanges = nodeState.propertyChangeCount() + labelChangeCount( diff );
                 for ( Integer label : diff.getAdded() )
                 {
                     getOrCreateLabelStateNodeDiffSets( label ).remove( nodeId );
@@ -450,7 +493,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
                 nodeState.clear();
             }
         }
-        dataChanged();
+        dataChanged( 1 - discardedChanges );
     }
 
     @Override
@@ -500,16 +543,18 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
             getOrCreateNodeState( endNodeId ).removeRelationship( id, type, Direction.INCOMING );
         }
 
+        long discardedChanges = 0;
         if ( relationshipStatesMap != null )
         {
             RelationshipStateImpl removed = relationshipStatesMap.remove( id );
             if ( removed != null )
             {
+                discardedChanges = removed.propertyChangeCount();
                 removed.clear();
             }
         }
 
-        dataChanged();
+        dataChanged( 1 - discardedChanges );
     }
 
     @Override
@@ -528,81 +573,98 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     public void nodeDoAddProperty( long nodeId, int newPropertyKeyId, Value value )
     {
         NodeStateImpl nodeState = getOrCreateNodeState( nodeId );
+        int before = nodeState.propertyChangeCount();
         nodeState.addProperty( newPropertyKeyId, value );
-        dataChanged();
+        dataChanged( nodeState.propertyChangeCount() - before );
     }
 
     @Override
     public void nodeDoChangeProperty( long nodeId, int propertyKeyId, Value replacedValue, Value newValue )
     {
-        getOrCreateNodeState( nodeId ).changeProperty( propertyKeyId, newValue );
-        dataChanged();
+        NodeStateImpl nodeState = getOrCreateNodeState( nodeId );
+        int before = nodeState.propertyChangeCount();
+        nodeState.changeProperty( propertyKeyId, newValue );
+        dataChanged( nodeState.propertyChangeCount() - before );
     }
 
     @Override
     public void relationshipDoReplaceProperty( long relationshipId, int propertyKeyId, Value replacedValue,
             Value newValue )
     {
+        RelationshipStateImpl relationshipState = getOrCreateRelationshipState( relationshipId );
+        int before = relationshipState.propertyChangeCount();
         if ( replacedValue != NO_VALUE )
         {
-            getOrCreateRelationshipState( relationshipId ).changeProperty( propertyKeyId, newValue );
+            relationshipState.changeProperty( propertyKeyId, newValue );
         }
         else
         {
-            getOrCreateRelationshipState( relationshipId ).addProperty( propertyKeyId, newValue );
+            relationshipState.addProperty( propertyKeyId, newValue );
         }
-        dataChanged();
+        dataChanged( relationshipState.propertyChangeCount() - before );
     }
 
     @Override
     public void graphDoReplaceProperty( int propertyKeyId, Value replacedValue, Value newValue )
     {
+        GraphState graph = getOrCreateGraphState();
+        int before = graph.propertyChangeCount();
         if ( replacedValue != NO_VALUE )
         {
-            getOrCreateGraphState().changeProperty( propertyKeyId, newValue );
+            graph.changeProperty( propertyKeyId, newValue );
         }
         else
         {
-            getOrCreateGraphState().addProperty( propertyKeyId, newValue );
+            graph.addProperty( propertyKeyId, newValue );
         }
-        dataChanged();
+        dataChanged( graph.propertyChangeCount() - before );
     }
 
     @Override
     public void nodeDoRemoveProperty( long nodeId, int propertyKeyId )
     {
-        getOrCreateNodeState( nodeId ).removeProperty( propertyKeyId );
-        dataChanged();
+        NodeStateImpl nodeState = getOrCreateNodeState( nodeId );
+        int before = nodeState.propertyChangeCount();
+        nodeState.removeProperty( propertyKeyId );
+        dataChanged( nodeState.propertyChangeCount() - before );
     }
 
     @Override
     public void relationshipDoRemoveProperty( long relationshipId, int propertyKeyId )
     {
-        getOrCreateRelationshipState( relationshipId ).removeProperty( propertyKeyId );
-        dataChanged();
+        RelationshipStateImpl relationshipState = getOrCreateRelationshipState( relationshipId );
+        int before = relationshipState.propertyChangeCount();
+        relationshipState.removeProperty( propertyKeyId );
+        dataChanged( relationshipState.propertyChangeCount() - before );
     }
 
     @Override
     public void graphDoRemoveProperty( int propertyKeyId )
     {
-        getOrCreateGraphState().removeProperty( propertyKeyId );
-        dataChanged();
+        GraphState graph = getOrCreateGraphState();
+        int before = graph.propertyChangeCount();
+        graph.removeProperty( propertyKeyId );
+        dataChanged( graph.propertyChangeCount() - before );
     }
 
     @Override
     public void nodeDoAddLabel( int labelId, long nodeId )
     {
+        DiffSets<Integer> nodeLabels = getOrCreateNodeStateLabelDiffSets( nodeId );
+        int before = labelChangeCount( nodeLabels );
         getOrCreateLabelStateNodeDiffSets( labelId ).add( nodeId );
-        getOrCreateNodeStateLabelDiffSets( nodeId ).add( labelId );
-        dataChanged();
+        nodeLabels.add( labelId );
+        dataChanged( labelChangeCount( nodeLabels ) - before );
     }
 
     @Override
     public void nodeDoRemoveLabel( int labelId, long nodeId )
     {
+        DiffSets<Integer> nodeLabels = getOrCreateNodeStateLabelDiffSets( nodeId );
+        int before = labelChangeCount( nodeLabels );
         getOrCreateLabelStateNodeDiffSets( labelId ).remove( nodeId );
-        getOrCreateNodeStateLabelDiffSets( nodeId ).remove( labelId );
-        dataChanged();
+        nodeLabels.remove( labelId );
+        dataChanged( labelChangeCount( nodeLabels ) - before );
     }
 
     @Override
@@ -737,42 +799,53 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     }
 
     @Override
-    public ReadableDiffSets<Long> nodesWithLabelChanged( int label )
+    public PrimitiveLongReadableDiffSets nodesWithLabelChanged( int label )
     {
         return getLabelStateNodeDiffSets( label );
     }
 
     @Override
-    public ReadableDiffSets<Long> nodesWithAnyOfLabelsChanged( int... labels )
+    public PrimitiveLongReadableDiffSets nodesWithAnyOfLabelsChanged( int... labels )
     {
         //It is enough that one of the labels is added
         //It is necessary for all the labels are removed
-        Set<Long> added = new HashSet<>();
-        Set<Long> removed = new HashSet<>();
+        PrimitiveLongSet added = Primitive.longSet();
+        PrimitiveLongSet removed = Primitive.longSet();
         for ( int i = 0; i < labels.length; i++ )
         {
-            ReadableDiffSets<Long> nodeDiffSets = getLabelStateNodeDiffSets( labels[i] );
+            PrimitiveLongReadableDiffSets nodeDiffSets = getLabelStateNodeDiffSets( labels[i] );
             if ( i == 0 )
             {
-                removed.addAll( nodeDiffSets.getRemoved() );
+                removed.addAll( nodeDiffSets.getRemoved().iterator() );
             }
             else
             {
-                removed.retainAll( nodeDiffSets.getRemoved() );
+                PrimitiveLongSet removedForLabel = nodeDiffSets.getRemoved();
+                PrimitiveLongSet retained = Primitive.longSet();
+                PrimitiveLongIterator iterator = removed.iterator();
+                while ( iterator.hasNext() )
+                {
+                    long nodeId = iterator.next();
+                    if ( removedForLabel.contains( nodeId ) )
+                    {
+                        retained.add( nodeId );
+                    }
+                }
+                removed = retained;
             }
-            added.addAll( nodeDiffSets.getAdded() );
+            added.addAll( nodeDiffSets.getAdded().iterator() );
         }
 
-        return new DiffSets<>( added, removed );
+        return new PrimitiveLongDiffSets( added, removed, OnHeapCollectionsFactory.INSTANCE );
     }
 
     @Override
-    public ReadableDiffSets<Long> nodesWithAllLabelsChanged( int... labels )
+    public PrimitiveLongReadableDiffSets nodesWithAllLabelsChanged( int... labels )
     {
-        DiffSets<Long> changes = new DiffSets<>();
+        PrimitiveLongDiffSets changes = new PrimitiveLongDiffSets();
         for ( int label : labels )
         {
-            final ReadableDiffSets<Long> nodeDiffSets = getLabelStateNodeDiffSets( label );
+            final PrimitiveLongReadableDiffSets nodeDiffSets = getLabelStateNodeDiffSets( label );
             changes.addAll( nodeDiffSets.getAdded().iterator() );
             changes.removeAll( nodeDiffSets.getRemoved().iterator() );
         }
@@ -825,9 +898,9 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     }
 
     @Override
-    public ReadableDiffSets<Long> addedAndRemovedNodes()
+    public PrimitiveLongReadableDiffSets addedAndRemovedNodes()
     {
-        return ReadableDiffSets.Empty.ifNull( nodes );
+        return nodes == null ? PrimitiveLongReadableDiffSets.EMPTY : nodes;
     }
 
     private RemovalsCountingDiffSets nodes()
@@ -1287,6 +1360,11 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         }
         if ( labelStatesMap != null )
         {
+            labelStatesMap.visitEntries( ( labelId, nodeDiffSets ) ->
+            {
+                nodeDiffSets.close();
+                return false;
+            } );
             labelStatesMap.close();
         }
         if ( createdLabelTokens != null )
@@ -1305,9 +1383,9 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             relationshipStatesMap.close();
         }
-        if ( nodes != null && nodes.removedFromAdded != null )
+        if ( nodes != null )
         {
-            nodes.removedFromAdded.close();
+            nodes.close();
         }
         if ( relationships != null && relationships.removedFromAdded != null )
         {
@@ -1389,17 +1467,22 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     }
 
     /**
-     * This class works around the fact that create-delete in the same transaction is a no-op in {@link DiffSets},
+     * This class works around the fact that create-delete in the same transaction is a no-op in {@link PrimitiveLongDiffSets},
      * whereas we need to know total number of explicit removals.
      */
-    private class RemovalsCountingDiffSets extends DiffSets<Long>
+    private class RemovalsCountingDiffSets extends PrimitiveLongDiffSets
     {
         private PrimitiveLongSet removedFromAdded;
 
+        RemovalsCountingDiffSets()
+        {
+            super( emptySet(), emptySet(), collectionsFactory );
+        }
+
         @Override
-        public boolean remove( Long elem )
+        public boolean remove( long elem )
         {
-            if ( added( false ).remove( elem ) )
+            if ( isAdded( elem ) && super.remove( elem ) )
             {
                 if ( removedFromAdded == null )
                 {
@@ -1408,13 +1491,23 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
                 removedFromAdded.add( elem );
                 return true;
             }
-            return removed( true ).add( elem );
+            return super.remove( elem );
         }
 
         private boolean wasRemoved( long id )
         {
             return (removedFromAdded != null && removedFromAdded.contains( id )) || super.isRemoved( id );
         }
+
+        @Override
+        public void close()
+        {
+            super.close();
+            if ( removedFromAdded != null )
+            {
+                removedFromAdded.close();
+            }
+        }
     }
 
     /**
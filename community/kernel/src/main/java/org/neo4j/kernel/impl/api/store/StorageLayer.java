@@ -66,6 +66,7 @@ import org.neo4j.kernel.impl.store.RelationshipStore;
 import org.neo4j.kernel.impl.store.SchemaStorage;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.ExtendedCounts;
 import org.neo4j.kernel.impl.store.record.IndexRule;
 import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
@@ -108,13 +109,15 @@ public class StorageLayer implements StoreReadLayer
     private final RecordStore<RelationshipGroupRecord> relationshipGroupStore;
     private final SchemaStorage schemaStorage;
     private final CountsTracker counts;
+    private final ExtendedCounts extendedCounts;
     private final PropertyLoader propertyLoader;
     private final Supplier<StorageStatement> statementProvider;
     private final SchemaCache schemaCache;
 
     public StorageLayer( PropertyKeyTokenHolder propertyKeyTokenHolder, LabelTokenHolder labelTokenHolder,
             RelationshipTypeTokenHolder relationshipTokenHolder, SchemaStorage schemaStorage, NeoStores neoStores,
-            IndexingService indexService, Supplier<StorageStatement> storeStatementSupplier, SchemaCache schemaCache )
+            IndexingService indexService, Supplier<StorageStatement> storeStatementSupplier, SchemaCache schemaCache,
+            ExtendedCounts extendedCounts )
     {
         this.relationshipTokenHolder = relationshipTokenHolder;
         this.schemaStorage = schemaStorage;
@@ -126,6 +129,7 @@ public class StorageLayer implements StoreReadLayer
         this.relationshipStore = neoStores.getRelationshipStore();
         this.relationshipGroupStore = neoStores.getRelationshipGroupStore();
         this.counts = neoStores.getCounts();
+        this.extendedCounts = extendedCounts;
         this.propertyLoader = new PropertyLoader( neoStores );
         this.schemaCache = schemaCache;
     }
@@ -495,6 +499,24 @@ public class StorageLayer implements StoreReadLayer
         return counts.relationshipCount( startLabelId, typeId, endLabelId, newDoubleLongRegister() ).readSecond();
     }
 
+    @Override
+    public long countsForNodeWithLabels( int labelId, int otherLabelId )
+    {
+        return extendedCounts.nodeCount( labelId, otherLabelId );
+    }
+
+    @Override
+    public long countsForNodeWithProperty( int labelId, int propertyKeyId )
+    {
+        return extendedCounts.nodePropertyCount( labelId, propertyKeyId );
+    }
+
+    @Override
+    public long countsForRelationshipBetweenLabels( int startLabelId, int typeId, int endLabelId )
+    {
+        return extendedCounts.relationshipCount( startLabelId, typeId, endLabelId );
+    }
+
     @Override
     public long nodesGetCount()
     {
@@ -26,7 +26,9 @@ import java.util.Iterator;
 import java.util.Map;
 
 import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.cursor.Cursor;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
@@ -57,6 +59,7 @@ import org.neo4j.storageengine.api.txstate.RelationshipState;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.Values;
 
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.toIterator;
 import static org.neo4j.kernel.api.AssertOpen.ALWAYS_OPEN;
 
 /**
@@ -201,8 +204,10 @@ public class TxStateTransactionDataSnapshot implements TransactionData
     {
         try
         {
-            for ( long nodeId : state.addedAndRemovedNodes().getRemoved() )
+            PrimitiveLongIterator removedNodes = state.addedAndRemovedNodes().getRemoved().iterator();
+            while ( removedNodes.hasNext() )
             {
+                long nodeId = removedNodes.next();
                 try ( Cursor<NodeItem> node = storeStatement.acquireSingleNodeCursor( nodeId ) )
                 {
                     if ( node.next() )
@@ -329,6 +334,11 @@ public class TxStateTransactionDataSnapshot implements TransactionData
         return relationship;
     }
 
+    private Iterable<Node> map2Nodes( PrimitiveLongSet ids )
+    {
+        return map2Nodes( () -> toIterator( ids.iterator() ) );
+    }
+
     private Iterable<Node> map2Nodes( Iterable<Long> added )
     {
         return new IterableWrapper<Node, Long>( added )
@@ -57,6 +57,7 @@ import org.neo4j.kernel.impl.locking.community.CommunityLockManger;
 import org.neo4j.kernel.impl.logging.LogService;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.store.id.DefaultIdGeneratorFactory;
+import org.neo4j.kernel.impl.store.id.GBPTreeIdGeneratorFactory;
 import org.neo4j.kernel.impl.store.id.IdGeneratorFactory;
 import org.neo4j.kernel.impl.store.id.IdReuseEligibility;
 import org.neo4j.kernel.impl.store.id.configuration.CommunityIdTypeConfigurationProvider;
@@ -108,7 +109,8 @@ public class CommunityEditionModule extends EditionModule
         idTypeConfigurationProvider = createIdTypeConfigurationProvider( config );
         eligibleForIdReuse = IdReuseEligibility.ALWAYS;
 
-        createIdComponents( platformModule, dependencies, createIdGeneratorFactory( fileSystem, idTypeConfigurationProvider ) );
+        createIdComponents( platformModule, dependencies,
+                createIdGeneratorFactory( fileSystem, pageCache, config, idTypeConfigurationProvider ) );
         dependencies.satisfyDependency( idGeneratorFactory );
         dependencies.satisfyDependency( idController );
 
@@ -221,9 +223,13 @@ public class CommunityEditionModule extends EditionModule
         return life.add( new DefaultKernelData( fileSystem, pageCache, storeDir, config, graphAPI ) );
     }
 
-    protected IdGeneratorFactory createIdGeneratorFactory( FileSystemAbstraction fs,
+    protected IdGeneratorFactory createIdGeneratorFactory( FileSystemAbstraction fs, PageCache pageCache, Config config,
             IdTypeConfigurationProvider idTypeConfigurationProvider )
     {
+        if ( config.get( GraphDatabaseSettings.persistent_free_ids ) )
+        {
+            return new GBPTreeIdGeneratorFactory( fs, pageCache, idTypeConfigurationProvider );
+        }
         return new DefaultIdGeneratorFactory( fs, idTypeConfigurationProvider );
     }
 
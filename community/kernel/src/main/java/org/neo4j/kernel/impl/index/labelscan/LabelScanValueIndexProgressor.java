@@ -37,13 +37,28 @@ public class LabelScanValueIndexProgressor extends LabelScanValueIndexAccessor i
 {
 
     private final NodeLabelClient client;
+    private final long fromId;
+    private final long toId;
 
     LabelScanValueIndexProgressor( RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor,
             Collection<RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException>> toRemoveFromWhenClosed,
             NodeLabelClient client )
+    {
+        this( cursor, toRemoveFromWhenClosed, client, 0, Long.MAX_VALUE );
+    }
+
+    /**
+     * Only reports nodes with ids in {@code [fromId, toId)}, for ranges which do not start or end at a
+     * {@link LabelScanValue#RANGE_SIZE} boundary.
+     */
+    LabelScanValueIndexProgressor( RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor,
+            Collection<RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException>> toRemoveFromWhenClosed,
+            NodeLabelClient client, long fromId, long toId )
     {
         super( toRemoveFromWhenClosed, cursor );
         this.client = client;
+        this.fromId = fromId;
+        this.toId = toId;
     }
 
     /**
@@ -83,6 +98,14 @@ public class LabelScanValueIndexProgressor extends LabelScanValueIndexAccessor i
             Hit<LabelScanKey,LabelScanValue> hit = cursor.get();
             baseNodeId = hit.key().idRange * LabelScanValue.RANGE_SIZE;
             bits = hit.value().bits;
+            if ( baseNodeId < fromId )
+            {
+                bits &= -1L << (fromId - baseNodeId);
+            }
+            if ( toId - baseNodeId < LabelScanValue.RANGE_SIZE )
+            {
+                bits &= (1L << (toId - baseNodeId)) - 1;
+            }
 
             //noinspection AssertWithSideEffects
             assert keysInOrder( hit.key() );
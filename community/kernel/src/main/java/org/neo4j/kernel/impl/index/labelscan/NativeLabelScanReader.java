@@ -22,9 +22,9 @@ package org.neo4j.kernel.impl.index.labelscan;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.collection.primitive.PrimitiveLongResourceIterator;
@@ -52,14 +52,15 @@ class NativeLabelScanReader implements LabelScanReader
 
     /**
      * Currently open {@link RawCursor} from query methods below. Open cursors are closed when calling
-     * new query methods or when {@link #close() closing} this reader.
+     * new query methods or when {@link #close() closing} this reader. Concurrent, since batches of a parallel
+     * label scan may be read by several threads through the same reader.
      */
     private final Set<RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException>> openCursors;
 
     NativeLabelScanReader( GBPTree<LabelScanKey,LabelScanValue> index )
     {
         this.index = index;
-        this.openCursors = new HashSet<>();
+        this.openCursors = ConcurrentHashMap.newKeySet();
     }
 
     /**
@@ -126,6 +127,25 @@ class NativeLabelScanReader implements LabelScanReader
         client.scan( new LabelScanValueIndexProgressor( cursor, openCursors, client ), false, labelId );
     }
 
+    @Override
+    public void nodesWithLabel( IndexProgressor.NodeLabelClient client, int labelId, long fromId, long toId )
+    {
+        RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor;
+        try
+        {
+            LabelScanKey from = new LabelScanKey( labelId, fromId / LabelScanValue.RANGE_SIZE );
+            LabelScanKey to = new LabelScanKey( labelId, (toId - 1) / LabelScanValue.RANGE_SIZE + 1 );
+            cursor = index.seek( from, to );
+            openCursors.add( cursor );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+
+        client.scan( new LabelScanValueIndexProgressor( cursor, openCursors, client, fromId, toId ), false, labelId );
+    }
+
     private List<PrimitiveLongResourceIterator> iteratorsForLabels( int[] labelIds )
     {
         List<PrimitiveLongResourceIterator> iterators = new ArrayList<>();
@@ -20,19 +20,32 @@
 package org.neo4j.kernel.impl.locking.community;
 
 import java.time.Clock;
-import java.util.HashMap;
-import java.util.Map;
 
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.DeadlockDetectedException;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.locking.LockTracer;
 import org.neo4j.kernel.impl.transaction.IllegalResourceException;
-
+import org.neo4j.util.FeatureToggles;
+
+/**
+ * Keeps the {@link RWLock} of every resource that is currently locked, or about to be locked, by some transaction.
+ * <p>
+ * The lock table is split into a fixed number of stripes, each guarded by its own monitor, so that transactions
+ * locking different resources rarely contend on the lock table itself. Within a stripe, locks are kept in
+ * primitive maps keyed by resource id, one map per resource type.
+ */
 public class LockManagerImpl
 {
-    private final Map<Object,RWLock> resourceLockMap = new HashMap<>();
+    private static final int STRIPES = Integer.highestOneBit(
+            Math.max( 1, FeatureToggles.getInteger( LockManagerImpl.class, "stripes", 128 ) ) );
+
+    private final LockStripe[] stripes;
+    private final int stripeMask;
     private final RagManager ragManager;
     private final Clock clock;
 
@@ -46,6 +59,12 @@ public class LockManagerImpl
     {
         this.ragManager = ragManager;
         this.clock = clock;
+        this.stripes = new LockStripe[STRIPES];
+        for ( int i = 0; i < stripes.length; i++ )
+        {
+            stripes[i] = new LockStripe();
+        }
+        this.stripeMask = stripes.length - 1;
         this.lockAcquisitionTimeoutMillis = config.get( GraphDatabaseSettings.lock_acquisition_timeout ).toMillis();
     }
 
@@ -73,13 +92,13 @@ public class LockManagerImpl
         return unusedResourceGuard( resource, tx, getRWLockForAcquiring( resource, tx ).tryAcquireWriteLock( tx ) );
     }
 
-    public void releaseReadLock( Object resource, Object tx )
+    public void releaseReadLock( LockResource resource, Object tx )
             throws LockNotFoundException, IllegalResourceException
     {
         getRWLockForReleasing( resource, tx, 1, 0, true ).releaseReadLock( tx );
     }
 
-    public void releaseWriteLock( Object resource, Object tx )
+    public void releaseWriteLock( LockResource resource, Object tx )
             throws LockNotFoundException, IllegalResourceException
     {
         getRWLockForReleasing( resource, tx, 0, 1, true ).releaseWriteLock( tx );
@@ -91,7 +110,7 @@ public class LockManagerImpl
      *
      * @return {@code lockObtained }
      **/
-    private boolean unusedResourceGuard( Object resource, Object tx, boolean lockObtained )
+    private boolean unusedResourceGuard( LockResource resource, Object tx, boolean lockObtained )
     {
         if ( !lockObtained )
         {
@@ -112,13 +131,13 @@ public class LockManagerImpl
      */
     public void accept( Visitor<RWLock,RuntimeException> visitor )
     {
-        synchronized ( resourceLockMap )
+        for ( LockStripe stripe : stripes )
         {
-            for ( RWLock lock : resourceLockMap.values() )
+            synchronized ( stripe )
             {
-                if ( visitor.visit( lock ) )
+                if ( stripe.accept( visitor ) )
                 {
-                    break;
+                    return;
                 }
             }
         }
@@ -135,9 +154,10 @@ public class LockManagerImpl
     private RWLock getRWLockForAcquiring( LockResource resource, Object tx )
     {
         assertValidArguments( resource, tx );
-        synchronized ( resourceLockMap )
+        LockStripe stripe = stripeFor( resource );
+        synchronized ( stripe )
         {
-            RWLock lock = resourceLockMap.computeIfAbsent( resource, k -> createLock( resource ) );
+            RWLock lock = stripe.locks( resource ).computeIfAbsent( resource.resourceId(), k -> createLock( resource ) );
             lock.mark();
             return lock;
         }
@@ -149,13 +169,15 @@ public class LockManagerImpl
         return new RWLock( resource, ragManager, clock, lockAcquisitionTimeoutMillis );
     }
 
-    private RWLock getRWLockForReleasing( Object resource, Object tx, int readCountPrerequisite,
+    private RWLock getRWLockForReleasing( LockResource resource, Object tx, int readCountPrerequisite,
                                           int writeCountPrerequisite, boolean strict )
     {
         assertValidArguments( resource, tx );
-        synchronized ( resourceLockMap )
+        LockStripe stripe = stripeFor( resource );
+        synchronized ( stripe )
         {
-            RWLock lock = resourceLockMap.get( resource );
+            PrimitiveLongObjectMap<RWLock> locks = stripe.locks( resource );
+            RWLock lock = locks.get( resource.resourceId() );
             if ( lock == null )
             {
                 if ( !strict )
@@ -175,10 +197,40 @@ public class LockManagerImpl
                      lock.getWriteCount() == writeCountPrerequisite &&
                      lock.getWaitingThreadsCount() == 0 )
                 {
-                    resourceLockMap.remove( resource );
+                    locks.remove( resource.resourceId() );
                 }
             }
             return lock;
         }
     }
+
+    private LockStripe stripeFor( LockResource resource )
+    {
+        int hash = resource.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & stripeMask];
+    }
+
+    /**
+     * A part of the lock table. All access must be synchronized on the stripe itself.
+     */
+    private static class LockStripe
+    {
+        private final PrimitiveIntObjectMap<PrimitiveLongObjectMap<RWLock>> locksByType = Primitive.intObjectMap();
+
+        PrimitiveLongObjectMap<RWLock> locks( LockResource resource )
+        {
+            return locksByType.computeIfAbsent( resource.type().typeId(), type -> Primitive.longObjectMap() );
+        }
+
+        boolean accept( Visitor<RWLock,RuntimeException> visitor )
+        {
+            boolean[] stopped = new boolean[1];
+            locksByType.visitEntries( ( type, locks ) ->
+            {
+                locks.visitEntries( ( resourceId, lock ) -> stopped[0] = visitor.visit( lock ) );
+                return stopped[0];
+            } );
+            return stopped[0];
+        }
+    }
 }
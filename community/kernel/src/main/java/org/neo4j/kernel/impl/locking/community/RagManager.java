@@ -20,12 +20,16 @@
 package org.neo4j.kernel.impl.locking.community;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.neo4j.kernel.DeadlockDetectedException;
 
@@ -50,6 +54,12 @@ import org.neo4j.kernel.DeadlockDetectedException;
  * traverse the graph starting on the resource and see if we can get back
  * to the tx ( T1 wants to wait on R1 and R1->T2->R2->T3->R8->T1 <==>
  * deadlock!).
+ * <p/>
+ * Registering and unregistering lock holders happens for every lock taken, so it only synchronizes on the entry for
+ * the resource in question and never on the graph as a whole. The holders of a resource are replaced rather than
+ * changed, so a deadlock check traversing the graph always sees a complete list of them. Only waiting, which is the
+ * slow path anyway, is serialized: a transaction in a deadlock cycle is waiting and cannot take or release locks, so
+ * the part of the graph a check can find a cycle in does not change while the check runs.
  */
 public class RagManager
 {
@@ -67,54 +77,84 @@ public class RagManager
     // o When the transaction wakes up from waiting on a resource the
     // stopWaitOn( resource ) method must be invoked
 
-    private final Map<Object,List<Object>> resourceMap = new HashMap<>();
+    private final ConcurrentHashMap<Object,List<Object>> resourceMap = new ConcurrentHashMap<>();
     private final Map<Object, Object> waitingTxMap = new HashMap<>();
+    // guards changes to waiting transactions and traversing the graph
+    private final Lock graphLock = new ReentrantLock();
 
-    synchronized void lockAcquired( Object resource, Object tx )
+    void lockAcquired( Object resource, Object tx )
     {
-        List<Object> lockingTxList = resourceMap.get( resource );
-        if ( lockingTxList != null )
+        // the list is replaced, not changed, since deadlock checks may be iterating over it
+        resourceMap.compute( resource, ( key, lockingTxList ) ->
         {
+            if ( lockingTxList == null )
+            {
+                List<Object> newList = new ArrayList<>( 1 );
+                newList.add( tx );
+                return newList;
+            }
             assert !lockingTxList.contains( tx );
-            lockingTxList.add( tx );
-        }
-        else
-        {
-            lockingTxList = new LinkedList<>();
-            lockingTxList.add( tx );
-            resourceMap.put( resource, lockingTxList );
-        }
+            List<Object> newList = new ArrayList<>( lockingTxList.size() + 1 );
+            newList.addAll( lockingTxList );
+            newList.add( tx );
+            return newList;
+        } );
     }
 
-    synchronized void lockReleased( Object resource, Object tx )
+    void lockReleased( Object resource, Object tx )
     {
-        List<Object> lockingTxList = resourceMap.get( resource );
-        if ( lockingTxList == null )
+        resourceMap.compute( resource, ( key, lockingTxList ) ->
         {
-            throw new LockException( resource + " not found in resource map" );
-        }
+            if ( lockingTxList == null )
+            {
+                throw new LockException( resource + " not found in resource map" );
+            }
+            if ( !lockingTxList.contains( tx ) )
+            {
+                throw new LockException( tx + "not found in locking tx list" );
+            }
+            if ( lockingTxList.size() == 1 )
+            {
+                return null;
+            }
+            List<Object> newList = new ArrayList<>( lockingTxList );
+            newList.remove( tx );
+            return newList;
+        } );
+    }
 
-        if ( !lockingTxList.remove( tx ) )
+    void stopWaitOn( Object resource, Object tx )
+    {
+        graphLock.lock();
+        try
         {
-            throw new LockException( tx + "not found in locking tx list" );
+            if ( waitingTxMap.remove( tx ) == null )
+            {
+                throw new LockException( tx + " not waiting on " + resource );
+            }
         }
-        if ( lockingTxList.size() == 0 )
+        finally
         {
-            resourceMap.remove( resource );
+            graphLock.unlock();
         }
     }
 
-    synchronized void stopWaitOn( Object resource, Object tx )
+    // after invoke the transaction must wait on the resource
+    void checkWaitOn( Object resource, Object tx )
+            throws DeadlockDetectedException
     {
-        if ( waitingTxMap.remove( tx ) == null )
+        graphLock.lock();
+        try
+        {
+            checkWaitOnWhileExclusive( resource, tx );
+        }
+        finally
         {
-            throw new LockException( tx + " not waiting on " + resource );
+            graphLock.unlock();
         }
     }
 
-    // after invoke the transaction must wait on the resource
-    synchronized void checkWaitOn( Object resource, Object tx )
-            throws DeadlockDetectedException
+    private void checkWaitOnWhileExclusive( Object resource, Object tx ) throws DeadlockDetectedException
     {
         List<Object> lockingTxList = resourceMap.get( resource );
         if ( lockingTxList == null )
@@ -168,7 +208,7 @@ public class RagManager
         waitingTxMap.put( tx, resource );
     }
 
-    private synchronized void checkWaitOnRecursive( Object lockingTx,
+    private void checkWaitOnRecursive( Object lockingTx,
                                                     Object waitingTx, List<Object> checkedTransactions,
                                                     Deque<Object> graphStack ) throws DeadlockDetectedException
     {
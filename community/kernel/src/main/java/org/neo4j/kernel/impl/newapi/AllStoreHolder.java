@@ -72,6 +72,7 @@ import org.neo4j.kernel.impl.index.ExplicitIndexStore;
 import org.neo4j.kernel.impl.index.IndexEntityType;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
 import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.kernel.impl.store.DenseNodeDegrees;
 import org.neo4j.kernel.impl.store.RecordCursor;
 import org.neo4j.kernel.impl.store.record.DynamicRecord;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
@@ -219,6 +220,24 @@ public class AllStoreHolder extends Read
         return storeReadLayer.countsForRelationship( startLabelId, typeId, endLabelId );
     }
 
+    @Override
+    public long countsForNodeWithLabelsWithoutTxState( int labelId, int otherLabelId )
+    {
+        return storeReadLayer.countsForNodeWithLabels( labelId, otherLabelId );
+    }
+
+    @Override
+    public long countsForNodeWithPropertyWithoutTxState( int labelId, int propertyKeyId )
+    {
+        return storeReadLayer.countsForNodeWithProperty( labelId, propertyKeyId );
+    }
+
+    @Override
+    public long countsForRelationshipBetweenLabelsWithoutTxState( int startLabelId, int typeId, int endLabelId )
+    {
+        return storeReadLayer.countsForRelationshipBetweenLabels( startLabelId, typeId, endLabelId );
+    }
+
     @Override
     public boolean relationshipExists( long reference )
     {
@@ -741,6 +760,12 @@ public class AllStoreHolder extends Read
         groups.getRecordByCursor( reference, record, RecordLoad.FORCE, page );
     }
 
+    @Override
+    DenseNodeDegrees degrees()
+    {
+        return groups.degrees();
+    }
+
     @Override
     long nodeHighMark()
     {
@@ -753,12 +778,31 @@ public class AllStoreHolder extends Read
         return relationships.getHighestPossibleIdInUse();
     }
 
+    @Override
+    int nodesPerPage()
+    {
+        return nodes.getRecordsPerPage();
+    }
+
+    @Override
+    int relationshipsPerPage()
+    {
+        return relationships.getRecordsPerPage();
+    }
+
     @Override
     TextValue string( DefaultPropertyCursor cursor, long reference, PageCursor page )
+    {
+        ByteBuffer buffer = stringBytes( cursor, reference, page );
+        return Values.stringValue( UTF8.decode( buffer.array(), 0, buffer.limit() ) );
+    }
+
+    @Override
+    ByteBuffer stringBytes( DefaultPropertyCursor cursor, long reference, PageCursor page )
     {
         ByteBuffer buffer = cursor.buffer = properties.loadString( reference, cursor.buffer, page );
         buffer.flip();
-        return Values.stringValue( UTF8.decode( buffer.array(), 0, buffer.limit() ) );
+        return buffer;
     }
 
     @Override
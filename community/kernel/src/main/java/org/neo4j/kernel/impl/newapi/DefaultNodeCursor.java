@@ -19,10 +19,9 @@
  */
 package org.neo4j.kernel.impl.newapi;
 
-import java.util.Set;
-
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntSet;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.internal.kernel.api.LabelSet;
 import org.neo4j.internal.kernel.api.NodeCursor;
 import org.neo4j.internal.kernel.api.PropertyCursor;
@@ -35,7 +34,7 @@ import org.neo4j.kernel.impl.store.RecordCursor;
 import org.neo4j.kernel.impl.store.record.DynamicRecord;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 
-import static java.util.Collections.emptySet;
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.emptySet;
 
 class DefaultNodeCursor extends NodeRecord implements NodeCursor
 {
@@ -44,8 +43,9 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
     private PageCursor pageCursor;
     private long next;
     private long highMark;
+    private boolean batch;
     private HasChanges hasChanges = HasChanges.MAYBE;
-    private Set<Long> addedNodes;
+    private PrimitiveLongSet addedNodes;
 
     private final DefaultCursors pool;
 
@@ -67,6 +67,7 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
         }
         this.next = 0;
         this.highMark = read.nodeHighMark();
+        this.batch = false;
         this.read = read;
         this.hasChanges = HasChanges.MAYBE;
         this.addedNodes = emptySet();
@@ -85,6 +86,29 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
         this.next = reference;
         //This marks the cursor as a "single cursor"
         this.highMark = NO_ID;
+        this.batch = false;
+        this.read = read;
+        this.hasChanges = HasChanges.MAYBE;
+        this.addedNodes = emptySet();
+    }
+
+    /**
+     * Scans the nodes in {@code [start, end)} only, as one batch of a parallel scan. The end is fixed, and nodes added
+     * in the transaction are looked up directly instead of from a snapshot taken per batch.
+     */
+    void scanBatch( long start, long end, Read read )
+    {
+        if ( getId() != NO_ID )
+        {
+            reset();
+        }
+        if ( pageCursor == null )
+        {
+            pageCursor = read.nodePage( start );
+        }
+        this.next = start;
+        this.highMark = end - 1;
+        this.batch = true;
         this.read = read;
         this.hasChanges = HasChanges.MAYBE;
         this.addedNodes = emptySet();
@@ -149,7 +173,14 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
     @Override
     public void properties( PropertyCursor cursor )
     {
-        read.nodeProperties( getId(), propertiesReference(), cursor );
+        if ( hasInlinedProperties() )
+        {
+            read.nodeProperties( getId(), this, cursor );
+        }
+        else
+        {
+            read.nodeProperties( getId(), propertiesReference(), cursor );
+        }
     }
 
     @Override
@@ -189,6 +220,7 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
             {
                 setId( next++ );
                 setInUse( true );
+                clearInlinedProperties();
             }
             else if ( hasChanges && txs.nodeIsDeletedInThisTx( next ) )
             {
@@ -202,9 +234,9 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
 
             if ( next > highMark )
             {
-                if ( isSingle() )
+                if ( isSingle() || batch )
                 {
-                    //we are a "single cursor"
+                    //we are a "single cursor" or a batch of a parallel scan
                     next = NO_ID;
                     return inUse();
                 }
@@ -233,7 +265,7 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
 
     private boolean containsNode( TransactionState txs )
     {
-        return isSingle() ? txs.nodeIsAddedInThisTx( next ) : addedNodes.contains( next );
+        return isSingle() || batch ? txs.nodeIsAddedInThisTx( next ) : addedNodes.contains( next );
     }
 
     @Override
@@ -274,7 +306,7 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
             boolean changes = read.hasTxStateWithChanges();
             if ( changes )
             {
-                if ( !isSingle() )
+                if ( !isSingle() && !batch )
                 {
                     addedNodes = read.txState().addedAndRemovedNodes().getAddedSnapshot();
                 }
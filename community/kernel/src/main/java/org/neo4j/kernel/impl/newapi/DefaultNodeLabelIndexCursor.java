@@ -19,18 +19,16 @@
  */
 package org.neo4j.kernel.impl.newapi;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.internal.kernel.api.LabelSet;
 import org.neo4j.internal.kernel.api.NodeCursor;
 import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
 import org.neo4j.kernel.impl.index.labelscan.LabelScanValueIndexProgressor;
 import org.neo4j.storageengine.api.schema.IndexProgressor;
 import org.neo4j.storageengine.api.schema.IndexProgressor.NodeLabelClient;
-import org.neo4j.storageengine.api.txstate.ReadableDiffSets;
+import org.neo4j.storageengine.api.txstate.PrimitiveLongReadableDiffSets;
 
 import static org.neo4j.kernel.impl.store.record.AbstractBaseRecord.NO_ID;
 
@@ -41,7 +39,9 @@ class DefaultNodeLabelIndexCursor extends IndexCursor<LabelScanValueIndexProgres
     private long node;
     private LabelSet labels;
     private PrimitiveLongIterator added;
-    private Set<Long> removed;
+    private PrimitiveLongSet removed;
+    private long fromId;
+    private long toId = Long.MAX_VALUE;
 
     private final DefaultCursors pool;
 
@@ -57,11 +57,17 @@ class DefaultNodeLabelIndexCursor extends IndexCursor<LabelScanValueIndexProgres
         super.initialize( progressor );
         if ( read.hasTxStateWithChanges() )
         {
-            ReadableDiffSets<Long> changes =
+            PrimitiveLongReadableDiffSets changes =
                     read.txState().nodesWithLabelChanged( label );
             added = changes.augment( PrimitiveLongCollections.emptyIterator() );
-            removed = new HashSet<>( read.txState().addedAndRemovedNodes().getRemoved() );
-            removed.addAll( changes.getRemoved() );
+            if ( fromId != 0 || toId != Long.MAX_VALUE )
+            {
+                long from = fromId;
+                long to = toId;
+                added = PrimitiveLongCollections.filter( added, node -> node >= from && node < to );
+            }
+            removed = PrimitiveLongCollections.asSet( read.txState().addedAndRemovedNodes().getRemoved() );
+            removed.addAll( changes.getRemoved().iterator() );
         }
     }
 
@@ -122,6 +128,17 @@ class DefaultNodeLabelIndexCursor extends IndexCursor<LabelScanValueIndexProgres
         this.read = read;
     }
 
+    /**
+     * Limits the nodes added in the transaction state to those in {@code [fromId, toId)}, for a batch of a parallel
+     * label scan. The store part of the scan is limited by the label scan reader. Scans that are not split set it to
+     * all ids, since the cursor may be reused after a batch.
+     */
+    void setRange( long fromId, long toId )
+    {
+        this.fromId = fromId;
+        this.toId = toId;
+    }
+
     @Override
     public void node( NodeCursor cursor )
     {
@@ -150,6 +167,8 @@ class DefaultNodeLabelIndexCursor extends IndexCursor<LabelScanValueIndexProgres
             labels = null;
             read = null;
             removed = null;
+            fromId = 0;
+            toId = Long.MAX_VALUE;
 
             pool.accept( this );
         }
@@ -31,11 +31,13 @@ import org.neo4j.kernel.impl.store.LongerShortString;
 import org.neo4j.kernel.impl.store.PropertyType;
 import org.neo4j.kernel.impl.store.ShortArray;
 import org.neo4j.kernel.impl.store.TemporalType;
+import org.neo4j.kernel.impl.store.record.PrimitiveRecord;
 import org.neo4j.kernel.impl.store.record.PropertyBlock;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
 import org.neo4j.kernel.impl.util.Bits;
 import org.neo4j.storageengine.api.StorageProperty;
 import org.neo4j.storageengine.api.txstate.PropertyContainerState;
+import org.neo4j.string.UTF8;
 import org.neo4j.values.storable.ArrayValue;
 import org.neo4j.values.storable.BooleanValue;
 import org.neo4j.values.storable.ByteValue;
@@ -65,6 +67,9 @@ public class DefaultPropertyCursor extends PropertyRecord implements PropertyCur
     private Iterator<StorageProperty> txStateChangedProperties;
     private StorageProperty txStateValue;
     private AssertOpen assertOpen;
+    private String comparedString;
+    private long[] comparedShortString;
+    private byte[] comparedUtf8;
     private final DefaultCursors pool;
 
     public DefaultPropertyCursor( DefaultCursors pool )
@@ -101,6 +106,38 @@ public class DefaultPropertyCursor extends PropertyRecord implements PropertyCur
         }
     }
 
+    /**
+     * Like {@link #initNode(long, long, Read, AssertOpen)}, but starts from the copy of the first property record that
+     * the node record carries, so that the property store is only read for the rest of the chain.
+     */
+    void initNode( long nodeReference, PrimitiveRecord node, Read read, AssertOpen assertOpen )
+    {
+        initNode( nodeReference, node.getInlinedNextProp(), read, assertOpen );
+        loadInlined( node );
+    }
+
+    /**
+     * Like {@link #initRelationship(long, long, Read, AssertOpen)}, but starts from the copy of the first property
+     * record that the relationship record carries.
+     */
+    void initRelationship( long relationshipReference, PrimitiveRecord relationship, Read read, AssertOpen assertOpen )
+    {
+        initRelationship( relationshipReference, relationship.getInlinedNextProp(), read, assertOpen );
+        loadInlined( relationship );
+    }
+
+    private void loadInlined( PrimitiveRecord owner )
+    {
+        setId( owner.getNextProp() );
+        initialize( true, NO_ID, owner.getInlinedNextProp() );
+        long[] inlinedBlocks = owner.getInlinedBlocks();
+        for ( int i = 0; i < owner.getNumberOfInlinedBlocks(); i++ )
+        {
+            addLoadedBlock( inlinedBlocks[i] );
+        }
+        this.block = INITIAL_POSITION;
+    }
+
     void initGraph( long reference, Read read, AssertOpen assertOpen )
     {
         init( reference, read, assertOpen );
@@ -487,7 +524,87 @@ public class DefaultPropertyCursor extends PropertyRecord implements PropertyCur
     @Override
     public boolean valueEqualTo( String value )
     {
-        throw new UnsupportedOperationException( "not implemented" );
+        if ( txStateValue != null )
+        {
+            return txStateValue.value().equals( value );
+        }
+
+        PropertyType type = type();
+        if ( type == null )
+        {
+            return false;
+        }
+        boolean equal;
+        switch ( type )
+        {
+        case CHAR:
+            equal = value.length() == 1 && value.charAt( 0 ) == (char) PropertyBlock.fetchShort( currentBlock() );
+            break;
+        case SHORT_STRING:
+            equal = shortStringEqualTo( value );
+            break;
+        case STRING:
+            equal = longStringEqualTo( value );
+            break;
+        default:
+            return false;
+        }
+
+        assertOpen.assertOpen();
+        return equal;
+    }
+
+    /**
+     * Compares the encoded forms of the two strings. An equality predicate is evaluated for many properties with
+     * the same string, which is therefore only encoded once.
+     */
+    private boolean shortStringEqualTo( String value )
+    {
+        encodeComparedString( value );
+        long[] blocks = getBlocks();
+        if ( comparedShortString != null &&
+             LongerShortString.encodingOf( blocks[block] ) == LongerShortString.encodingOf( comparedShortString[0] ) )
+        {
+            return LongerShortString.encodedEquals( blocks, block, comparedShortString );
+        }
+        return readShortString().equals( value );
+    }
+
+    private boolean longStringEqualTo( String value )
+    {
+        encodeComparedString( value );
+        long reference = PropertyBlock.fetchLong( currentBlock() );
+        if ( stringPage == null )
+        {
+            stringPage = read.stringPage( reference );
+        }
+        ByteBuffer bytes = read.stringBytes( this, reference, stringPage );
+        int length = bytes.limit();
+        if ( length != comparedUtf8.length )
+        {
+            return false;
+        }
+        byte[] array = bytes.array();
+        for ( int i = 0; i < length; i++ )
+        {
+            if ( array[i] != comparedUtf8[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void encodeComparedString( String value )
+    {
+        if ( !value.equals( comparedString ) )
+        {
+            PropertyBlock target = new PropertyBlock();
+            comparedShortString = LongerShortString.encode( 0, value, target, PropertyType.getPayloadSize() )
+                                  ? target.getValueBlocks() : null;
+            comparedUtf8 = UTF8.encode( value );
+            comparedString = value;
+        }
     }
 
     @Override
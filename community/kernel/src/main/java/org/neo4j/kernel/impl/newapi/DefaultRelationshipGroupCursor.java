@@ -29,6 +29,7 @@ import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.kernel.impl.api.RelationshipVisitor;
 import org.neo4j.kernel.impl.newapi.DefaultRelationshipTraversalCursor.Record;
+import org.neo4j.kernel.impl.store.DenseNodeDegrees;
 import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
 import org.neo4j.storageengine.api.txstate.NodeState;
@@ -271,7 +272,7 @@ class DefaultRelationshipGroupCursor extends RelationshipGroupRecord implements
         }
         else
         {
-            count = count( outgoingRawId() );
+            count = count( outgoingRawId(), DenseNodeDegrees.OUTGOING );
         }
         return read.hasTxStateWithChanges()
                ? read.txState().getNodeState( getOwningNode() )
@@ -289,7 +290,7 @@ class DefaultRelationshipGroupCursor extends RelationshipGroupRecord implements
         }
         else
         {
-            count = count( incomingRawId() );
+            count = count( incomingRawId(), DenseNodeDegrees.INCOMING );
         }
         return read.hasTxStateWithChanges()
                ? read.txState().getNodeState( getOwningNode() )
@@ -306,7 +307,7 @@ class DefaultRelationshipGroupCursor extends RelationshipGroupRecord implements
         }
         else
         {
-            count = count( loopsRawId() );
+            count = count( loopsRawId(), DenseNodeDegrees.LOOP );
         }
 
         return read.hasTxStateWithChanges()
@@ -315,12 +316,17 @@ class DefaultRelationshipGroupCursor extends RelationshipGroupRecord implements
 
     }
 
-    private int count( long reference )
+    private int count( long reference, int direction )
     {
         if ( reference == NO_ID )
         {
             return 0;
         }
+        return (int) read.degrees().degree( getOwningNode(), getType(), direction, () -> chainDegree( reference ) );
+    }
+
+    private long chainDegree( long reference )
+    {
         if ( edgePage == null )
         {
             edgePage = read.relationshipPage( reference );
@@ -328,11 +334,11 @@ class DefaultRelationshipGroupCursor extends RelationshipGroupRecord implements
         read.relationship( edge, reference, edgePage );
         if ( edge.getFirstNode() == getOwningNode() )
         {
-            return (int) edge.getFirstPrevRel();
+            return edge.getFirstPrevRel();
         }
         else
         {
-            return (int) edge.getSecondPrevRel();
+            return edge.getSecondPrevRel();
         }
     }
 
@@ -32,6 +32,7 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
     private int type;
     private long next;
     private long highMark;
+    private boolean batch;
     private PageCursor pageCursor;
     private Set<Long> addedRelationships;
 
@@ -55,6 +56,7 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
         next = 0;
         this.type = type;
         highMark = read.relationshipHighMark();
+        batch = false;
         init( read );
         this.addedRelationships = emptySet();
     }
@@ -72,6 +74,29 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
         next = reference;
         type = -1;
         highMark = NO_ID;
+        batch = false;
+        init( read );
+        this.addedRelationships = emptySet();
+    }
+
+    /**
+     * Scans the relationships in {@code [start, end)} only, as one batch of a parallel scan. The end is fixed, and
+     * relationships added in the transaction are looked up directly instead of from a snapshot taken per batch.
+     */
+    void scanBatch( int type, long start, long end, Read read )
+    {
+        if ( getId() != NO_ID )
+        {
+            reset();
+        }
+        if ( pageCursor == null )
+        {
+            pageCursor = read.relationshipPage( start );
+        }
+        next = start;
+        this.type = type;
+        highMark = end - 1;
+        batch = true;
         init( read );
         this.addedRelationships = emptySet();
     }
@@ -108,7 +133,7 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
 
             if ( next > highMark )
             {
-                if ( isSingle() )
+                if ( isSingle() || batch )
                 {
                     next = NO_ID;
                     return isWantedTypeAndInUse();
@@ -136,7 +161,7 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
 
     private boolean containsRelationship( TransactionState txs )
     {
-        return isSingle() ? txs.relationshipIsAddedInThisTx( next ) : addedRelationships.contains( next );
+        return isSingle() || batch ? txs.relationshipIsAddedInThisTx( next ) : addedRelationships.contains( next );
     }
 
     @Override
@@ -189,7 +214,7 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
 
     protected void collectAddedTxStateSnapshot()
     {
-        if ( !isSingle() )
+        if ( !isSingle() && !batch )
         {
             addedRelationships = read.txState().addedAndRemovedRelationships().getAddedSnapshot();
         }
@@ -472,6 +472,7 @@ class DefaultRelationshipTraversalCursor extends RelationshipCursor
         this.setNextProp( buffer.nextProp );
         this.setFirstNode( buffer.firstNode );
         this.setSecondNode( buffer.secondNode );
+        this.clearInlinedProperties();
     }
 
     private boolean traversingDenseNode()
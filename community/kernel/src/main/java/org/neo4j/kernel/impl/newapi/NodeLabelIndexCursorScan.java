@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.newapi;
+
+import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
+import org.neo4j.internal.kernel.api.Scan;
+import org.neo4j.storageengine.api.schema.LabelScanReader;
+
+/**
+ * Splits a label scan by node id range. Batches are aligned to the 64 node ranges of the label scan store, so that
+ * each store entry is read by one batch only.
+ */
+class NodeLabelIndexCursorScan extends PartitionedScan<NodeLabelIndexCursor> implements Scan<NodeLabelIndexCursor>
+{
+    private static final int LABEL_SCAN_RANGE_SIZE = Long.SIZE;
+
+    private final Read read;
+    private final LabelScanReader labelScanReader;
+    private final int label;
+
+    NodeLabelIndexCursorScan( Read read, int label )
+    {
+        super( read.nodeHighMark() + 1, LABEL_SCAN_RANGE_SIZE );
+        this.read = read;
+        // Resolved once by the thread creating the scan, since the statement does not expect concurrent access
+        this.labelScanReader = read.labelScanReader();
+        this.label = label;
+    }
+
+    @Override
+    void scanBatch( NodeLabelIndexCursor cursor, long start, long end )
+    {
+        read.ktx.assertOpen();
+        DefaultNodeLabelIndexCursor indexCursor = (DefaultNodeLabelIndexCursor) cursor;
+        indexCursor.setRead( read );
+        indexCursor.setRange( start, end );
+        labelScanReader.nodesWithLabel( indexCursor, label, start, end );
+    }
+}
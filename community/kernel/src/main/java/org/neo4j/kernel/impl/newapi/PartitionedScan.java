@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.newapi;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.internal.kernel.api.Scan;
+
+import static org.neo4j.util.Preconditions.requirePositive;
+
+/**
+ * Base of the {@link Scan scans} over the id range {@code [0, end)}, handed out in batches whose size is a multiple
+ * of {@code alignment}. Batches start at multiples of the alignment as well, so with the alignment set to the number
+ * of records per page no two threads ever read the same page.
+ * <p>
+ * The end of the range is fixed when the scan is created. Ids of entities created later in the same transaction are
+ * allocated from the same id space, so entities in the transaction state at that time are covered too.
+ * <p>
+ * Subclasses implement {@link Scan} for their cursor type, since the common cursor interface is not public.
+ */
+abstract class PartitionedScan<C>
+{
+    private final AtomicLong nextStart = new AtomicLong();
+    private final long end;
+    private final int alignment;
+
+    PartitionedScan( long end, int alignment )
+    {
+        this.end = end;
+        this.alignment = alignment;
+    }
+
+    public boolean reserveBatch( C cursor, int sizeHint )
+    {
+        requirePositive( sizeHint );
+        long batchSize = ((sizeHint - 1L) / alignment + 1) * alignment;
+        long start = nextStart.getAndAdd( batchSize );
+        if ( start >= end )
+        {
+            return false;
+        }
+        scanBatch( cursor, start, Math.min( start + batchSize, end ) );
+        return true;
+    }
+
+    /**
+     * Initializes {@code cursor} to iterate over the ids in {@code [start, end)}.
+     */
+    abstract void scanBatch( C cursor, long start, long end );
+}
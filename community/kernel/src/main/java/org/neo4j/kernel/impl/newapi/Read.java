@@ -19,6 +19,7 @@
  */
 package org.neo4j.kernel.impl.newapi;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.neo4j.internal.kernel.api.CapableIndexReference;
@@ -51,9 +52,11 @@ import org.neo4j.kernel.impl.api.KernelTransactionImplementation;
 import org.neo4j.kernel.impl.locking.LockTracer;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.impl.store.DenseNodeDegrees;
 import org.neo4j.kernel.impl.store.RecordCursor;
 import org.neo4j.kernel.impl.store.record.DynamicRecord;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PrimitiveRecord;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
 import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
@@ -246,6 +249,7 @@ abstract class Read implements TxStateHolder,
 
         DefaultNodeLabelIndexCursor indexCursor = (DefaultNodeLabelIndexCursor) cursor;
         indexCursor.setRead( this );
+        indexCursor.setRange( 0, Long.MAX_VALUE );
         labelScanReader().nodesWithLabel( indexCursor, label);
     }
 
@@ -256,6 +260,7 @@ abstract class Read implements TxStateHolder,
 
         DefaultNodeLabelIndexCursor client = (DefaultNodeLabelIndexCursor) cursor;
         client.setRead( this );
+        client.setRange( 0, Long.MAX_VALUE );
         client.unionScan( new NodeLabelIndexProgressor( labelScanReader().nodesWithAnyOfLabels( labels ), client ),
                 false, labels );
     }
@@ -267,6 +272,7 @@ abstract class Read implements TxStateHolder,
 
         DefaultNodeLabelIndexCursor client = (DefaultNodeLabelIndexCursor) cursor;
         client.setRead( this );
+        client.setRange( 0, Long.MAX_VALUE );
         client.intersectionScan(
                 new NodeLabelIndexProgressor( labelScanReader().nodesWithAllLabels( labels ), client ),
                 false, labels );
@@ -276,7 +282,7 @@ abstract class Read implements TxStateHolder,
     public final Scan<NodeLabelIndexCursor> nodeLabelScan( int label )
     {
         ktx.assertOpen();
-        throw new UnsupportedOperationException( "not implemented" );
+        return new NodeLabelIndexCursorScan( this, label );
     }
 
     @Override
@@ -290,7 +296,7 @@ abstract class Read implements TxStateHolder,
     public final Scan<NodeCursor> allNodesScan()
     {
         ktx.assertOpen();
-        throw new UnsupportedOperationException( "not implemented" );
+        return new NodeCursorScan( this );
     }
 
     @Override
@@ -318,7 +324,7 @@ abstract class Read implements TxStateHolder,
     public final Scan<RelationshipScanCursor> allRelationshipsScan()
     {
         ktx.assertOpen();
-        throw new UnsupportedOperationException( "not implemented" );
+        return new RelationshipCursorScan( this, -1/*include all types*/ );
     }
 
     @Override
@@ -332,7 +338,7 @@ abstract class Read implements TxStateHolder,
     public final Scan<RelationshipScanCursor> relationshipTypeScan( int type )
     {
         ktx.assertOpen();
-        throw new UnsupportedOperationException( "not implemented" );
+        return new RelationshipCursorScan( this, type );
     }
 
     @Override
@@ -441,6 +447,18 @@ abstract class Read implements TxStateHolder,
         ((DefaultPropertyCursor) cursor).initRelationship( relationshipReference, reference, this, ktx );
     }
 
+    final void nodeProperties( long nodeReference, PrimitiveRecord node, PropertyCursor cursor )
+    {
+        ktx.assertOpen();
+        ((DefaultPropertyCursor) cursor).initNode( nodeReference, node, this, ktx );
+    }
+
+    final void relationshipProperties( long relationshipReference, PrimitiveRecord relationship, PropertyCursor cursor )
+    {
+        ktx.assertOpen();
+        ((DefaultPropertyCursor) cursor).initRelationship( relationshipReference, relationship, this, ktx );
+    }
+
     @Override
     public final void graphProperties( PropertyCursor cursor )
     {
@@ -596,12 +614,20 @@ abstract class Read implements TxStateHolder,
 
     abstract void group( RelationshipGroupRecord record, long reference, PageCursor page );
 
+    abstract DenseNodeDegrees degrees();
+
     abstract long nodeHighMark();
 
     abstract long relationshipHighMark();
 
+    abstract int nodesPerPage();
+
+    abstract int relationshipsPerPage();
+
     abstract TextValue string( DefaultPropertyCursor cursor, long reference, PageCursor page );
 
+    abstract ByteBuffer stringBytes( DefaultPropertyCursor cursor, long reference, PageCursor page );
+
     abstract ArrayValue array( DefaultPropertyCursor cursor, long reference, PageCursor page );
 
     @Override
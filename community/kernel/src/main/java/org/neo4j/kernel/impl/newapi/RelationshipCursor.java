@@ -75,7 +75,14 @@ abstract class RelationshipCursor extends RelationshipRecord implements Relation
     @Override
     public void properties( PropertyCursor cursor )
     {
-        read.relationshipProperties( relationshipReference(), propertiesReference(), cursor );
+        if ( hasInlinedProperties() )
+        {
+            read.relationshipProperties( relationshipReference(), this, cursor );
+        }
+        else
+        {
+            read.relationshipProperties( relationshipReference(), propertiesReference(), cursor );
+        }
     }
 
     @Override
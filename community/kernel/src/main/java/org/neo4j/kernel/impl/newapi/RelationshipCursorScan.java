@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.newapi;
+
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.Scan;
+
+class RelationshipCursorScan extends PartitionedScan<RelationshipScanCursor> implements Scan<RelationshipScanCursor>
+{
+    private final Read read;
+    private final int type;
+
+    /**
+     * @param type the relationship type to scan for, or {@code -1} for all relationships.
+     */
+    RelationshipCursorScan( Read read, int type )
+    {
+        super( read.relationshipHighMark() + 1, read.relationshipsPerPage() );
+        this.read = read;
+        this.type = type;
+    }
+
+    @Override
+    void scanBatch( RelationshipScanCursor cursor, long start, long end )
+    {
+        read.ktx.assertOpen();
+        ((DefaultRelationshipScanCursor) cursor).scanBatch( type, start, end, read );
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
+import org.neo4j.kernel.AvailabilityGuard;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.KernelTransactionsSnapshot;
+import org.neo4j.kernel.impl.api.TransactionCommitProcess;
+import org.neo4j.kernel.impl.api.TransactionHeaderInformation;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.impl.locking.StatementLocks;
+import org.neo4j.kernel.impl.locking.StatementLocksFactory;
+import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.neo4j.storageengine.api.TransactionApplicationMode.INTERNAL;
+
+/**
+ * Walks the node store in the background and commits the commands of a {@link RecordChainCompactor} through the
+ * normal commit process, one small transaction per batch of nodes.
+ * <p>
+ * Nodes are only locked with {@code tryExclusiveLock}, so a node that is locked by another transaction is skipped
+ * rather than waited for, and picked up again on the next pass over the store.
+ * <p>
+ * The old records of a batch are deleted in a later transaction, once all transactions that were open when the
+ * batch was moved have closed, since those may still be reading the old chains. No new batch is moved before that.
+ * Old records that are still waiting to be deleted when the database crashes stay in use without being referenced.
+ * <p>
+ * Only meant for single instances that may write: it commits on its own behalf, which cluster members that are not
+ * the leader and read replicas can't.
+ */
+public class OnlineDefragmenter extends LifecycleAdapter implements Runnable
+{
+    private final RecordChainCompactor compactor;
+    private final TransactionCommitProcess commitProcess;
+    private final StatementLocksFactory statementLocksFactory;
+    private final TransactionHeaderInformationFactory headerInformationFactory;
+    private final TransactionIdStore transactionIdStore;
+    private final Supplier<KernelTransactionsSnapshot> transactionsSnapshotSupplier;
+    private final AvailabilityGuard availabilityGuard;
+    private final JobScheduler scheduler;
+    private final Clock clock;
+    private final long intervalMillis;
+    private final int batchSize;
+    private final Log log;
+    private JobScheduler.JobHandle jobHandle;
+    private boolean stopped;
+    private long nextNodeId;
+    private final List<StorageCommand> pendingDeletions = new ArrayList<>();
+    private KernelTransactionsSnapshot pendingDeletionsSnapshot;
+
+    public OnlineDefragmenter( RecordChainCompactor compactor, TransactionCommitProcess commitProcess,
+            StatementLocksFactory statementLocksFactory, TransactionHeaderInformationFactory headerInformationFactory,
+            TransactionIdStore transactionIdStore, Supplier<KernelTransactionsSnapshot> transactionsSnapshotSupplier,
+            AvailabilityGuard availabilityGuard, JobScheduler scheduler, Clock clock, Config config,
+            LogService logService )
+    {
+        this.compactor = compactor;
+        this.commitProcess = commitProcess;
+        this.statementLocksFactory = statementLocksFactory;
+        this.headerInformationFactory = headerInformationFactory;
+        this.transactionIdStore = transactionIdStore;
+        this.transactionsSnapshotSupplier = transactionsSnapshotSupplier;
+        this.availabilityGuard = availabilityGuard;
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.intervalMillis = config.get( GraphDatabaseSettings.online_defragmentation_interval ).toMillis();
+        this.batchSize = config.get( GraphDatabaseSettings.online_defragmentation_batch_size );
+        this.log = logService.getInternalLog( OnlineDefragmenter.class );
+    }
+
+    @Override
+    public synchronized void start()
+    {
+        stopped = false;
+        if ( intervalMillis > 0 )
+        {
+            jobHandle = scheduler.scheduleRecurring( JobScheduler.Groups.storageMaintenance, this,
+                    intervalMillis, TimeUnit.MILLISECONDS );
+        }
+    }
+
+    @Override
+    public synchronized void stop()
+    {
+        stopped = true;
+        if ( jobHandle != null )
+        {
+            jobHandle.cancel( false );
+            jobHandle = null;
+        }
+        try
+        {
+            // Transactions have usually all closed by now, so that the last old records can go too
+            deletePendingIfUnseen();
+        }
+        catch ( TransactionFailureException | RuntimeException e )
+        {
+            log.warn( "Failed to delete records left behind by online defragmentation.", e );
+        }
+        if ( !pendingDeletions.isEmpty() )
+        {
+            log.warn( "Online defragmentation left " + pendingDeletions.size() + " moved records in use." );
+        }
+    }
+
+    @Override
+    public synchronized void run()
+    {
+        if ( stopped || !availabilityGuard.isAvailable() )
+        {
+            return;
+        }
+        try
+        {
+            compactNextBatch();
+        }
+        catch ( Throwable t )
+        {
+            log.warn( "Online defragmentation of nodes from id " + nextNodeId + " failed.", t );
+            nextNodeId += batchSize;
+        }
+    }
+
+    /**
+     * Compacts the chains of the next batch of nodes, wrapping around to the start of the node store after the last
+     * node.
+     *
+     * @return the number of nodes whose chains were moved.
+     */
+    int compactNextBatch() throws TransactionFailureException
+    {
+        if ( !deletePendingIfUnseen() )
+        {
+            return 0;
+        }
+
+        long highId = compactor.nodeHighId();
+        long from = nextNodeId < highId ? nextNodeId : 0;
+        long to = Math.min( from + batchSize, highId );
+        int compacted = 0;
+        try ( StatementLocks locks = statementLocksFactory.newInstance() )
+        {
+            Locks.Client client = locks.pessimistic();
+            long startTime = clock.millis();
+            long lastTransactionIdWhenStarted = transactionIdStore.getLastCommittedTransactionId();
+            List<StorageCommand> moves = new ArrayList<>();
+            List<StorageCommand> deletions = new ArrayList<>();
+            for ( long nodeId = from; nodeId < to; nodeId++ )
+            {
+                if ( client.tryExclusiveLock( ResourceTypes.NODE, nodeId ) &&
+                     compactor.compact( nodeId, moves, deletions ) )
+                {
+                    compacted++;
+                }
+            }
+            if ( compacted > 0 )
+            {
+                try
+                {
+                    commit( moves, startTime, lastTransactionIdWhenStarted, client.getLockSessionId() );
+                }
+                catch ( TransactionFailureException | RuntimeException e )
+                {
+                    compactor.releaseIds( moves );
+                    throw e;
+                }
+                pendingDeletions.addAll( deletions );
+                pendingDeletionsSnapshot = transactionsSnapshotSupplier.get();
+            }
+        }
+        nextNodeId = to;
+        return compacted;
+    }
+
+    /**
+     * Deletes the old records of the last moved batch if no transaction that was open when it was moved is left.
+     *
+     * @return whether there are no old records left to delete.
+     */
+    private boolean deletePendingIfUnseen() throws TransactionFailureException
+    {
+        if ( pendingDeletions.isEmpty() )
+        {
+            return true;
+        }
+        if ( !pendingDeletionsSnapshot.allClosed() )
+        {
+            return false;
+        }
+        // The old records are not referenced by anything anymore, so they need no locks
+        commit( pendingDeletions, clock.millis(), transactionIdStore.getLastCommittedTransactionId(),
+                Locks.Client.NO_LOCK_SESSION_ID );
+        pendingDeletions.clear();
+        pendingDeletionsSnapshot = null;
+        return true;
+    }
+
+    private void commit( List<StorageCommand> commands, long startTime, long lastTransactionIdWhenStarted,
+            int lockSessionId ) throws TransactionFailureException
+    {
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
+        TransactionHeaderInformation headerInformation = headerInformationFactory.create();
+        transaction.setHeader( headerInformation.getAdditionalHeader(), headerInformation.getMasterId(),
+                headerInformation.getAuthorId(), startTime, lastTransactionIdWhenStarted, clock.millis(),
+                lockSessionId );
+        commitProcess.commit( new TransactionToApply( transaction ), CommitEvent.NULL, INTERNAL );
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.RecordStore;
+import org.neo4j.kernel.impl.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.neo4j.kernel.impl.store.record.AbstractBaseRecord.NO_ID;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
+
+/**
+ * Moves the property chain of a node, and the relationship group chain of a dense node, into records that lie next
+ * to each other in the store when the chain is spread over more pages than it needs.
+ * <p>
+ * Only records with ids that are internal to the store are moved. Node and relationship ids are visible to users,
+ * so those records always stay where they are.
+ * <p>
+ * The produced commands are ordinary record changes, in two parts: the moves create the new records and point the
+ * node at them, and the deletions delete the old records. Callers must hold an exclusive lock on the node from
+ * producing the moves until they have been applied. Readers don't take locks and may still be following the old
+ * chain after that, so the deletions must only be applied once every transaction that was open when the moves were
+ * applied has closed. Nothing else refers to the old records by then, so no lock is needed for the deletions.
+ */
+public class RecordChainCompactor
+{
+    /**
+     * Chains longer than this are left alone, to keep the transactions moving them small.
+     */
+    static final int MAX_CHAIN_LENGTH = 256;
+
+    private final NodeStore nodeStore;
+    private final PropertyStore propertyStore;
+    private final RelationshipGroupStore groupStore;
+
+    public RecordChainCompactor( NeoStores neoStores )
+    {
+        this.nodeStore = neoStores.getNodeStore();
+        this.propertyStore = neoStores.getPropertyStore();
+        this.groupStore = neoStores.getRelationshipGroupStore();
+    }
+
+    /**
+     * @return the high id of the node store, i.e. the exclusive upper bound of node ids to compact.
+     */
+    public long nodeHighId()
+    {
+        return nodeStore.getHighId();
+    }
+
+    /**
+     * Produces the commands that move the fragmented chains of the given node.
+     *
+     * @param nodeId id of the node to compact.
+     * @param moves collection to add the commands creating the new records and pointing the node at them to.
+     * @param deletions collection to add the commands deleting the old records to.
+     * @return {@code true} if any chain of the node is moved by the produced commands, otherwise {@code false}.
+     */
+    public boolean compact( long nodeId, Collection<StorageCommand> moves, Collection<StorageCommand> deletions )
+    {
+        NodeRecord node = nodeStore.getRecord( nodeId, nodeStore.newRecord(), CHECK );
+        if ( !node.inUse() )
+        {
+            return false;
+        }
+
+        NodeRecord after = node.clone();
+        List<Command> created = new ArrayList<>();
+        List<Command> deleted = new ArrayList<>();
+        boolean moved = false;
+
+        List<PropertyRecord> properties = propertyChain( node.getNextProp() );
+        long[] propertyIds = relocate( propertyStore, properties );
+        if ( propertyIds != null )
+        {
+            after.setNextProp( propertyIds[0] );
+            PropertyRecord first = moveProperties( nodeId, properties, propertyIds, created, deleted );
+            if ( node.hasInlinedProperties() )
+            {
+                // The copy refers to the second record of the chain, which moves too
+                after.setInlinedProperties( first );
+            }
+            moved = true;
+        }
+
+        if ( node.isDense() )
+        {
+            List<RelationshipGroupRecord> groups = groupChain( node.getNextRel() );
+            long[] groupIds = relocate( groupStore, groups );
+            if ( groupIds != null )
+            {
+                after.setNextRel( groupIds[0] );
+                moveGroups( groups, groupIds, created, deleted );
+                moved = true;
+            }
+        }
+
+        if ( !moved )
+        {
+            return false;
+        }
+        nodeStore.prepareForCommit( after );
+        moves.addAll( created );
+        moves.add( new Command.NodeCommand( node, after ) );
+        deletions.addAll( deleted );
+        return true;
+    }
+
+    /**
+     * Frees the ids of the records created by moves that were not committed, which would otherwise never be used.
+     *
+     * @param moves commands produced as moves by {@link #compact(long, Collection, Collection)}.
+     */
+    public void releaseIds( Collection<StorageCommand> moves )
+    {
+        for ( StorageCommand command : moves )
+        {
+            if ( command instanceof Command.PropertyCommand )
+            {
+                PropertyRecord record = ((Command.PropertyCommand) command).getAfter();
+                if ( record.isCreated() )
+                {
+                    propertyStore.freeId( record.getId() );
+                }
+            }
+            else if ( command instanceof Command.RelationshipGroupCommand )
+            {
+                RelationshipGroupRecord record = ((Command.RelationshipGroupCommand) command).getAfter();
+                if ( record.isCreated() )
+                {
+                    groupStore.freeId( record.getId() );
+                }
+            }
+        }
+    }
+
+    private List<PropertyRecord> propertyChain( long firstId )
+    {
+        List<PropertyRecord> chain = new ArrayList<>();
+        for ( long id = firstId; !Record.NO_NEXT_PROPERTY.is( id ); )
+        {
+            PropertyRecord record = propertyStore.getRecord( id, propertyStore.newRecord(), CHECK );
+            if ( !record.inUse() || chain.size() == MAX_CHAIN_LENGTH )
+            {
+                return null;
+            }
+            chain.add( record );
+            id = record.getNextProp();
+        }
+        return chain;
+    }
+
+    private List<RelationshipGroupRecord> groupChain( long firstId )
+    {
+        List<RelationshipGroupRecord> chain = new ArrayList<>();
+        for ( long id = firstId; !Record.NO_NEXT_RELATIONSHIP.is( id ); )
+        {
+            RelationshipGroupRecord record = groupStore.getRecord( id, groupStore.newRecord(), CHECK );
+            if ( !record.inUse() || chain.size() == MAX_CHAIN_LENGTH )
+            {
+                return null;
+            }
+            chain.add( record );
+            id = record.getNext();
+        }
+        return chain;
+    }
+
+    /**
+     * Allocates new ids for the given chain if it spans more pages than needed, and if the new ids span fewer pages
+     * than the current ones.
+     *
+     * @return the new ids, in chain order, or {@code null} if the chain should stay where it is.
+     */
+    private static long[] relocate( RecordStore<?> store, List<? extends AbstractBaseRecord> chain )
+    {
+        if ( chain == null || chain.size() < 2 )
+        {
+            return null;
+        }
+        int recordsPerPage = store.getRecordsPerPage();
+        long[] currentIds = new long[chain.size()];
+        for ( int i = 0; i < currentIds.length; i++ )
+        {
+            currentIds[i] = chain.get( i ).getId();
+        }
+        int currentPages = pagesSpanned( currentIds, recordsPerPage );
+        if ( currentPages <= (chain.size() + recordsPerPage - 1) / recordsPerPage )
+        {
+            return null;
+        }
+
+        long[] newIds = new long[chain.size()];
+        for ( int i = 0; i < newIds.length; i++ )
+        {
+            newIds[i] = store.nextId();
+        }
+        if ( pagesSpanned( newIds, recordsPerPage ) >= currentPages )
+        {
+            for ( long id : newIds )
+            {
+                store.freeId( id );
+            }
+            return null;
+        }
+        return newIds;
+    }
+
+    private static int pagesSpanned( long[] ids, int recordsPerPage )
+    {
+        long[] pages = new long[ids.length];
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            pages[i] = ids[i] / recordsPerPage;
+        }
+        Arrays.sort( pages );
+        int count = 1;
+        for ( int i = 1; i < pages.length; i++ )
+        {
+            if ( pages[i] != pages[i - 1] )
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the moved first record of the chain.
+     */
+    private PropertyRecord moveProperties( long nodeId, List<PropertyRecord> chain, long[] ids,
+            List<Command> created, List<Command> deleted )
+    {
+        PropertyRecord first = null;
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            PropertyRecord record = chain.get( i );
+
+            PropertyRecord unused = new PropertyRecord( ids[i] );
+            unused.setNodeId( nodeId );
+            PropertyRecord moved = record.clone();
+            moved.setId( ids[i] );
+            moved.setPrevProp( i == 0 ? Record.NO_PREVIOUS_PROPERTY.longValue() : ids[i - 1] );
+            moved.setNextProp( i == ids.length - 1 ? Record.NO_NEXT_PROPERTY.longValue() : ids[i + 1] );
+            moved.setSecondaryUnitId( NO_ID );
+            moved.setCreated();
+            propertyStore.prepareForCommit( moved );
+            created.add( new Command.PropertyCommand( unused, moved ) );
+            if ( i == 0 )
+            {
+                first = moved;
+            }
+
+            PropertyRecord removed = record.clone();
+            removed.clearPropertyBlocks();
+            removed.setInUse( false );
+            deleted.add( new Command.PropertyCommand( record, removed ) );
+        }
+        return first;
+    }
+
+    private void moveGroups( List<RelationshipGroupRecord> chain, long[] ids, List<Command> created,
+            List<Command> deleted )
+    {
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            RelationshipGroupRecord record = chain.get( i );
+
+            RelationshipGroupRecord unused = new RelationshipGroupRecord( ids[i], record.getType() );
+            RelationshipGroupRecord moved = record.clone();
+            moved.setId( ids[i] );
+            moved.setNext( i == ids.length - 1 ? Record.NO_NEXT_RELATIONSHIP.longValue() : ids[i + 1] );
+            moved.setSecondaryUnitId( NO_ID );
+            moved.setCreated();
+            groupStore.prepareForCommit( moved );
+            created.add( new Command.RelationshipGroupCommand( unused, moved ) );
+
+            RelationshipGroupRecord removed = record.clone();
+            removed.setInUse( false );
+            deleted.add( new Command.RelationshipGroupCommand( record, removed ) );
+        }
+    }
+}
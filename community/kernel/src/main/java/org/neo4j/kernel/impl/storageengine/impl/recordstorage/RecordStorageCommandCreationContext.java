@@ -22,11 +22,13 @@ package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.StandardDynamicRecordAllocator;
 import org.neo4j.kernel.impl.store.StoreType;
+import org.neo4j.kernel.impl.store.format.Capability;
 import org.neo4j.kernel.impl.store.id.RenewableBatchIdSequences;
 import org.neo4j.kernel.impl.transaction.state.IntegrityValidator;
 import org.neo4j.kernel.impl.transaction.state.Loaders;
 import org.neo4j.kernel.impl.transaction.state.PropertyCreator;
 import org.neo4j.kernel.impl.transaction.state.PropertyDeleter;
+import org.neo4j.kernel.impl.transaction.state.PropertyInliner;
 import org.neo4j.kernel.impl.transaction.state.PropertyTraverser;
 import org.neo4j.kernel.impl.transaction.state.RecordChangeSet;
 import org.neo4j.kernel.impl.transaction.state.RelationshipCreator;
@@ -47,6 +49,7 @@ public class RecordStorageCommandCreationContext implements CommandCreationConte
     private final RelationshipDeleter relationshipDeleter;
     private final PropertyCreator propertyCreator;
     private final PropertyDeleter propertyDeleter;
+    private final PropertyInliner propertyInliner;
     private final RenewableBatchIdSequences idBatches;
 
     RecordStorageCommandCreationContext( NeoStores neoStores, int denseNodeThreshold, int idBatchSize )
@@ -68,6 +71,8 @@ public class RecordStorageCommandCreationContext implements CommandCreationConte
                         neoStores.getPropertyStore().getArrayStore().getRecordDataSize() ),
                 idBatches.idGenerator( StoreType.PROPERTY ),
                 propertyTraverser, neoStores.getPropertyStore().allowStorePointsAndTemporal() );
+        this.propertyInliner = neoStores.getRecordFormats().hasCapability( Capability.INLINED_PROPERTIES )
+                               ? new PropertyInliner() : null;
     }
 
     public long nextId( StoreType storeType )
@@ -87,6 +92,6 @@ public class RecordStorageCommandCreationContext implements CommandCreationConte
         RecordChangeSet recordChangeSet = new RecordChangeSet( loaders );
         return new TransactionRecordState( neoStores, integrityValidator,
                 recordChangeSet, lastTransactionIdWhenStarted, locks,
-                relationshipCreator, relationshipDeleter, propertyCreator, propertyDeleter );
+                relationshipCreator, relationshipDeleter, propertyCreator, propertyDeleter, propertyInliner );
     }
 }
@@ -81,10 +81,13 @@ import org.neo4j.kernel.impl.store.RecordStore;
 import org.neo4j.kernel.impl.store.SchemaStorage;
 import org.neo4j.kernel.impl.store.StoreFactory;
 import org.neo4j.kernel.impl.store.StoreType;
+import org.neo4j.kernel.impl.store.counts.ExtendedCounts;
 import org.neo4j.kernel.impl.store.format.RecordFormat;
 import org.neo4j.kernel.impl.store.id.IdGeneratorFactory;
 import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
 import org.neo4j.kernel.impl.transaction.command.CacheInvalidationBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.DenseNodeDegreesBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.ExtendedCountsBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.HighIdBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.IndexBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.IndexUpdatesWork;
@@ -101,6 +104,7 @@ import org.neo4j.kernel.internal.DatabaseHealth;
 import org.neo4j.kernel.lifecycle.Lifecycle;
 import org.neo4j.kernel.monitoring.Monitors;
 import org.neo4j.kernel.spi.explicitindex.IndexImplementation;
+import org.neo4j.logging.Log;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.CommandReaderFactory;
@@ -153,8 +157,13 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final PropertyPhysicalToLogicalConverter indexUpdatesConverter;
     private final Supplier<StorageStatement> storeStatementSupplier;
     private final IdController idController;
+    private final ExtendedCounts extendedCounts;
     private final int denseNodeThreshold;
     private final int recordIdBatchSize;
+    private final JobScheduler scheduler;
+    private final Log log;
+    private volatile boolean freeIdsRebuildStopped;
+    private JobScheduler.JobHandle freeIdsRebuild;
 
     public RecordStorageEngine(
             File storeDir,
@@ -195,6 +204,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         this.explicitIndexTransactionOrdering = explicitIndexTransactionOrdering;
 
         this.idController = idController;
+        this.scheduler = scheduler;
+        this.log = logProvider.getLog( getClass() );
         StoreFactory factory = new StoreFactory( storeDir, config, idGeneratorFactory, pageCache, fs, logProvider,
                 versionContextSupplier );
         neoStores = factory.openAllNeoStores( true );
@@ -223,10 +234,12 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
                     propertyKeyTokenHolder, relationshipTypeTokens, labelTokens );
 
             storeStatementSupplier = storeStatementSupplier( neoStores );
+            extendedCounts = new ExtendedCounts( neoStores, scheduler, logProvider,
+                    config.get( GraphDatabaseSettings.extended_counts ) );
             storeLayer = new StorageLayer(
                     propertyKeyTokenHolder, labelTokens, relationshipTypeTokens,
                     schemaStorage, neoStores, indexingService,
-                    storeStatementSupplier, schemaCache );
+                    storeStatementSupplier, schemaCache, extendedCounts );
 
             explicitIndexApplierLookup = new ExplicitIndexApplierLookup.Direct( explicitIndexProviderLookup );
 
@@ -353,6 +366,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         ArrayList<BatchTransactionApplier> appliers = new ArrayList<>();
         // Graph store application. The order of the decorated store appliers is irrelevant
         appliers.add( new NeoStoreBatchTransactionApplier( mode.version(), neoStores, cacheAccess, lockService( mode ) ) );
+        // Reads the degrees of relationship chains from records written by the applier above
+        appliers.add( new DenseNodeDegreesBatchTransactionApplier( neoStores.getRelationshipGroupStore().degrees() ) );
         if ( mode.needsHighIdTracking() )
         {
             appliers.add( new HighIdBatchTransactionApplier( neoStores ) );
@@ -365,6 +380,10 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         {
             // Counts store application
             appliers.add( new CountsStoreBatchTransactionApplier( neoStores.getCounts(), mode ) );
+            if ( extendedCounts.isEnabled() )
+            {
+                appliers.add( new ExtendedCountsBatchTransactionApplier( extendedCounts ) );
+            }
 
             // Schema index application
             appliers.add( new IndexBatchTransactionApplier( indexingService, labelScanStoreSync, indexUpdatesSync,
@@ -399,6 +418,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         // providing TransactionIdStore, LogVersionRepository
         satisfier.satisfyDependency( neoStores.getMetaDataStore() );
         satisfier.satisfyDependency( indexStoreView );
+        satisfier.satisfyDependency( new RecordChainCompactor( neoStores ) );
+        satisfier.satisfyDependency( extendedCounts );
     }
 
     @Override
@@ -425,6 +446,38 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         indexingService.start();
         labelScanStore.start();
         idController.start();
+        startFreeIdsRebuild();
+    }
+
+    private void startFreeIdsRebuild()
+    {
+        // Prepared here, before the database accepts transactions, so that no id handed out to one is freed
+        if ( neoStores.prepareFreeIdsRebuild() )
+        {
+            freeIdsRebuildStopped = false;
+            freeIdsRebuild = scheduler.schedule( JobScheduler.Groups.storageMaintenance, () ->
+            {
+                try
+                {
+                    neoStores.rebuildFreeIds( () -> freeIdsRebuildStopped );
+                }
+                catch ( RuntimeException e )
+                {
+                    // The id generators still needing rebuild will not reuse ids until rebuilt on a later start
+                    log.error( "Failed to rebuild free ids", e );
+                }
+            } );
+        }
+    }
+
+    private void stopFreeIdsRebuild() throws Exception
+    {
+        if ( freeIdsRebuild != null )
+        {
+            freeIdsRebuildStopped = true;
+            freeIdsRebuild.waitTermination();
+            freeIdsRebuild = null;
+        }
     }
 
     @Override
@@ -443,6 +496,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     @Override
     public void stop() throws Throwable
     {
+        stopFreeIdsRebuild();
         indexingService.stop();
         labelScanStore.stop();
         idController.stop();
@@ -24,7 +24,9 @@ import java.io.IOException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.function.BooleanSupplier;
 
 import org.neo4j.graphdb.config.Setting;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
@@ -76,6 +78,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     protected final String storeVersion;
     protected final RecordFormat<RECORD> recordFormat;
     private IdGenerator idGenerator;
+    private long freeIdsRebuildHighId = -1;
     private boolean storeOk = true;
     private RuntimeException causeOfStoreNotOk;
     private final String typeDescriptor;
@@ -447,7 +450,8 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         openIdGenerator();
 
         long defraggedCount = 0;
-        boolean fastRebuild = isOnlyFastIdGeneratorRebuildEnabled( configuration );
+        // An id generator needing rebuild gets its free ids from rebuildFreeIds(), in the background
+        boolean fastRebuild = isOnlyFastIdGeneratorRebuildEnabled( configuration ) || idGenerator.needsRebuild();
 
         try
         {
@@ -536,6 +540,104 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         return defragCount;
     }
 
+    /**
+     * @return whether or not the {@link IdGenerator} of this store needs to be told about the free ids in this store,
+     * using {@link #rebuildFreeIds(BooleanSupplier)}, before it can reuse any ids.
+     */
+    boolean idGeneratorNeedsRebuild()
+    {
+        IdGenerator generator = this.idGenerator;
+        return generator != null && generator.needsRebuild();
+    }
+
+    /**
+     * Remembers the current high id as the one {@link #rebuildFreeIds(BooleanSupplier)} scans up to. Must be called
+     * during startup, before any id is handed out: ids handed out later, for example in batches kept by
+     * {@link org.neo4j.kernel.impl.store.id.RenewableBatchIdSequence}, are not in use until their records are
+     * written, and must not be mistaken for free ids by the scan. An id generator needing rebuild doesn't reuse
+     * ids, so all ids handed out after this call are at or above the remembered high id.
+     */
+    void prepareFreeIdsRebuild()
+    {
+        freeIdsRebuildHighId = idGenerator.getHighId();
+    }
+
+    /**
+     * Scans this store for records not in use below the high id remembered by {@link #prepareFreeIdsRebuild()} and
+     * frees their ids, after which the {@link IdGenerator} is told that its rebuild has completed. Unlike {@link #rebuildIdGenerator()} this can
+     * run while transactions are being applied: an id generator needing rebuild doesn't reuse any ids, so ids
+     * below the high id can only go out of use and not into use while scanning. Ids may be freed both by the scan
+     * and by the transaction deleting the record, which is harmless as long as it happens before ids are reused.
+     * An id generator delaying frees until no transaction can see the freed records anymore therefore only
+     * completes its rebuild once the frees it held when the scan completed have been released.
+     *
+     * @param stopped checked for every page, the scan is aborted if it returns {@code true}.
+     */
+    void rebuildFreeIds( BooleanSupplier stopped )
+    {
+        IdGenerator generator = this.idGenerator;
+        long highId = freeIdsRebuildHighId;
+        if ( highId == -1 )
+        {
+            throw new IllegalStateException( "Free ids rebuild of " + getStorageFileName() + " was not prepared" );
+        }
+        int recordsPerPage = getRecordsPerPage();
+        int recordSize = getRecordSize();
+        long[] freedBatch = new long[recordsPerPage];
+        long freedCount = 0;
+        int startingId = getNumberOfReservedLowIds();
+
+        try ( PageCursor cursor = storeFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+        {
+            boolean done = false;
+            while ( !done && cursor.next() )
+            {
+                if ( stopped.getAsBoolean() )
+                {
+                    return;
+                }
+
+                long idPageOffset = cursor.getCurrentPageId() * recordsPerPage;
+                int freed;
+                do
+                {
+                    freed = 0;
+                    for ( int i = startingId; i < recordsPerPage; i++ )
+                    {
+                        long recordId = idPageOffset + i;
+                        if ( recordId >= highId )
+                        {
+                            done = true;
+                            break;
+                        }
+                        cursor.setOffset( i * recordSize );
+                        if ( !isInUse( cursor ) )
+                        {
+                            freedBatch[freed++] = recordId;
+                        }
+                    }
+                }
+                while ( cursor.shouldRetry() );
+                checkIdScanCursorBounds( cursor );
+
+                if ( freed > 0 )
+                {
+                    generator.freeIds( Arrays.copyOf( freedBatch, freed ) );
+                    freedCount += freed;
+                }
+                startingId = 0;
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to rebuild free ids of " + getStorageFileName(), e );
+        }
+
+        generator.rebuildCompleted();
+        log.info( "[" + getStorageFileName() + "] rebuilt free ids below high id=" + highId + " (defragged=" +
+                  freedCount + ")" );
+    }
+
     private void checkIdScanCursorBounds( PageCursor cursor )
     {
         if ( cursor.checkAndClearBoundsFlag() )
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.neo4j.util.FeatureToggles;
+
+/**
+ * Degrees of dense nodes per relationship type and direction.
+ * <p>
+ * The degree of a relationship chain is stored in the first relationship record of the chain, so finding the degree
+ * of a dense node for a type and direction means reading one relationship record per chain, which usually sits on a
+ * page of its own. Degrees are cached here the first time they are read, and are then kept up to date when
+ * transactions are applied, from the first relationship records of the changed chains and the changed relationship
+ * groups. Degrees of nodes that have not been read are never cached.
+ * <p>
+ * Readers may race with transactions being applied. Every change made while applying increments a version before
+ * updating the cached degrees, and a reader that saw the version change while reading a degree from the store
+ * removes the degree it cached, since it may have been read before the change.
+ */
+public class DenseNodeDegrees
+{
+    public static final int OUTGOING = 0;
+    public static final int INCOMING = 1;
+    public static final int LOOP = 2;
+
+    /**
+     * Rough heap usage of one cached degree: the key, the boxed degree and the map entry pointing to them.
+     */
+    static final int ESTIMATED_ENTRY_SIZE = 100;
+    private static final int DEFAULT_MAX_SIZE = FeatureToggles.getInteger( DenseNodeDegrees.class, "maxSize",
+            defaultMaxSize( Runtime.getRuntime().maxMemory() ) );
+
+    private final ConcurrentHashMap<Key,Long> degrees = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final int maxSize;
+
+    public DenseNodeDegrees()
+    {
+        this( DEFAULT_MAX_SIZE );
+    }
+
+    DenseNodeDegrees( int maxSize )
+    {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param maxHeap maximum size of the heap, in bytes.
+     * @return the number of degrees to cache by default, using about a thousandth of the heap, within bounds.
+     */
+    static int defaultMaxSize( long maxHeap )
+    {
+        return (int) Math.max( 1_000, Math.min( 100_000, maxHeap / 1_000 / ESTIMATED_ENTRY_SIZE ) );
+    }
+
+    /**
+     * @param nodeId id of the dense node.
+     * @param type relationship type.
+     * @param direction one of {@link #OUTGOING}, {@link #INCOMING} or {@link #LOOP}.
+     * @param chainDegree reads the degree from the first relationship record of the chain, if it is not cached.
+     * @return the degree of the node for the given type and direction.
+     */
+    public long degree( long nodeId, int type, int direction, LongSupplier chainDegree )
+    {
+        Key key = new Key( nodeId, type, direction );
+        Long cached = degrees.get( key );
+        if ( cached != null )
+        {
+            return cached;
+        }
+
+        long versionBeforeRead = version.get();
+        long degree = chainDegree.getAsLong();
+        if ( degrees.size() < maxSize )
+        {
+            Long value = degree;
+            degrees.put( key, value );
+            if ( version.get() != versionBeforeRead )
+            {
+                degrees.remove( key, value );
+            }
+        }
+        return degree;
+    }
+
+    /**
+     * Sets the degree of a node for the given type and direction, if it is cached. Called when applying a change to
+     * the first relationship record of a chain, after the record has been written to the store.
+     */
+    public void update( long nodeId, int type, int direction, long degree )
+    {
+        version.incrementAndGet();
+        if ( degrees.isEmpty() )
+        {
+            return;
+        }
+        degrees.computeIfPresent( new Key( nodeId, type, direction ), ( key, current ) -> degree );
+    }
+
+    /**
+     * Forgets the degrees of a node for the given type. Called when applying a change to a relationship group, after
+     * the record has been written to the store.
+     */
+    public void remove( long nodeId, int type )
+    {
+        version.incrementAndGet();
+        if ( degrees.isEmpty() )
+        {
+            return;
+        }
+        degrees.remove( new Key( nodeId, type, OUTGOING ) );
+        degrees.remove( new Key( nodeId, type, INCOMING ) );
+        degrees.remove( new Key( nodeId, type, LOOP ) );
+    }
+
+    int size()
+    {
+        return degrees.size();
+    }
+
+    private static final class Key
+    {
+        private final long nodeId;
+        private final int type;
+        private final int direction;
+
+        Key( long nodeId, int type, int direction )
+        {
+            this.nodeId = nodeId;
+            this.type = type;
+            this.direction = direction;
+        }
+
+        @Override
+        public boolean equals( Object o )
+        {
+            if ( this == o )
+            {
+                return true;
+            }
+            if ( o == null || getClass() != o.getClass() )
+            {
+                return false;
+            }
+            Key key = (Key) o;
+            return nodeId == key.nodeId && type == key.type && direction == key.direction;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * (31 * Long.hashCode( nodeId ) + type) + direction;
+        }
+    }
+}
@@ -615,6 +615,7 @@ public enum LongerShortString
     public static final int ENCODING_UTF8 = 0;
     public static final int ENCODING_LATIN1 = 10;
     private static final int HEADER_SIZE = 39; // bits
+    private static final long KEY_MASK = 0xFFFFFFL; // lowest 24 bits of the header
 
     final int encodingHeader;
     final long mask;
@@ -927,6 +928,44 @@ public enum LongerShortString
         return Values.stringValue( UnsafeUtil.newSharedArrayString( result ) );
     }
 
+    /**
+     * Get the encoding header of a short string from the first block of its value.
+     */
+    public static int encodingOf( long firstBlock )
+    {
+        return (int) ((firstBlock & 0x1F0000000L) >>> 28);
+    }
+
+    /**
+     * Compare a stored short string to a string encoded with {@link #encode(int, String, PropertyBlock, int)}
+     * without decoding any of them. The property key ids of the two are ignored.
+     * <p>
+     * The encoding picked for a string only depends on its characters, so two strings using the same
+     * {@link #encodingOf(long) encoding} are equal exactly when their blocks are. The result is only meaningful
+     * for two such strings.
+     *
+     * @param blocks the blocks of the property record holding the stored string.
+     * @param offset the index of the first block of the stored string.
+     * @param encoded the value blocks of the encoded string.
+     * @return {@code true} if the two strings are equal.
+     */
+    public static boolean encodedEquals( long[] blocks, int offset, long[] encoded )
+    {
+        if ( calculateNumberOfBlocksUsed( blocks[offset] ) != encoded.length ||
+             ((blocks[offset] ^ encoded[0]) & ~KEY_MASK) != 0 )
+        {
+            return false;
+        }
+        for ( int i = 1; i < encoded.length; i++ )
+        {
+            if ( blocks[offset + i] != encoded[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static void decode( char[] result, long[] blocks, int offset, LongerShortString table )
     {
         int block = offset;
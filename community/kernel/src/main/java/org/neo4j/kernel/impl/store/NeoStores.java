@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
 import java.util.Iterator;
+import java.util.function.BooleanSupplier;
 import java.util.function.Predicate;
 
 import org.neo4j.graphdb.config.Setting;
@@ -48,6 +49,7 @@ import org.neo4j.kernel.impl.store.format.FormatFamily;
 import org.neo4j.kernel.impl.store.format.RecordFormatSelector;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
 import org.neo4j.kernel.impl.store.format.standard.MetaDataRecordFormat;
+import org.neo4j.kernel.impl.store.id.IdGenerator;
 import org.neo4j.kernel.impl.store.id.IdGeneratorFactory;
 import org.neo4j.kernel.impl.store.id.IdType;
 import org.neo4j.kernel.impl.store.kvstore.DataInitializer;
@@ -531,6 +533,47 @@ public class NeoStores implements AutoCloseable
         } );
     }
 
+    /**
+     * Remembers the high ids of the stores having an {@link IdGenerator} needing rebuild, which
+     * {@link #rebuildFreeIds} looks for free ids below. Must be called during startup, after stores have been
+     * {@link #makeStoreOk() made ok} but before any transaction can take ids, since ids that have been handed out
+     * but whose records have not been written yet look free.
+     *
+     * @return whether or not any store has an {@link IdGenerator} needing rebuild.
+     */
+    public boolean prepareFreeIdsRebuild()
+    {
+        boolean[] needsRebuild = {false};
+        visitStore( store ->
+        {
+            if ( store.idGeneratorNeedsRebuild() )
+            {
+                store.prepareFreeIdsRebuild();
+                needsRebuild[0] = true;
+            }
+            return false;
+        } );
+        return needsRebuild[0];
+    }
+
+    /**
+     * Scans stores that have an {@link IdGenerator} needing rebuild for free ids, below the high ids remembered by
+     * {@link #prepareFreeIdsRebuild()}. Meant to be called from a background thread.
+     *
+     * @param stopped checked regularly, the rebuild is aborted if it returns {@code true}.
+     */
+    public void rebuildFreeIds( BooleanSupplier stopped )
+    {
+        visitStore( store ->
+        {
+            if ( !stopped.getAsBoolean() && store.idGeneratorNeedsRebuild() )
+            {
+                store.rebuildFreeIds( stopped );
+            }
+            return false;
+        } );
+    }
+
     public void assertOpen()
     {
         if ( stores[StoreType.NODE.ordinal()] == null )
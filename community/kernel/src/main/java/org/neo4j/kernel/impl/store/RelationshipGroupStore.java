@@ -37,6 +37,8 @@ public class RelationshipGroupStore extends CommonAbstractStore<RelationshipGrou
 {
     public static final String TYPE_DESCRIPTOR = "RelationshipGroupStore";
 
+    private final DenseNodeDegrees degrees = new DenseNodeDegrees();
+
     public RelationshipGroupStore(
             File fileName,
             Config config,
@@ -52,6 +54,12 @@ public class RelationshipGroupStore extends CommonAbstractStore<RelationshipGrou
                 recordFormats.storeVersion(), openOptions );
     }
 
+    @Override
+    public DenseNodeDegrees degrees()
+    {
+        return degrees;
+    }
+
     @Override
     public <FAILURE extends Exception> void accept( Processor<FAILURE> processor, RelationshipGroupRecord record )
             throws FAILURE
@@ -25,6 +25,7 @@ import org.neo4j.kernel.impl.api.CountsAccessor;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
 import org.neo4j.kernel.impl.store.counts.keys.CountsKey;
 import org.neo4j.kernel.impl.store.kvstore.EntryUpdater;
+import org.neo4j.kernel.impl.store.kvstore.IncrementLong;
 import org.neo4j.kernel.impl.store.kvstore.ValueUpdate;
 import org.neo4j.kernel.impl.store.kvstore.WritableBuffer;
 
@@ -183,22 +184,4 @@ final class CountsUpdater implements CountsAccessor.Updater, CountsAccessor.Inde
     {
         return new IncrementLong( 8, delta );
     }
-
-    private static class IncrementLong implements ValueUpdate
-    {
-        private final int offset;
-        private final long delta;
-
-        private IncrementLong( int offset, long delta )
-        {
-            this.offset = offset;
-            this.delta = delta;
-        }
-
-        @Override
-        public void update( WritableBuffer target )
-        {
-            target.putLong( offset, target.getLong( offset ) + delta );
-        }
-    }
 }
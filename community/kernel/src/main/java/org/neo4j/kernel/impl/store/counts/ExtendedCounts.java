@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveIntIterator;
+import org.neo4j.collection.primitive.PrimitiveIntSet;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.NodeLabelsField;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.store.RecordCursor;
+import org.neo4j.kernel.impl.store.RecordStore;
+import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.scheduler.JobScheduler;
+
+import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
+
+/**
+ * Counts that the {@link CountsTracker} does not keep: nodes per pair of labels, nodes per label having a property
+ * and relationships per type between nodes with a given start label and a given end label.
+ * <p>
+ * The counts are only kept in memory. When enabled they are built from a full scan of the store in the background
+ * once started, which must happen after recovery, and are kept up to date by the applier of transactions from the
+ * moment they are started. Until the scan is done, and when disabled, every count is {@link #UNKNOWN}.
+ * <p>
+ * Transactions applied while the scan runs change records that the scan may or may not have visited yet, so their
+ * changes may be counted twice or not at all. The counts are estimates for planning, and this error is bounded by
+ * the changes made while the counts were built.
+ */
+public class ExtendedCounts extends LifecycleAdapter
+{
+    public static final long UNKNOWN = -1;
+    public static final int ANY_RELATIONSHIP_TYPE = -1;
+
+    private static final long[] NO_LABELS = new long[0];
+
+    private static final byte LABELS = 0;
+    private static final byte PROPERTY = 1;
+    private static final byte RELATIONSHIP = 2;
+
+    private final ConcurrentHashMap<Key,LongAdder> counts = new ConcurrentHashMap<>();
+    private final NodeStore nodeStore;
+    private final PropertyStore propertyStore;
+    private final RelationshipStore relationshipStore;
+    private final RelationshipGroupStore groupStore;
+    private final JobScheduler scheduler;
+    private final Log log;
+    private final boolean enabled;
+    private volatile boolean maintained;
+    private volatile boolean built;
+    private volatile boolean buildStopped;
+    private JobScheduler.JobHandle build;
+
+    public ExtendedCounts( NeoStores neoStores, JobScheduler scheduler, LogProvider logProvider, boolean enabled )
+    {
+        this.nodeStore = neoStores.getNodeStore();
+        this.propertyStore = neoStores.getPropertyStore();
+        this.relationshipStore = neoStores.getRelationshipStore();
+        this.groupStore = neoStores.getRelationshipGroupStore();
+        this.scheduler = scheduler;
+        this.log = logProvider.getLog( getClass() );
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void start()
+    {
+        if ( enabled )
+        {
+            // Maintained from here, before the database accepts transactions, so that every change is either
+            // applied to the counts or in the store before the scan
+            maintained = true;
+            buildStopped = false;
+            build = scheduler.schedule( JobScheduler.Groups.storageMaintenance, () ->
+            {
+                try
+                {
+                    build();
+                }
+                catch ( RuntimeException e )
+                {
+                    // The counts stay unknown until built on a later start
+                    log.error( "Failed to build extended counts", e );
+                }
+            } );
+        }
+    }
+
+    @Override
+    public void stop() throws Exception
+    {
+        if ( build != null )
+        {
+            buildStopped = true;
+            build.waitTermination();
+            build = null;
+        }
+        maintained = false;
+        built = false;
+        counts.clear();
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return whether applied transactions are to change the counts, which they do from start on, also while the
+     * counts are being built.
+     */
+    public boolean isMaintained()
+    {
+        return maintained;
+    }
+
+    public boolean isBuilt()
+    {
+        return built;
+    }
+
+    /**
+     * @return number of nodes having both labels, or {@link #UNKNOWN}.
+     */
+    public long nodeCount( int labelId, int otherLabelId )
+    {
+        if ( labelId == otherLabelId )
+        {
+            return UNKNOWN;
+        }
+        return count( new Key( LABELS, Math.min( labelId, otherLabelId ), Math.max( labelId, otherLabelId ), 0 ) );
+    }
+
+    /**
+     * @return number of nodes having the label and a property with the given key, or {@link #UNKNOWN}.
+     */
+    public long nodePropertyCount( int labelId, int propertyKeyId )
+    {
+        return count( new Key( PROPERTY, labelId, propertyKeyId, 0 ) );
+    }
+
+    /**
+     * @param typeId relationship type, or {@link #ANY_RELATIONSHIP_TYPE}.
+     * @return number of relationships of the type from nodes with the start label to nodes with the end label,
+     * or {@link #UNKNOWN}.
+     */
+    public long relationshipCount( int startLabelId, int typeId, int endLabelId )
+    {
+        return count( new Key( RELATIONSHIP, startLabelId, typeId, endLabelId ) );
+    }
+
+    private long count( Key key )
+    {
+        if ( !built )
+        {
+            return UNKNOWN;
+        }
+        LongAdder count = counts.get( key );
+        // Changes counted twice while building may take a count below zero
+        return count == null ? 0 : Math.max( 0, count.sum() );
+    }
+
+    /**
+     * Adds {@code delta} to the counts of every pair of the given labels.
+     */
+    public void incrementLabels( long[] labels, long delta )
+    {
+        for ( int i = 0; i < labels.length; i++ )
+        {
+            for ( int j = i + 1; j < labels.length; j++ )
+            {
+                int labelId = (int) labels[i];
+                int otherLabelId = (int) labels[j];
+                increment( new Key( LABELS, Math.min( labelId, otherLabelId ), Math.max( labelId, otherLabelId ), 0 ),
+                        delta );
+            }
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the counts of every combination of the given labels and property keys.
+     */
+    public void incrementProperties( long[] labels, PrimitiveIntSet propertyKeys, long delta )
+    {
+        if ( labels.length == 0 || propertyKeys.isEmpty() )
+        {
+            return;
+        }
+        PrimitiveIntIterator keys = propertyKeys.iterator();
+        while ( keys.hasNext() )
+        {
+            int propertyKeyId = keys.next();
+            for ( long label : labels )
+            {
+                increment( new Key( PROPERTY, (int) label, propertyKeyId, 0 ), delta );
+            }
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the counts of a relationship of the given type, and of any type, for every combination
+     * of the labels of its start and end nodes.
+     */
+    public void incrementRelationship( long[] startLabels, int typeId, long[] endLabels, long delta )
+    {
+        for ( long startLabel : startLabels )
+        {
+            for ( long endLabel : endLabels )
+            {
+                increment( new Key( RELATIONSHIP, (int) startLabel, typeId, (int) endLabel ), delta );
+                increment( new Key( RELATIONSHIP, (int) startLabel, ANY_RELATIONSHIP_TYPE, (int) endLabel ), delta );
+            }
+        }
+    }
+
+    private void increment( Key key, long delta )
+    {
+        counts.computeIfAbsent( key, k -> new LongAdder() ).add( delta );
+    }
+
+    /**
+     * @return labels of the node as currently stored, no labels if the node is not in use.
+     */
+    public long[] labels( long nodeId )
+    {
+        NodeRecord node = nodeStore.getRecord( nodeId, nodeStore.newRecord(), CHECK );
+        return node.inUse() ? labels( node ) : NO_LABELS;
+    }
+
+    /**
+     * @return labels of the node record, reading dynamic label records from the store if they are not loaded.
+     */
+    public long[] labels( NodeRecord node )
+    {
+        long[] labels = NodeLabelsField.parseLabelsField( node ).getIfLoaded();
+        return labels != null ? labels : NodeLabelsField.get( node, nodeStore );
+    }
+
+    /**
+     * @return keys of the properties in the chain starting at {@code firstPropertyId}, as currently stored.
+     */
+    public PrimitiveIntSet propertyKeys( long firstPropertyId )
+    {
+        PrimitiveIntSet keys = Primitive.intSet();
+        PropertyRecord record = propertyStore.newRecord();
+        long propertyId = firstPropertyId;
+        while ( !Record.NO_NEXT_PROPERTY.is( propertyId ) )
+        {
+            propertyStore.getRecord( propertyId, record, CHECK );
+            if ( !record.inUse() )
+            {
+                break;
+            }
+            for ( PropertyBlock block : record )
+            {
+                keys.add( block.getKeyIndexId() );
+            }
+            propertyId = record.getNextProp();
+        }
+        return keys;
+    }
+
+    /**
+     * Visits the stored relationships of a node, sparse or dense. The visited record is reused between calls.
+     */
+    public void relationships( NodeRecord node, Consumer<RelationshipRecord> visitor )
+    {
+        RelationshipRecord relationship = relationshipStore.newRecord();
+        if ( !node.isDense() )
+        {
+            relationshipChain( node.getId(), node.getNextRel(), relationship, visitor );
+            return;
+        }
+        RelationshipGroupRecord group = groupStore.newRecord();
+        long groupId = node.getNextRel();
+        while ( !Record.NO_NEXT_RELATIONSHIP.is( groupId ) )
+        {
+            groupStore.getRecord( groupId, group, CHECK );
+            if ( !group.inUse() )
+            {
+                break;
+            }
+            relationshipChain( node.getId(), group.getFirstOut(), relationship, visitor );
+            relationshipChain( node.getId(), group.getFirstIn(), relationship, visitor );
+            relationshipChain( node.getId(), group.getFirstLoop(), relationship, visitor );
+            groupId = group.getNext();
+        }
+    }
+
+    private void relationshipChain( long nodeId, long firstRelationshipId, RelationshipRecord relationship,
+            Consumer<RelationshipRecord> visitor )
+    {
+        long relationshipId = firstRelationshipId;
+        while ( !Record.NO_NEXT_RELATIONSHIP.is( relationshipId ) )
+        {
+            relationshipStore.getRecord( relationshipId, relationship, CHECK );
+            if ( !relationship.inUse() )
+            {
+                break;
+            }
+            visitor.accept( relationship );
+            relationshipId = relationship.getFirstNode() == nodeId ? relationship.getFirstNextRel()
+                                                                   : relationship.getSecondNextRel();
+        }
+    }
+
+    private void build()
+    {
+        scan( nodeStore, node ->
+        {
+            long[] labels = labels( node );
+            if ( labels.length > 0 )
+            {
+                incrementLabels( labels, 1 );
+                incrementProperties( labels, propertyKeys( node.getNextProp() ), 1 );
+            }
+        } );
+        scan( relationshipStore, relationship ->
+        {
+            long[] startLabels = labels( relationship.getFirstNode() );
+            long[] endLabels = startLabels;
+            if ( relationship.getSecondNode() != relationship.getFirstNode() )
+            {
+                endLabels = labels( relationship.getSecondNode() );
+            }
+            incrementRelationship( startLabels, relationship.getType(), endLabels, 1 );
+        } );
+        built = !buildStopped;
+    }
+
+    private <RECORD extends AbstractBaseRecord> void scan( RecordStore<RECORD> store, Consumer<RECORD> visitor )
+    {
+        try ( RecordCursor<RECORD> cursor = store.newRecordCursor( store.newRecord() ) )
+        {
+            long highId = store.getHighId();
+            cursor.acquire( store.getNumberOfReservedLowIds(), CHECK );
+            for ( long id = store.getNumberOfReservedLowIds(); id < highId && !buildStopped; id++ )
+            {
+                if ( cursor.next( id ) )
+                {
+                    visitor.accept( cursor.get() );
+                }
+            }
+        }
+    }
+
+    private static final class Key
+    {
+        private final byte kind;
+        private final int first;
+        private final int second;
+        private final int third;
+
+        Key( byte kind, int first, int second, int third )
+        {
+            this.kind = kind;
+            this.first = first;
+            this.second = second;
+            this.third = third;
+        }
+
+        @Override
+        public boolean equals( Object o )
+        {
+            if ( this == o )
+            {
+                return true;
+            }
+            if ( o == null || getClass() != o.getClass() )
+            {
+                return false;
+            }
+            Key key = (Key) o;
+            return kind == key.kind && first == key.first && second == key.second && third == key.third;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * (31 * (31 * kind + first) + second) + third;
+        }
+    }
+}
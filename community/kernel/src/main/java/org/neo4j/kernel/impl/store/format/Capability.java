@@ -65,7 +65,12 @@ public enum Capability
     /**
      * Records can spill over into secondary units (another record with a header saying it's a secondary unit to another record).
      */
-    SECONDARY_RECORD_UNITS( CapabilityType.FORMAT );
+    SECONDARY_RECORD_UNITS( CapabilityType.FORMAT ),
+
+    /**
+     * Node and relationship records carry a copy of the first record in their property chain
+     */
+    INLINED_PROPERTIES( CapabilityType.FORMAT, CapabilityType.STORE );
 
     private final CapabilityType[] types;
     private boolean additive;
@@ -29,6 +29,10 @@ public enum StoreVersion
     STANDARD_V3_2( "v0.A.8", "3.2.0" ),
     STANDARD_V3_4( "v0.A.9", "3.4.0" ),
 
+    INLINE_V3_4( "vX.I.0", "3.4.0" ),
+
+    ALIGNED_V3_4( "vX.A.0", "3.4.0" ),
+
     HIGH_LIMIT_V3_0_0( "vE.H.0", "3.0.0" ),
     HIGH_LIMIT_V3_0_6( "vE.H.0b", "3.0.6" ),
     HIGH_LIMIT_V3_1_0( "vE.H.2", "3.1.0" ),
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.format.aligned;
+
+import org.neo4j.kernel.impl.store.format.FormatFamily;
+
+/**
+ * Aligned format family. It has the same limits as the standard family and ranks between the inline and
+ * the high limit families: stores can be migrated to it from the standard and inline formats, and from it to the
+ * high limit format, but never back.
+ * @see FormatFamily
+ */
+public class AlignedFormatFamily extends FormatFamily
+{
+    public static final FormatFamily INSTANCE = new AlignedFormatFamily();
+
+    private AlignedFormatFamily()
+    {
+    }
+
+    @Override
+    public String getName()
+    {
+        return "Aligned format family";
+    }
+
+    @Override
+    public int rank()
+    {
+        return 2;
+    }
+}
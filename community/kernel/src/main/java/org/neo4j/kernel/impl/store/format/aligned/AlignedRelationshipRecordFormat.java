@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.format.aligned;
+
+import org.neo4j.kernel.impl.store.format.standard.RelationshipRecordFormat;
+
+/**
+ * {@link RelationshipRecordFormat} padded from 34 to 64 bytes, one record per cache line. The standard layout is
+ * two bytes too large for 32, so this almost doubles the size of the relationship store in exchange for never
+ * touching two cache lines when following a relationship chain.
+ */
+public class AlignedRelationshipRecordFormat extends RelationshipRecordFormat
+{
+    public static final int ALIGNED_RECORD_SIZE = 64;
+
+    public AlignedRelationshipRecordFormat()
+    {
+        super( ALIGNED_RECORD_SIZE );
+    }
+}
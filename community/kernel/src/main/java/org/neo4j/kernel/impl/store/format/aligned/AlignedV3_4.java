@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.format.aligned;
+
+import org.neo4j.kernel.impl.store.format.BaseRecordFormats;
+import org.neo4j.kernel.impl.store.format.Capability;
+import org.neo4j.kernel.impl.store.format.FormatFamily;
+import org.neo4j.kernel.impl.store.format.RecordFormat;
+import org.neo4j.kernel.impl.store.format.RecordFormats;
+import org.neo4j.kernel.impl.store.format.StoreVersion;
+import org.neo4j.kernel.impl.store.format.standard.DynamicRecordFormat;
+import org.neo4j.kernel.impl.store.format.standard.LabelTokenRecordFormat;
+import org.neo4j.kernel.impl.store.format.standard.PropertyKeyTokenRecordFormat;
+import org.neo4j.kernel.impl.store.format.standard.RelationshipTypeTokenRecordFormat;
+import org.neo4j.kernel.impl.store.format.standard.StandardV3_4;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.LabelTokenRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyKeyTokenRecord;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipTypeTokenRecord;
+
+/**
+ * Experimental record format with the layout of {@link StandardV3_4}, but with node, relationship group, relationship
+ * and property records padded to 16, 32, 64 and 64 bytes. Every record size divides the page size, so no page has a
+ * wasted tail, and no record straddles a cache line. Token and dynamic records already fit their pages evenly and
+ * are kept as they are.
+ * <p>
+ * Selected with {@code dbms.record_format=aligned}.
+ */
+public class AlignedV3_4 extends BaseRecordFormats
+{
+    public static final String STORE_VERSION = StoreVersion.ALIGNED_V3_4.versionString();
+    public static final RecordFormats RECORD_FORMATS = new AlignedV3_4();
+    public static final String NAME = "aligned";
+
+    public AlignedV3_4()
+    {
+        super( STORE_VERSION, StoreVersion.ALIGNED_V3_4.introductionVersion(), 1, Capability.SCHEMA,
+                Capability.DENSE_NODES, Capability.LUCENE_5, Capability.POINT_PROPERTIES, Capability.TEMPORAL_PROPERTIES );
+    }
+
+    @Override
+    public RecordFormat<NodeRecord> node()
+    {
+        return new AlignedNodeRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<RelationshipGroupRecord> relationshipGroup()
+    {
+        return new AlignedRelationshipGroupRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<RelationshipRecord> relationship()
+    {
+        return new AlignedRelationshipRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<PropertyRecord> property()
+    {
+        return new AlignedPropertyRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<LabelTokenRecord> labelToken()
+    {
+        return new LabelTokenRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<PropertyKeyTokenRecord> propertyKeyToken()
+    {
+        return new PropertyKeyTokenRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<RelationshipTypeTokenRecord> relationshipTypeToken()
+    {
+        return new RelationshipTypeTokenRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<DynamicRecord> dynamic()
+    {
+        return new DynamicRecordFormat();
+    }
+
+    @Override
+    public FormatFamily getFormatFamily()
+    {
+        return AlignedFormatFamily.INSTANCE;
+    }
+
+    @Override
+    public String name()
+    {
+        return NAME;
+    }
+}
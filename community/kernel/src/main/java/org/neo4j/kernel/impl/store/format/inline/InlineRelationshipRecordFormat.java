@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.format.inline;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.impl.store.format.standard.RelationshipRecordFormat;
+import org.neo4j.kernel.impl.store.record.RecordLoad;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+
+/**
+ * {@link RelationshipRecordFormat} followed by a copy of the first record in the property chain of the relationship,
+ * see {@link InlinedPropertiesFormat}.
+ */
+public class InlineRelationshipRecordFormat extends RelationshipRecordFormat
+{
+    public static final int INLINE_RECORD_SIZE = RECORD_SIZE + InlinedPropertiesFormat.SIZE;
+
+    public InlineRelationshipRecordFormat()
+    {
+        super( INLINE_RECORD_SIZE );
+    }
+
+    @Override
+    public void read( RelationshipRecord record, PageCursor cursor, RecordLoad mode, int recordSize )
+    {
+        super.read( record, cursor, mode, recordSize );
+        if ( mode.shouldLoad( record.inUse() ) )
+        {
+            InlinedPropertiesFormat.read( record, cursor );
+        }
+        else
+        {
+            record.clearInlinedProperties();
+        }
+    }
+
+    @Override
+    public void write( RelationshipRecord record, PageCursor cursor, int recordSize )
+    {
+        super.write( record, cursor, recordSize );
+        if ( record.inUse() )
+        {
+            InlinedPropertiesFormat.write( record, cursor );
+        }
+    }
+}
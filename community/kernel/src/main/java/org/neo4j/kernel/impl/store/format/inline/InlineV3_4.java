@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.format.inline;
+
+import org.neo4j.kernel.impl.store.format.BaseRecordFormats;
+import org.neo4j.kernel.impl.store.format.Capability;
+import org.neo4j.kernel.impl.store.format.FormatFamily;
+import org.neo4j.kernel.impl.store.format.RecordFormat;
+import org.neo4j.kernel.impl.store.format.RecordFormats;
+import org.neo4j.kernel.impl.store.format.StoreVersion;
+import org.neo4j.kernel.impl.store.format.standard.DynamicRecordFormat;
+import org.neo4j.kernel.impl.store.format.standard.LabelTokenRecordFormat;
+import org.neo4j.kernel.impl.store.format.standard.PropertyKeyTokenRecordFormat;
+import org.neo4j.kernel.impl.store.format.standard.PropertyRecordFormat;
+import org.neo4j.kernel.impl.store.format.standard.RelationshipGroupRecordFormat;
+import org.neo4j.kernel.impl.store.format.standard.RelationshipTypeTokenRecordFormat;
+import org.neo4j.kernel.impl.store.format.standard.StandardV3_4;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.LabelTokenRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyKeyTokenRecord;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipTypeTokenRecord;
+
+/**
+ * Experimental record format with the layout of {@link StandardV3_4}, but where node and relationship records also
+ * carry a copy of the first record in their property chain, so that reading their first few properties does not touch
+ * the property store. The property chain stays the authoritative copy: index updates, the consistency checker and
+ * the batch importer keep working on it, and a record without a copy is read through the chain as usual.
+ * <p>
+ * Selected with {@code dbms.record_format=inline}.
+ */
+public class InlineV3_4 extends BaseRecordFormats
+{
+    public static final String STORE_VERSION = StoreVersion.INLINE_V3_4.versionString();
+    public static final RecordFormats RECORD_FORMATS = new InlineV3_4();
+    public static final String NAME = "inline";
+
+    public InlineV3_4()
+    {
+        super( STORE_VERSION, StoreVersion.INLINE_V3_4.introductionVersion(), 1, Capability.SCHEMA,
+                Capability.DENSE_NODES, Capability.LUCENE_5, Capability.POINT_PROPERTIES, Capability.TEMPORAL_PROPERTIES,
+                Capability.INLINED_PROPERTIES );
+    }
+
+    @Override
+    public RecordFormat<NodeRecord> node()
+    {
+        return new InlineNodeRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<RelationshipGroupRecord> relationshipGroup()
+    {
+        return new RelationshipGroupRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<RelationshipRecord> relationship()
+    {
+        return new InlineRelationshipRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<PropertyRecord> property()
+    {
+        return new PropertyRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<LabelTokenRecord> labelToken()
+    {
+        return new LabelTokenRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<PropertyKeyTokenRecord> propertyKeyToken()
+    {
+        return new PropertyKeyTokenRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<RelationshipTypeTokenRecord> relationshipTypeToken()
+    {
+        return new RelationshipTypeTokenRecordFormat();
+    }
+
+    @Override
+    public RecordFormat<DynamicRecord> dynamic()
+    {
+        return new DynamicRecordFormat();
+    }
+
+    @Override
+    public FormatFamily getFormatFamily()
+    {
+        return InlineFormatFamily.INSTANCE;
+    }
+
+    @Override
+    public String name()
+    {
+        return NAME;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.format.inline;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.impl.store.format.BaseRecordFormat;
+import org.neo4j.kernel.impl.store.format.standard.PropertyRecordFormat;
+import org.neo4j.kernel.impl.store.record.PrimitiveRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+
+/**
+ * Layout of the copy of the first property record that {@link InlineNodeRecordFormat} and
+ * {@link InlineRelationshipRecordFormat} append to the standard node and relationship layouts:
+ * <pre>
+ * header(byte)+next_prop_id(int)+blocks(4 longs)
+ * </pre>
+ * The header holds the number of blocks in its lower bits and the high order bits of the next property id in its
+ * upper bits. Unused blocks are written as zeros.
+ */
+final class InlinedPropertiesFormat
+{
+    static final int MAX_BLOCKS = PropertyRecordFormat.DEFAULT_PAYLOAD_SIZE / Long.BYTES;
+    static final int SIZE = 1 + 4 + MAX_BLOCKS * Long.BYTES;
+
+    private InlinedPropertiesFormat()
+    {
+    }
+
+    static void read( PrimitiveRecord record, PageCursor cursor )
+    {
+        // [    , xxx] number of blocks
+        // [xxxx,    ] next prop high order bits
+        byte header = cursor.getByte();
+        int numberOfBlocks = header & 0x7;
+        long nextProp = cursor.getInt() & 0xFFFFFFFFL;
+        long nextPropMod = (header & 0xF0L) << 28;
+        if ( numberOfBlocks > MAX_BLOCKS )
+        {
+            cursor.setCursorException( "Record claims to inline more property blocks than can fit in it: " + numberOfBlocks );
+            return;
+        }
+        if ( numberOfBlocks == 0 )
+        {
+            record.clearInlinedProperties();
+            return;
+        }
+        long[] blocks = record.initializeInlinedProperties( numberOfBlocks,
+                BaseRecordFormat.longFromIntAndMod( nextProp, nextPropMod ) );
+        for ( int i = 0; i < numberOfBlocks; i++ )
+        {
+            blocks[i] = cursor.getLong();
+        }
+    }
+
+    static void write( PrimitiveRecord record, PageCursor cursor )
+    {
+        int numberOfBlocks = record.getNumberOfInlinedBlocks();
+        long nextProp = record.getInlinedNextProp();
+        long nextPropMod = nextProp == Record.NO_NEXT_PROPERTY.intValue() ? 0 : (nextProp & 0xF00000000L) >> 28;
+        cursor.putByte( (byte) (numberOfBlocks | nextPropMod) );
+        cursor.putInt( (int) nextProp );
+        long[] blocks = record.getInlinedBlocks();
+        for ( int i = 0; i < MAX_BLOCKS; i++ )
+        {
+            cursor.putLong( i < numberOfBlocks ? blocks[i] : 0 );
+        }
+    }
+}
@@ -35,7 +35,16 @@ public class NodeRecordFormat extends BaseOneByteHeaderRecordFormat<NodeRecord>
 
     public NodeRecordFormat()
     {
-        super( fixedRecordSize( RECORD_SIZE ), 0, IN_USE_BIT, StandardFormatSettings.NODE_MAXIMUM_ID_BITS );
+        this( RECORD_SIZE );
+    }
+
+    /**
+     * @param recordSize size of each record on disk, at least {@link #RECORD_SIZE}. Bytes beyond
+     * {@link #RECORD_SIZE} are left to subclasses.
+     */
+    protected NodeRecordFormat( int recordSize )
+    {
+        super( fixedRecordSize( recordSize ), 0, IN_USE_BIT, StandardFormatSettings.NODE_MAXIMUM_ID_BITS );
     }
 
     @Override
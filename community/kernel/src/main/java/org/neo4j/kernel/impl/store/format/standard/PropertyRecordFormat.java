@@ -40,7 +40,16 @@ public class PropertyRecordFormat extends BaseRecordFormat<PropertyRecord>
 
     public PropertyRecordFormat()
     {
-        super( fixedRecordSize( RECORD_SIZE ), 0, StandardFormatSettings.PROPERTY_MAXIMUM_ID_BITS );
+        this( RECORD_SIZE );
+    }
+
+    /**
+     * @param recordSize size of each record on disk, at least {@link #RECORD_SIZE}. Bytes beyond
+     * {@link #RECORD_SIZE} are padding and are neither read nor written.
+     */
+    protected PropertyRecordFormat( int recordSize )
+    {
+        super( fixedRecordSize( recordSize ), 0, StandardFormatSettings.PROPERTY_MAXIMUM_ID_BITS );
     }
 
     @Override
@@ -41,7 +41,16 @@ public class RelationshipGroupRecordFormat extends BaseOneByteHeaderRecordFormat
 
     public RelationshipGroupRecordFormat()
     {
-        super( fixedRecordSize( RECORD_SIZE ), 0, IN_USE_BIT,
+        this( RECORD_SIZE );
+    }
+
+    /**
+     * @param recordSize size of each record on disk, at least {@link #RECORD_SIZE}. Bytes beyond
+     * {@link #RECORD_SIZE} are padding and are neither read nor written.
+     */
+    protected RelationshipGroupRecordFormat( int recordSize )
+    {
+        super( fixedRecordSize( recordSize ), 0, IN_USE_BIT,
                 StandardFormatSettings.RELATIONSHIP_GROUP_MAXIMUM_ID_BITS );
     }
 
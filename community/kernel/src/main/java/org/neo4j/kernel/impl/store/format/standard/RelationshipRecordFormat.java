@@ -38,7 +38,16 @@ public class RelationshipRecordFormat extends BaseOneByteHeaderRecordFormat<Rela
 
     public RelationshipRecordFormat()
     {
-        super( fixedRecordSize( RECORD_SIZE ), 0, IN_USE_BIT, StandardFormatSettings.RELATIONSHIP_MAXIMUM_ID_BITS );
+        this( RECORD_SIZE );
+    }
+
+    /**
+     * @param recordSize size of each record on disk, at least {@link #RECORD_SIZE}. Bytes beyond
+     * {@link #RECORD_SIZE} are left to subclasses.
+     */
+    protected RelationshipRecordFormat( int recordSize )
+    {
+        super( fixedRecordSize( recordSize ), 0, IN_USE_BIT, StandardFormatSettings.RELATIONSHIP_MAXIMUM_ID_BITS );
     }
 
     @Override
@@ -23,9 +23,13 @@ import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import org.neo4j.kernel.impl.api.KernelTransactionsSnapshot;
+import org.neo4j.util.FeatureToggles;
 
 class BufferingIdGenerator extends IdGenerator.Delegate
 {
+    private static final int STRIPES = FeatureToggles.getInteger( BufferingIdGenerator.class, "stripes",
+            Runtime.getRuntime().availableProcessors() );
+
     private DelayedBuffer<KernelTransactionsSnapshot> buffer;
 
     BufferingIdGenerator( IdGenerator delegate )
@@ -36,18 +40,12 @@ class BufferingIdGenerator extends IdGenerator.Delegate
     void initialize( Supplier<KernelTransactionsSnapshot> boundaries,
             Predicate<KernelTransactionsSnapshot> safeThreshold )
     {
-        buffer = new DelayedBuffer<>( boundaries, safeThreshold, 10_000, freedIds ->
-        {
-            for ( long id : freedIds )
-            {
-                actualFreeId( id );
-            }
-        } );
+        buffer = new DelayedBuffer<>( boundaries, safeThreshold, 10_000, STRIPES, this::actualFreeIds );
     }
 
-    private void actualFreeId( long id )
+    private void actualFreeIds( long[] ids )
     {
-        super.freeId( id );
+        super.freeIds( ids );
     }
 
     @Override
@@ -56,6 +54,32 @@ class BufferingIdGenerator extends IdGenerator.Delegate
         buffer.offer( id );
     }
 
+    @Override
+    public void freeIds( long[] ids )
+    {
+        for ( long id : ids )
+        {
+            buffer.offer( id );
+        }
+    }
+
+    /**
+     * A rebuild frees ids of records found not in use, and some of those may also have been freed by the transactions
+     * deleting them, with those frees still held in the buffer. Reusing such an id before the buffered free reaches
+     * the delegate would have that free it once more while it is in use again. The delegate is therefore only told
+     * that the rebuild has completed once all ids freed before now have been released to it.
+     */
+    @Override
+    public void rebuildCompleted()
+    {
+        if ( buffer == null )
+        {
+            super.rebuildCompleted();
+            return;
+        }
+        buffer.whenReleased( super::rebuildCompleted );
+    }
+
     void maintenance()
     {
         buffer.maintenance();
@@ -35,7 +35,8 @@ import static java.util.Arrays.copyOf;
  * for values to be released.
  *
  * This class is thread-safe for concurrent requests, but only a single thread should be responsible for
- * calling {@link #maintenance()}.
+ * calling {@link #maintenance()}. Values are collected into a number of stripes, each guarded by its own monitor,
+ * so that threads offering values concurrently don't all contend on the same one.
  */
 public class DelayedBuffer<T>
 {
@@ -43,17 +44,43 @@ public class DelayedBuffer<T>
     {
         private final T threshold;
         private final long[] values;
+        // Run instead of releasing values, for chunks marking a point in the order of offered values
+        private final Runnable action;
 
-        Chunk( T threshold, long[] values )
+        Chunk( T threshold, long[] values, Runnable action )
         {
             this.threshold = threshold;
             this.values = values;
+            this.action = action;
+        }
+
+        void release( Consumer<long[]> chunkConsumer )
+        {
+            if ( action != null )
+            {
+                action.run();
+            }
+            else
+            {
+                chunkConsumer.accept( values );
+            }
         }
 
         @Override
         public String toString()
         {
-            return Arrays.toString( values );
+            return action != null ? "marker" : Arrays.toString( values );
+        }
+    }
+
+    private static class Stripe
+    {
+        private final long[] chunk;
+        private int chunkCursor;
+
+        Stripe( int chunkSize )
+        {
+            this.chunk = new long[chunkSize];
         }
     }
 
@@ -61,20 +88,36 @@ public class DelayedBuffer<T>
     private final Predicate<T> safeThreshold;
     private final Consumer<long[]> chunkConsumer;
     private final Deque<Chunk<T>> chunks = new LinkedList<>();
-    private final int chunkSize;
-
-    private final long[] chunk;
-    private int chunkCursor;
+    private final Stripe[] stripes;
+    private final int stripeMask;
 
     public DelayedBuffer( Supplier<T> thresholdSupplier, Predicate<T> safeThreshold, int chunkSize,
             Consumer<long[]> chunkConsumer )
+    {
+        this( thresholdSupplier, safeThreshold, chunkSize, 1, chunkConsumer );
+    }
+
+    /**
+     * @param chunkSize total number of values buffered in all stripes together before chunks are queued.
+     * Each stripe queues its values as a chunk of its own when it holds {@code chunkSize / stripes} of them.
+     * @param stripes number of stripes to collect offered values into, rounded down to a power of two.
+     */
+    public DelayedBuffer( Supplier<T> thresholdSupplier, Predicate<T> safeThreshold, int chunkSize, int stripes,
+            Consumer<long[]> chunkConsumer )
     {
         assert chunkSize > 0;
+        assert stripes > 0;
         this.thresholdSupplier = thresholdSupplier;
         this.safeThreshold = safeThreshold;
-        this.chunkSize = chunkSize;
         this.chunkConsumer = chunkConsumer;
-        this.chunk = new long[chunkSize];
+        int stripeCount = Integer.highestOneBit( stripes );
+        int stripeChunkSize = Math.max( 1, chunkSize / stripeCount );
+        this.stripes = new Stripe[stripeCount];
+        for ( int i = 0; i < stripeCount; i++ )
+        {
+            this.stripes[i] = new Stripe( stripeChunkSize );
+        }
+        this.stripeMask = stripeCount - 1;
     }
 
     /**
@@ -83,10 +126,7 @@ public class DelayedBuffer<T>
      */
     public void maintenance()
     {
-        synchronized ( this )
-        {
-            flush();
-        }
+        flushStripes();
 
         if ( !chunks.isEmpty() )
         {
@@ -98,7 +138,7 @@ public class DelayedBuffer<T>
                     Chunk<T> candidate = chunks.peek();
                     if ( safeThreshold.test( candidate.threshold ) )
                     {
-                        chunkConsumer.accept( candidate.values );
+                        candidate.release( chunkConsumer );
                         chunks.remove();
                     }
                     else
@@ -111,17 +151,43 @@ public class DelayedBuffer<T>
         }
     }
 
-    // Must be called under synchronized on this
-    private void flush()
+    private void flushStripes()
     {
-        if ( chunkCursor > 0 )
+        for ( Stripe stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                flush( stripe );
+            }
+        }
+    }
+
+    // Must be called under synchronized on the stripe
+    private void flush( Stripe stripe )
+    {
+        if ( stripe.chunkCursor > 0 )
         {
             synchronized ( chunks )
             {
-                Chunk<T> chunkToAdd = new Chunk<>( thresholdSupplier.get(), copyOf( chunk, chunkCursor ) );
+                // The threshold is taken while holding the chunks monitor to keep queued chunks ordered by it
+                long[] values = copyOf( stripe.chunk, stripe.chunkCursor );
+                Chunk<T> chunkToAdd = new Chunk<>( thresholdSupplier.get(), values, null );
                 chunks.offer( chunkToAdd );
             }
-            chunkCursor = 0;
+            stripe.chunkCursor = 0;
+        }
+    }
+
+    /**
+     * Runs the given action, from {@link #maintenance()} or {@link #close()}, once all values offered before this call
+     * have been released onto the {@link Consumer}.
+     */
+    public void whenReleased( Runnable action )
+    {
+        flushStripes();
+        synchronized ( chunks )
+        {
+            chunks.offer( new Chunk<>( thresholdSupplier.get(), null, action ) );
         }
     }
 
@@ -130,12 +196,16 @@ public class DelayedBuffer<T>
      * released by a call to {@link #maintenance()} when the safe threshold for the chunk, which is determined
      * when the chunk is full or otherwise queued.
      */
-    public synchronized void offer( long value )
+    public void offer( long value )
     {
-        chunk[chunkCursor++] = value;
-        if ( chunkCursor == chunkSize )
+        Stripe stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+        synchronized ( stripe )
         {
-            flush();
+            stripe.chunk[stripe.chunkCursor++] = value;
+            if ( stripe.chunkCursor == stripe.chunk.length )
+            {
+                flush( stripe );
+            }
         }
     }
 
@@ -145,18 +215,30 @@ public class DelayedBuffer<T>
      * This class is typically not used in a scenario suitable for try-with-resource
      * and so having it implement AutoCloseable would be more annoying
      */
-    public synchronized void close()
+    public void close()
     {
-        flush();
-        while ( !chunks.isEmpty() )
+        flushStripes();
+        synchronized ( chunks )
         {
-            chunkConsumer.accept( chunks.poll().values );
+            while ( !chunks.isEmpty() )
+            {
+                chunks.poll().release( chunkConsumer );
+            }
         }
     }
 
-    public synchronized void clear()
+    public void clear()
     {
-        chunks.clear();
-        chunkCursor = 0;
+        for ( Stripe stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                stripe.chunkCursor = 0;
+            }
+        }
+        synchronized ( chunks )
+        {
+            chunks.clear();
+        }
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * {@link Layout} for {@link GBPTree} used by {@link GBPTreeIdGenerator}.
+ *
+ * <ul>
+ * <li>
+ * Each key is an {@code idRange} ({@code id/64}).
+ * </li>
+ * <li>
+ * Each value is a 64-bit bit set (a primitive {@code long}) where each set bit in it represents
+ * a free id, such that {@code id = idRange*64+bitOffset}. Ranges without any free ids have no entry.
+ * </li>
+ * </ul>
+ */
+class FreeIdLayout extends Layout.Adapter<FreeIdKey,FreeIdValue>
+{
+    /**
+     * Name part of the {@link #identifier()} value.
+     */
+    private static final String IDENTIFIER_NAME = "FIL";
+
+    @Override
+    public int compare( FreeIdKey o1, FreeIdKey o2 )
+    {
+        return Long.compare( o1.idRange, o2.idRange );
+    }
+
+    @Override
+    public FreeIdKey newKey()
+    {
+        return new FreeIdKey();
+    }
+
+    @Override
+    public FreeIdKey copyKey( FreeIdKey key, FreeIdKey into )
+    {
+        into.idRange = key.idRange;
+        return into;
+    }
+
+    @Override
+    public FreeIdValue newValue()
+    {
+        return new FreeIdValue();
+    }
+
+    @Override
+    public int keySize( FreeIdKey key )
+    {
+        return Long.BYTES;
+    }
+
+    @Override
+    public int valueSize( FreeIdValue value )
+    {
+        return FreeIdValue.RANGE_SIZE_BYTES;
+    }
+
+    @Override
+    public void writeKey( PageCursor cursor, FreeIdKey key )
+    {
+        cursor.putLong( key.idRange );
+    }
+
+    @Override
+    public void writeValue( PageCursor cursor, FreeIdValue value )
+    {
+        cursor.putLong( value.bits );
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, FreeIdKey into, int keySize )
+    {
+        into.idRange = cursor.getLong();
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, FreeIdValue into, int valueSize )
+    {
+        into.bits = cursor.getLong();
+    }
+
+    @Override
+    public boolean fixedSize()
+    {
+        return true;
+    }
+
+    @Override
+    public long identifier()
+    {
+        return Layout.namedIdentifier( IDENTIFIER_NAME, FreeIdValue.RANGE_SIZE );
+    }
+
+    @Override
+    public int majorVersion()
+    {
+        return 0;
+    }
+
+    @Override
+    public int minorVersion()
+    {
+        return 1;
+    }
+}
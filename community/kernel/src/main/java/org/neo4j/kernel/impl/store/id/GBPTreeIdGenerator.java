@@ -0,0 +1,521 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Header;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.index.internal.gbptree.MetadataMismatchException;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.index.internal.gbptree.ValueMerger;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.impl.store.InvalidIdGeneratorException;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.kernel.impl.store.id.validation.IdValidator;
+
+/**
+ * {@link IdGenerator} which keeps free ids in a {@link GBPTree}, see {@link FreeIdLayout}, instead of in an id file
+ * managed by {@link IdContainer}.
+ * <p>
+ * Ids freed using {@link #freeId(long)} are written to the tree right away and can be handed out again right away,
+ * unless the id type doesn't allow aggressive reuse, in which case they are held until {@link #close()}.
+ * Free ids are taken from the tree lowest first and up to {@code grabSize} of them at a time. Ids taken from the tree
+ * are removed from it, which means that the tree never holds ids that have been handed out.
+ * <p>
+ * The tree is only trusted after a clean {@link #close()}. Opening an id generator that wasn't closed cleanly fails
+ * with {@link InvalidIdGeneratorException}, after which the store will create it anew. A newly created id generator
+ * {@link #needsRebuild() needs rebuild}, i.e. it only hands out ids from its high id until it has been told about
+ * all ids that are free below that high id and {@link #rebuildCompleted()} has been called. Stores do this by scanning
+ * themselves in the background, so that free ids are not lost on a crash and finding them doesn't hold up startup.
+ * <p>
+ * All methods synchronize on this instance.
+ */
+public class GBPTreeIdGenerator implements IdGenerator
+{
+    // header format: state(byte), highId(long)
+    private static final byte CLEAN = (byte) 0;
+    private static final byte STICKY = (byte) 1;
+    private static final byte NEEDS_REBUILD = (byte) 2;
+
+    private static final long NO_ID = -1;
+
+    private final FileSystemAbstraction fs;
+    private final File file;
+    private final IdType idType;
+    private final long max;
+    private final boolean aggressiveReuse;
+    private final GBPTree<FreeIdKey,FreeIdValue> tree;
+
+    private final FreeIdKey fromKey = new FreeIdKey();
+    private final FreeIdKey toKey = new FreeIdKey();
+    private final FreeIdKey writeKey = new FreeIdKey();
+    private final FreeIdValue writeValue = new FreeIdValue();
+    private final ValueMerger<FreeIdKey,FreeIdValue> addBits = this::addBits;
+    private long addedBits;
+
+    // Free ids taken from the tree, handed out from cachePosition up to cacheSize
+    private final long[] cache;
+    private int cachePosition;
+    private int cacheSize;
+    // Ranges and bits of the entries that ids were taken from in the latest refill of the cache
+    private final long[] takenRanges;
+    private final long[] remainingBits;
+
+    // Freed ids of an id type not allowing aggressive reuse, which are written to the tree on close
+    private long[] pending = new long[16];
+    private int pendingSize;
+
+    private long highId;
+    private long freeIdsInTree;
+    private boolean needsRebuild;
+    private boolean closed;
+
+    /**
+     * Opens the id generator in {@code file}, creating it if it doesn't exist.
+     *
+     * @param grabSize the number of free ids to take out of the tree at a time.
+     * @param max the highest possible id to be returned by this id generator.
+     * @param aggressiveReuse whether or not freed ids can be handed out again before this id generator is reopened.
+     * @param highId supplier of the high id, called if the id generator had to be created.
+     * @throws InvalidIdGeneratorException if the id generator wasn't closed cleanly, or if {@code file} isn't an id
+     * generator of this kind.
+     */
+    public GBPTreeIdGenerator( PageCache pageCache, FileSystemAbstraction fs, File file, int grabSize, long max,
+            boolean aggressiveReuse, IdType idType, LongSupplier highId )
+    {
+        if ( grabSize < 1 )
+        {
+            throw new IllegalArgumentException( "Illegal grabSize: " + grabSize );
+        }
+        this.fs = fs;
+        this.file = file;
+        this.idType = idType;
+        this.max = max;
+        this.aggressiveReuse = aggressiveReuse;
+        this.cache = new long[grabSize];
+        this.takenRanges = new long[grabSize];
+        this.remainingBits = new long[grabSize];
+
+        boolean created = !fs.fileExists( file );
+        byte[] state = {NEEDS_REBUILD};
+        long[] headerHighId = {0};
+        tree = openTree( pageCache, file, headerBytes ->
+        {
+            state[0] = headerBytes.get();
+            headerHighId[0] = headerBytes.getLong();
+        }, header( NEEDS_REBUILD, 0 ) );
+
+        try
+        {
+            if ( state[0] == STICKY )
+            {
+                throw new InvalidIdGeneratorException( "Id file not properly shutdown [ " + file +
+                        " ], delete this id file and build a new one" );
+            }
+            this.needsRebuild = state[0] == NEEDS_REBUILD;
+            this.highId = created ? highId.getAsLong() : headerHighId[0];
+            this.freeIdsInTree = countFreeIds();
+            // Until closed cleanly, the content of the tree can't be trusted
+            tree.checkpoint( IOLimiter.unlimited(), header( STICKY, this.highId ) );
+        }
+        catch ( IOException e )
+        {
+            closeTree();
+            throw new UnderlyingStorageException( "Unable to init id file " + file, e );
+        }
+        catch ( RuntimeException e )
+        {
+            closeTree();
+            throw e;
+        }
+    }
+
+    private static GBPTree<FreeIdKey,FreeIdValue> openTree( PageCache pageCache, File file, Header.Reader headerReader,
+            Consumer<PageCursor> headerWriter )
+    {
+        try
+        {
+            return new GBPTree<>( pageCache, file, new FreeIdLayout(), 0, GBPTree.NO_MONITOR, headerReader,
+                    headerWriter, RecoveryCleanupWorkCollector.IMMEDIATE );
+        }
+        catch ( MetadataMismatchException e )
+        {
+            throw new InvalidIdGeneratorException( "Id file [ " + file + " ] is not a free id tree: " + e.getMessage() );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to open id file " + file, e );
+        }
+    }
+
+    private static Consumer<PageCursor> header( byte state, long highId )
+    {
+        return cursor ->
+        {
+            cursor.putByte( state );
+            cursor.putLong( highId );
+        };
+    }
+
+    /**
+     * Creates a new id generator, which {@link #needsRebuild() needs rebuild} when opened.
+     *
+     * @param throwIfFileExists if {@code true} will cause an {@link IllegalStateException} to be thrown if
+     * the file already exists. if {@code false} will replace the existing file.
+     */
+    public static void createGenerator( PageCache pageCache, FileSystemAbstraction fs, File file, long highId,
+            boolean throwIfFileExists )
+    {
+        if ( fs.fileExists( file ) )
+        {
+            if ( throwIfFileExists )
+            {
+                throw new IllegalStateException( "Can't create id file [" + file + "], file already exists" );
+            }
+            if ( !fs.deleteFile( file ) )
+            {
+                throw new UnderlyingStorageException( "Unable to delete id file " + file );
+            }
+        }
+        try ( GBPTree<FreeIdKey,FreeIdValue> tree = openTree( pageCache, file, GBPTree.NO_HEADER_READER,
+                header( NEEDS_REBUILD, highId ) ) )
+        {
+            tree.checkpoint( IOLimiter.unlimited() );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to create id file " + file, e );
+        }
+    }
+
+    @Override
+    public synchronized long nextId()
+    {
+        assertStillOpen();
+        long freeId = nextFreeId();
+        if ( freeId != NO_ID )
+        {
+            return freeId;
+        }
+
+        if ( IdValidator.isReservedId( highId ) )
+        {
+            highId++;
+        }
+        IdValidator.assertValidId( idType, highId, max );
+        return highId++;
+    }
+
+    @Override
+    public synchronized IdRange nextIdBatch( int size )
+    {
+        assertStillOpen();
+        long[] reusableIds = new long[size];
+        int count = 0;
+        long freeId;
+        while ( count < size && (freeId = nextFreeId()) != NO_ID )
+        {
+            reusableIds[count++] = freeId;
+        }
+        if ( count < size )
+        {
+            reusableIds = Arrays.copyOf( reusableIds, count );
+        }
+        int sizeLeftForRange = size - count;
+        long start = highId;
+        setHighId( start + sizeLeftForRange );
+        return new IdRange( reusableIds, start, sizeLeftForRange );
+    }
+
+    private long nextFreeId()
+    {
+        if ( cachePosition == cacheSize )
+        {
+            if ( needsRebuild || freeIdsInTree == 0 )
+            {
+                return NO_ID;
+            }
+            refillCache();
+        }
+        return cachePosition < cacheSize ? cache[cachePosition++] : NO_ID;
+    }
+
+    /**
+     * Takes up to {@code grabSize} free ids out of the tree, lowest first, so that ids handed out after each other
+     * are close to each other.
+     */
+    private void refillCache()
+    {
+        cachePosition = 0;
+        cacheSize = 0;
+        int ranges = 0;
+        try
+        {
+            try ( RawCursor<Hit<FreeIdKey,FreeIdValue>,IOException> seeker =
+                          tree.seek( fromKey.set( 0 ), toKey.set( Long.MAX_VALUE ) ) )
+            {
+                while ( cacheSize < cache.length && seeker.next() )
+                {
+                    Hit<FreeIdKey,FreeIdValue> hit = seeker.get();
+                    long idRange = hit.key().idRange;
+                    long bits = hit.value().bits;
+                    long baseId = idRange * FreeIdValue.RANGE_SIZE;
+                    while ( bits != 0 && cacheSize < cache.length )
+                    {
+                        cache[cacheSize++] = baseId + Long.numberOfTrailingZeros( bits );
+                        bits &= bits - 1;
+                    }
+                    takenRanges[ranges] = idRange;
+                    remainingBits[ranges] = bits;
+                    ranges++;
+                }
+            }
+
+            try ( Writer<FreeIdKey,FreeIdValue> writer = tree.writer() )
+            {
+                for ( int i = 0; i < ranges; i++ )
+                {
+                    writeKey.set( takenRanges[i] );
+                    if ( remainingBits[i] == 0 )
+                    {
+                        writer.remove( writeKey );
+                    }
+                    else
+                    {
+                        writer.put( writeKey, writeValue.set( remainingBits[i] ) );
+                    }
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to take free ids from id file " + file, e );
+        }
+        freeIdsInTree -= cacheSize;
+    }
+
+    @Override
+    public synchronized void setHighId( long id )
+    {
+        IdValidator.assertIdWithinCapacity( idType, id, max );
+        highId = id;
+    }
+
+    @Override
+    public synchronized long getHighId()
+    {
+        return highId;
+    }
+
+    @Override
+    public synchronized long getHighestPossibleIdInUse()
+    {
+        return highId - 1;
+    }
+
+    @Override
+    public synchronized void freeId( long id )
+    {
+        freeIds( new long[]{id} );
+    }
+
+    @Override
+    public synchronized void freeIds( long[] ids )
+    {
+        assertStillOpen();
+        for ( long id : ids )
+        {
+            if ( !IdValidator.isReservedId( id ) && (id < 0 || id >= highId) )
+            {
+                throw new IllegalArgumentException( "Illegal id[" + id + "], highId is " + highId );
+            }
+        }
+
+        if ( aggressiveReuse )
+        {
+            writeFreeIds( ids, ids.length );
+        }
+        else
+        {
+            if ( pendingSize + ids.length > pending.length )
+            {
+                pending = Arrays.copyOf( pending, Math.max( pending.length * 2, pendingSize + ids.length ) );
+            }
+            System.arraycopy( ids, 0, pending, pendingSize, ids.length );
+            pendingSize += ids.length;
+        }
+    }
+
+    private void writeFreeIds( long[] ids, int count )
+    {
+        try ( Writer<FreeIdKey,FreeIdValue> writer = tree.writer() )
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                long id = ids[i];
+                if ( IdValidator.isReservedId( id ) )
+                {
+                    continue;
+                }
+                addedBits = 1;
+                writeKey.set( id / FreeIdValue.RANGE_SIZE );
+                writeValue.set( 1L << (id % FreeIdValue.RANGE_SIZE) );
+                writer.merge( writeKey, writeValue, addBits );
+                freeIdsInTree += addedBits;
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to free ids in id file " + file, e );
+        }
+    }
+
+    /**
+     * Merges bits of a range already having free ids, keeping track of whether or not that added any bits.
+     * An id can be freed more than once while rebuilding, by the rebuild as well as by the transaction deleting it.
+     */
+    private FreeIdValue addBits( FreeIdKey existingKey, FreeIdKey newKey, FreeIdValue existingValue,
+            FreeIdValue newValue )
+    {
+        long merged = existingValue.bits | newValue.bits;
+        addedBits = Long.bitCount( merged ) - Long.bitCount( existingValue.bits );
+        return merged == existingValue.bits ? null : newValue.set( merged );
+    }
+
+    private long countFreeIds() throws IOException
+    {
+        long count = 0;
+        try ( RawCursor<Hit<FreeIdKey,FreeIdValue>,IOException> seeker =
+                      tree.seek( fromKey.set( 0 ), toKey.set( Long.MAX_VALUE ) ) )
+        {
+            while ( seeker.next() )
+            {
+                count += Long.bitCount( seeker.get().value().bits );
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized boolean needsRebuild()
+    {
+        return needsRebuild;
+    }
+
+    @Override
+    public synchronized void rebuildCompleted()
+    {
+        needsRebuild = false;
+    }
+
+    /**
+     * Closes the id generator, writing held free ids back to the tree and marking it as clean, or as still
+     * needing rebuild if {@link #rebuildCompleted()} hasn't been called.
+     */
+    @Override
+    public synchronized void close()
+    {
+        if ( !closed )
+        {
+            try
+            {
+                writeFreeIds( Arrays.copyOfRange( cache, cachePosition, cacheSize ), cacheSize - cachePosition );
+                writeFreeIds( pending, pendingSize );
+                cachePosition = cacheSize = pendingSize = 0;
+                tree.checkpoint( IOLimiter.unlimited(), header( needsRebuild ? NEEDS_REBUILD : CLEAN, highId ) );
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( "Unable to close id file " + file, e );
+            }
+            finally
+            {
+                closeTree();
+            }
+        }
+    }
+
+    private void closeTree()
+    {
+        try
+        {
+            tree.close();
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to close id file " + file, e );
+        }
+        finally
+        {
+            closed = true;
+        }
+    }
+
+    @Override
+    public synchronized long getNumberOfIdsInUse()
+    {
+        return highId - getDefragCount();
+    }
+
+    @Override
+    public synchronized long getDefragCount()
+    {
+        return freeIdsInTree + (cacheSize - cachePosition) + pendingSize;
+    }
+
+    @Override
+    public synchronized void delete()
+    {
+        if ( !closed )
+        {
+            closeTree();
+        }
+        if ( !fs.deleteFile( file ) )
+        {
+            throw new UnderlyingStorageException( "Unable to delete id file " + file );
+        }
+    }
+
+    private void assertStillOpen()
+    {
+        if ( closed )
+        {
+            throw new IllegalStateException( "Closed id file " + file );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "GBPTreeIdGenerator " + hashCode() + " [max=" + max + ", file=" + file + ", highId=" + highId +
+               ", defragCount=" + getDefragCount() + ", needsRebuild=" + needsRebuild + "]";
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.io.File;
+import java.util.function.LongSupplier;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.store.id.configuration.IdTypeConfigurationProvider;
+
+/**
+ * {@link IdGeneratorFactory} for {@link GBPTreeIdGenerator}, keeping free ids in persistent trees.
+ */
+public class GBPTreeIdGeneratorFactory extends DefaultIdGeneratorFactory
+{
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+
+    public GBPTreeIdGeneratorFactory( FileSystemAbstraction fs, PageCache pageCache,
+            IdTypeConfigurationProvider idTypeConfigurationProvider )
+    {
+        super( fs, idTypeConfigurationProvider );
+        this.fs = fs;
+        this.pageCache = pageCache;
+    }
+
+    @Override
+    protected IdGenerator instantiate( FileSystemAbstraction fs, File fileName, int grabSize, long maxValue,
+            boolean aggressiveReuse, IdType idType, LongSupplier highId )
+    {
+        return new GBPTreeIdGenerator( pageCache, fs, fileName, grabSize, maxValue, aggressiveReuse, idType, highId );
+    }
+
+    @Override
+    public void create( File fileName, long highId, boolean throwIfFileExists )
+    {
+        GBPTreeIdGenerator.createGenerator( pageCache, fs, fileName, highId, throwIfFileExists );
+    }
+}
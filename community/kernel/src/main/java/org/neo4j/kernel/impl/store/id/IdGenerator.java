@@ -34,6 +34,38 @@ public interface IdGenerator extends IdSequence, Closeable
     long getHighestPossibleIdInUse();
     void freeId( long id );
 
+    /**
+     * Frees a batch of ids, as if calling {@link #freeId(long)} for each one of them. Implementations guarding their
+     * state with a monitor can override this to free the whole batch under a single acquisition of that monitor.
+     *
+     * @param ids the ids to make available again.
+     */
+    default void freeIds( long[] ids )
+    {
+        for ( long id : ids )
+        {
+            freeId( id );
+        }
+    }
+
+    /**
+     * @return {@code true} if this id generator doesn't know which ids below its high id are free, and won't reuse
+     * any ids until it has been told about them using {@link #freeId(long)} and {@link #rebuildCompleted()} has been
+     * called.
+     */
+    default boolean needsRebuild()
+    {
+        return false;
+    }
+
+    /**
+     * Called when all ids that were free below the high id when this id generator was opened have been freed,
+     * after which it can start reusing ids. See {@link #needsRebuild()}.
+     */
+    default void rebuildCompleted()
+    {
+    }
+
     /**
      * Closes the id generator, marking it as clean.
      */
@@ -94,6 +126,24 @@ public interface IdGenerator extends IdSequence, Closeable
             delegate.freeId( id );
         }
 
+        @Override
+        public void freeIds( long[] ids )
+        {
+            delegate.freeIds( ids );
+        }
+
+        @Override
+        public boolean needsRebuild()
+        {
+            return delegate.needsRebuild();
+        }
+
+        @Override
+        public void rebuildCompleted()
+        {
+            delegate.rebuildCompleted();
+        }
+
         @Override
         public void close()
         {
@@ -219,6 +219,15 @@ public class IdGeneratorImpl implements IdGenerator
         idContainer.freeId( id );
     }
 
+    @Override
+    public synchronized void freeIds( long[] ids )
+    {
+        for ( long id : ids )
+        {
+            freeId( id );
+        }
+    }
+
     /**
      * Closes the id generator flushing defragged ids in memory to file. The
      * file will be truncated to the minimal size required to hold all defragged
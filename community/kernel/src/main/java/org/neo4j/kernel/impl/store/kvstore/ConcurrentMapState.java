@@ -28,6 +28,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.Lock;
 
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContext;
@@ -199,9 +200,14 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
                 }
             }
         }
+        if ( !reset && value.increment( update, version ) )
+        {
+            return;
+        }
         synchronized ( value )
         {
             BigEndianByteArrayBuffer target = new BigEndianByteArrayBuffer( value.data );
+            value.foldIncrements( target );
             value.version = version;
             if ( reset )
             {
@@ -366,7 +372,7 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
             {
                 versionContext.markAsDirty();
             }
-            sink.value( new BigEndianByteArrayBuffer( change.data ) );
+            sink.value( new BigEndianByteArrayBuffer( change.snapshot() ) );
             return true;
         }
         return store.lookup( key, sink );
@@ -405,7 +411,7 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
             Map.Entry<Key, ChangeEntry> next = entries.next(); // we hold the lock, so this should succeed
             byte[] key = new byte[keys.keySize()];
             keys.writeKey( next.getKey(), new BigEndianByteArrayBuffer( key ) );
-            buffer[i] = new Entry( key, next.getValue().data );
+            buffer[i] = new Entry( key, next.getValue().snapshot() );
         }
         Arrays.sort( buffer );
         assert !entries.hasNext() : "We hold the lock, so we should see 'size' entries.";
@@ -465,10 +471,16 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
         }
     }
 
+    /**
+     * The changed value of an entry. {@link IncrementLong Increments} are added to {@link #increments} without
+     * locking, everything else happens under the monitor of the entry, which also folds the increments into
+     * {@link #data}.
+     */
     private static class ChangeEntry
     {
-        private byte[] data;
-        private long version;
+        private final byte[] data;
+        private final AtomicLongArray increments;
+        private volatile long version;
 
         static ChangeEntry of( byte[] data, long version )
         {
@@ -478,7 +490,53 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
         ChangeEntry( byte[] data, long version )
         {
             this.data = data;
+            this.increments = new AtomicLongArray( data.length / Long.BYTES );
             this.version = version;
         }
+
+        boolean increment( ValueUpdate update, long version )
+        {
+            if ( !(update instanceof IncrementLong) )
+            {
+                return false;
+            }
+            IncrementLong increment = (IncrementLong) update;
+            int slot = increment.offset / Long.BYTES;
+            if ( increment.offset % Long.BYTES != 0 || slot >= increments.length() )
+            {
+                return false;
+            }
+            increments.addAndGet( slot, increment.delta );
+            this.version = version;
+            return true;
+        }
+
+        /**
+         * Must be called under the monitor of this entry.
+         */
+        void foldIncrements( BigEndianByteArrayBuffer target )
+        {
+            addIncrements( target, true );
+        }
+
+        synchronized byte[] snapshot()
+        {
+            byte[] copy = data.clone();
+            addIncrements( new BigEndianByteArrayBuffer( copy ), false );
+            return copy;
+        }
+
+        private void addIncrements( BigEndianByteArrayBuffer target, boolean consume )
+        {
+            for ( int slot = 0; slot < increments.length(); slot++ )
+            {
+                long delta = consume ? increments.getAndSet( slot, 0 ) : increments.get( slot );
+                if ( delta != 0 )
+                {
+                    int offset = slot * Long.BYTES;
+                    target.putLong( offset, target.getLong( offset ) + delta );
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.kvstore;
+
+/**
+ * Adds a delta to one of the longs of a value.
+ * <p>
+ * Unlike other updates these are not applied under the lock of the value, but are added to atomic counters of the
+ * entry that are folded into the value whenever it is read or updated in some other way. Concurrent transactions
+ * incrementing the same entry, such as the count of all nodes, thereby never block each other.
+ */
+public final class IncrementLong implements ValueUpdate
+{
+    final int offset;
+    final long delta;
+
+    public IncrementLong( int offset, long delta )
+    {
+        this.offset = offset;
+        this.delta = delta;
+    }
+
+    @Override
+    public void update( WritableBuffer target )
+    {
+        target.putLong( offset, target.getLong( offset ) + delta );
+    }
+}
@@ -178,6 +178,7 @@ public class NodeRecord extends PrimitiveRecord
             clone.dynamicLabelRecords = clonedLabelRecords;
         }
         clone.setSecondaryUnitId( getSecondaryUnitId() );
+        copyInlinedPropertiesTo( clone );
         return clone;
     }
 }
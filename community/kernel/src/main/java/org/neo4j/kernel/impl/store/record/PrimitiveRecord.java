@@ -21,7 +21,12 @@ package org.neo4j.kernel.impl.store.record;
 
 public abstract class PrimitiveRecord extends AbstractBaseRecord
 {
+    private static final long[] NO_BLOCKS = new long[0];
+
     protected long nextProp;
+    private long[] inlinedBlocks = NO_BLOCKS;
+    private int numberOfInlinedBlocks;
+    private long inlinedNextProp = Record.NO_NEXT_PROPERTY.intValue();
 
     PrimitiveRecord( long id )
     {
@@ -40,12 +45,14 @@ public abstract class PrimitiveRecord extends AbstractBaseRecord
     {
         super.clear();
         nextProp = Record.NO_NEXT_PROPERTY.intValue();
+        clearInlinedProperties();
     }
 
     protected PrimitiveRecord initialize( boolean inUse, long nextProp )
     {
         super.initialize( inUse );
         this.nextProp = nextProp;
+        clearInlinedProperties();
         return this;
     }
 
@@ -59,5 +66,148 @@ public abstract class PrimitiveRecord extends AbstractBaseRecord
         this.nextProp = nextProp;
     }
 
+    /**
+     * @return whether this record carries a copy of the blocks of the first record in its property chain,
+     * {@link #getNextProp()}, in which case the property chain is read from {@link #getInlinedNextProp()} on.
+     */
+    public boolean hasInlinedProperties()
+    {
+        return numberOfInlinedBlocks > 0;
+    }
+
+    public long[] getInlinedBlocks()
+    {
+        return inlinedBlocks;
+    }
+
+    public int getNumberOfInlinedBlocks()
+    {
+        return numberOfInlinedBlocks;
+    }
+
+    /**
+     * @return the next property record of the first record in the property chain, if
+     * {@link #hasInlinedProperties() properties are inlined}.
+     */
+    public long getInlinedNextProp()
+    {
+        return inlinedNextProp;
+    }
+
+    /**
+     * Sets the copy of the first record in the property chain.
+     *
+     * @param blocks the blocks of the first property record, copied.
+     * @param numberOfBlocks number of blocks in use in {@code blocks}.
+     * @param nextProp the next property record of the first property record.
+     */
+    public void setInlinedProperties( long[] blocks, int numberOfBlocks, long nextProp )
+    {
+        if ( inlinedBlocks.length < numberOfBlocks )
+        {
+            inlinedBlocks = new long[numberOfBlocks];
+        }
+        System.arraycopy( blocks, 0, inlinedBlocks, 0, numberOfBlocks );
+        numberOfInlinedBlocks = numberOfBlocks;
+        inlinedNextProp = nextProp;
+    }
+
+    /**
+     * Sets the copy of the first record in the property chain without copying its blocks, as done when reading
+     * a record from a page.
+     *
+     * @param numberOfBlocks number of blocks in the copy.
+     * @param nextProp the next property record of the first property record.
+     * @return the array to fill with the first {@code numberOfBlocks} blocks.
+     */
+    public long[] initializeInlinedProperties( int numberOfBlocks, long nextProp )
+    {
+        if ( inlinedBlocks.length < numberOfBlocks )
+        {
+            inlinedBlocks = new long[numberOfBlocks];
+        }
+        numberOfInlinedBlocks = numberOfBlocks;
+        inlinedNextProp = nextProp;
+        return inlinedBlocks;
+    }
+
+    /**
+     * Sets the copy to the given first record in the property chain, or clears it if that record has no blocks.
+     */
+    public void setInlinedProperties( PropertyRecord first )
+    {
+        int numberOfBlocks = 0;
+        for ( PropertyBlock block : first )
+        {
+            numberOfBlocks += block.getValueBlocks().length;
+        }
+        if ( numberOfBlocks == 0 )
+        {
+            clearInlinedProperties();
+            return;
+        }
+        long[] target = initializeInlinedProperties( numberOfBlocks, first.getNextProp() );
+        int i = 0;
+        for ( PropertyBlock block : first )
+        {
+            long[] valueBlocks = block.getValueBlocks();
+            System.arraycopy( valueBlocks, 0, target, i, valueBlocks.length );
+            i += valueBlocks.length;
+        }
+    }
+
+    public void clearInlinedProperties()
+    {
+        numberOfInlinedBlocks = 0;
+        inlinedNextProp = Record.NO_NEXT_PROPERTY.intValue();
+    }
+
+    /**
+     * @return whether the inlined copy is the given one.
+     */
+    public boolean inlinesProperties( long[] blocks, int numberOfBlocks, long nextProp )
+    {
+        if ( numberOfInlinedBlocks != numberOfBlocks || inlinedNextProp != nextProp )
+        {
+            return false;
+        }
+        for ( int i = 0; i < numberOfBlocks; i++ )
+        {
+            if ( inlinedBlocks[i] != blocks[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the inlined copy is that of the given first record in the property chain, where a record
+     * without blocks has no copy.
+     */
+    public boolean inlinesProperties( PropertyRecord first )
+    {
+        int i = 0;
+        for ( PropertyBlock block : first )
+        {
+            for ( long valueBlock : block.getValueBlocks() )
+            {
+                if ( i >= numberOfInlinedBlocks || inlinedBlocks[i++] != valueBlock )
+                {
+                    return false;
+                }
+            }
+        }
+        return i == numberOfInlinedBlocks && ( i == 0 || inlinedNextProp == first.getNextProp() );
+    }
+
+    protected void copyInlinedPropertiesTo( PrimitiveRecord clone )
+    {
+        if ( hasInlinedProperties() )
+        {
+            clone.setInlinedProperties( inlinedBlocks, numberOfInlinedBlocks, inlinedNextProp );
+        }
+    }
+
     public abstract void setIdTo( PropertyRecord property );
 }
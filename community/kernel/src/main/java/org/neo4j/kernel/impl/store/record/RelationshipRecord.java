@@ -213,6 +213,7 @@ public class RelationshipRecord extends PrimitiveRecord
                 secondNode, type, firstPrevRel, firstNextRel, secondPrevRel, secondNextRel, firstInFirstChain,
                 firstInSecondChain );
         record.setSecondaryUnitId( getSecondaryUnitId() );
+        copyInlinedPropertiesTo( record );
         return record;
     }
 
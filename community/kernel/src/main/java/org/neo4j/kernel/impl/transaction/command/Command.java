@@ -29,6 +29,7 @@ import org.neo4j.kernel.impl.store.record.DynamicRecord;
 import org.neo4j.kernel.impl.store.record.LabelTokenRecord;
 import org.neo4j.kernel.impl.store.record.NeoStoreRecord;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PrimitiveRecord;
 import org.neo4j.kernel.impl.store.record.PropertyBlock;
 import org.neo4j.kernel.impl.store.record.PropertyKeyTokenRecord;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
@@ -183,6 +184,18 @@ public abstract class Command implements StorageCommand
         }
     }
 
+    void writeInlinedProperties( WritableChannel channel, PrimitiveRecord record ) throws IOException
+    {
+        // number_of_blocks(byte)+next_prop(long)+blocks(long*number_of_blocks)
+        int numberOfBlocks = record.getNumberOfInlinedBlocks();
+        long[] blocks = record.getInlinedBlocks();
+        channel.put( (byte) numberOfBlocks ).putLong( record.getInlinedNextProp() );
+        for ( int i = 0; i < numberOfBlocks; i++ )
+        {
+            channel.putLong( blocks[i] );
+        }
+    }
+
     void writeDynamicRecord( WritableChannel channel, DynamicRecord record ) throws IOException
     {
         // id+type+in_use(byte)+nr_of_bytes(int)+next_block(long)
@@ -268,7 +281,8 @@ public abstract class Command implements StorageCommand
                                    bitFlag( record.isCreated(), Record.CREATED_IN_TX ),
                                    bitFlag( record.requiresSecondaryUnit(), Record.REQUIRE_SECONDARY_UNIT ),
                                    bitFlag( record.hasSecondaryUnitId(), Record.HAS_SECONDARY_UNIT ),
-                                   bitFlag( record.isUseFixedReferences(), Record.USES_FIXED_REFERENCE_FORMAT ) );
+                                   bitFlag( record.isUseFixedReferences(), Record.USES_FIXED_REFERENCE_FORMAT ),
+                                   bitFlag( record.hasInlinedProperties(), Record.HAS_INLINED_PROPERTIES ) );
             channel.put( flags );
             if ( record.inUse() )
             {
@@ -279,6 +293,10 @@ public abstract class Command implements StorageCommand
                 {
                     channel.putLong( record.getSecondaryUnitId() );
                 }
+                if ( record.hasInlinedProperties() )
+                {
+                    writeInlinedProperties( channel, record );
+                }
             }
             // Always write dynamic label records because we want to know which ones have been deleted
             // especially if the node has been deleted.
@@ -314,7 +332,8 @@ public abstract class Command implements StorageCommand
                                    bitFlag( record.isCreated(), Record.CREATED_IN_TX ),
                                    bitFlag( record.requiresSecondaryUnit(), Record.REQUIRE_SECONDARY_UNIT ),
                                    bitFlag( record.hasSecondaryUnitId(), Record.HAS_SECONDARY_UNIT ),
-                                   bitFlag( record.isUseFixedReferences(), Record.USES_FIXED_REFERENCE_FORMAT ) );
+                                   bitFlag( record.isUseFixedReferences(), Record.USES_FIXED_REFERENCE_FORMAT ),
+                                   bitFlag( record.hasInlinedProperties(), Record.HAS_INLINED_PROPERTIES ) );
             channel.put( flags );
             if ( record.inUse() )
             {
@@ -327,6 +346,10 @@ public abstract class Command implements StorageCommand
                 {
                     channel.putLong( record.getSecondaryUnitId() );
                 }
+                if ( record.hasInlinedProperties() )
+                {
+                    writeInlinedProperties( channel, record );
+                }
             }
             else
             {
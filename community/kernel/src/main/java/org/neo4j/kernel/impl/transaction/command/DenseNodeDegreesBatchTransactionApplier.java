@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import org.neo4j.kernel.impl.api.BatchTransactionApplier;
+import org.neo4j.kernel.impl.api.TransactionApplier;
+import org.neo4j.kernel.impl.store.DenseNodeDegrees;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.storageengine.api.CommandsToApply;
+
+/**
+ * Keeps {@link DenseNodeDegrees} up to date with the relationship chains changed by applied transactions.
+ * <p>
+ * Every change to the degree of a chain rewrites the first relationship record of that chain, which holds the new
+ * degree, and a chain that becomes empty is unlinked from its relationship group. This applier must come after the
+ * applier writing records to the store, so that degrees are only updated after the records they are read from.
+ */
+public class DenseNodeDegreesBatchTransactionApplier extends BatchTransactionApplier.Adapter
+{
+    private final TransactionApplier applier;
+
+    public DenseNodeDegreesBatchTransactionApplier( DenseNodeDegrees degrees )
+    {
+        this.applier = new DegreesApplier( degrees );
+    }
+
+    @Override
+    public TransactionApplier startTx( CommandsToApply transaction )
+    {
+        return applier;
+    }
+
+    private static class DegreesApplier extends TransactionApplier.Adapter
+    {
+        private final DenseNodeDegrees degrees;
+
+        DegreesApplier( DenseNodeDegrees degrees )
+        {
+            this.degrees = degrees;
+        }
+
+        @Override
+        public boolean visitRelationshipCommand( Command.RelationshipCommand command )
+        {
+            RelationshipRecord record = command.getAfter();
+            if ( !record.inUse() )
+            {
+                return false;
+            }
+            long firstNode = record.getFirstNode();
+            long secondNode = record.getSecondNode();
+            if ( firstNode == secondNode )
+            {
+                if ( record.isFirstInFirstChain() )
+                {
+                    degrees.update( firstNode, record.getType(), DenseNodeDegrees.LOOP, record.getFirstPrevRel() );
+                }
+                return false;
+            }
+            if ( record.isFirstInFirstChain() )
+            {
+                degrees.update( firstNode, record.getType(), DenseNodeDegrees.OUTGOING, record.getFirstPrevRel() );
+            }
+            if ( record.isFirstInSecondChain() )
+            {
+                degrees.update( secondNode, record.getType(), DenseNodeDegrees.INCOMING, record.getSecondPrevRel() );
+            }
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipGroupCommand( Command.RelationshipGroupCommand command )
+        {
+            RelationshipGroupRecord record = command.getAfter();
+            if ( !record.inUse() )
+            {
+                RelationshipGroupRecord before = command.getBefore();
+                degrees.remove( before.getOwningNode(), before.getType() );
+                return false;
+            }
+            long node = record.getOwningNode();
+            int type = record.getType();
+            if ( Record.NO_NEXT_RELATIONSHIP.is( record.getFirstOut() ) )
+            {
+                degrees.update( node, type, DenseNodeDegrees.OUTGOING, 0 );
+            }
+            if ( Record.NO_NEXT_RELATIONSHIP.is( record.getFirstIn() ) )
+            {
+                degrees.update( node, type, DenseNodeDegrees.INCOMING, 0 );
+            }
+            if ( Record.NO_NEXT_RELATIONSHIP.is( record.getFirstLoop() ) )
+            {
+                degrees.update( node, type, DenseNodeDegrees.LOOP, 0 );
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveIntIterator;
+import org.neo4j.collection.primitive.PrimitiveIntSet;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.impl.api.BatchTransactionApplier;
+import org.neo4j.kernel.impl.api.TransactionApplier;
+import org.neo4j.kernel.impl.store.counts.ExtendedCounts;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.storageengine.api.CommandsToApply;
+
+/**
+ * Keeps {@link ExtendedCounts} up to date with the nodes, properties and relationships changed by applied
+ * transactions.
+ * <p>
+ * Commands of a transaction are gathered and turned into count changes when the transaction is closed, at which
+ * point all its records have been written to the store by the applier before this one. Property keys that a node
+ * had before the transaction are derived from the keys it has after the transaction and the property records changed
+ * by it. When the labels of a node change, every stored relationship of that node that was not created in the
+ * transaction is moved from the counts of the old labels to the counts of the new ones.
+ */
+public class ExtendedCountsBatchTransactionApplier extends BatchTransactionApplier.Adapter
+{
+    private static final long[] NO_LABELS = new long[0];
+
+    private final ExtendedCountsApplier applier;
+
+    public ExtendedCountsBatchTransactionApplier( ExtendedCounts counts )
+    {
+        this.applier = new ExtendedCountsApplier( counts );
+    }
+
+    @Override
+    public TransactionApplier startTx( CommandsToApply transaction )
+    {
+        return applier;
+    }
+
+    private static class ExtendedCountsApplier extends TransactionApplier.Adapter
+    {
+        private final ExtendedCounts counts;
+        private final PrimitiveLongObjectMap<Command.NodeCommand> nodeCommands = Primitive.longObjectMap();
+        private final PrimitiveLongObjectMap<PropertyKeyChanges> propertyKeyChanges = Primitive.longObjectMap();
+        private final PrimitiveLongObjectMap<long[][]> changedLabels = Primitive.longObjectMap();
+        private final List<RelationshipRecord> createdRelationships = new ArrayList<>();
+        private final List<RelationshipRecord> deletedRelationships = new ArrayList<>();
+
+        ExtendedCountsApplier( ExtendedCounts counts )
+        {
+            this.counts = counts;
+        }
+
+        @Override
+        public boolean visitNodeCommand( Command.NodeCommand command )
+        {
+            if ( counts.isMaintained() )
+            {
+                nodeCommands.put( command.getKey(), command );
+            }
+            return false;
+        }
+
+        @Override
+        public boolean visitPropertyCommand( Command.PropertyCommand command )
+        {
+            PropertyRecord before = command.getBefore();
+            PropertyRecord after = command.getAfter();
+            if ( !counts.isMaintained() || !after.isNodeSet() )
+            {
+                return false;
+            }
+            PropertyKeyChanges changes = propertyKeyChanges.computeIfAbsent( after.getNodeId(), id -> new PropertyKeyChanges() );
+            if ( before.inUse() )
+            {
+                for ( PropertyBlock block : before )
+                {
+                    changes.before.add( block.getKeyIndexId() );
+                }
+            }
+            if ( after.inUse() )
+            {
+                for ( PropertyBlock block : after )
+                {
+                    changes.after.add( block.getKeyIndexId() );
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipCommand( Command.RelationshipCommand command )
+        {
+            RelationshipRecord before = command.getBefore();
+            RelationshipRecord after = command.getAfter();
+            if ( !counts.isMaintained() || before.inUse() == after.inUse() )
+            {
+                return false;
+            }
+            if ( after.inUse() )
+            {
+                createdRelationships.add( after );
+            }
+            else
+            {
+                deletedRelationships.add( before );
+            }
+            return false;
+        }
+
+        @Override
+        public void close()
+        {
+            try
+            {
+                if ( counts.isMaintained() )
+                {
+                    applyNodeChanges();
+                    applyRelationshipChanges();
+                }
+            }
+            finally
+            {
+                nodeCommands.clear();
+                propertyKeyChanges.clear();
+                changedLabels.clear();
+                createdRelationships.clear();
+                deletedRelationships.clear();
+            }
+        }
+
+        private void applyNodeChanges()
+        {
+            PrimitiveLongSet nodeIds = Primitive.longSet( nodeCommands.size() + propertyKeyChanges.size() );
+            nodeIds.addAll( nodeCommands.iterator() );
+            nodeIds.addAll( propertyKeyChanges.iterator() );
+            PrimitiveLongIterator iterator = nodeIds.iterator();
+            while ( iterator.hasNext() )
+            {
+                long nodeId = iterator.next();
+                PropertyKeyChanges changes = propertyKeyChanges.get( nodeId );
+                PrimitiveIntSet added = changes == null ? Primitive.intSet() : changes.added();
+                PrimitiveIntSet removed = changes == null ? Primitive.intSet() : changes.removed();
+
+                Command.NodeCommand command = nodeCommands.get( nodeId );
+                NodeRecord before = command == null ? null : command.getBefore();
+                NodeRecord after = command == null ? null : command.getAfter();
+                long[] labelsBefore = before == null || !before.inUse() ? NO_LABELS : counts.labels( before );
+                long[] labelsAfter = after == null || !after.inUse() ? NO_LABELS : counts.labels( after );
+                if ( command != null && !Arrays.equals( labelsBefore, labelsAfter ) )
+                {
+                    PrimitiveIntSet keysAfter = after.inUse() ? counts.propertyKeys( after.getNextProp() ) : Primitive.intSet();
+                    PrimitiveIntSet keysBefore = Primitive.intSet();
+                    keysBefore.addAll( keysAfter.iterator() );
+                    removeAll( keysBefore, added );
+                    keysBefore.addAll( removed.iterator() );
+
+                    counts.incrementLabels( labelsBefore, -1 );
+                    counts.incrementProperties( labelsBefore, keysBefore, -1 );
+                    counts.incrementLabels( labelsAfter, 1 );
+                    counts.incrementProperties( labelsAfter, keysAfter, 1 );
+                    changedLabels.put( nodeId, new long[][]{labelsBefore, labelsAfter} );
+                }
+                else if ( !added.isEmpty() || !removed.isEmpty() )
+                {
+                    long[] labels = command != null ? labelsAfter : counts.labels( nodeId );
+                    counts.incrementProperties( labels, added, 1 );
+                    counts.incrementProperties( labels, removed, -1 );
+                }
+            }
+        }
+
+        private void applyRelationshipChanges()
+        {
+            PrimitiveLongSet visited = Primitive.longSet();
+            for ( RelationshipRecord relationship : createdRelationships )
+            {
+                visited.add( relationship.getId() );
+                counts.incrementRelationship( labels( relationship.getFirstNode(), 1 ), relationship.getType(),
+                        labels( relationship.getSecondNode(), 1 ), 1 );
+            }
+            for ( RelationshipRecord relationship : deletedRelationships )
+            {
+                counts.incrementRelationship( labels( relationship.getFirstNode(), 0 ), relationship.getType(),
+                        labels( relationship.getSecondNode(), 0 ), -1 );
+            }
+
+            PrimitiveLongIterator nodeIds = changedLabels.iterator();
+            while ( nodeIds.hasNext() )
+            {
+                Command.NodeCommand command = nodeCommands.get( nodeIds.next() );
+                NodeRecord node = command.getAfter();
+                if ( !command.getBefore().inUse() || !node.inUse() )
+                {
+                    // Relationships of created nodes are created in the same transaction, deleted nodes have none
+                    continue;
+                }
+                counts.relationships( node, relationship ->
+                {
+                    if ( visited.add( relationship.getId() ) )
+                    {
+                        long startNode = relationship.getFirstNode();
+                        long endNode = relationship.getSecondNode();
+                        int type = relationship.getType();
+                        counts.incrementRelationship( labels( startNode, 0 ), type, labels( endNode, 0 ), -1 );
+                        counts.incrementRelationship( labels( startNode, 1 ), type, labels( endNode, 1 ), 1 );
+                    }
+                } );
+            }
+        }
+
+        /**
+         * @param version 0 for the labels before the transaction, 1 for the labels after it.
+         */
+        private long[] labels( long nodeId, int version )
+        {
+            long[][] labels = changedLabels.get( nodeId );
+            return labels != null ? labels[version] : counts.labels( nodeId );
+        }
+
+        private static void removeAll( PrimitiveIntSet target, PrimitiveIntSet keys )
+        {
+            PrimitiveIntIterator iterator = keys.iterator();
+            while ( iterator.hasNext() )
+            {
+                target.remove( iterator.next() );
+            }
+        }
+    }
+
+    /**
+     * Keys of the properties of a node in the property records changed by a transaction, before and after it.
+     * A property that moved between records is in both.
+     */
+    private static class PropertyKeyChanges
+    {
+        final PrimitiveIntSet before = Primitive.intSet();
+        final PrimitiveIntSet after = Primitive.intSet();
+
+        PrimitiveIntSet added()
+        {
+            return difference( after, before );
+        }
+
+        PrimitiveIntSet removed()
+        {
+            return difference( before, after );
+        }
+
+        private static PrimitiveIntSet difference( PrimitiveIntSet set, PrimitiveIntSet other )
+        {
+            PrimitiveIntSet result = Primitive.intSet();
+            PrimitiveIntIterator iterator = set.iterator();
+            while ( iterator.hasNext() )
+            {
+                int key = iterator.next();
+                if ( !other.contains( key ) )
+                {
+                    result.add( key );
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -41,6 +41,7 @@ import org.neo4j.kernel.impl.store.record.DynamicRecord;
 import org.neo4j.kernel.impl.store.record.LabelTokenRecord;
 import org.neo4j.kernel.impl.store.record.NeoStoreRecord;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PrimitiveRecord;
 import org.neo4j.kernel.impl.store.record.PropertyBlock;
 import org.neo4j.kernel.impl.store.record.PropertyKeyTokenRecord;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
@@ -407,6 +408,7 @@ public class PhysicalLogCommandReaderV3_0_2 extends BaseCommandReader
         boolean requiresSecondaryUnit = bitFlag( flags, Record.REQUIRE_SECONDARY_UNIT );
         boolean hasSecondaryUnit = bitFlag( flags, Record.HAS_SECONDARY_UNIT );
         boolean usesFixedReferenceFormat = bitFlag( flags, Record.USES_FIXED_REFERENCE_FORMAT );
+        boolean hasInlinedProperties = bitFlag( flags, Record.HAS_INLINED_PROPERTIES );
 
         NodeRecord record;
         Collection<DynamicRecord> dynamicLabelRecords = new ArrayList<>();
@@ -422,6 +424,10 @@ public class PhysicalLogCommandReaderV3_0_2 extends BaseCommandReader
             {
                 record.setSecondaryUnitId( channel.getLong() );
             }
+            if ( hasInlinedProperties )
+            {
+                readInlinedProperties( channel, record );
+            }
             record.setUseFixedReferences( usesFixedReferenceFormat );
         }
         else
@@ -441,6 +447,7 @@ public class PhysicalLogCommandReaderV3_0_2 extends BaseCommandReader
         boolean requiresSecondaryUnit = bitFlag( flags, Record.REQUIRE_SECONDARY_UNIT );
         boolean hasSecondaryUnit = bitFlag( flags, Record.HAS_SECONDARY_UNIT );
         boolean usesFixedReferenceFormat = bitFlag( flags, Record.USES_FIXED_REFERENCE_FORMAT );
+        boolean hasInlinedProperties = bitFlag( flags, Record.HAS_INLINED_PROPERTIES );
 
         RelationshipRecord record;
         if ( inUse )
@@ -460,6 +467,10 @@ public class PhysicalLogCommandReaderV3_0_2 extends BaseCommandReader
             {
                 record.setSecondaryUnitId( channel.getLong() );
             }
+            if ( hasInlinedProperties )
+            {
+                readInlinedProperties( channel, record );
+            }
             record.setUseFixedReferences( usesFixedReferenceFormat );
         }
         else
@@ -475,6 +486,17 @@ public class PhysicalLogCommandReaderV3_0_2 extends BaseCommandReader
         return record;
     }
 
+    private void readInlinedProperties( ReadableChannel channel, PrimitiveRecord record ) throws IOException
+    {
+        // number_of_blocks(byte)+next_prop(long)+blocks(long*number_of_blocks)
+        int numberOfBlocks = channel.get();
+        long[] blocks = record.initializeInlinedProperties( numberOfBlocks, channel.getLong() );
+        for ( int i = 0; i < numberOfBlocks; i++ )
+        {
+            blocks[i] = channel.getLong();
+        }
+    }
+
     private DynamicRecord readDynamicRecord( ReadableChannel channel ) throws IOException
     {
         // id+type+in_use(byte)+nr_of_bytes(int)+next_block(long)
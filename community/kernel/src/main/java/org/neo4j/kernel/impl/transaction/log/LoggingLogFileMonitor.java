@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.File;
+import java.util.concurrent.TimeUnit;
 
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
 import org.neo4j.kernel.impl.transaction.log.files.LogFileCreationMonitor;
@@ -36,6 +37,7 @@ public class LoggingLogFileMonitor implements LogFileCreationMonitor,
 {
     private long firstTransactionRecovered = -1;
     private long lastTransactionRecovered;
+    private long recoveryStartNanos;
     private final Log log;
 
     public LoggingLogFileMonitor( Log log )
@@ -46,6 +48,7 @@ public class LoggingLogFileMonitor implements LogFileCreationMonitor,
     @Override
     public void recoveryRequired( LogPosition startPosition )
     {
+        recoveryStartNanos = System.nanoTime();
         log.info( "Recovery required from position " + startPosition );
     }
 
@@ -54,8 +57,10 @@ public class LoggingLogFileMonitor implements LogFileCreationMonitor,
     {
         if ( numberOfRecoveredTransactions != 0 )
         {
-            log.info( format( "Recovery completed. %d transactions, first:%d, last:%d recovered",
-                    numberOfRecoveredTransactions, firstTransactionRecovered, lastTransactionRecovered ) );
+            long recoveryMillis = Math.max( 1, TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - recoveryStartNanos ) );
+            log.info( format( "Recovery completed. %d transactions, first:%d, last:%d recovered in %d ms (%d tx/s)",
+                    numberOfRecoveredTransactions, firstTransactionRecovered, lastTransactionRecovered,
+                    recoveryMillis, numberOfRecoveredTransactions * 1000L / recoveryMillis ) );
         }
         else
         {
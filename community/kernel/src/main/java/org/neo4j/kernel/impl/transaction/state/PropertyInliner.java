@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.state;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.impl.store.format.Capability;
+import org.neo4j.kernel.impl.store.record.PrimitiveRecord;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.transaction.state.RecordAccess.RecordProxy;
+
+/**
+ * Keeps the copy of the first property record that node and relationship records carry in formats with
+ * {@link Capability#INLINED_PROPERTIES} in step with the property chain, see
+ * {@link PrimitiveRecord#getInlinedBlocks()}. Run once over all changes of a transaction, after the last change and
+ * before the records are written: the first record of a chain can change without its owner changing, so the owners
+ * of every changed first record are refreshed, as well as the changed nodes and relationships that were created,
+ * deleted or now start their property chain elsewhere. Other changes to nodes and relationships, such as to their
+ * relationship chains, leave the copy as it is, without loading any property record. An owner is only changed by
+ * this if its copy is out of date.
+ */
+public class PropertyInliner
+{
+    public void inline( RecordAccessSet records )
+    {
+        RecordAccess<PropertyRecord,PrimitiveRecord> properties = records.getPropertyRecords();
+        try ( PrimitiveLongSet nodes = Primitive.longSet();
+              PrimitiveLongSet relationships = Primitive.longSet() )
+        {
+            // Collected first, since loading the owners while iterating the changes would change what is iterated
+            for ( RecordProxy<PropertyRecord,PrimitiveRecord> change : properties.changes() )
+            {
+                PropertyRecord property = change.forReadingLinkage();
+                if ( property.inUse() && Record.NO_PREVIOUS_PROPERTY.is( property.getPrevProp() ) )
+                {
+                    if ( property.isNodeSet() )
+                    {
+                        nodes.add( property.getNodeId() );
+                    }
+                    else if ( property.isRelSet() )
+                    {
+                        relationships.add( property.getRelId() );
+                    }
+                }
+            }
+            for ( PrimitiveLongIterator ids = nodes.iterator(); ids.hasNext(); )
+            {
+                refresh( records.getNodeRecords().getOrLoad( ids.next(), null ), properties );
+            }
+            for ( PrimitiveLongIterator ids = relationships.iterator(); ids.hasNext(); )
+            {
+                refresh( records.getRelRecords().getOrLoad( ids.next(), null ), properties );
+            }
+        }
+        for ( RecordProxy<? extends PrimitiveRecord,Void> change : records.getNodeRecords().changes() )
+        {
+            if ( propertyChainMoved( change ) )
+            {
+                refresh( change, properties );
+            }
+        }
+        for ( RecordProxy<? extends PrimitiveRecord,Void> change : records.getRelRecords().changes() )
+        {
+            if ( propertyChainMoved( change ) )
+            {
+                refresh( change, properties );
+            }
+        }
+    }
+
+    private static boolean propertyChainMoved( RecordProxy<? extends PrimitiveRecord,Void> change )
+    {
+        if ( change.isCreated() )
+        {
+            return true;
+        }
+        PrimitiveRecord before = change.getBefore();
+        PrimitiveRecord after = change.forReadingLinkage();
+        return before.inUse() != after.inUse() || before.getNextProp() != after.getNextProp();
+    }
+
+    private void refresh( RecordProxy<? extends PrimitiveRecord,Void> owner,
+            RecordAccess<PropertyRecord,PrimitiveRecord> properties )
+    {
+        PrimitiveRecord record = owner.forReadingLinkage();
+        if ( record.inUse() && !Record.NO_NEXT_PROPERTY.is( record.getNextProp() ) )
+        {
+            PropertyRecord first = properties.getOrLoad( record.getNextProp(), record ).forReadingLinkage();
+            if ( !record.inlinesProperties( first ) )
+            {
+                owner.forChangingLinkage().setInlinedProperties( first );
+            }
+        }
+        else if ( record.hasInlinedProperties() )
+        {
+            owner.forChangingLinkage().clearInlinedProperties();
+        }
+    }
+}
@@ -54,9 +54,10 @@ public class RelationshipCreator
     public void relationshipCreate( long id, int type, long firstNodeId, long secondNodeId,
             RecordAccessSet recordChangeSet, ResourceLocker locks )
     {
-        // TODO could be unnecessary to mark as changed here already, dense nodes may not need to change
-        NodeRecord firstNode = recordChangeSet.getNodeRecords().getOrLoad( firstNodeId, null ).forChangingLinkage();
-        NodeRecord secondNode = recordChangeSet.getNodeRecords().getOrLoad( secondNodeId, null ).forChangingLinkage();
+        // Dense nodes are only marked as changed when a relationship group is inserted first in their chain of
+        // groups, so that creating relationships on a dense node doesn't rewrite its record every time
+        RecordProxy<NodeRecord,Void> firstNode = recordChangeSet.getNodeRecords().getOrLoad( firstNodeId, null );
+        RecordProxy<NodeRecord,Void> secondNode = recordChangeSet.getNodeRecords().getOrLoad( secondNodeId, null );
         convertNodeToDenseIfNecessary( firstNode, recordChangeSet.getRelRecords(),
                 recordChangeSet.getRelGroupRecords(), locks );
         convertNodeToDenseIfNecessary( secondNode, recordChangeSet.getRelRecords(),
@@ -74,10 +75,11 @@ public class RelationshipCreator
         return (int) (nodeId == rel.getFirstNode() ? rel.getFirstPrevRel() : rel.getSecondPrevRel());
     }
 
-    private void convertNodeToDenseIfNecessary( NodeRecord node,
+    private void convertNodeToDenseIfNecessary( RecordProxy<NodeRecord,Void> nodeChange,
             RecordAccess<RelationshipRecord, Void> relRecords,
             RecordAccess<RelationshipGroupRecord, Integer> relGroupRecords, ResourceLocker locks )
     {
+        NodeRecord node = nodeChange.forReadingLinkage();
         if ( node.isDense() )
         {
             return;
@@ -94,16 +96,21 @@ public class RelationshipCreator
                 // changed in the meantime.
                 relChange = relRecords.getOrLoad( relId, null );
 
-                convertNodeToDenseNode( node, relChange.forChangingLinkage(), relRecords, relGroupRecords, locks );
+                convertNodeToDenseNode( nodeChange, relChange.forChangingLinkage(), relRecords, relGroupRecords, locks );
             }
         }
     }
 
-    private void connectRelationship( NodeRecord firstNode,
-            NodeRecord secondNode, RelationshipRecord rel,
+    private void connectRelationship( RecordProxy<NodeRecord,Void> firstNodeChange,
+            RecordProxy<NodeRecord,Void> secondNodeChange, RelationshipRecord rel,
             RecordAccess<RelationshipRecord, Void> relRecords,
             RecordAccess<RelationshipGroupRecord, Integer> relGroupRecords, ResourceLocker locks )
     {
+        NodeRecord firstNode = firstNodeChange.forReadingLinkage().isDense()
+                               ? firstNodeChange.forReadingLinkage() : firstNodeChange.forChangingLinkage();
+        NodeRecord secondNode = secondNodeChange.forReadingLinkage().isDense()
+                                ? secondNodeChange.forReadingLinkage() : secondNodeChange.forChangingLinkage();
+
         // Assertion interpreted: if node is a normal node and we're trying to create a
         // relationship that we already have as first rel for that node --> error
         assert firstNode.getNextRel() != rel.getId() || firstNode.isDense();
@@ -124,7 +131,7 @@ public class RelationshipCreator
         }
         else
         {
-            connectRelationshipToDenseNode( firstNode, rel, relRecords, relGroupRecords, locks );
+            connectRelationshipToDenseNode( firstNodeChange, rel, relRecords, relGroupRecords, locks );
         }
 
         if ( !secondNode.isDense() )
@@ -141,7 +148,7 @@ public class RelationshipCreator
         }
         else if ( firstNode.getId() != secondNode.getId() )
         {
-            connectRelationshipToDenseNode( secondNode, rel, relRecords, relGroupRecords, locks );
+            connectRelationshipToDenseNode( secondNodeChange, rel, relRecords, relGroupRecords, locks );
         }
 
         if ( !firstNode.isDense() )
@@ -154,12 +161,13 @@ public class RelationshipCreator
         }
     }
 
-    private void connectRelationshipToDenseNode( NodeRecord node, RelationshipRecord rel,
+    private void connectRelationshipToDenseNode( RecordProxy<NodeRecord,Void> nodeChange, RelationshipRecord rel,
             RecordAccess<RelationshipRecord, Void> relRecords,
             RecordAccess<RelationshipGroupRecord, Integer> relGroupRecords, ResourceLocker locks )
     {
+        NodeRecord node = nodeChange.forReadingLinkage();
         RelationshipGroupRecord group =
-                relGroupGetter.getOrCreateRelationshipGroup( node, rel.getType(), relGroupRecords ).forChangingData();
+                relGroupGetter.getOrCreateRelationshipGroup( nodeChange, rel.getType(), relGroupRecords ).forChangingData();
         DirectionWrapper dir = DirectionIdentifier.wrapDirection( rel, node );
         long nextRel = dir.getNextRel( group );
         setCorrectNextRel( node, rel, nextRel );
@@ -173,10 +181,11 @@ public class RelationshipCreator
         connect( node.getId(), node.getNextRel(), rel, relRecords, locks );
     }
 
-    private void convertNodeToDenseNode( NodeRecord node, RelationshipRecord firstRel,
+    private void convertNodeToDenseNode( RecordProxy<NodeRecord,Void> nodeChange, RelationshipRecord firstRel,
             RecordAccess<RelationshipRecord, Void> relRecords,
             RecordAccess<RelationshipGroupRecord, Integer> relGroupRecords, ResourceLocker locks )
     {
+        NodeRecord node = nodeChange.forChangingLinkage();
         node.setDense( true );
         node.setNextRel( Record.NO_NEXT_RELATIONSHIP.intValue() );
         long relId = firstRel.getId();
@@ -185,7 +194,7 @@ public class RelationshipCreator
         {
             // Get the next relationship id before connecting it (where linkage is overwritten)
             relId = relChain( relRecord, node.getId() ).get( relRecord );
-            connectRelationshipToDenseNode( node, relRecord, relRecords, relGroupRecords, locks );
+            connectRelationshipToDenseNode( nodeChange, relRecord, relRecords, relGroupRecords, locks );
             if ( relId != Record.NO_NEXT_RELATIONSHIP.intValue() )
             {   // Lock and load the next relationship in the chain
                 locks.acquireExclusive( LockTracer.NONE, ResourceTypes.RELATIONSHIP, relId );
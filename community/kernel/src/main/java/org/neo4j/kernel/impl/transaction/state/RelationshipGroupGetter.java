@@ -63,8 +63,9 @@ public class RelationshipGroupGetter
     }
 
     public RecordProxy<RelationshipGroupRecord, Integer> getOrCreateRelationshipGroup(
-            NodeRecord node, int type, RecordAccess<RelationshipGroupRecord, Integer> relGroupRecords  )
+            RecordProxy<NodeRecord,Void> nodeChange, int type, RecordAccess<RelationshipGroupRecord, Integer> relGroupRecords )
     {
+        NodeRecord node = nodeChange.forReadingLinkage();
         RelationshipGroupPosition existingGroup = getRelationshipGroup( node, type, relGroupRecords );
         RecordProxy<RelationshipGroupRecord, Integer> change = existingGroup.group();
         if ( change == null )
@@ -96,7 +97,7 @@ public class RelationshipGroupGetter
                     record.setNext( previousFirstRecord.getId() );
                     previousFirstRecord.setPrev( id );
                 }
-                node.setNextRel( id );
+                nodeChange.forChangingLinkage().setNextRel( id );
             }
         }
         return change;
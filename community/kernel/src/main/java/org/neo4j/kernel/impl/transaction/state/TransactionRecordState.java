@@ -92,6 +92,7 @@ public class TransactionRecordState implements RecordState
     private final RelationshipDeleter relationshipDeleter;
     private final PropertyCreator propertyCreator;
     private final PropertyDeleter propertyDeleter;
+    private final PropertyInliner propertyInliner; // null if the record format does not inline properties
 
     private RecordChanges<NeoStoreRecord, Void> neoStoreRecord;
     private boolean prepared;
@@ -102,7 +103,8 @@ public class TransactionRecordState implements RecordState
             RelationshipCreator relationshipCreator,
             RelationshipDeleter relationshipDeleter,
             PropertyCreator propertyCreator,
-            PropertyDeleter propertyDeleter )
+            PropertyDeleter propertyDeleter,
+            PropertyInliner propertyInliner )
     {
         this.neoStores = neoStores;
         this.nodeStore = neoStores.getNodeStore();
@@ -119,6 +121,7 @@ public class TransactionRecordState implements RecordState
         this.relationshipDeleter = relationshipDeleter;
         this.propertyCreator = propertyCreator;
         this.propertyDeleter = propertyDeleter;
+        this.propertyInliner = propertyInliner;
     }
 
     @Override
@@ -135,6 +138,12 @@ public class TransactionRecordState implements RecordState
 
         integrityValidator.validateTransactionStartKnowledge( lastCommittedTxWhenTransactionStarted );
 
+        if ( propertyInliner != null )
+        {
+            // Last, since any change before this may have changed the first record of a property chain
+            propertyInliner.inline( recordChangeSet );
+        }
+
         int noOfCommands = recordChangeSet.changeSize() +
                            (neoStoreRecord != null ? neoStoreRecord.changeSize() : 0);
 
@@ -32,6 +32,12 @@ import static org.neo4j.collection.primitive.PrimitiveLongCollections.emptySet;
 
 class OffHeapCollectionsFactory implements CollectionsFactory
 {
+    /**
+     * Transaction state creates many sets, e.g. one pair per changed label, most of which stay small.
+     * Off-heap tables grow on demand so start out small rather than with the default capacity of a million entries.
+     */
+    private static final int INITIAL_LONG_SET_CAPACITY = 1 << 10;
+
     private final MemoryAllocationTracker memoryTracker;
 
     OffHeapCollectionsFactory( MemoryAllocationTracker memoryTracker )
@@ -42,7 +48,7 @@ class OffHeapCollectionsFactory implements CollectionsFactory
     @Override
     public PrimitiveLongSet newLongSet()
     {
-        return Primitive.offHeapLongSet( memoryTracker );
+        return Primitive.offHeapLongSet( INITIAL_LONG_SET_CAPACITY, memoryTracker );
     }
 
     @Override
@@ -113,6 +113,8 @@ public class DefaultRecoveryService implements RecoveryService
     {
         private final StorageEngine storageEngine;
         private final TransactionApplicationMode mode;
+        private TransactionToApply first;
+        private TransactionToApply last;
 
         RecoveryVisitor( StorageEngine storageEngine, TransactionApplicationMode mode )
         {
@@ -121,20 +123,42 @@ public class DefaultRecoveryService implements RecoveryService
         }
 
         @Override
-        public boolean visit( CommittedTransactionRepresentation transaction ) throws Exception
+        public boolean visit( CommittedTransactionRepresentation transaction )
         {
             TransactionRepresentation txRepresentation = transaction.getTransactionRepresentation();
             long txId = transaction.getCommitEntry().getTxId();
             TransactionToApply tx = new TransactionToApply( txRepresentation, txId );
             tx.commitment( NO_COMMITMENT, txId );
             tx.logPosition( transaction.getStartEntry().getStartPosition() );
-            storageEngine.apply( tx, mode );
+            if ( first == null )
+            {
+                first = tx;
+            }
+            else
+            {
+                last.next( tx );
+            }
+            last = tx;
             return false;
         }
 
         @Override
-        public void close()
-        {   // nothing to close
+        public void flush() throws Exception
+        {
+            if ( first != null )
+            {
+                // Hand the whole chain to the storage engine at once, the same way batches of committed
+                // transactions are applied during normal operation
+                TransactionToApply batch = first;
+                first = last = null;
+                storageEngine.apply( batch, mode );
+            }
+        }
+
+        @Override
+        public void close() throws Exception
+        {
+            flush();
         }
     }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
+
+import static org.neo4j.helpers.Exceptions.throwIfUnchecked;
+
+/**
+ * {@link TransactionCursor} which reads and decodes transactions from a source cursor on a separate thread,
+ * keeping up to a fixed number of transactions ahead of the consumer. This lets reading and deserializing
+ * the transaction log overlap with applying the already read transactions to the store during recovery.
+ * <p>
+ * Failures to read from the source cursor are handed over to the consumer and thrown from {@link #next()}
+ * at the point where they occurred, i.e. only after all transactions read before the failure have been consumed.
+ */
+class ReadAheadTransactionCursor implements TransactionCursor
+{
+    private static final long POLL_INTERVAL_MILLIS = 10;
+
+    private final TransactionCursor source;
+    private final BlockingQueue<Entry> queue;
+    private final Thread reader;
+    private volatile boolean closed;
+
+    private Entry current;
+    private boolean exhausted;
+
+    ReadAheadTransactionCursor( TransactionCursor source, int readAhead, String threadName )
+    {
+        this.source = source;
+        this.queue = new ArrayBlockingQueue<>( readAhead );
+        this.reader = new Thread( this::readAhead, threadName );
+        this.reader.setDaemon( true );
+        this.reader.start();
+    }
+
+    private void readAhead()
+    {
+        try
+        {
+            while ( !closed && source.next() )
+            {
+                if ( !offer( new Entry( source.get(), source.position(), null ) ) )
+                {
+                    return;
+                }
+            }
+            offer( new Entry( null, source.position(), null ) );
+        }
+        catch ( Throwable t )
+        {
+            offer( new Entry( null, null, t ) );
+        }
+    }
+
+    private boolean offer( Entry entry )
+    {
+        try
+        {
+            while ( !closed )
+            {
+                if ( queue.offer( entry, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS ) )
+                {
+                    return true;
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean next() throws IOException
+    {
+        if ( exhausted )
+        {
+            return false;
+        }
+
+        Entry next;
+        try
+        {
+            next = queue.take();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting for transactions to be read" );
+        }
+
+        if ( next.failure != null )
+        {
+            exhausted = true;
+            throwIfUnchecked( next.failure );
+            if ( next.failure instanceof IOException )
+            {
+                throw (IOException) next.failure;
+            }
+            throw new IOException( next.failure );
+        }
+        current = next;
+        if ( next.transaction == null )
+        {
+            exhausted = true;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public CommittedTransactionRepresentation get()
+    {
+        return current.transaction;
+    }
+
+    @Override
+    public LogPosition position()
+    {
+        return current.position;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        closed = true;
+        try
+        {
+            reader.join();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            source.close();
+        }
+    }
+
+    private static class Entry
+    {
+        private final CommittedTransactionRepresentation transaction;
+        private final LogPosition position;
+        private final Throwable failure;
+
+        Entry( CommittedTransactionRepresentation transaction, LogPosition position, Throwable failure )
+        {
+            this.transaction = transaction;
+            this.position = position;
+            this.failure = failure;
+        }
+    }
+}
@@ -20,6 +20,8 @@
 package org.neo4j.kernel.recovery;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.neo4j.kernel.impl.core.StartupStatisticsProvider;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
@@ -29,6 +31,7 @@ import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
 import org.neo4j.kernel.impl.util.monitoring.ProgressReporter;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.util.FeatureToggles;
 
 import static org.neo4j.helpers.Exceptions.throwIfUnchecked;
 import static org.neo4j.storageengine.api.TransactionApplicationMode.RECOVERY;
@@ -40,6 +43,14 @@ import static org.neo4j.storageengine.api.TransactionApplicationMode.REVERSE_REC
  */
 public class Recovery extends LifecycleAdapter
 {
+    /**
+     * Number of transactions decoded ahead of the applying thread, zero disables reading ahead.
+     */
+    private static final int READ_AHEAD = FeatureToggles.getInteger( Recovery.class, "read_ahead", 1_000 );
+    /**
+     * Number of recovered transactions handed to the storage engine as one batch.
+     */
+    private static final int APPLY_BATCH_SIZE = FeatureToggles.getInteger( Recovery.class, "apply_batch_size", 100 );
 
     private final RecoveryService recoveryService;
     private final RecoveryMonitor monitor;
@@ -49,6 +60,11 @@ public class Recovery extends LifecycleAdapter
     private final boolean failOnCorruptedLogFiles;
     private int numberOfRecoveredTransactions;
 
+    private final List<CommittedTransactionRepresentation> pendingTransactions = new ArrayList<>();
+    private final List<LogPosition> pendingPositions = new ArrayList<>();
+    private CommittedTransactionRepresentation lastTransaction;
+    private LogPosition recoveryToPosition;
+
     public Recovery( RecoveryService recoveryService, StartupStatisticsProvider startupStatistics,
             CorruptedLogsTruncator logsTruncator, RecoveryMonitor monitor, ProgressReporter progressReporter,
             boolean failOnCorruptedLogFiles )
@@ -75,15 +91,16 @@ public class Recovery extends LifecycleAdapter
         monitor.recoveryRequired( recoveryPosition );
         recoveryService.startRecovery();
 
-        LogPosition recoveryToPosition = recoveryPosition;
-        CommittedTransactionRepresentation lastTransaction = null;
+        recoveryToPosition = recoveryPosition;
         CommittedTransactionRepresentation lastReversedTransaction = null;
         try
         {
             long lowestRecoveredTxId = TransactionIdStore.BASE_TX_ID;
-            try ( TransactionCursor transactionsToRecover = recoveryService.getTransactionsInReverseOrder( recoveryPosition );
+            try ( TransactionCursor transactionsToRecover =
+                          readAhead( recoveryService.getTransactionsInReverseOrder( recoveryPosition ), "reverse" );
                     RecoveryApplier recoveryVisitor = recoveryService.getRecoveryApplier( REVERSE_RECOVERY ) )
             {
+                int batched = 0;
                 while ( transactionsToRecover.next() )
                 {
                     CommittedTransactionRepresentation transaction = transactionsToRecover.get();
@@ -94,25 +111,34 @@ public class Recovery extends LifecycleAdapter
                     }
                     recoveryVisitor.visit( transaction );
                     lowestRecoveredTxId = transaction.getCommitEntry().getTxId();
+                    if ( ++batched >= APPLY_BATCH_SIZE )
+                    {
+                        recoveryVisitor.flush();
+                        batched = 0;
+                    }
                     reportProgress();
                 }
+                recoveryVisitor.flush();
             }
 
             monitor.reverseStoreRecoveryCompleted( lowestRecoveredTxId );
 
-            try ( TransactionCursor transactionsToRecover = recoveryService.getTransactions( recoveryPosition );
+            try ( TransactionCursor transactionsToRecover =
+                          readAhead( recoveryService.getTransactions( recoveryPosition ), "forward" );
                     RecoveryApplier recoveryVisitor = recoveryService.getRecoveryApplier( RECOVERY ) )
             {
-                while ( transactionsToRecover.next() )
+                while ( nextTransaction( transactionsToRecover, recoveryVisitor ) )
                 {
-                    lastTransaction = transactionsToRecover.get();
-                    long txId = lastTransaction.getCommitEntry().getTxId();
-                    recoveryVisitor.visit( lastTransaction );
-                    monitor.transactionRecovered( txId );
-                    numberOfRecoveredTransactions++;
-                    recoveryToPosition = transactionsToRecover.position();
-                    reportProgress();
+                    CommittedTransactionRepresentation transaction = transactionsToRecover.get();
+                    recoveryVisitor.visit( transaction );
+                    pendingTransactions.add( transaction );
+                    pendingPositions.add( transactionsToRecover.position() );
+                    if ( pendingTransactions.size() >= APPLY_BATCH_SIZE )
+                    {
+                        applyPendingTransactions( recoveryVisitor );
+                    }
                 }
+                applyPendingTransactions( recoveryVisitor );
                 recoveryToPosition = transactionsToRecover.position();
             }
         }
@@ -142,6 +168,98 @@ public class Recovery extends LifecycleAdapter
         monitor.recoveryCompleted( numberOfRecoveredTransactions );
     }
 
+    private TransactionCursor readAhead( TransactionCursor cursor, String direction )
+    {
+        return READ_AHEAD > 0
+               ? new ReadAheadTransactionCursor( cursor, READ_AHEAD, "Recovery " + direction + " log reader" )
+               : cursor;
+    }
+
+    private boolean nextTransaction( TransactionCursor transactionsToRecover, RecoveryApplier recoveryVisitor )
+            throws Exception
+    {
+        try
+        {
+            return transactionsToRecover.next();
+        }
+        catch ( Throwable t )
+        {
+            // All transactions read before the unreadable one are intact, get them applied before giving up
+            applyPendingTransactions( recoveryVisitor );
+            throw t;
+        }
+    }
+
+    /**
+     * Makes sure all transactions visited so far have been applied and only then marks them as recovered,
+     * so that the position to truncate the log at on failure never includes transactions that did not make it
+     * into the store.
+     */
+    private void applyPendingTransactions( RecoveryApplier recoveryVisitor ) throws Exception
+    {
+        if ( pendingTransactions.isEmpty() )
+        {
+            return;
+        }
+        try
+        {
+            recoveryVisitor.flush();
+        }
+        catch ( Throwable batchFailure )
+        {
+            applyPendingTransactionsOneByOne( recoveryVisitor, batchFailure );
+        }
+        transactionsRecovered( pendingTransactions.size() );
+    }
+
+    /**
+     * A failing batch may have had some of its transactions applied before the one that failed, and those must not be
+     * truncated away from the log. Applying recovered transactions again is harmless, so apply the batch again one
+     * transaction at a time to find out which ones made it into the store.
+     */
+    private void applyPendingTransactionsOneByOne( RecoveryApplier recoveryVisitor, Throwable batchFailure )
+            throws Exception
+    {
+        int applied = 0;
+        try
+        {
+            for ( CommittedTransactionRepresentation transaction : pendingTransactions )
+            {
+                recoveryVisitor.visit( transaction );
+                recoveryVisitor.flush();
+                applied++;
+            }
+        }
+        catch ( Throwable t )
+        {
+            transactionsRecovered( applied );
+            if ( t != batchFailure )
+            {
+                t.addSuppressed( batchFailure );
+            }
+            throw t;
+        }
+    }
+
+    private void transactionsRecovered( int count )
+    {
+        if ( count == 0 )
+        {
+            return;
+        }
+        List<CommittedTransactionRepresentation> recovered = pendingTransactions.subList( 0, count );
+        for ( CommittedTransactionRepresentation transaction : recovered )
+        {
+            monitor.transactionRecovered( transaction.getCommitEntry().getTxId() );
+            numberOfRecoveredTransactions++;
+            reportProgress();
+        }
+        lastTransaction = recovered.get( count - 1 );
+        recoveryToPosition = pendingPositions.get( count - 1 );
+        recovered.clear();
+        pendingPositions.subList( 0, count ).clear();
+    }
+
     private void initProgressReporter( RecoveryStartInformation recoveryStartInformation,
             CommittedTransactionRepresentation lastReversedTransaction )
     {
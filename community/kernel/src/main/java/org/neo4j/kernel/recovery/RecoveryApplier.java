@@ -27,4 +27,13 @@ import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
  */
 public interface RecoveryApplier extends Visitor<CommittedTransactionRepresentation,Exception>, AutoCloseable
 {
+    /**
+     * Appliers may hold back visited transactions to apply several of them together as one batch.
+     * Any transaction visited before this call is guaranteed to have been applied when it returns.
+     *
+     * @throws Exception if applying held back transactions failed.
+     */
+    default void flush() throws Exception
+    {   // transactions are applied as they are visited by default
+    }
 }
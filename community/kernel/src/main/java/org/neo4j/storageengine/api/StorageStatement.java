@@ -28,6 +28,7 @@ import org.neo4j.kernel.api.AssertOpen;
 import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
 import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptor;
 import org.neo4j.kernel.impl.locking.Lock;
+import org.neo4j.kernel.impl.store.DenseNodeDegrees;
 import org.neo4j.kernel.impl.store.InvalidRecordException;
 import org.neo4j.kernel.impl.store.RecordCursor;
 import org.neo4j.kernel.impl.store.RecordCursors;
@@ -226,6 +227,11 @@ public interface StorageStatement extends AutoCloseable
                 throws InvalidRecordException;
 
         long getHighestPossibleIdInUse();
+
+        /**
+         * @return the number of records that fit in one page of this store.
+         */
+        int getRecordsPerPage();
     }
 
     interface Nodes extends RecordReads<NodeRecord>
@@ -242,6 +248,10 @@ public interface StorageStatement extends AutoCloseable
 
     interface Groups extends RecordReads<RelationshipGroupRecord>
     {
+        /**
+         * @return degrees of dense nodes per relationship type and direction, cached and kept up to date by the store.
+         */
+        DenseNodeDegrees degrees();
     }
 
     interface Properties extends RecordReads<PropertyRecord>
@@ -345,6 +345,37 @@ public interface StoreReadLayer
      */
     long countsForRelationship( int startLabelId, int typeId, int endLabelId );
 
+    /**
+     * Returns number of stored nodes labeled with both labels, if such counts are kept.
+     *
+     * @param labelId label id to match.
+     * @param otherLabelId another label id to match.
+     * @return number of stored nodes with both labels, or {@code -1} if not known.
+     */
+    long countsForNodeWithLabels( int labelId, int otherLabelId );
+
+    /**
+     * Returns number of stored nodes labeled with {@code labelId} that have a property with {@code propertyKeyId},
+     * if such counts are kept.
+     *
+     * @param labelId label id to match.
+     * @param propertyKeyId property key id to match.
+     * @return number of stored nodes with this label and property, or {@code -1} if not known.
+     */
+    long countsForNodeWithProperty( int labelId, int propertyKeyId );
+
+    /**
+     * Returns number of stored relationships of a certain {@code typeId} whose start/end nodes are labeled
+     * with the {@code startLabelId} and {@code endLabelId} respectively, where both labels are specified,
+     * if such counts are kept.
+     *
+     * @param startLabelId label id of start nodes to match.
+     * @param typeId relationship type id to match, or any type.
+     * @param endLabelId label id of end nodes to match.
+     * @return number of stored relationships matching these criteria, or {@code -1} if not known.
+     */
+    long countsForRelationshipBetweenLabels( int startLabelId, int typeId, int endLabelId );
+
     /**
      * Returns size of index, i.e. number of entities in that index.
      *
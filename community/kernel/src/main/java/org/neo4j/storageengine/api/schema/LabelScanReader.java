@@ -41,6 +41,17 @@ public interface LabelScanReader extends Resource
      */
     void nodesWithLabel( IndexProgressor.NodeLabelClient client, int labelId );
 
+    /**
+     * Sets the client up for a label scan on <code>labelId</code>, limited to nodes with ids in
+     * {@code [fromId, toId)}. Used for scanning a label in batches.
+     *
+     * @param client the client to communicate with
+     * @param labelId label token id
+     * @param fromId the lowest node id to include
+     * @param toId the node id after the highest one to include
+     */
+    void nodesWithLabel( IndexProgressor.NodeLabelClient client, int labelId, long fromId, long toId );
+
     /**
      * @param labelIds label token ids.
      * @return node ids with any of the given label ids.
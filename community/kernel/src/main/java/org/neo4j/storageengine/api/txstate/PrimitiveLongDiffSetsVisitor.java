@@ -19,9 +19,6 @@
  */
 package org.neo4j.storageengine.api.txstate;
 
-import org.neo4j.internal.kernel.api.exceptions.schema.ConstraintValidationException;
-import org.neo4j.kernel.api.exceptions.schema.CreateConstraintFailureException;
-
 /**
  * Visits added and removed elements of a {@link PrimitiveLongReadableDiffSets}.
  */
@@ -30,4 +27,17 @@ public interface PrimitiveLongDiffSetsVisitor
     void visitAdded( long element );
 
     void visitRemoved( long element );
+
+    class Adapter implements PrimitiveLongDiffSetsVisitor
+    {
+        @Override
+        public void visitAdded( long element )
+        {   // Ignore
+        }
+
+        @Override
+        public void visitRemoved( long element )
+        {   // Ignore
+        }
+    }
 }
@@ -57,22 +57,22 @@ public interface ReadableTransactionState
     /**
      * Returns all nodes that, in this tx, have had the labels changed.
      */
-    ReadableDiffSets<Long> nodesWithLabelChanged( int label );
+    PrimitiveLongReadableDiffSets nodesWithLabelChanged( int label );
 
     /**
      * Returns all nodes that, in this tx, have had any of the labels changed.
      */
-    ReadableDiffSets<Long> nodesWithAnyOfLabelsChanged( int... labels );
+    PrimitiveLongReadableDiffSets nodesWithAnyOfLabelsChanged( int... labels );
 
     /**
      * Returns all nodes that, in this tx, have had all the labels changed.
      */
-    ReadableDiffSets<Long> nodesWithAllLabelsChanged( int... labels );
+    PrimitiveLongReadableDiffSets nodesWithAllLabelsChanged( int... labels );
 
     /**
      * Returns nodes that have been added and removed in this tx.
      */
-    ReadableDiffSets<Long> addedAndRemovedNodes();
+    PrimitiveLongReadableDiffSets addedAndRemovedNodes();
 
     /**
      * Returns rels that have been added and removed in this tx.
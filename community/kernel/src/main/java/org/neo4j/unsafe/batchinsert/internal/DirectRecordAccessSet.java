@@ -23,6 +23,7 @@ import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.PropertyStore;
 import org.neo4j.kernel.impl.store.RecordStore;
 import org.neo4j.kernel.impl.store.SchemaStore;
+import org.neo4j.kernel.impl.store.format.Capability;
 import org.neo4j.kernel.impl.store.record.LabelTokenRecord;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.store.record.PrimitiveRecord;
@@ -33,6 +34,7 @@ import org.neo4j.kernel.impl.store.record.RelationshipRecord;
 import org.neo4j.kernel.impl.store.record.RelationshipTypeTokenRecord;
 import org.neo4j.kernel.impl.store.record.SchemaRecord;
 import org.neo4j.kernel.impl.transaction.state.Loaders;
+import org.neo4j.kernel.impl.transaction.state.PropertyInliner;
 import org.neo4j.kernel.impl.transaction.state.RecordAccess;
 import org.neo4j.kernel.impl.transaction.state.RecordAccessSet;
 import org.neo4j.storageengine.api.schema.SchemaRule;
@@ -47,6 +49,7 @@ public class DirectRecordAccessSet implements RecordAccessSet
     private final DirectRecordAccess<RelationshipTypeTokenRecord, Void> relationshipTypeTokenRecords;
     private final DirectRecordAccess<LabelTokenRecord, Void> labelTokenRecords;
     private final DirectRecordAccess[] all;
+    private final PropertyInliner propertyInliner; // null if the record format does not inline properties
 
     public DirectRecordAccessSet( NeoStores neoStores )
     {
@@ -58,7 +61,8 @@ public class DirectRecordAccessSet implements RecordAccessSet
                 neoStores.getPropertyKeyTokenStore(),
                 neoStores.getRelationshipTypeTokenStore(),
                 neoStores.getLabelTokenStore(),
-                neoStores.getSchemaStore() );
+                neoStores.getSchemaStore(),
+                neoStores.getRecordFormats().hasCapability( Capability.INLINED_PROPERTIES ) ? new PropertyInliner() : null );
     }
 
     public DirectRecordAccessSet(
@@ -69,7 +73,8 @@ public class DirectRecordAccessSet implements RecordAccessSet
             RecordStore<PropertyKeyTokenRecord> propertyKeyTokenStore,
             RecordStore<RelationshipTypeTokenRecord> relationshipTypeTokenStore,
             RecordStore<LabelTokenRecord> labelTokenStore,
-            SchemaStore schemaStore )
+            SchemaStore schemaStore,
+            PropertyInliner propertyInliner )
     {
         Loaders loaders = new Loaders( nodeStore, propertyStore, relationshipStore, relationshipGroupStore,
                 propertyKeyTokenStore, relationshipTypeTokenStore, labelTokenStore, schemaStore );
@@ -86,6 +91,7 @@ public class DirectRecordAccessSet implements RecordAccessSet
                 nodeRecords, propertyRecords, relationshipRecords, relationshipGroupRecords,
                 propertyKeyTokenRecords, relationshipTypeTokenRecords, labelTokenRecords
         };
+        this.propertyInliner = propertyInliner;
     }
 
     @Override
@@ -148,6 +154,10 @@ public class DirectRecordAccessSet implements RecordAccessSet
 
     public void commit()
     {
+        if ( propertyInliner != null )
+        {
+            propertyInliner.inline( this );
+        }
         for ( DirectRecordAccess access : all )
         {
             access.commit();
@@ -40,6 +40,7 @@ import org.neo4j.internal.kernel.api.LabelSet;
 import org.neo4j.internal.kernel.api.NodeCursor;
 import org.neo4j.internal.kernel.api.PropertyCursor;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.GraphDatabaseDependencies;
 import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.configuration.Config;
@@ -764,7 +765,7 @@ public class LabelsAcceptanceTest
                                         {
                                             @Override
                                             protected IdGeneratorFactory createIdGeneratorFactory(
-                                                    FileSystemAbstraction fs,
+                                                    FileSystemAbstraction fs, PageCache pageCache, Config config,
                                                     IdTypeConfigurationProvider idTypeConfigurationProvider )
                                             {
                                                 return idFactory;
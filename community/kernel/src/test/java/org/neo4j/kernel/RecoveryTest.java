@@ -27,6 +27,8 @@ import org.mockito.InOrder;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
@@ -67,6 +69,7 @@ import org.neo4j.kernel.recovery.LogTailScanner;
 import org.neo4j.kernel.recovery.Recovery;
 import org.neo4j.kernel.recovery.RecoveryApplier;
 import org.neo4j.kernel.recovery.RecoveryMonitor;
+import org.neo4j.storageengine.api.CommandsToApply;
 import org.neo4j.storageengine.api.StorageEngine;
 import org.neo4j.storageengine.api.TransactionApplicationMode;
 import org.neo4j.test.rule.TestDirectory;
@@ -76,6 +79,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -187,6 +192,12 @@ public class RecoveryTest
 
                     return new RecoveryApplier()
                     {
+                        @Override
+                        public void flush() throws Exception
+                        {
+                            actual.flush();
+                        }
+
                         @Override
                         public void close() throws Exception
                         {
@@ -403,14 +414,72 @@ public class RecoveryTest
         assertEquals( marker.getByteOffset(), lastClosedTransaction[2] );
     }
 
+    @Test
+    public void shouldTruncateLogAfterLastAppliedTransactionWhenApplyFailsInTheMiddleOfABatch() throws Exception
+    {
+        // GIVEN
+        File file = logFiles.getLogFileForVersion( logVersion );
+        final LogPositionMarker marker = new LogPositionMarker();
+
+        writeSomeData( file, pair ->
+        {
+            LogEntryWriter writer = pair.first();
+            Consumer<LogPositionMarker> consumer = pair.other();
+
+            writer.writeStartEntry( 0, 1, 2L, 3L, new byte[0] );
+            writer.writeCommitEntry( 6L, 5L );
+            consumer.accept( marker ); // <-- marker has the position after the last transaction that can be applied
+
+            // corrupt tx, fails to apply
+            writer.writeStartEntry( 0, 1, 3L, 6L, new byte[0] );
+            writer.writeCommitEntry( 7L, 6L );
+
+            writer.writeStartEntry( 0, 1, 4L, 7L, new byte[0] );
+            writer.writeCommitEntry( 8L, 7L );
+
+            return true;
+        } );
+
+        StorageEngine storageEngine = mock( StorageEngine.class );
+        List<Long> appliedTransactions = new ArrayList<>();
+        doAnswer( invocation ->
+        {
+            CommandsToApply batch = invocation.getArgument( 0 );
+            for ( ; batch != null; batch = batch.next() )
+            {
+                if ( batch.transactionId() == 7L )
+                {
+                    throw new IOException( "Corrupt command" );
+                }
+                appliedTransactions.add( batch.transactionId() );
+            }
+            return null;
+        } ).when( storageEngine ).apply( any( CommandsToApply.class ), eq( TransactionApplicationMode.RECOVERY ) );
+
+        // WHEN
+        boolean recoveryRequired = recover( storeDir, logFiles, storageEngine );
+
+        // THEN
+        assertTrue( recoveryRequired );
+        assertTrue( appliedTransactions.contains( 6L ) );
+        assertEquals( marker.getByteOffset(), file.length() );
+        long[] lastClosedTransaction = transactionIdStore.getLastClosedTransaction();
+        assertEquals( 6L, lastClosedTransaction[0] );
+        assertEquals( marker.getByteOffset(), lastClosedTransaction[2] );
+    }
+
     private boolean recover( File storeDir, LogFiles logFiles )
+    {
+        return recover( storeDir, logFiles, mock( StorageEngine.class ) );
+    }
+
+    private boolean recover( File storeDir, LogFiles logFiles, StorageEngine storageEngine )
     {
         LifeSupport life = new LifeSupport();
         RecoveryMonitor monitor = mock( RecoveryMonitor.class );
         final AtomicBoolean recoveryRequired = new AtomicBoolean();
         try
         {
-            StorageEngine storageEngine = mock( StorageEngine.class );
             final LogEntryReader<ReadableClosablePositionAwareChannel> reader = new VersionAwareLogEntryReader<>();
             LogTailScanner tailScanner = getTailScanner( logFiles, reader );
 
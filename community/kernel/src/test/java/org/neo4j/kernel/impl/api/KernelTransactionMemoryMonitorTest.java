@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.neo4j.kernel.api.KernelTransactionHandle;
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.logging.SimpleLogService;
+import org.neo4j.logging.AssertableLogProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.transaction_state_global_max_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.transaction_state_max_size;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+
+public class KernelTransactionMemoryMonitorTest
+{
+    private KernelTransactions kernelTransactions;
+    private AssertableLogProvider logProvider;
+
+    @Before
+    public void setUp()
+    {
+        kernelTransactions = mock( KernelTransactions.class );
+        logProvider = new AssertableLogProvider();
+    }
+
+    @Test
+    public void terminateTransactionsExceedingLimit()
+    {
+        KernelTransactionHandle small = transactionUsing( 100 );
+        KernelTransactionHandle large = transactionUsing( 2_000 );
+        activeTransactions( small, large );
+
+        monitor( "1k", "0" ).run();
+
+        verify( small, never() ).markForTermination( any() );
+        verify( large ).markForTermination( Status.Transaction.TransactionMemoryLimitExceeded );
+        logProvider.assertContainsLogCallContaining( "exceeds the limit" );
+    }
+
+    @Test
+    public void terminateLargestTransactionsWhenExceedingGlobalLimit()
+    {
+        KernelTransactionHandle tx1 = transactionUsing( 300 );
+        KernelTransactionHandle tx2 = transactionUsing( 500 );
+        KernelTransactionHandle tx3 = transactionUsing( 400 );
+        activeTransactions( tx1, tx2, tx3 );
+
+        monitor( "0", "1k" ).run();
+
+        verify( tx2 ).markForTermination( Status.Transaction.GlobalTransactionMemoryLimitExceeded );
+        verify( tx1, never() ).markForTermination( any() );
+        verify( tx3, never() ).markForTermination( any() );
+    }
+
+    @Test
+    public void doNotTerminateTransactionsWithoutLimits()
+    {
+        KernelTransactionHandle tx1 = transactionUsing( 1_000_000 );
+        KernelTransactionHandle tx2 = transactionUsing( 2_000_000 );
+        activeTransactions( tx1, tx2 );
+
+        KernelTransactionMemoryMonitor monitor = monitor( "0", "0" );
+        monitor.run();
+
+        verify( tx1, never() ).markForTermination( any() );
+        verify( tx2, never() ).markForTermination( any() );
+        assertEquals( 3_000_000, monitor.totalTransactionStateBytes() );
+    }
+
+    private KernelTransactionMemoryMonitor monitor( String maxSize, String globalMaxSize )
+    {
+        Config config = Config.defaults( stringMap(
+                transaction_state_max_size.name(), maxSize,
+                transaction_state_global_max_size.name(), globalMaxSize ) );
+        return new KernelTransactionMemoryMonitor( kernelTransactions, config,
+                new SimpleLogService( logProvider, logProvider ) );
+    }
+
+    private void activeTransactions( KernelTransactionHandle... handles )
+    {
+        when( kernelTransactions.activeTransactions() ).thenReturn( new HashSet<>( Arrays.asList( handles ) ) );
+    }
+
+    private static KernelTransactionHandle transactionUsing( long bytes )
+    {
+        TransactionExecutionStatistic statistic = mock( TransactionExecutionStatistic.class );
+        when( statistic.getTransactionStateBytes() ).thenReturn( bytes );
+        KernelTransactionHandle handle = mock( KernelTransactionHandle.class );
+        when( handle.transactionStatistic() ).thenReturn( statistic );
+        when( handle.markForTermination( any() ) ).thenReturn( true );
+        return handle;
+    }
+}
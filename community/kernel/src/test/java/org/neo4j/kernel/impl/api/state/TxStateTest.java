@@ -233,12 +233,12 @@ public class TxStateTest
         state.nodeDoAddLabel( 3, 5 );
 
         // WHEN
-        Set<Long> removed = state.nodesWithAllLabelsChanged( 1, 2, 3 ).getRemoved();
-        Set<Long> added = state.nodesWithAllLabelsChanged( 1, 2, 3 ).getAdded();
+        Set<Long> removed = toSet( state.nodesWithAllLabelsChanged( 1, 2, 3 ).getRemoved() );
+        Set<Long> added = toSet( state.nodesWithAllLabelsChanged( 1, 2, 3 ).getAdded() );
 
         // THEN
-        assertEquals( asSet( 0L, 1L, 2L ), Iterables.asSet( removed ) );
-        assertEquals( asSet( 3L, 4L, 5L ), Iterables.asSet( added ) );
+        assertEquals( asSet( 0L, 1L, 2L ), removed );
+        assertEquals( asSet( 3L, 4L, 5L ), added );
     }
 
     @Test
@@ -252,10 +252,10 @@ public class TxStateTest
         state.nodeDoRemoveLabel( 2, 2 );
 
         // WHEN
-        Set<Long> nodes = state.nodesWithLabelChanged( 2 ).getRemoved();
+        Set<Long> nodes = toSet( state.nodesWithLabelChanged( 2 ).getRemoved() );
 
         // THEN
-        assertEquals( asSet( 0L, 2L ), Iterables.asSet( nodes ) );
+        assertEquals( asSet( 0L, 2L ), nodes );
     }
 
     //endregion
@@ -1012,7 +1012,7 @@ public class TxStateTest
         state.nodeDoDelete( nodeId );
 
         // Then
-        assertThat( Iterables.asSet( state.addedAndRemovedNodes().getRemoved() ), equalTo( asSet( nodeId ) ) );
+        assertThat( toSet( state.addedAndRemovedNodes().getRemoved() ), equalTo( asSet( nodeId ) ) );
     }
 
     @Test
@@ -1662,6 +1662,62 @@ public class TxStateTest
 
     //endregion
 
+    //region memory estimation tests
+
+    @Test
+    public void shouldNotGrowEstimateWhenOverwritingSameProperty()
+    {
+        // GIVEN
+        state.nodeDoChangeProperty( 1, 2, Values.of( "a" ), Values.of( "b" ) );
+        long estimate = state.estimatedHeapUsage();
+
+        // WHEN
+        for ( int i = 0; i < 10; i++ )
+        {
+            state.nodeDoChangeProperty( 1, 2, Values.of( "b" ), Values.of( "c" + i ) );
+            state.relationshipDoReplaceProperty( 3, 4, Values.of( "b" ), Values.of( "c" + i ) );
+        }
+
+        // THEN
+        assertEquals( estimate + TxState.ESTIMATED_BYTES_PER_CHANGE, state.estimatedHeapUsage() );
+    }
+
+    @Test
+    public void shouldShrinkEstimateWhenUndoingChanges()
+    {
+        // GIVEN
+        state.nodeDoAddProperty( 1, 2, Values.of( "a" ) );
+        state.nodeDoAddLabel( 3, 1 );
+        state.graphDoReplaceProperty( 4, NO_VALUE, Values.of( "b" ) );
+        assertTrue( state.estimatedHeapUsage() > 0 );
+
+        // WHEN
+        state.nodeDoRemoveProperty( 1, 2 );
+        state.nodeDoRemoveLabel( 3, 1 );
+        state.graphDoRemoveProperty( 4 );
+
+        // THEN
+        assertEquals( 0, state.estimatedHeapUsage() );
+    }
+
+    @Test
+    public void shouldDiscardEstimateOfStateOfDeletedNode()
+    {
+        // GIVEN
+        for ( int key = 0; key < 10; key++ )
+        {
+            state.nodeDoAddProperty( 1, key, Values.of( key ) );
+        }
+
+        // WHEN
+        state.nodeDoDelete( 1 );
+
+        // THEN
+        assertEquals( TxState.ESTIMATED_BYTES_PER_CHANGE, state.estimatedHeapUsage() );
+    }
+
+    //endregion
+
     abstract class VisitationOrder extends TxStateVisitor.Adapter
     {
         private final Set<String> visitMethods = new HashSet<>();
@@ -30,6 +30,7 @@ import org.neo4j.kernel.impl.locking.ResourceTypes;
 import org.neo4j.time.Clocks;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class LockManagerImplTest
@@ -102,6 +103,30 @@ public class LockManagerImplTest
         assertEquals( 0, countLocks( lockManager ) );
     }
 
+    @Test
+    public void shouldKeepLocksOnSameIdOfDifferentResourceTypesApart()
+    {
+        // given
+        LockResource node = new LockResource( ResourceTypes.NODE, 1L );
+        LockResource relationship = new LockResource( ResourceTypes.RELATIONSHIP, 1L );
+        LockTransaction nodeTransaction = new LockTransaction();
+        LockTransaction relationshipTransaction = new LockTransaction();
+        LockManagerImpl lockManager = createLockManager();
+
+        // expect
+        assertTrue( lockManager.tryWriteLock( node, nodeTransaction ) );
+        assertTrue( lockManager.tryWriteLock( relationship, relationshipTransaction ) );
+        assertFalse( lockManager.tryWriteLock( node, relationshipTransaction ) );
+        assertEquals( 2, countLocks( lockManager ) );
+
+        // and when
+        lockManager.releaseWriteLock( node, nodeTransaction );
+        lockManager.releaseWriteLock( relationship, relationshipTransaction );
+
+        // no more locks left
+        assertEquals( 0, countLocks( lockManager ) );
+    }
+
     @Test
     public void shouldReleaseNotAcquiredLocks()
     {
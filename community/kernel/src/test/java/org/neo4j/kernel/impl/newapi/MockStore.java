@@ -23,6 +23,7 @@ import org.junit.rules.TestRule;
 import org.junit.runner.Description;
 import org.junit.runners.model.Statement;
 
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -49,6 +50,7 @@ import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.kernel.api.ExplicitIndex;
 import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
 import org.neo4j.kernel.impl.api.KernelTransactionImplementation;
+import org.neo4j.kernel.impl.store.DenseNodeDegrees;
 import org.neo4j.kernel.impl.store.DynamicRecordAllocator;
 import org.neo4j.kernel.impl.store.PropertyStore;
 import org.neo4j.kernel.impl.store.RecordCursor;
@@ -240,6 +242,24 @@ public class MockStore extends Read implements TestRule
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public long countsForNodeWithLabelsWithoutTxState( int labelId, int otherLabelId )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long countsForNodeWithPropertyWithoutTxState( int labelId, int propertyKeyId )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long countsForRelationshipBetweenLabelsWithoutTxState( int startLabelId, int typeId, int endLabelId )
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public long nodesGetCount()
     {
@@ -606,6 +626,12 @@ public class MockStore extends Read implements TestRule
         throw new UnsupportedOperationException( "not implemented" );
     }
 
+    @Override
+    DenseNodeDegrees degrees()
+    {
+        throw new UnsupportedOperationException( "not implemented" );
+    }
+
     @Override
     long nodeHighMark()
     {
@@ -618,12 +644,30 @@ public class MockStore extends Read implements TestRule
         throw new UnsupportedOperationException( "not implemented" );
     }
 
+    @Override
+    int nodesPerPage()
+    {
+        throw new UnsupportedOperationException( "not implemented" );
+    }
+
+    @Override
+    int relationshipsPerPage()
+    {
+        throw new UnsupportedOperationException( "not implemented" );
+    }
+
     @Override
     TextValue string( DefaultPropertyCursor cursor, long reference, PageCursor page )
     {
         throw new UnsupportedOperationException( "not implemented" );
     }
 
+    @Override
+    ByteBuffer stringBytes( DefaultPropertyCursor cursor, long reference, PageCursor page )
+    {
+        throw new UnsupportedOperationException( "not implemented" );
+    }
+
     @Override
     ArrayValue array( DefaultPropertyCursor cursor, long reference, PageCursor page )
     {
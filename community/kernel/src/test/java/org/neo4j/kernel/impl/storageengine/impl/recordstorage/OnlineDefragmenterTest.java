@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
+import org.neo4j.kernel.AvailabilityGuard;
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.KernelTransactionsSnapshot;
+import org.neo4j.kernel.impl.api.TransactionCommitProcess;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.StatementLocks;
+import org.neo4j.kernel.impl.locking.StatementLocksFactory;
+import org.neo4j.kernel.impl.logging.NullLogService;
+import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.storageengine.api.TransactionApplicationMode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.NODE;
+
+public class OnlineDefragmenterTest
+{
+    private final RecordChainCompactor compactor = mock( RecordChainCompactor.class );
+    private final TransactionCommitProcess commitProcess = mock( TransactionCommitProcess.class );
+    private final StatementLocksFactory locksFactory = mock( StatementLocksFactory.class );
+    private final Locks.Client client = mock( Locks.Client.class );
+    private final KernelTransactionsSnapshot snapshot = mock( KernelTransactionsSnapshot.class );
+    private final JobScheduler scheduler = mock( JobScheduler.class );
+    private final JobScheduler.JobHandle jobHandle = mock( JobScheduler.JobHandle.class );
+    private final StorageCommand move = mock( StorageCommand.class );
+    private final StorageCommand deletion = mock( StorageCommand.class );
+
+    @Before
+    public void setUp()
+    {
+        StatementLocks locks = mock( StatementLocks.class );
+        when( locks.pessimistic() ).thenReturn( client );
+        when( client.tryExclusiveLock( any(), anyLong() ) ).thenReturn( true );
+        when( client.getLockSessionId() ).thenReturn( 42 );
+        when( locksFactory.newInstance() ).thenReturn( locks );
+        when( compactor.nodeHighId() ).thenReturn( 10L );
+        when( compactor.compact( anyLong(), any(), any() ) ).thenAnswer( invocation ->
+        {
+            invocation.<Collection<StorageCommand>>getArgument( 1 ).add( move );
+            invocation.<Collection<StorageCommand>>getArgument( 2 ).add( deletion );
+            return true;
+        } );
+        when( scheduler.scheduleRecurring( any(), any(), anyLong(), any() ) ).thenReturn( jobHandle );
+    }
+
+    @Test
+    public void shouldNotScheduleWhenDisabled()
+    {
+        // given
+        OnlineDefragmenter defragmenter = defragmenter( "0s" );
+
+        // when
+        defragmenter.start();
+        defragmenter.stop();
+
+        // then
+        verifyZeroInteractions( scheduler, commitProcess );
+    }
+
+    @Test
+    public void shouldScheduleOnStartAndCancelOnStop()
+    {
+        // given
+        OnlineDefragmenter defragmenter = defragmenter( "5s" );
+
+        // when
+        defragmenter.start();
+
+        // then
+        verify( scheduler ).scheduleRecurring( JobScheduler.Groups.storageMaintenance, defragmenter, 5_000,
+                TimeUnit.MILLISECONDS );
+
+        // and when
+        defragmenter.stop();
+
+        // then
+        verify( jobHandle ).cancel( false );
+    }
+
+    @Test
+    public void shouldCommitMovesOfLockedNodesUnderTheirLockSession() throws Exception
+    {
+        // given
+        OnlineDefragmenter defragmenter = defragmenter( "5s" );
+
+        // when
+        int compacted = defragmenter.compactNextBatch();
+
+        // then
+        assertEquals( 2, compacted );
+        verify( client ).tryExclusiveLock( NODE, 0 );
+        verify( client ).tryExclusiveLock( NODE, 1 );
+        List<TransactionToApply> committed = committedTransactions( 1 );
+        assertEquals( 42, committed.get( 0 ).transactionRepresentation().getLockSessionId() );
+    }
+
+    @Test
+    public void shouldDeleteOldRecordsOnlyOnceTransactionsOpenDuringTheMoveHaveClosed() throws Exception
+    {
+        // given
+        OnlineDefragmenter defragmenter = defragmenter( "5s" );
+        defragmenter.compactNextBatch();
+
+        // when transactions that may see the old records are still open
+        when( snapshot.allClosed() ).thenReturn( false );
+
+        // then neither the old records are deleted nor the next batch moved
+        assertEquals( 0, defragmenter.compactNextBatch() );
+        committedTransactions( 1 );
+
+        // and when they have closed
+        when( snapshot.allClosed() ).thenReturn( true );
+        defragmenter.compactNextBatch();
+
+        // then the old records are deleted before the next batch is moved
+        List<TransactionToApply> committed = committedTransactions( 3 );
+        assertEquals( Locks.Client.NO_LOCK_SESSION_ID,
+                committed.get( 1 ).transactionRepresentation().getLockSessionId() );
+        assertEquals( 42, committed.get( 2 ).transactionRepresentation().getLockSessionId() );
+        verify( client ).tryExclusiveLock( NODE, 2 );
+    }
+
+    @Test
+    public void shouldDeleteOldRecordsOnStopIfUnseen() throws Exception
+    {
+        // given
+        OnlineDefragmenter defragmenter = defragmenter( "5s" );
+        defragmenter.start();
+        defragmenter.compactNextBatch();
+        when( snapshot.allClosed() ).thenReturn( true );
+
+        // when
+        defragmenter.stop();
+
+        // then
+        List<TransactionToApply> committed = committedTransactions( 2 );
+        assertEquals( Locks.Client.NO_LOCK_SESSION_ID,
+                committed.get( 1 ).transactionRepresentation().getLockSessionId() );
+    }
+
+    @Test
+    public void shouldReleaseIdsOfMovesThatFailedToCommit() throws Exception
+    {
+        // given
+        OnlineDefragmenter defragmenter = defragmenter( "5s" );
+        TransactionFailureException failure =
+                new TransactionFailureException( Status.Transaction.TransactionCommitFailed, "Failed" );
+        when( commitProcess.commit( any(), any(), any() ) ).thenThrow( failure ).thenReturn( 1L );
+
+        // when
+        try
+        {
+            defragmenter.compactNextBatch();
+            fail( "Should have failed" );
+        }
+        catch ( TransactionFailureException e )
+        {
+            assertSame( failure, e );
+        }
+
+        // then
+        ArgumentCaptor<Collection<StorageCommand>> released = ArgumentCaptor.forClass( Collection.class );
+        verify( compactor ).releaseIds( released.capture() );
+        assertEquals( 2, released.getValue().size() );
+
+        // and the old records, which are still referenced, are not deleted later on
+        when( snapshot.allClosed() ).thenReturn( true );
+        defragmenter.compactNextBatch();
+        verify( commitProcess, times( 2 ) ).commit( any(), any(), any() );
+        verify( snapshot, never() ).allClosed();
+    }
+
+    private List<TransactionToApply> committedTransactions( int count ) throws TransactionFailureException
+    {
+        ArgumentCaptor<TransactionToApply> captor = ArgumentCaptor.forClass( TransactionToApply.class );
+        verify( commitProcess, times( count ) ).commit( captor.capture(), eq( CommitEvent.NULL ),
+                eq( TransactionApplicationMode.INTERNAL ) );
+        return captor.getAllValues();
+    }
+
+    private OnlineDefragmenter defragmenter( String interval )
+    {
+        TransactionIdStore transactionIdStore = mock( TransactionIdStore.class );
+        AvailabilityGuard availabilityGuard = mock( AvailabilityGuard.class );
+        when( availabilityGuard.isAvailable() ).thenReturn( true );
+        Config config = Config.defaults( stringMap(
+                GraphDatabaseSettings.online_defragmentation_interval.name(), interval,
+                GraphDatabaseSettings.online_defragmentation_batch_size.name(), "2" ) );
+        return new OnlineDefragmenter( compactor, commitProcess, locksFactory,
+                TransactionHeaderInformationFactory.DEFAULT, transactionIdStore, () -> snapshot,
+                availabilityGuard, scheduler, Clock.systemUTC(), config, NullLogService.getInstance() );
+    }
+}
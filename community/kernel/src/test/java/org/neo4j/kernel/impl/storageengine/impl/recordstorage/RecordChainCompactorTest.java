@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.store.format.inline.InlineV3_4;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.test.rule.NeoStoresRule;
+import org.neo4j.values.storable.Values;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
+
+public class RecordChainCompactorTest
+{
+    @Rule
+    public final NeoStoresRule neoStoresRule = new NeoStoresRule( getClass() );
+
+    private NodeStore nodeStore;
+    private PropertyStore propertyStore;
+    private RelationshipGroupStore groupStore;
+    private RecordChainCompactor compactor;
+
+    private void open( NeoStoresRule.Builder builder ) throws IOException
+    {
+        NeoStores neoStores = builder.build();
+        nodeStore = neoStores.getNodeStore();
+        propertyStore = neoStores.getPropertyStore();
+        groupStore = neoStores.getRelationshipGroupStore();
+        compactor = new RecordChainCompactor( neoStores );
+    }
+
+    @Test
+    public void shouldMoveFragmentedPropertyChainIntoOnePage() throws Exception
+    {
+        // given
+        open( neoStoresRule.builder() );
+        int recordsPerPage = propertyStore.getRecordsPerPage();
+        long first = 1;
+        long second = recordsPerPage * 5L;
+        createNodeWithProperties( 0, first, second );
+
+        // when
+        List<StorageCommand> commands = new ArrayList<>();
+        assertTrue( compactor.compact( 0, commands, commands ) );
+        apply( commands );
+
+        // then
+        NodeRecord node = nodeStore.getRecord( 0, nodeStore.newRecord(), NORMAL );
+        PropertyRecord movedFirst = propertyStore.getRecord( node.getNextProp(), propertyStore.newRecord(), NORMAL );
+        PropertyRecord movedSecond = propertyStore.getRecord( movedFirst.getNextProp(), propertyStore.newRecord(), NORMAL );
+        assertEquals( movedFirst.getId() / recordsPerPage, movedSecond.getId() / recordsPerPage );
+        assertEquals( movedFirst.getId(), movedSecond.getPrevProp() );
+        assertTrue( Record.NO_NEXT_PROPERTY.is( movedSecond.getNextProp() ) );
+        assertEquals( Values.of( 1 ), movedFirst.getPropertyBlock( 1 ).newPropertyValue( propertyStore ) );
+        assertEquals( Values.of( 2 ), movedSecond.getPropertyBlock( 2 ).newPropertyValue( propertyStore ) );
+        assertFalse( propertyStore.getRecord( first, propertyStore.newRecord(), CHECK ).inUse() );
+        assertFalse( propertyStore.getRecord( second, propertyStore.newRecord(), CHECK ).inUse() );
+    }
+
+    @Test
+    public void shouldKeepInlinedCopyOfMovedPropertyChain() throws Exception
+    {
+        // given
+        open( neoStoresRule.builder().with( InlineV3_4.RECORD_FORMATS ) );
+        createNodeWithProperties( 0, 1, propertyStore.getRecordsPerPage() * 5L );
+        NodeRecord node = nodeStore.getRecord( 0, nodeStore.newRecord(), NORMAL );
+        node.setInlinedProperties( propertyStore.getRecord( 1, propertyStore.newRecord(), NORMAL ) );
+        nodeStore.updateRecord( node );
+
+        // when
+        List<StorageCommand> commands = new ArrayList<>();
+        assertTrue( compactor.compact( 0, commands, commands ) );
+        apply( commands );
+
+        // then
+        node = nodeStore.getRecord( 0, nodeStore.newRecord(), NORMAL );
+        PropertyRecord movedFirst = propertyStore.getRecord( node.getNextProp(), propertyStore.newRecord(), NORMAL );
+        assertTrue( node.hasInlinedProperties() );
+        assertTrue( node.inlinesProperties( movedFirst ) );
+        assertEquals( movedFirst.getNextProp(), node.getInlinedNextProp() );
+    }
+
+    @Test
+    public void shouldMoveFragmentedRelationshipGroupChainOfDenseNodeIntoOnePage() throws Exception
+    {
+        // given
+        open( neoStoresRule.builder() );
+        int recordsPerPage = groupStore.getRecordsPerPage();
+        long first = 1;
+        long second = recordsPerPage * 5L;
+        groupStore.updateRecord( group( 0, first, 1, second ) );
+        groupStore.updateRecord( group( 0, second, 2, Record.NO_NEXT_RELATIONSHIP.longValue() ) );
+        groupStore.setHighId( second + 1 );
+        nodeStore.updateRecord( new NodeRecord( 0 ).initialize( true, Record.NO_NEXT_PROPERTY.longValue(), true,
+                first, 0 ) );
+        nodeStore.setHighId( 1 );
+
+        // when
+        List<StorageCommand> commands = new ArrayList<>();
+        assertTrue( compactor.compact( 0, commands, commands ) );
+        apply( commands );
+
+        // then
+        NodeRecord node = nodeStore.getRecord( 0, nodeStore.newRecord(), NORMAL );
+        RelationshipGroupRecord movedFirst = groupStore.getRecord( node.getNextRel(), groupStore.newRecord(), NORMAL );
+        RelationshipGroupRecord movedSecond = groupStore.getRecord( movedFirst.getNext(), groupStore.newRecord(), NORMAL );
+        assertEquals( movedFirst.getId() / recordsPerPage, movedSecond.getId() / recordsPerPage );
+        assertEquals( 1, movedFirst.getType() );
+        assertEquals( 2, movedSecond.getType() );
+        assertEquals( 0, movedSecond.getOwningNode() );
+        assertTrue( Record.NO_NEXT_RELATIONSHIP.is( movedSecond.getNext() ) );
+        assertFalse( groupStore.getRecord( first, groupStore.newRecord(), CHECK ).inUse() );
+        assertFalse( groupStore.getRecord( second, groupStore.newRecord(), CHECK ).inUse() );
+    }
+
+    @Test
+    public void shouldKeepOldRecordsUntilDeletionsAreApplied() throws Exception
+    {
+        // given
+        open( neoStoresRule.builder() );
+        long first = 1;
+        long second = propertyStore.getRecordsPerPage() * 5L;
+        createNodeWithProperties( 0, first, second );
+
+        // when
+        List<StorageCommand> moves = new ArrayList<>();
+        List<StorageCommand> deletions = new ArrayList<>();
+        assertTrue( compactor.compact( 0, moves, deletions ) );
+        apply( moves );
+
+        // then a reader still at the old chain can follow it to its end
+        PropertyRecord oldFirst = propertyStore.getRecord( first, propertyStore.newRecord(), NORMAL );
+        assertEquals( second, oldFirst.getNextProp() );
+        assertTrue( propertyStore.getRecord( second, propertyStore.newRecord(), CHECK ).inUse() );
+
+        // and when
+        apply( deletions );
+
+        // then
+        assertFalse( propertyStore.getRecord( first, propertyStore.newRecord(), CHECK ).inUse() );
+        assertFalse( propertyStore.getRecord( second, propertyStore.newRecord(), CHECK ).inUse() );
+    }
+
+    @Test
+    public void shouldReleaseIdsOfUncommittedMoves() throws Exception
+    {
+        // given
+        open( neoStoresRule.builder() );
+        createNodeWithProperties( 0, 1, propertyStore.getRecordsPerPage() * 5L );
+        List<StorageCommand> moves = new ArrayList<>();
+        assertTrue( compactor.compact( 0, moves, new ArrayList<>() ) );
+        long movedFirst = ((Command.PropertyCommand) moves.get( 0 )).getAfter().getId();
+
+        // when
+        compactor.releaseIds( moves );
+
+        // then
+        assertEquals( movedFirst, propertyStore.nextId() );
+    }
+
+    @Test
+    public void shouldLeaveContiguousPropertyChainAlone() throws Exception
+    {
+        // given
+        open( neoStoresRule.builder() );
+        createNodeWithProperties( 0, 1, 2 );
+
+        // when
+        List<StorageCommand> commands = new ArrayList<>();
+        boolean compacted = compactor.compact( 0, commands, commands );
+
+        // then
+        assertFalse( compacted );
+        assertTrue( commands.isEmpty() );
+    }
+
+    private void createNodeWithProperties( long nodeId, long firstPropertyId, long secondPropertyId )
+    {
+        propertyStore.updateRecord( property( nodeId, firstPropertyId, Record.NO_PREVIOUS_PROPERTY.longValue(),
+                secondPropertyId, 1 ) );
+        propertyStore.updateRecord( property( nodeId, secondPropertyId, firstPropertyId,
+                Record.NO_NEXT_PROPERTY.longValue(), 2 ) );
+        propertyStore.setHighId( Math.max( firstPropertyId, secondPropertyId ) + 1 );
+        nodeStore.updateRecord( new NodeRecord( nodeId ).initialize( true, firstPropertyId, false,
+                Record.NO_NEXT_RELATIONSHIP.longValue(), 0 ) );
+        nodeStore.setHighId( nodeId + 1 );
+    }
+
+    private PropertyRecord property( long nodeId, long id, long prev, long next, int value )
+    {
+        PropertyRecord record = new PropertyRecord( id ).initialize( true, prev, next );
+        record.setNodeId( nodeId );
+        PropertyBlock block = new PropertyBlock();
+        propertyStore.encodeValue( block, value, Values.of( value ) );
+        record.addPropertyBlock( block );
+        return record;
+    }
+
+    private static RelationshipGroupRecord group( long nodeId, long id, int type, long next )
+    {
+        return new RelationshipGroupRecord( id ).initialize( true, type, Record.NO_NEXT_RELATIONSHIP.longValue(),
+                Record.NO_NEXT_RELATIONSHIP.longValue(), Record.NO_NEXT_RELATIONSHIP.longValue(), nodeId, next );
+    }
+
+    private void apply( List<StorageCommand> commands )
+    {
+        for ( StorageCommand command : commands )
+        {
+            if ( command instanceof Command.NodeCommand )
+            {
+                nodeStore.updateRecord( ((Command.NodeCommand) command).getAfter() );
+            }
+            else if ( command instanceof Command.RelationshipGroupCommand )
+            {
+                groupStore.updateRecord( ((Command.RelationshipGroupCommand) command).getAfter() );
+            }
+            else
+            {
+                propertyStore.updateRecord( ((Command.PropertyCommand) command).getAfter() );
+            }
+        }
+    }
+}
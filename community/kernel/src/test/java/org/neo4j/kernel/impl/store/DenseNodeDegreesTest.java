@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.neo4j.kernel.impl.store.DenseNodeDegrees.INCOMING;
+import static org.neo4j.kernel.impl.store.DenseNodeDegrees.LOOP;
+import static org.neo4j.kernel.impl.store.DenseNodeDegrees.OUTGOING;
+
+public class DenseNodeDegreesTest
+{
+    private final DenseNodeDegrees degrees = new DenseNodeDegrees( 100 );
+
+    @Test
+    public void shouldReadDegreeFromChainOnlyOnce()
+    {
+        AtomicInteger reads = new AtomicInteger();
+
+        assertEquals( 5, degrees.degree( 1, 0, OUTGOING, () -> reads.incrementAndGet() * 5 ) );
+        assertEquals( 5, degrees.degree( 1, 0, OUTGOING, () -> reads.incrementAndGet() * 5 ) );
+        assertEquals( 1, reads.get() );
+    }
+
+    @Test
+    public void shouldKeepDegreesOfTypesAndDirectionsApart()
+    {
+        degrees.degree( 1, 0, OUTGOING, () -> 1 );
+        degrees.degree( 1, 0, INCOMING, () -> 2 );
+        degrees.degree( 1, 1, OUTGOING, () -> 3 );
+
+        assertEquals( 1, degrees.degree( 1, 0, OUTGOING, () -> -1 ) );
+        assertEquals( 2, degrees.degree( 1, 0, INCOMING, () -> -1 ) );
+        assertEquals( 3, degrees.degree( 1, 1, OUTGOING, () -> -1 ) );
+        assertEquals( 4, degrees.degree( 2, 0, OUTGOING, () -> 4 ) );
+    }
+
+    @Test
+    public void shouldUpdateOnlyCachedDegrees()
+    {
+        degrees.degree( 1, 0, OUTGOING, () -> 10 );
+
+        degrees.update( 1, 0, OUTGOING, 11 );
+        degrees.update( 1, 0, LOOP, 3 );
+
+        assertEquals( 11, degrees.degree( 1, 0, OUTGOING, () -> -1 ) );
+        assertEquals( 0, degrees.degree( 1, 0, LOOP, () -> 0 ) );
+    }
+
+    @Test
+    public void shouldForgetAllDirectionsOfRemovedType()
+    {
+        degrees.degree( 1, 0, OUTGOING, () -> 10 );
+        degrees.degree( 1, 0, INCOMING, () -> 10 );
+        degrees.degree( 1, 1, INCOMING, () -> 10 );
+
+        degrees.remove( 1, 0 );
+
+        assertEquals( 1, degrees.size() );
+        assertEquals( 7, degrees.degree( 1, 0, OUTGOING, () -> 7 ) );
+    }
+
+    @Test
+    public void shouldNotCacheDegreeReadWhileChangesWereApplied()
+    {
+        long degree = degrees.degree( 1, 0, OUTGOING, () ->
+        {
+            degrees.update( 1, 0, OUTGOING, 6 );
+            return 5;
+        } );
+
+        assertEquals( 5, degree );
+        assertEquals( 0, degrees.size() );
+    }
+
+    @Test
+    public void shouldNotCacheMoreThanMaxSize()
+    {
+        DenseNodeDegrees small = new DenseNodeDegrees( 1 );
+        small.degree( 1, 0, OUTGOING, () -> 1 );
+        small.degree( 2, 0, OUTGOING, () -> 1 );
+
+        assertEquals( 1, small.size() );
+    }
+
+    @Test
+    public void shouldSizeDefaultMaxSizeRelativeToHeapWithinBounds()
+    {
+        assertEquals( 1_000, DenseNodeDegrees.defaultMaxSize( 16L << 20 ) );
+        assertEquals( 1_000_000_000L / 1_000 / DenseNodeDegrees.ESTIMATED_ENTRY_SIZE,
+                DenseNodeDegrees.defaultMaxSize( 1_000_000_000L ) );
+        assertEquals( 100_000, DenseNodeDegrees.defaultMaxSize( 64L << 30 ) );
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.store.id.GBPTreeIdGeneratorFactory;
+import org.neo4j.kernel.impl.store.id.IdRange;
+import org.neo4j.kernel.impl.store.id.configuration.IdTypeConfiguration;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.store.record.Record.NO_LABELS_FIELD;
+import static org.neo4j.kernel.impl.store.record.Record.NO_NEXT_PROPERTY;
+import static org.neo4j.kernel.impl.store.record.Record.NO_NEXT_RELATIONSHIP;
+
+public class FreeIdsRebuildTest
+{
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+    @Rule
+    public EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    private NeoStores neoStores;
+
+    @Before
+    public void setUp()
+    {
+        FileSystemAbstraction fs = fsRule.get();
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        File storeDir = new File( "dir" ).getAbsoluteFile();
+        fs.mkdirs( storeDir );
+        GBPTreeIdGeneratorFactory idGeneratorFactory =
+                new GBPTreeIdGeneratorFactory( fs, pageCache, idType -> new IdTypeConfiguration( true ) );
+        neoStores = new StoreFactory( storeDir, Config.defaults(), idGeneratorFactory, pageCache, fs,
+                NullLogProvider.getInstance(), EmptyVersionContextSupplier.EMPTY ).openAllNeoStores( true );
+    }
+
+    @After
+    public void tearDown()
+    {
+        neoStores.close();
+    }
+
+    @Test
+    public void shouldNotFreeIdsHandedOutAfterRebuildWasPrepared()
+    {
+        // given
+        NodeStore nodeStore = neoStores.getNodeStore();
+        for ( int i = 0; i < 4; i++ )
+        {
+            long id = nodeStore.nextId();
+            if ( id != 2 )
+            {
+                nodeStore.updateRecord( inUseNode( id ) );
+            }
+        }
+        assertTrue( neoStores.prepareFreeIdsRebuild() );
+
+        // when a batch of ids is held, but not written, while the rebuild runs
+        IdRange batch = nodeStore.nextIdBatch( 10 );
+        neoStores.rebuildFreeIds( () -> false );
+
+        // then only the id that was free at startup is reused
+        assertEquals( 4, batch.getRangeStart() );
+        assertEquals( 2, nodeStore.nextId() );
+        assertEquals( batch.getRangeStart() + batch.getRangeLength(), nodeStore.nextId() );
+    }
+
+    private static NodeRecord inUseNode( long id )
+    {
+        return new NodeRecord( id ).initialize( true, NO_NEXT_PROPERTY.intValue(), false,
+                NO_NEXT_RELATIONSHIP.intValue(), NO_LABELS_FIELD.intValue() );
+    }
+}
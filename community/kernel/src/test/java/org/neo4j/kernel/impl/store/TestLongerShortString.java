@@ -136,6 +136,36 @@ public class TestLongerShortString
         assertCanEncodeAndDecodeToSame( "81fe144f-484b-4a34-8e36-17a021540318" );
     }
 
+    @Test
+    public void compareEncodedStringsRegardlessOfPropertyKey()
+    {
+        long[] stored = encode( 7, "hello" );
+
+        assertTrue( LongerShortString.encodedEquals( stored, 0, encode( 0, "hello" ) ) );
+        assertFalse( LongerShortString.encodedEquals( stored, 0, encode( 7, "hellO" ) ) );
+        assertFalse( LongerShortString.encodedEquals( stored, 0, encode( 7, "hell" ) ) );
+        assertEquals( LongerShortString.encodingOf( stored[0] ), LongerShortString.encodingOf( encode( 0, "world" )[0] ) );
+    }
+
+    @Test
+    public void compareEncodedStringsAtOffset()
+    {
+        long[] encoded = encode( 3, "81fe144f-484b-4a34-8e36-17a021540318" );
+        long[] record = new long[encoded.length + 1];
+        record[0] = 1;
+        System.arraycopy( encoded, 0, record, 1, encoded.length );
+
+        assertTrue( LongerShortString.encodedEquals( record, 1, encode( 0, "81fe144f-484b-4a34-8e36-17a021540318" ) ) );
+        assertFalse( LongerShortString.encodedEquals( record, 1, encode( 0, "81fe144f-484b-4a34-8e36-17a021540319" ) ) );
+    }
+
+    private static long[] encode( int keyId, String string )
+    {
+        PropertyBlock target = new PropertyBlock();
+        assertTrue( LongerShortString.encode( keyId, string, target, DEFAULT_PAYLOAD_SIZE ) );
+        return target.getValueBlocks();
+    }
+
     private static List<String> randomStrings( int count, TestStringCharset charset, int maxLen )
     {
         List<String> result = new ArrayList<>( count );
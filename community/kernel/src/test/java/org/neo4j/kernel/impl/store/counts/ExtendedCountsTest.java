@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.TimeoutException;
+
+import org.neo4j.function.Predicates;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.test.rule.DatabaseRule;
+import org.neo4j.test.rule.EmbeddedDatabaseRule;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.kernel.impl.store.counts.ExtendedCounts.ANY_RELATIONSHIP_TYPE;
+import static org.neo4j.kernel.impl.store.counts.ExtendedCounts.UNKNOWN;
+
+public class ExtendedCountsTest
+{
+    private static final Label A = Label.label( "A" );
+    private static final Label B = Label.label( "B" );
+    private static final Label C = Label.label( "C" );
+    private static final RelationshipType KNOWS = RelationshipType.withName( "KNOWS" );
+
+    @Rule
+    public final DatabaseRule db = new EmbeddedDatabaseRule().withSetting( GraphDatabaseSettings.extended_counts, "true" );
+
+    @Before
+    public void awaitCountsBuilt() throws TimeoutException
+    {
+        Predicates.await( () -> counts().isBuilt(), 1, MINUTES );
+    }
+
+    @Test
+    public void shouldCountNodesWithLabelPairsAndProperties()
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            db.createNode( A, B ).setProperty( "name", "ab" );
+            db.createNode( A, B );
+            db.createNode( A, C ).setProperty( "name", "ac" );
+            tx.success();
+        }
+
+        assertEquals( 2, nodeCount( A, B ) );
+        assertEquals( 1, nodeCount( C, A ) );
+        assertEquals( 0, nodeCount( B, C ) );
+        assertEquals( 2, propertyCount( A, "name" ) );
+        assertEquals( 1, propertyCount( B, "name" ) );
+    }
+
+    @Test
+    public void shouldMaintainCountsWhenLabelsAndPropertiesChange()
+    {
+        Node node;
+        try ( Transaction tx = db.beginTx() )
+        {
+            node = db.createNode( A );
+            node.setProperty( "name", "a" );
+            node.setProperty( "age", 1 );
+            tx.success();
+        }
+
+        try ( Transaction tx = db.beginTx() )
+        {
+            node.addLabel( B );
+            node.removeProperty( "age" );
+            tx.success();
+        }
+        assertEquals( 1, nodeCount( A, B ) );
+        assertEquals( 1, propertyCount( B, "name" ) );
+        assertEquals( 0, propertyCount( A, "age" ) );
+        assertEquals( 0, propertyCount( B, "age" ) );
+
+        try ( Transaction tx = db.beginTx() )
+        {
+            node.removeLabel( A );
+            node.setProperty( "age", 2 );
+            tx.success();
+        }
+        assertEquals( 0, nodeCount( A, B ) );
+        assertEquals( 0, propertyCount( A, "name" ) );
+        assertEquals( 1, propertyCount( B, "age" ) );
+
+        try ( Transaction tx = db.beginTx() )
+        {
+            node.delete();
+            tx.success();
+        }
+        assertEquals( 0, propertyCount( B, "name" ) );
+        assertEquals( 0, propertyCount( B, "age" ) );
+    }
+
+    @Test
+    public void shouldMaintainRelationshipCountsWhenLabelsOfNodesChange()
+    {
+        Node start;
+        Node end;
+        Relationship relationship;
+        try ( Transaction tx = db.beginTx() )
+        {
+            start = db.createNode( A );
+            end = db.createNode( B );
+            relationship = start.createRelationshipTo( end, KNOWS );
+            start.createRelationshipTo( start, KNOWS );
+            tx.success();
+        }
+        assertEquals( 1, relationshipCount( A, "KNOWS", B ) );
+        assertEquals( 1, relationshipCount( A, null, B ) );
+        assertEquals( 1, relationshipCount( A, "KNOWS", A ) );
+
+        try ( Transaction tx = db.beginTx() )
+        {
+            start.addLabel( C );
+            end.removeLabel( B );
+            end.addLabel( C );
+            tx.success();
+        }
+        // the loop counts between every pair of the labels of its node
+        assertEquals( 0, relationshipCount( A, "KNOWS", B ) );
+        assertEquals( 2, relationshipCount( A, "KNOWS", C ) );
+        assertEquals( 2, relationshipCount( C, "KNOWS", C ) );
+        assertEquals( 1, relationshipCount( C, "KNOWS", A ) );
+        assertEquals( 1, relationshipCount( A, "KNOWS", A ) );
+
+        try ( Transaction tx = db.beginTx() )
+        {
+            relationship.delete();
+            tx.success();
+        }
+        assertEquals( 1, relationshipCount( A, "KNOWS", C ) );
+        assertEquals( 1, relationshipCount( C, null, C ) );
+        assertEquals( 1, relationshipCount( C, null, A ) );
+    }
+
+    @Test
+    public void shouldBuildCountsFromStoreOnStart() throws Exception
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node start = db.createNode( A, B );
+            start.setProperty( "name", "ab" );
+            start.createRelationshipTo( db.createNode( C ), KNOWS );
+            tx.success();
+        }
+
+        db.restartDatabase();
+        awaitCountsBuilt();
+
+        assertEquals( 1, nodeCount( A, B ) );
+        assertEquals( 1, propertyCount( B, "name" ) );
+        assertEquals( 1, relationshipCount( A, "KNOWS", C ) );
+        assertEquals( 1, relationshipCount( B, null, C ) );
+    }
+
+    @Test
+    public void shouldNotKnowCountsWhenDisabled() throws Exception
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            db.createNode( A, B );
+            tx.success();
+        }
+
+        db.restartDatabase( GraphDatabaseSettings.extended_counts.name(), "false" );
+
+        assertEquals( UNKNOWN, nodeCount( A, B ) );
+    }
+
+    @Test
+    public void shouldNotKnowCountsUntilBuiltInBackground() throws Throwable
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            db.createNode( A, B );
+            tx.success();
+        }
+        int a = labelId( A );
+        int b = labelId( B );
+        JobScheduler scheduler = mock( JobScheduler.class );
+        JobScheduler.JobHandle handle = mock( JobScheduler.JobHandle.class );
+        when( scheduler.schedule( any( JobScheduler.Group.class ), any( Runnable.class ) ) ).thenReturn( handle );
+        NeoStores neoStores = db.resolveDependency( RecordStorageEngine.class ).testAccessNeoStores();
+        ExtendedCounts counts = new ExtendedCounts( neoStores, scheduler, NullLogProvider.getInstance(), true );
+
+        counts.start();
+        assertTrue( counts.isMaintained() );
+        assertEquals( UNKNOWN, counts.nodeCount( a, b ) );
+
+        ArgumentCaptor<Runnable> build = ArgumentCaptor.forClass( Runnable.class );
+        verify( scheduler ).schedule( eq( JobScheduler.Groups.storageMaintenance ), build.capture() );
+        build.getValue().run();
+        assertEquals( 1, counts.nodeCount( a, b ) );
+
+        counts.stop();
+        verify( handle ).waitTermination();
+        assertEquals( UNKNOWN, counts.nodeCount( a, b ) );
+    }
+
+    private int labelId( Label label )
+    {
+        try ( Transaction ignored = db.beginTx() )
+        {
+            return tokenRead().nodeLabel( label.name() );
+        }
+    }
+
+    private long nodeCount( Label label, Label otherLabel )
+    {
+        try ( Transaction ignored = db.beginTx() )
+        {
+            TokenRead tokens = tokenRead();
+            return counts().nodeCount( tokens.nodeLabel( label.name() ), tokens.nodeLabel( otherLabel.name() ) );
+        }
+    }
+
+    private long propertyCount( Label label, String propertyKey )
+    {
+        try ( Transaction ignored = db.beginTx() )
+        {
+            TokenRead tokens = tokenRead();
+            return counts().nodePropertyCount( tokens.nodeLabel( label.name() ), tokens.propertyKey( propertyKey ) );
+        }
+    }
+
+    private long relationshipCount( Label startLabel, String type, Label endLabel )
+    {
+        try ( Transaction ignored = db.beginTx() )
+        {
+            TokenRead tokens = tokenRead();
+            int typeId = type == null ? ANY_RELATIONSHIP_TYPE : tokens.relationshipType( type );
+            return counts().relationshipCount( tokens.nodeLabel( startLabel.name() ), typeId,
+                    tokens.nodeLabel( endLabel.name() ) );
+        }
+    }
+
+    private TokenRead tokenRead()
+    {
+        return db.resolveDependency( ThreadToStatementContextBridge.class ).getKernelTransactionBoundToThisThread( true ).tokenRead();
+    }
+
+    private ExtendedCounts counts()
+    {
+        return db.resolveDependency( ExtendedCounts.class );
+    }
+}
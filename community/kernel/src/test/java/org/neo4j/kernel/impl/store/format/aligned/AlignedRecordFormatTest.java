@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.format.aligned;
+
+import org.junit.Test;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.store.format.AbstractRecordFormatTest;
+import org.neo4j.kernel.impl.store.format.RecordFormat;
+import org.neo4j.kernel.impl.store.format.RecordFormatSelector;
+import org.neo4j.kernel.impl.store.format.RecordFormats;
+import org.neo4j.logging.NullLogProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.store.NoStoreHeader.NO_STORE_HEADER;
+
+public class AlignedRecordFormatTest extends AbstractRecordFormatTest
+{
+    private static final int PAGE_SIZE = 8192;
+    private static final int CACHE_LINE_SIZE = 64;
+
+    public AlignedRecordFormatTest()
+    {
+        super( AlignedV3_4.RECORD_FORMATS, 35, 36 );
+    }
+
+    @Test
+    public void recordsShouldPackPagesAndCacheLinesWithoutStraddling()
+    {
+        RecordFormats formats = AlignedV3_4.RECORD_FORMATS;
+        assertAligned( formats.node(), 16 );
+        assertAligned( formats.relationshipGroup(), 32 );
+        assertAligned( formats.relationship(), 64 );
+        assertAligned( formats.property(), 64 );
+    }
+
+    @Test
+    public void shouldBeSelectableByNameAndVersion()
+    {
+        Config config = Config.defaults( GraphDatabaseSettings.record_format, AlignedV3_4.NAME );
+        assertSame( AlignedV3_4.RECORD_FORMATS, RecordFormatSelector.selectForConfig( config, NullLogProvider.getInstance() ) );
+        assertSame( AlignedV3_4.RECORD_FORMATS, RecordFormatSelector.selectForVersion( AlignedV3_4.STORE_VERSION ) );
+    }
+
+    private static void assertAligned( RecordFormat<?> format, int expectedSize )
+    {
+        int recordSize = format.getRecordSize( NO_STORE_HEADER );
+        assertEquals( expectedSize, recordSize );
+        assertEquals( 0, PAGE_SIZE % recordSize );
+        assertTrue( CACHE_LINE_SIZE % recordSize == 0 || recordSize % CACHE_LINE_SIZE == 0 );
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.format.inline;
+
+import org.junit.Test;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.StubPageCursor;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.store.format.AbstractRecordFormatTest;
+import org.neo4j.kernel.impl.store.format.FormatFamily;
+import org.neo4j.kernel.impl.store.format.RecordFormat;
+import org.neo4j.kernel.impl.store.format.RecordFormatSelector;
+import org.neo4j.kernel.impl.store.format.standard.StandardV3_4;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PrimitiveRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.logging.NullLogProvider;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.store.NoStoreHeader.NO_STORE_HEADER;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
+
+public class InlineRecordFormatTest extends AbstractRecordFormatTest
+{
+    private static final long[] BLOCKS = {1L, -2L, Long.MAX_VALUE, Long.MIN_VALUE};
+
+    public InlineRecordFormatTest()
+    {
+        super( InlineV3_4.RECORD_FORMATS, 35, 36 );
+    }
+
+    @Test
+    public void shouldBeSelectableByNameAndVersion()
+    {
+        Config config = Config.defaults( GraphDatabaseSettings.record_format, InlineV3_4.NAME );
+        assertSame( InlineV3_4.RECORD_FORMATS, RecordFormatSelector.selectForConfig( config, NullLogProvider.getInstance() ) );
+        assertSame( InlineV3_4.RECORD_FORMATS, RecordFormatSelector.selectForVersion( InlineV3_4.STORE_VERSION ) );
+    }
+
+    @Test
+    public void shouldRankAboveStandardFamily()
+    {
+        assertTrue( FormatFamily.isHigherFamilyFormat( InlineV3_4.RECORD_FORMATS, StandardV3_4.RECORD_FORMATS ) );
+    }
+
+    @Test
+    public void shouldReadAndWriteInlinedPropertiesOfNode() throws Exception
+    {
+        NodeRecord node = new NodeRecord( 5 ).initialize( true, 0x8_0000_0001L, false, 10, 0 );
+        node.setInlinedProperties( BLOCKS, 3, 0x7_0000_0002L );
+
+        NodeRecord read = writeAndRead( InlineV3_4.RECORD_FORMATS.node(), node, new NodeRecord( node.getId() ) );
+
+        assertEquals( node, read );
+        assertInlined( read, 3, 0x7_0000_0002L );
+    }
+
+    @Test
+    public void shouldReadAndWriteInlinedPropertiesOfRelationship() throws Exception
+    {
+        RelationshipRecord relationship = new RelationshipRecord( 5 )
+                .initialize( true, 0x8_0000_0001L, 1, 2, 3, 4, 5, 6, 7, true, false );
+        relationship.setInlinedProperties( BLOCKS, 4, Record.NO_NEXT_PROPERTY.intValue() );
+
+        RelationshipRecord read = writeAndRead( InlineV3_4.RECORD_FORMATS.relationship(), relationship,
+                new RelationshipRecord( relationship.getId() ) );
+
+        assertEquals( relationship, read );
+        assertInlined( read, 4, Record.NO_NEXT_PROPERTY.intValue() );
+    }
+
+    @Test
+    public void shouldNotKeepInlinedPropertiesOfPreviouslyReadRecord() throws Exception
+    {
+        NodeRecord node = new NodeRecord( 5 ).initialize( true, 1, false, 10, 0 );
+        NodeRecord target = new NodeRecord( node.getId() );
+        target.setInlinedProperties( BLOCKS, 2, 3 );
+
+        NodeRecord read = writeAndRead( InlineV3_4.RECORD_FORMATS.node(), node, target );
+
+        assertFalse( read.hasInlinedProperties() );
+        assertEquals( Record.NO_NEXT_PROPERTY.intValue(), read.getInlinedNextProp() );
+    }
+
+    private static <R extends PrimitiveRecord> R writeAndRead( RecordFormat<R> format, R record, R target )
+            throws Exception
+    {
+        int recordSize = format.getRecordSize( NO_STORE_HEADER );
+        try ( PageCursor cursor = new StubPageCursor( 1, recordSize * 4 ) )
+        {
+            int offset = recordSize;
+            cursor.next();
+            cursor.setOffset( offset );
+            format.write( record, cursor, recordSize );
+            assertEquals( offset + recordSize, cursor.getOffset() );
+
+            cursor.setOffset( offset );
+            format.read( target, cursor, NORMAL, recordSize );
+            cursor.checkAndClearCursorException();
+            return target;
+        }
+    }
+
+    private static void assertInlined( PrimitiveRecord record, int numberOfBlocks, long nextProp )
+    {
+        assertTrue( record.hasInlinedProperties() );
+        assertEquals( numberOfBlocks, record.getNumberOfInlinedBlocks() );
+        long[] blocks = new long[numberOfBlocks];
+        System.arraycopy( record.getInlinedBlocks(), 0, blocks, 0, numberOfBlocks );
+        long[] expected = new long[numberOfBlocks];
+        System.arraycopy( BLOCKS, 0, expected, 0, numberOfBlocks );
+        assertArrayEquals( expected, blocks );
+        assertEquals( nextProp, record.getInlinedNextProp() );
+    }
+}
@@ -21,8 +21,10 @@ package org.neo4j.kernel.impl.store.id;
 
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.InOrder;
 
 import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
@@ -34,7 +36,9 @@ import org.neo4j.time.FakeClock;
 
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -69,7 +73,7 @@ public class BufferingIdGeneratorFactoryTest
         bufferingIdGeneratorFactory.maintenance();
 
         // THEN
-        verify( actual.get( IdType.STRING_BLOCK ) ).freeId( 7 );
+        verify( actual.get( IdType.STRING_BLOCK ) ).freeIds( new long[]{7} );
     }
 
     @Test
@@ -107,7 +111,43 @@ public class BufferingIdGeneratorFactoryTest
         bufferingIdGeneratorFactory.maintenance();
 
         // THEN
-        verify( actual.get( IdType.STRING_BLOCK ) ).freeId( 7 );
+        verify( actual.get( IdType.STRING_BLOCK ) ).freeIds( new long[]{7} );
+    }
+
+    @Test
+    public void shouldCompleteRebuildOnlyOnceIdsFreedBeforeItHaveBeenReleased()
+    {
+        // GIVEN
+        MockedIdGeneratorFactory actual = new MockedIdGeneratorFactory();
+        AtomicBoolean safeToRelease = new AtomicBoolean();
+        BufferingIdGeneratorFactory bufferingIdGeneratorFactory = new BufferingIdGeneratorFactory(
+                actual, snapshot -> safeToRelease.get(), new CommunityIdTypeConfigurationProvider() );
+        KernelTransactionsSnapshot allClosed = mock( KernelTransactionsSnapshot.class );
+        when( allClosed.allClosed() ).thenReturn( true );
+        bufferingIdGeneratorFactory.initialize( () -> allClosed );
+        IdGenerator idGenerator = bufferingIdGeneratorFactory.open(
+                new File( "doesnt-matter" ), 10, IdType.STRING_BLOCK, () -> 0L, Integer.MAX_VALUE );
+        IdGenerator actualIdGenerator = actual.get( IdType.STRING_BLOCK );
+
+        // a record deleted by a committed transaction, with the free of its id delayed
+        idGenerator.freeId( 7 );
+
+        // WHEN a rebuild, which also found that record not in use, completes
+        idGenerator.freeIds( new long[]{7} );
+        idGenerator.rebuildCompleted();
+        bufferingIdGeneratorFactory.maintenance();
+
+        // THEN ids must not be reused while the delayed free is still held back
+        verify( actualIdGenerator, never() ).rebuildCompleted();
+
+        // WHEN
+        safeToRelease.set( true );
+        bufferingIdGeneratorFactory.maintenance();
+
+        // THEN
+        InOrder inOrder = inOrder( actualIdGenerator );
+        inOrder.verify( actualIdGenerator ).freeIds( new long[]{7, 7} );
+        inOrder.verify( actualIdGenerator ).rebuildCompleted();
     }
 
     private static class ControllableSnapshotSupplier implements Supplier<KernelTransactionsSnapshot>
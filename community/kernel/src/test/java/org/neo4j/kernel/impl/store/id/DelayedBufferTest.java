@@ -48,6 +48,17 @@ public class DelayedBufferTest
 {
     @Test
     public void shouldHandleTheWholeWorkloadShebang() throws Throwable
+    {
+        shouldHandleTheWholeWorkloadShebang( 1 );
+    }
+
+    @Test
+    public void shouldHandleTheWholeWorkloadShebangWithStripes() throws Throwable
+    {
+        shouldHandleTheWholeWorkloadShebang( 8 );
+    }
+
+    private void shouldHandleTheWholeWorkloadShebang( int stripes ) throws Throwable
     {
         // GIVEN
         final int size = 1_000;
@@ -56,7 +67,7 @@ public class DelayedBufferTest
         final Clock clock = Clocks.systemClock();
         Supplier<Long> chunkThreshold = clock::millis;
         Predicate<Long> safeThreshold = time -> clock.millis() - bufferTime >= time;
-        final DelayedBuffer<Long> buffer = new DelayedBuffer<>( chunkThreshold, safeThreshold, 10, consumer );
+        final DelayedBuffer<Long> buffer = new DelayedBuffer<>( chunkThreshold, safeThreshold, 10, stripes, consumer );
         MaintenanceThread maintenance = new MaintenanceThread( buffer, 5 );
         Race adders = new Race();
         final int numberOfAdders = 20;
@@ -211,6 +222,29 @@ public class DelayedBufferTest
         verifyNoMoreInteractions( consumer );
     }
 
+    @Test
+    public void shouldReleaseValuesOfAllStripesOnClose() throws Throwable
+    {
+        // GIVEN
+        VerifyingConsumer consumer = new VerifyingConsumer( 10 );
+        DelayedBuffer<Long> buffer = new DelayedBuffer<>( singleton( 0L ), Predicates.alwaysFalse(), 100, 4, consumer );
+        Race race = new Race();
+        for ( int i = 0; i < 10; i++ )
+        {
+            long value = i;
+            race.addContestant( () -> buffer.offer( value ) );
+        }
+        race.go();
+
+        // WHEN
+        buffer.maintenance();
+        assertEquals( 0, consumer.chunksAccepted() );
+        buffer.close();
+
+        // THEN
+        consumer.assertHaveOnlySeenRange( 0, 9 );
+    }
+
     private static class MaintenanceThread extends Thread
     {
         private final DelayedBuffer buffer;
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+
+import org.neo4j.test.rule.PageCacheAndDependenciesRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GBPTreeIdGeneratorTest
+{
+    @Rule
+    public final PageCacheAndDependenciesRule storage = new PageCacheAndDependenciesRule();
+
+    @Test
+    public void shouldNotReuseIdsUntilRebuilt()
+    {
+        // given
+        File file = storage.directory().file( "ids" );
+        GBPTreeIdGenerator.createGenerator( storage.pageCache(), storage.fileSystem(), file, 0, false );
+        try ( GBPTreeIdGenerator idGenerator = open( file, true ) )
+        {
+            assertTrue( idGenerator.needsRebuild() );
+            for ( int i = 0; i < 10; i++ )
+            {
+                idGenerator.nextId();
+            }
+
+            // when
+            idGenerator.freeIds( new long[]{5, 3} );
+
+            // then
+            assertEquals( 10, idGenerator.nextId() );
+            idGenerator.rebuildCompleted();
+            assertEquals( 3, idGenerator.nextId() );
+            assertEquals( 5, idGenerator.nextId() );
+            assertEquals( 11, idGenerator.nextId() );
+        }
+    }
+
+    @Test
+    public void shouldKeepFreeIdsOverCleanRestart()
+    {
+        // given
+        File file = storage.directory().file( "ids" );
+        GBPTreeIdGenerator.createGenerator( storage.pageCache(), storage.fileSystem(), file, 0, false );
+        try ( GBPTreeIdGenerator idGenerator = open( file, true ) )
+        {
+            idGenerator.rebuildCompleted();
+            idGenerator.nextIdBatch( 200 );
+            idGenerator.freeIds( new long[]{150, 7, 64, 63} );
+            // takes 7, 63, 64 and 150 out of the tree, only to put 64 and 150 back on close
+            assertEquals( 7, idGenerator.nextId() );
+            assertEquals( 63, idGenerator.nextId() );
+        }
+
+        // when
+        try ( GBPTreeIdGenerator idGenerator = open( file, true ) )
+        {
+            // then
+            assertFalse( idGenerator.needsRebuild() );
+            assertEquals( 200, idGenerator.getHighId() );
+            assertEquals( 2, idGenerator.getDefragCount() );
+            IdRange batch = idGenerator.nextIdBatch( 3 );
+            assertArrayEquals( new long[]{64, 150}, batch.getDefragIds() );
+            assertEquals( 200, batch.getRangeStart() );
+            assertEquals( 1, batch.getRangeLength() );
+        }
+    }
+
+    @Test
+    public void shouldHoldFreedIdsUntilRestartWithoutAggressiveReuse()
+    {
+        // given
+        File file = storage.directory().file( "ids" );
+        GBPTreeIdGenerator.createGenerator( storage.pageCache(), storage.fileSystem(), file, 0, false );
+        try ( GBPTreeIdGenerator idGenerator = open( file, false ) )
+        {
+            idGenerator.rebuildCompleted();
+            idGenerator.nextIdBatch( 10 );
+
+            // when
+            idGenerator.freeId( 4 );
+
+            // then
+            assertEquals( 1, idGenerator.getDefragCount() );
+            assertEquals( 10, idGenerator.nextId() );
+        }
+        try ( GBPTreeIdGenerator idGenerator = open( file, false ) )
+        {
+            assertEquals( 4, idGenerator.nextId() );
+        }
+    }
+
+    @Test
+    public void shouldNeedRebuildAfterClosingBeforeRebuildCompleted()
+    {
+        // given
+        File file = storage.directory().file( "ids" );
+        GBPTreeIdGenerator.createGenerator( storage.pageCache(), storage.fileSystem(), file, 0, false );
+        try ( GBPTreeIdGenerator idGenerator = open( file, true ) )
+        {
+            idGenerator.nextIdBatch( 10 );
+            idGenerator.freeId( 2 );
+        }
+
+        // when
+        try ( GBPTreeIdGenerator idGenerator = open( file, true ) )
+        {
+            // then
+            assertTrue( idGenerator.needsRebuild() );
+            assertEquals( 10, idGenerator.nextId() );
+            idGenerator.rebuildCompleted();
+            assertEquals( 2, idGenerator.nextId() );
+        }
+    }
+
+    private GBPTreeIdGenerator open( File file, boolean aggressiveReuse )
+    {
+        return new GBPTreeIdGenerator( storage.pageCache(), storage.fileSystem(), file, 16, 1_000, aggressiveReuse,
+                IdType.NODE, () -> 0L );
+    }
+}
@@ -24,6 +24,11 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
 
 import org.neo4j.concurrent.Runnables;
@@ -224,6 +229,87 @@ public class ConcurrentMapStateTest
         assertFalse( versionContext.isDirty() );
     }
 
+    @Test
+    public void shouldApplyConcurrentIncrementsOfTheSameKey() throws Exception
+    {
+        // given
+        when( store.version() ).thenReturn( 0L );
+        ConcurrentMapState<String> mapState = createMapState();
+        int threads = 4;
+        int incrementsPerThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+
+        // when
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for ( int t = 0; t < threads; t++ )
+            {
+                long version = t + 1;
+                futures.add( executor.submit( () ->
+                {
+                    try ( EntryUpdater<String> updater = mapState.updater( version, lock ) )
+                    {
+                        for ( int i = 0; i < incrementsPerThread; i++ )
+                        {
+                            updater.apply( "a", new IncrementLong( 0, 1 ) );
+                        }
+                    }
+                    return null;
+                } ) );
+            }
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // then
+        assertEquals( threads * incrementsPerThread, lookup( mapState, "a" ) );
+    }
+
+    @Test
+    public void shouldFoldIncrementsIntoOtherUpdates() throws IOException
+    {
+        // given
+        when( store.version() ).thenReturn( 0L );
+        ConcurrentMapState<String> mapState = createMapState();
+        try ( EntryUpdater<String> updater = mapState.updater( 1, lock ) )
+        {
+            updater.apply( "a", new SimpleValueUpdate( 10 ) );
+            updater.apply( "a", new IncrementLong( 0, 5 ) );
+        }
+        assertEquals( 15, lookup( mapState, "a" ) );
+
+        // when
+        try ( EntryUpdater<String> updater = mapState.updater( 2, lock ) )
+        {
+            updater.apply( "a", new SimpleValueUpdate( 1 ) );
+            updater.apply( "a", new IncrementLong( 0, 2 ) );
+        }
+
+        // then
+        assertEquals( 3, lookup( mapState, "a" ) );
+    }
+
+    private static long lookup( ConcurrentMapState<String> mapState, String key ) throws IOException
+    {
+        long[] value = new long[1];
+        assertTrue( mapState.lookup( key, new ValueSink()
+        {
+            @Override
+            protected void value( ReadableBuffer buffer )
+            {
+                value[0] = buffer.getLong( 0 );
+            }
+        } ) );
+        return value[0];
+    }
+
     private ConcurrentMapState<String> createMapState()
     {
         return createMapState( EmptyVersionContextSupplier.EMPTY );
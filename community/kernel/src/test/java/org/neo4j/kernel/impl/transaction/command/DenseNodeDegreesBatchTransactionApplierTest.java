@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import org.junit.Test;
+
+import org.neo4j.kernel.impl.api.TransactionApplier;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.store.DenseNodeDegrees;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipGroupCommand;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.neo4j.kernel.impl.store.DenseNodeDegrees.INCOMING;
+import static org.neo4j.kernel.impl.store.DenseNodeDegrees.LOOP;
+import static org.neo4j.kernel.impl.store.DenseNodeDegrees.OUTGOING;
+import static org.neo4j.kernel.impl.store.record.Record.NO_NEXT_PROPERTY;
+import static org.neo4j.kernel.impl.store.record.Record.NO_NEXT_RELATIONSHIP;
+
+public class DenseNodeDegreesBatchTransactionApplierTest
+{
+    private static final int TYPE = 3;
+
+    private final DenseNodeDegrees degrees = new DenseNodeDegrees();
+    private final DenseNodeDegreesBatchTransactionApplier applier =
+            new DenseNodeDegreesBatchTransactionApplier( degrees );
+
+    @Test
+    public void shouldUpdateDegreesFromFirstRelationshipsInChains() throws Exception
+    {
+        // GIVEN
+        cache( 1, OUTGOING, 10 );
+        cache( 2, INCOMING, 20 );
+
+        // WHEN
+        apply( new RelationshipCommand( new RelationshipRecord( 5 ), relationship( 5, 1, 2, true, 11, true, 21 ) ) );
+
+        // THEN
+        assertEquals( 11, cached( 1, OUTGOING ) );
+        assertEquals( 21, cached( 2, INCOMING ) );
+    }
+
+    @Test
+    public void shouldNotUpdateDegreesFromRelationshipsFurtherDownChains() throws Exception
+    {
+        // GIVEN
+        cache( 1, OUTGOING, 10 );
+        cache( 2, INCOMING, 20 );
+
+        // WHEN
+        apply( new RelationshipCommand( new RelationshipRecord( 5 ), relationship( 5, 1, 2, false, 4, false, 6 ) ) );
+
+        // THEN
+        assertEquals( 10, cached( 1, OUTGOING ) );
+        assertEquals( 20, cached( 2, INCOMING ) );
+    }
+
+    @Test
+    public void shouldUpdateLoopDegreeFromFirstLoopInChain() throws Exception
+    {
+        // GIVEN
+        cache( 1, OUTGOING, 10 );
+        cache( 1, LOOP, 2 );
+
+        // WHEN
+        apply( new RelationshipCommand( new RelationshipRecord( 5 ), relationship( 5, 1, 1, true, 3, true, 3 ) ) );
+
+        // THEN
+        assertEquals( 10, cached( 1, OUTGOING ) );
+        assertEquals( 3, cached( 1, LOOP ) );
+    }
+
+    @Test
+    public void shouldSetDegreeOfEmptiedChainsToZero() throws Exception
+    {
+        // GIVEN
+        cache( 1, OUTGOING, 1 );
+        cache( 1, INCOMING, 1 );
+
+        // WHEN
+        RelationshipGroupRecord before = group( 7, 1, 8, 9 );
+        RelationshipGroupRecord after = group( 7, 1, NO_NEXT_RELATIONSHIP.intValue(), 9 );
+        apply( new RelationshipGroupCommand( before, after ) );
+
+        // THEN
+        assertEquals( 0, cached( 1, OUTGOING ) );
+        assertEquals( 1, cached( 1, INCOMING ) );
+    }
+
+    @Test
+    public void shouldForgetDegreesOfDeletedGroup() throws Exception
+    {
+        // GIVEN
+        cache( 1, OUTGOING, 1 );
+        cache( 1, INCOMING, 1 );
+
+        // WHEN
+        RelationshipGroupRecord before = group( 7, 1, 8, 9 );
+        apply( new RelationshipGroupCommand( before, new RelationshipGroupRecord( 7 ) ) );
+
+        // THEN
+        assertEquals( -1, cached( 1, OUTGOING ) );
+        assertEquals( -1, cached( 1, INCOMING ) );
+    }
+
+    private void apply( Command command ) throws Exception
+    {
+        try ( TransactionApplier txApplier = applier.startTx( mock( TransactionToApply.class ) ) )
+        {
+            command.handle( txApplier );
+        }
+    }
+
+    private void cache( long nodeId, int direction, long degree )
+    {
+        degrees.degree( nodeId, TYPE, direction, () -> degree );
+    }
+
+    private long cached( long nodeId, int direction )
+    {
+        return degrees.degree( nodeId, TYPE, direction, () -> -1 );
+    }
+
+    private static RelationshipRecord relationship( long id, long firstNode, long secondNode,
+            boolean firstInFirstChain, long firstPrevRel, boolean firstInSecondChain, long secondPrevRel )
+    {
+        return new RelationshipRecord( id ).initialize( true, NO_NEXT_PROPERTY.intValue(), firstNode, secondNode, TYPE,
+                firstPrevRel, NO_NEXT_RELATIONSHIP.intValue(), secondPrevRel, NO_NEXT_RELATIONSHIP.intValue(),
+                firstInFirstChain, firstInSecondChain );
+    }
+
+    private static RelationshipGroupRecord group( long id, long owningNode, long firstOut, long firstIn )
+    {
+        return new RelationshipGroupRecord( id ).initialize( true, TYPE, firstOut, firstIn,
+                NO_NEXT_RELATIONSHIP.intValue(), owningNode, NO_NEXT_RELATIONSHIP.intValue() );
+    }
+}
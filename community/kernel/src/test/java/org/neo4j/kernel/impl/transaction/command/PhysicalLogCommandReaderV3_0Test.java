@@ -34,6 +34,7 @@ import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
 import org.neo4j.storageengine.api.CommandReader;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class PhysicalLogCommandReaderV3_0Test
@@ -437,6 +438,51 @@ public class PhysicalLogCommandReaderV3_0Test
         assertTrue( neoStoreCommand.getAfter().isUseFixedReferences() );
     }
 
+    @Test
+    public void readNodeCommandWithInlinedProperties302() throws IOException
+    {
+        InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        NodeRecord before = new NodeRecord( 42, false, 1, 2 );
+        before.setInUse( true );
+        before.setInlinedProperties( new long[]{3, 4}, 2, 5 );
+        NodeRecord after = new NodeRecord( 42, false, 1, 2 );
+        after.setInUse( true );
+        after.setInlinedProperties( new long[]{6}, 1, -1 );
+        new Command.NodeCommand( before, after ).serialize( channel );
+        Commands.createNode( 43 ).serialize( channel );
+
+        PhysicalLogCommandReaderV3_0_2 reader = new PhysicalLogCommandReaderV3_0_2();
+        Command command = reader.read( channel );
+        assertTrue( command instanceof Command.NodeCommand );
+
+        Command.NodeCommand nodeCommand = (Command.NodeCommand) command;
+        assertTrue( nodeCommand.getBefore().inlinesProperties( new long[]{3, 4}, 2, 5 ) );
+        assertTrue( nodeCommand.getAfter().inlinesProperties( new long[]{6}, 1, -1 ) );
+        assertTrue( reader.read( channel ) instanceof Command.NodeCommand );
+    }
+
+    @Test
+    public void readRelationshipCommandWithInlinedProperties302() throws IOException
+    {
+        InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        RelationshipRecord before = new RelationshipRecord( 42, -1, -1, -1 );
+        RelationshipRecord after = new RelationshipRecord( 42, true, 1, 2, 3, 4, 5, 6, 7, true, true );
+        after.setSecondaryUnitId( 47 );
+        after.setInlinedProperties( new long[]{8, 9, 10, 11}, 4, 12 );
+        new Command.RelationshipCommand( before, after ).serialize( channel );
+        Commands.createNode( 43 ).serialize( channel );
+
+        PhysicalLogCommandReaderV3_0_2 reader = new PhysicalLogCommandReaderV3_0_2();
+        Command command = reader.read( channel );
+        assertTrue( command instanceof Command.RelationshipCommand );
+
+        Command.RelationshipCommand relationshipCommand = (Command.RelationshipCommand) command;
+        assertFalse( relationshipCommand.getBefore().hasInlinedProperties() );
+        verifySecondaryUnit( after, relationshipCommand.getAfter() );
+        assertTrue( relationshipCommand.getAfter().inlinesProperties( new long[]{8, 9, 10, 11}, 4, 12 ) );
+        assertTrue( reader.read( channel ) instanceof Command.NodeCommand );
+    }
+
     @Test
     public void shouldReadSomeCommands() throws Exception
     {
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.state;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.RecordStore;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PrimitiveRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.state.RecordAccess.Loader;
+import org.neo4j.unsafe.batchinsert.internal.DirectRecordAccess;
+import org.neo4j.values.storable.Values;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PropertyInlinerTest
+{
+    private static final long NODE = 1;
+    private static final long RELATIONSHIP = 2;
+    private static final long FIRST = 10;
+    private static final long SECOND = 11;
+    private static final long RELATIONSHIP_FIRST = 12;
+
+    // The maps play the role of the stores, the record accesses the one of the transaction state
+    private final Map<Long,NodeRecord> nodeStore = new HashMap<>();
+    private final Map<Long,RelationshipRecord> relationshipStore = new HashMap<>();
+    private final Map<Long,PropertyRecord> propertyStore = new HashMap<>();
+    @SuppressWarnings( "unchecked" )
+    private final RecordAccess<NodeRecord,Void> nodes =
+            new DirectRecordAccess<>( mock( RecordStore.class ), new MapLoader<>( nodeStore ) );
+    @SuppressWarnings( "unchecked" )
+    private final RecordAccess<RelationshipRecord,Void> relationships =
+            new DirectRecordAccess<>( mock( RecordStore.class ), new MapLoader<>( relationshipStore ) );
+    private final PropertyMapLoader propertyLoader = new PropertyMapLoader( propertyStore );
+    @SuppressWarnings( "unchecked" )
+    private final RecordAccess<PropertyRecord,PrimitiveRecord> properties =
+            new DirectRecordAccess<>( mock( RecordStore.class ), propertyLoader );
+    private final RecordAccessSet records = mock( RecordAccessSet.class );
+    private final PropertyInliner inliner = new PropertyInliner();
+
+    @Before
+    public void setUp()
+    {
+        when( records.getNodeRecords() ).thenReturn( nodes );
+        when( records.getRelRecords() ).thenReturn( relationships );
+        when( records.getPropertyRecords() ).thenReturn( properties );
+
+        NodeRecord node = new NodeRecord( NODE ).initialize( true, FIRST, false, Record.NO_NEXT_RELATIONSHIP.intValue(), 0 );
+        PropertyRecord first = property( FIRST, node, Record.NO_PREVIOUS_PROPERTY.intValue(), SECOND, 0, 42 );
+        property( SECOND, node, FIRST, Record.NO_NEXT_PROPERTY.intValue(), 1, 7 );
+        long[] blocks = blocksOf( first );
+        node.setInlinedProperties( blocks, blocks.length, SECOND );
+        nodeStore.put( NODE, node );
+
+        // The property record is not part of the chain of the relationship yet
+        RelationshipRecord relationship = new RelationshipRecord( RELATIONSHIP )
+                .initialize( true, Record.NO_NEXT_PROPERTY.intValue(), NODE, NODE, 0, 1, -1, 1, -1, true, true );
+        property( RELATIONSHIP_FIRST, relationship, Record.NO_PREVIOUS_PROPERTY.intValue(),
+                Record.NO_NEXT_PROPERTY.intValue(), 0, 1 );
+        relationshipStore.put( RELATIONSHIP, relationship );
+    }
+
+    @Test
+    public void shouldRefreshCopyWhenFirstPropertyRecordChangesWithoutItsOwner()
+    {
+        // GIVEN
+        PropertyRecord first = properties.getOrLoad( FIRST, null ).forChangingData();
+        first.removePropertyBlock( 0 );
+        first.addPropertyBlock( block( 0, 43 ) );
+
+        // WHEN
+        inliner.inline( records );
+
+        // THEN
+        NodeRecord node = nodes.getIfLoaded( NODE ).forReadingLinkage();
+        assertCopyOf( first, node );
+    }
+
+    @Test
+    public void shouldNotChangeOwnerWhoseCopyIsUpToDate()
+    {
+        // GIVEN
+        PropertyRecord second = properties.getOrLoad( SECOND, null ).forChangingData();
+        second.removePropertyBlock( 1 );
+        second.addPropertyBlock( block( 1, 8 ) );
+
+        // WHEN
+        inliner.inline( records );
+
+        // THEN
+        assertEquals( 0, nodes.changeSize() );
+    }
+
+    @Test
+    public void shouldClearCopyOfDeletedOwner()
+    {
+        // GIVEN
+        nodes.getOrLoad( NODE, null ).forChangingLinkage().setInUse( false );
+
+        // WHEN
+        inliner.inline( records );
+
+        // THEN
+        NodeRecord node = nodes.getIfLoaded( NODE ).forReadingLinkage();
+        assertFalse( node.hasInlinedProperties() );
+        assertEquals( Record.NO_NEXT_PROPERTY.intValue(), node.getInlinedNextProp() );
+    }
+
+    @Test
+    public void shouldCopyFirstPropertyRecordOfRelationshipWithNewPropertyChain()
+    {
+        // GIVEN
+        relationships.getOrLoad( RELATIONSHIP, null ).forChangingLinkage().setNextProp( RELATIONSHIP_FIRST );
+
+        // WHEN
+        inliner.inline( records );
+
+        // THEN
+        RelationshipRecord relationship = relationships.getIfLoaded( RELATIONSHIP ).forReadingLinkage();
+        assertCopyOf( propertyStore.get( RELATIONSHIP_FIRST ), relationship );
+    }
+
+    @Test
+    public void shouldNotLoadPropertiesOfOwnerChangedOutsideItsPropertyChain()
+    {
+        // GIVEN
+        nodes.getOrLoad( NODE, null ).forChangingLinkage().setNextRel( RELATIONSHIP );
+        relationships.getOrLoad( RELATIONSHIP, null ).forChangingLinkage().setFirstInSecondChain( false );
+
+        // WHEN
+        inliner.inline( records );
+
+        // THEN
+        assertEquals( 0, propertyLoader.loads );
+        assertTrue( nodes.getIfLoaded( NODE ).forReadingLinkage().hasInlinedProperties() );
+        assertFalse( relationships.getIfLoaded( RELATIONSHIP ).forReadingLinkage().hasInlinedProperties() );
+    }
+
+    private PropertyRecord property( long id, PrimitiveRecord owner, long prevProp, long nextProp, int key, int value )
+    {
+        PropertyRecord record = new PropertyRecord( id, owner );
+        record.initialize( true, prevProp, nextProp );
+        record.addPropertyBlock( block( key, value ) );
+        propertyStore.put( id, record );
+        return record;
+    }
+
+    private static PropertyBlock block( int key, int value )
+    {
+        PropertyBlock block = new PropertyBlock();
+        PropertyStore.encodeValue( block, key, Values.of( value ), null, null, true );
+        return block;
+    }
+
+    private static long[] blocksOf( PropertyRecord record )
+    {
+        long[] blocks = new long[0];
+        for ( PropertyBlock block : record )
+        {
+            long[] valueBlocks = block.getValueBlocks();
+            long[] grown = new long[blocks.length + valueBlocks.length];
+            System.arraycopy( blocks, 0, grown, 0, blocks.length );
+            System.arraycopy( valueBlocks, 0, grown, blocks.length, valueBlocks.length );
+            blocks = grown;
+        }
+        return blocks;
+    }
+
+    private static void assertCopyOf( PropertyRecord first, PrimitiveRecord owner )
+    {
+        assertNotNull( owner );
+        long[] blocks = blocksOf( first );
+        assertTrue( owner.hasInlinedProperties() );
+        assertTrue( owner.inlinesProperties( blocks, blocks.length, first.getNextProp() ) );
+    }
+
+    private static class MapLoader<RECORD extends AbstractBaseRecord> implements Loader<RECORD,Void>
+    {
+        private final Map<Long,RECORD> store;
+
+        MapLoader( Map<Long,RECORD> store )
+        {
+            this.store = store;
+        }
+
+        @Override
+        public RECORD newUnused( long key, Void additionalData )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public RECORD load( long key, Void additionalData )
+        {
+            return clone( store.get( key ) );
+        }
+
+        @Override
+        public void ensureHeavy( RECORD record )
+        {
+        }
+
+        @SuppressWarnings( "unchecked" )
+        @Override
+        public RECORD clone( RECORD record )
+        {
+            return (RECORD) record.clone();
+        }
+    }
+
+    private static class PropertyMapLoader implements Loader<PropertyRecord,PrimitiveRecord>
+    {
+        private final Map<Long,PropertyRecord> store;
+        private int loads;
+
+        PropertyMapLoader( Map<Long,PropertyRecord> store )
+        {
+            this.store = store;
+        }
+
+        @Override
+        public PropertyRecord newUnused( long key, PrimitiveRecord additionalData )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PropertyRecord load( long key, PrimitiveRecord additionalData )
+        {
+            loads++;
+            PropertyRecord record = store.get( key ).clone();
+            if ( additionalData != null )
+            {
+                additionalData.setIdTo( record );
+            }
+            return record;
+        }
+
+        @Override
+        public void ensureHeavy( PropertyRecord record )
+        {
+        }
+
+        @Override
+        public PropertyRecord clone( PropertyRecord record )
+        {
+            return record.clone();
+        }
+    }
+}
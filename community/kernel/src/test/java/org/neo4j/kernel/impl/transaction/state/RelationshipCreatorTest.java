@@ -94,6 +94,26 @@ public class RelationshipCreatorTest
         assertFalse( tracker.relationshipLocksAcquired.isEmpty() );
     }
 
+    @Test
+    public void shouldNotChangeDenseNodeRecordWhenCreatingRelationshipOfExistingType()
+    {
+        // GIVEN
+        long nodeId = createNodeWithRelationships( DENSE_NODE_THRESHOLD + 1 );
+        NeoStores neoStores = flipToNeoStores();
+
+        Tracker tracker = new Tracker( neoStores );
+        RelationshipGroupGetter groupGetter = new RelationshipGroupGetter( neoStores.getRelationshipGroupStore() );
+        RelationshipCreator relationshipCreator = new RelationshipCreator( groupGetter, DENSE_NODE_THRESHOLD );
+
+        // WHEN
+        relationshipCreator.relationshipCreate( idGeneratorFactory.get( IdType.RELATIONSHIP ).nextId(), 0,
+                nodeId, nodeId, tracker, tracker );
+
+        // THEN
+        assertEquals( 0, tracker.getNodeRecords().changeSize() );
+        assertEquals( 1, tracker.getRelGroupRecords().changeSize() );
+    }
+
     private NeoStores flipToNeoStores()
     {
         return dbRule.getGraphDatabaseAPI().getDependencyResolver().resolveDependency(
@@ -1358,7 +1358,7 @@ public class TransactionRecordStateTest
                         neoStores.getRelationshipGroupStore().getStoreHeaderInt() ),
                 new RelationshipDeleter( relationshipGroupGetter, propertyDeleter ),
                 new PropertyCreator( neoStores.getPropertyStore(), propertyTraverser ),
-                propertyDeleter );
+                propertyDeleter, null );
     }
 
     private TransactionRepresentation transaction( TransactionRecordState recordState )
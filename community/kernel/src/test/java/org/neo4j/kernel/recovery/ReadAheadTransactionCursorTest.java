@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class ReadAheadTransactionCursorTest
+{
+    @Test
+    public void shouldDeliverAllTransactionsInOrderWithTheirPositions() throws Exception
+    {
+        // given
+        SourceCursor source = new SourceCursor( 100, -1 );
+
+        // when
+        try ( ReadAheadTransactionCursor cursor = new ReadAheadTransactionCursor( source, 3, "test" ) )
+        {
+            // then
+            for ( int i = 0; i < 100; i++ )
+            {
+                assertTrue( cursor.next() );
+                assertSame( source.transactions[i], cursor.get() );
+                assertEquals( new LogPosition( 0, i + 1 ), cursor.position() );
+            }
+            assertFalse( cursor.next() );
+            assertFalse( cursor.next() );
+        }
+        assertTrue( source.closed );
+    }
+
+    @Test
+    public void shouldThrowReadFailureOnlyAfterTransactionsReadBeforeIt() throws Exception
+    {
+        // given
+        SourceCursor source = new SourceCursor( 10, 5 );
+
+        // when
+        try ( ReadAheadTransactionCursor cursor = new ReadAheadTransactionCursor( source, 100, "test" ) )
+        {
+            for ( int i = 0; i < 5; i++ )
+            {
+                assertTrue( cursor.next() );
+                assertSame( source.transactions[i], cursor.get() );
+            }
+            cursor.next();
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {
+            // then
+            assertEquals( "Corrupted", e.getMessage() );
+        }
+        assertTrue( source.closed );
+    }
+
+    @Test
+    public void shouldCloseSourceWhenClosedBeforeConsumingEverything() throws Exception
+    {
+        // given
+        SourceCursor source = new SourceCursor( 1_000, -1 );
+
+        // when
+        try ( ReadAheadTransactionCursor cursor = new ReadAheadTransactionCursor( source, 2, "test" ) )
+        {
+            assertTrue( cursor.next() );
+        }
+
+        // then
+        assertTrue( source.closed );
+    }
+
+    private static class SourceCursor implements TransactionCursor
+    {
+        private final CommittedTransactionRepresentation[] transactions;
+        private final int failAt;
+        private int index = -1;
+        private volatile boolean closed;
+
+        SourceCursor( int count, int failAt )
+        {
+            this.transactions = new CommittedTransactionRepresentation[count];
+            for ( int i = 0; i < count; i++ )
+            {
+                transactions[i] = mock( CommittedTransactionRepresentation.class );
+            }
+            this.failAt = failAt;
+        }
+
+        @Override
+        public boolean next() throws IOException
+        {
+            if ( index + 1 == failAt )
+            {
+                throw new IOException( "Corrupted" );
+            }
+            if ( index + 1 < transactions.length )
+            {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public CommittedTransactionRepresentation get()
+        {
+            return transactions[index];
+        }
+
+        @Override
+        public LogPosition position()
+        {
+            return new LogPosition( 0, index + 1 );
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+}
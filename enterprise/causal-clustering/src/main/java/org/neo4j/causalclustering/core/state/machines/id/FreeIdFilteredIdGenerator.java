@@ -45,4 +45,13 @@ public class FreeIdFilteredIdGenerator extends IdGenerator.Delegate
             super.freeId( id );
         }
     }
+
+    @Override
+    public void freeIds( long[] ids )
+    {
+        if ( freeIdCondition.getAsBoolean() )
+        {
+            super.freeIds( ids );
+        }
+    }
 }
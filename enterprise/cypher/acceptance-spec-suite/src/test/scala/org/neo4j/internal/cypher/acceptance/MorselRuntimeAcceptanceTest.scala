@@ -19,6 +19,8 @@
  */
 package org.neo4j.internal.cypher.acceptance
 
+import java.util.concurrent.{Callable, Executors, TimeUnit}
+
 import org.neo4j.cypher.ExecutionEngineFunSuite
 import org.neo4j.graphdb.config.Setting
 import org.neo4j.graphdb.factory.GraphDatabaseSettings
@@ -239,6 +241,231 @@ class MorselRuntimeAcceptanceTest extends ExecutionEngineFunSuite {
     result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
   }
 
+  test("should count all nodes scanned by several workers") {
+    //Given
+    graph.inTx {
+      1 to 5000 foreach(i => graph.createNode())
+    }
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (n) RETURN count(n)")
+
+    //Then
+    asScalaResult(result).toSet should equal(Set(Map("count(n)" -> 5000)))
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should return every labeled node exactly once when scanned by several workers") {
+    //Given
+    graph.inTx {
+      1 to 5000 foreach(i => if (i % 3 == 0) createLabeledNode(Map("prop" -> i), "L") else graph.createNode())
+    }
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (n:L) RETURN n.prop")
+
+    //Then
+    asScalaResult(result).toList.map(_("n.prop")) should contain theSameElementsAs (3 to 5000 by 3)
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should return every node exactly once when scanned by several workers") {
+    //Given
+    val ids = graph.inTx {
+      (1 to 5000).map(i => graph.createNode().getId)
+    }
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (n) RETURN id(n)")
+
+    //Then
+    asScalaResult(result).toList.map(_("id(n)")) should contain theSameElementsAs ids
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should skip over deleted nodes when scanned by several workers") {
+    //Given
+    val nodes = graph.inTx {
+      (1 to 5000).map(i => graph.createNode())
+    }
+    graph.inTx {
+      // Leaves some batches of the scan without any node in use
+      nodes.slice(1000, 3000).foreach(_.delete())
+      nodes.slice(3000, 5000).zipWithIndex.foreach { case (node, i) => if (i % 2 == 0) node.delete() }
+    }
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (n) RETURN count(n)")
+
+    //Then
+    asScalaResult(result).toSet should equal(Set(Map("count(n)" -> 2000)))
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should return labeled nodes only found in the last batches when scanned by several workers") {
+    //Given
+    graph.inTx {
+      1 to 5000 foreach(i => if (i > 4900) createLabeledNode(Map("prop" -> i), "L") else graph.createNode())
+    }
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (n:L) RETURN n.prop")
+
+    //Then
+    asScalaResult(result).toList.map(_("n.prop")) should contain theSameElementsAs (4901 to 5000)
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should return nothing when no node has the label scanned by several workers") {
+    //Given
+    graph.inTx {
+      1 to 5000 foreach(i => graph.createNode())
+      createLabeledNode("L").delete()
+    }
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (n:L) RETURN count(n)")
+
+    //Then
+    asScalaResult(result).toSet should equal(Set(Map("count(n)" -> 0)))
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should support expand into") {
+    //Given
+    val a = createNode("prop" -> "a")
+    val b = createNode("prop" -> "b")
+    val c = createNode("prop" -> "c")
+    relate(a, b)
+    relate(b, c)
+    relate(a, c)
+    relate(c, a)
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (x)-->(y)-->(z), (x)-->(z) RETURN x.prop, y.prop, z.prop")
+
+    //Then
+    asScalaResult(result).toList should equal(List(Map("x.prop" -> "a", "y.prop" -> "b", "z.prop" -> "c")))
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should support optional expand") {
+    //Given
+    val a = createNode("prop" -> 1)
+    createNode("prop" -> 2)
+    relate(a, createNode("prop" -> 3))
+    relate(a, createNode("prop" -> 4))
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (n) WHERE n.prop < 3 OPTIONAL MATCH (n)-->(m) WHERE m.prop > 3 RETURN n.prop, m.prop")
+
+    //Then
+    asScalaResult(result).toSet should equal(Set(
+      Map("n.prop" -> 1, "m.prop" -> 4),
+      Map("n.prop" -> 2, "m.prop" -> null)
+    ))
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should support distinct") {
+    //Given
+    1 to 100 foreach(i => createNode("prop" -> i % 7))
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (n) RETURN DISTINCT n.prop")
+
+    //Then
+    asScalaResult(result).toList.map(_("n.prop")) should contain theSameElementsAs (0 to 6)
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should support skip and limit") {
+    //Given
+    1 to 100 foreach(i => createNode("prop" -> i))
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (n) RETURN n.prop SKIP 10 LIMIT 25")
+
+    //Then
+    val values = asScalaResult(result).toList.map(_("n.prop"))
+    values should have size 25
+    values.distinct should have size 25
+    (1 to 100) should contain allElementsOf values
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should support skip and limit after ordering") {
+    //Given
+    1 to 100 foreach(i => createNode("prop" -> i))
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (n) RETURN n.prop ORDER BY n.prop SKIP 10 LIMIT 25")
+
+    //Then
+    asScalaResult(result).toList.map(_("n.prop")) should equal(11 to 35)
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should support limit") {
+    //Given
+    1 to 100 foreach(i => createNode("prop" -> i))
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (n) RETURN n.prop LIMIT 7")
+
+    //Then
+    val values = asScalaResult(result).toList.map(_("n.prop"))
+    values should have size 7
+    values.distinct should have size 7
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should support distinct followed by ordering") {
+    //Given
+    1 to 100 foreach(i => createNode("prop" -> i % 7))
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (n) RETURN DISTINCT n.prop ORDER BY n.prop")
+
+    //Then
+    asScalaResult(result).toList.map(_("n.prop")) should equal(0 to 6)
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should support top") {
+    //Given
+    1 to 100 foreach(i => createNode("prop" -> i))
+
+    //When
+    val result = graph.execute("CYPHER runtime=morsel MATCH (n) RETURN n.prop ORDER BY n.prop DESC LIMIT 6")
+
+    //Then
+    asScalaResult(result).toList.map(_("n.prop")) should equal(List(100, 99, 98, 97, 96, 95))
+    result.getExecutionPlanDescription.getArguments.get("runtime") should equal("MORSEL")
+  }
+
+  test("should run several queries at the same time") {
+    //Given
+    graph.inTx {
+      1 to 1000 foreach(i => createNode("prop" -> i))
+    }
+    val executor = Executors.newFixedThreadPool(8)
+
+    //When
+    val counts = try {
+      val futures = (1 to 8).map(_ => executor.submit(new Callable[Any] {
+        override def call(): Any =
+          asScalaResult(graph.execute("CYPHER runtime=morsel MATCH (n) RETURN count(n.prop)")).toList.head("count(n.prop)")
+      }))
+      futures.map(_.get(1, TimeUnit.MINUTES))
+    } finally {
+      executor.shutdownNow()
+    }
+
+    //Then
+    counts should equal(Seq.fill(8)(1000))
+  }
+
   //we use a ridiculously small morsel size in order to trigger as many morsel overflows as possible
   override def databaseConfig(): Map[Setting[_], String] = Map(GraphDatabaseSettings.cypher_morsel_size -> "4")
 }
@@ -64,10 +64,13 @@ public class EnterpriseCypherEngineProvider extends QueryEngineProvider
         EnterpriseCompatibilityFactory compatibilityFactory =
                 new EnterpriseCompatibilityFactory( inner, queryService, monitors, logProvider );
         deps.satisfyDependency( compatibilityFactory );
-        return createEngine( queryService, config, logProvider, compatibilityFactory );
+        ExecutionEngine engine = createEngine( queryService, config, logProvider, compatibilityFactory );
+        // Only the engine of the database remembers its hottest queries, engines created elsewhere leave the file alone
+        engine.startQueryCacheWarmup();
+        return engine;
     }
 
-    private QueryExecutionEngine createEngine( GraphDatabaseCypherService queryService, Config config,
+    private ExecutionEngine createEngine( GraphDatabaseCypherService queryService, Config config,
             LogProvider logProvider, EnterpriseCompatibilityFactory compatibilityFactory )
     {
         return config.get( GraphDatabaseSettings.snapshot_query ) ?
@@ -37,6 +37,7 @@ import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.{Community
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.Pipe
 import org.neo4j.cypher.internal.runtime.slotted.{SlottedExecutionResultBuilderFactory, SlottedPipeBuilder}
 import org.neo4j.cypher.internal.runtime.slotted.expressions.SlottedExpressionConverters
+import org.neo4j.cypher.internal.runtime.slotted.expressions.compiled.CompiledExpressionConverter
 import org.neo4j.cypher.internal.runtime.{ExecutionMode, InternalExecutionResult, QueryContext}
 import org.neo4j.cypher.internal.util.v3_4.CypherException
 import org.neo4j.cypher.internal.v3_4.logical.plans.{IndexUsage, LogicalPlan}
@@ -81,7 +82,9 @@ object BuildSlottedExecutionPlan extends Phase[EnterpriseRuntimeContext, Logical
         printRewrittenPlanInfo(logicalPlan)
       }
 
-      val converters = new ExpressionConverters(SlottedExpressionConverters, CommunityExpressionConverter)
+      val interpretedConverters = new ExpressionConverters(SlottedExpressionConverters, CommunityExpressionConverter)
+      val converters = new ExpressionConverters(new CompiledExpressionConverter(interpretedConverters),
+                                                SlottedExpressionConverters, CommunityExpressionConverter)
       val pipeBuilderFactory = SlottedPipeBuilder.Factory(physicalPlan)
       val executionPlanBuilder = new PipeExecutionPlanBuilder(context.clock, context.monitors,
                                                               expressionConverters = converters,
@@ -96,13 +99,15 @@ object BuildSlottedExecutionPlan extends Phase[EnterpriseRuntimeContext, Logical
       val columns = from.statement().returnColumns
       val resultBuilderFactory =
         new SlottedExecutionResultBuilderFactory(pipeInfo, columns, logicalPlan, physicalPlan.slotConfigurations)
+      val fingerprint = context.createFingerprintReference(fp)
+      val sampler = BuildInterpretedExecutionPlan.cardinalitySampler(from, logicalPlan, context, fingerprint)
       val func = BuildInterpretedExecutionPlan.getExecutionPlanFunction(periodicCommitInfo, updating,
                                                                         resultBuilderFactory,
                                                                         context.notificationLogger,
                                                                         SlottedRuntimeName,
                                                                         readOnlies,
-                                                                        from.cardinalities)
-      val fingerprint = context.createFingerprintReference(fp)
+                                                                        from.cardinalities,
+                                                                        sampler)
       val periodicCommit = periodicCommitInfo.isDefined
       val indexes = logicalPlan.indexUsage
       val execPlan = SlottedExecutionPlan(fingerprint, periodicCommit, planner, indexes, func)
@@ -21,6 +21,7 @@ package org.neo4j.cypher.internal.runtime.vectorized
 
 import org.neo4j.cypher.internal.runtime.slotted.SlottedExecutionContext
 import org.neo4j.cypher.internal.util.v3_4.InternalException
+import org.neo4j.internal.kernel.api.Scan
 
 sealed trait Message {
   def iterationState: Iteration
@@ -31,6 +32,8 @@ sealed trait Message {
 * not other runs will be scheduled, giving the pipeline a chance to initialise global state.
 * */
 case class StartLeafLoop(iterationState: Iteration) extends Message
+/* Starts one of several loops over the same leaf, each reserving its own batches from a scan shared by all of them */
+case class StartParallelLeafLoop(scan: Scan[_], iterationState: Iteration) extends Message
 case class StartLoopWithSingleMorsel(data: Morsel, iterationState: Iteration) extends Message
 case class StartLoopWithEagerData(data: Array[Morsel], iterationState: Iteration) extends Message
 
@@ -58,6 +61,17 @@ case class ContinueWithData(data: Morsel, index: Int, iteration: Iteration) exte
 
 case class ContinueWithSource[T](source: T, iteration: Iteration, needsSameThread: Boolean) extends Continue
 
+object Continuation {
+  /*
+  Closes the cursors held by a loop that is ended before it has run out of input
+   */
+  def closeSource(message: Message): Unit = message match {
+    case ContinueLoopWith(ContinueWithSource(source: AutoCloseable, _, _)) => source.close()
+    case ContinueLoopWith(ContinueWithDataAndSource(_, _, source: AutoCloseable, _)) => source.close()
+    case _ =>
+  }
+}
+
 case class ContinueWithDataAndSource[T](data: Morsel, index: Int, source: T, iteration: Iteration)
   extends Continue {
   override val needsSameThread = true
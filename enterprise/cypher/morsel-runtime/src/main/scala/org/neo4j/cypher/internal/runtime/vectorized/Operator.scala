@@ -20,10 +20,13 @@
 package org.neo4j.cypher.internal.runtime.vectorized
 
 import java.util
+import java.util.concurrent.ConcurrentHashMap
+import java.util.function
 
 import org.neo4j.cypher.internal.compatibility.v3_4.runtime.SlotConfiguration
 import org.neo4j.cypher.internal.runtime.QueryContext
 import org.neo4j.cypher.result.QueryResult.QueryResultVisitor
+import org.neo4j.internal.kernel.api.Scan
 import org.neo4j.values.virtual.MapValue
 
 trait Operator {
@@ -35,6 +38,18 @@ trait Operator {
   def addDependency(pipeline: Pipeline): Dependency
 }
 
+/*
+A leaf operator that can run on several workers at once. The dispatcher creates one scan per query, and each worker
+reserves batches of it until it is exhausted, instead of a single worker reading the whole leaf. The scan is the only
+state the workers share: every batch is read with a cursor of the worker thread that reserved it.
+ */
+trait ParallelLeafOperator extends Operator {
+  /*
+  Returns the scan to share between workers, or None if the leaf should be run by a single worker.
+   */
+  def createScan(context: QueryContext): Option[Scan[_]]
+}
+
 trait MiddleOperator {
   def operate(iterationState: Iteration,
               data: Morsel,
@@ -71,7 +86,29 @@ case object NoDependencies extends Dependency {
   override def pipeline = throw new IllegalArgumentException("No dependencies here!")
 }
 
-case class QueryState(params: MapValue, visitor: QueryResultVisitor[_])
+case class QueryState(params: MapValue, visitor: QueryResultVisitor[_]) {
+  private val operatorStates = new ConcurrentHashMap[AnyRef, AnyRef]()
+
+  /*
+  Operators are shared between all executions of a plan, so an operator that needs to remember something across the
+  morsels of one query, like the number of rows a LIMIT may still let through, keeps it here. The state is created
+  the first time the operator asks for it, by whichever worker gets there first.
+   */
+  def operatorState[T <: AnyRef](operator: AnyRef, create: () => T): T =
+    operatorStates.computeIfAbsent(operator, new function.Function[AnyRef, AnyRef] {
+      override def apply(ignored: AnyRef): AnyRef = create()
+    }).asInstanceOf[T]
+
+  private val reachedLimits = ConcurrentHashMap.newKeySet[MiddleOperator]()
+
+  /*
+  Called by a LIMIT that will not let any more rows through in this query. Everything upstream of it is cancelled,
+  see Pipeline.isCancelled.
+   */
+  def limitReached(operator: MiddleOperator): Unit = reachedLimits.add(operator)
+
+  def isLimitReached(operator: MiddleOperator): Boolean = !reachedLimits.isEmpty && reachedLimits.contains(operator)
+}
 
 case class Pipeline(start: Operator,
                     operators: IndexedSeq[MiddleOperator],
@@ -83,6 +120,14 @@ case class Pipeline(start: Operator,
 
   def addOperator(operator: MiddleOperator): Pipeline = copy(operators = operators :+ operator)(parent)
 
+  /*
+  A pipeline is cancelled once a LIMIT in it, or in any pipeline it feeds, has let through all rows it will. Nothing
+  the pipeline produces from then on could make it into the result, so the dispatchers end its loops instead of
+  running them.
+   */
+  def isCancelled(state: QueryState): Boolean =
+    operators.exists(state.isLimitReached) || parent.exists(_.isCancelled(state))
+
   def operate(message: Message, data: Morsel, context: QueryContext, state: QueryState): Continuation = {
     val next = start.operate(message, data, context, state)
 
@@ -19,33 +19,48 @@
  */
 package org.neo4j.cypher.internal.runtime.vectorized.dispatcher
 
-import java.util.concurrent.Executor
 import java.util.concurrent.atomic.{AtomicInteger, AtomicReference}
+import java.util.concurrent.{ConcurrentLinkedQueue, Executor, LinkedBlockingDeque, Semaphore}
 import java.util.{concurrent, function}
 
-import org.neo4j.concurrent.BinaryLatch
 import org.neo4j.cypher.internal.runtime.QueryContext
 import org.neo4j.cypher.internal.runtime.vectorized._
 import org.neo4j.cypher.internal.util.v3_4.{InternalException, TaskCloser}
 import org.neo4j.cypher.result.QueryResult.QueryResultVisitor
 import org.neo4j.values.virtual.MapValue
 
-import scala.collection.JavaConverters._
+import scala.collection.mutable.ArrayBuffer
 
+/*
+Runs the pipelines of a query as tasks on a shared work-stealing executor. Every query keeps its own queue of pending
+tasks, and only hands as many of them to the executor as its fair share of the workers allows, so a large query
+cannot occupy every worker while other queries are waiting. The calling thread does not just wait for the workers,
+but runs pending tasks of its own query until the query has finished.
+ */
 class ParallelDispatcher(morselSize: Int, workers: Int, executor: Executor) extends Dispatcher {
 
+  import ParallelDispatcher.MORSELS_PER_TURN
+
+  private val activeQueries = new AtomicInteger()
+
   def execute[E <: Exception](operators: Pipeline,
                               queryContext: QueryContext,
                               params: MapValue,
                               taskCloser: TaskCloser)(visitor: QueryResultVisitor[E]): Unit = {
     val leaf = getLeaf(operators)
     val iteration = new Iteration(None)
-    val query = new Query()
-    val startMessage = StartLeafLoop(iteration)
+    val query = new Query(queryContext)
+    val startMessages = leafStartMessages(leaf, queryContext, iteration)
     val state = QueryState(params, visitor)
-    val action = createAction(query, startMessage, leaf, queryContext, state)
-    executor.execute(action)
-    query.blockUntilQueryFinishes()
+    activeQueries.incrementAndGet()
+    try {
+      // All leaf loops are registered before any of them runs, so the first one to finish does not end the query
+      val tasks = startMessages.map(createTask(query, _, leaf, state))
+      tasks.foreach(query.schedule)
+      query.runUntilQueryFinishes()
+    } finally {
+      activeQueries.decrementAndGet()
+    }
     val failure = query.failure
     if (failure != null) {
         taskCloser.close(success = false)
@@ -54,24 +69,52 @@ class ParallelDispatcher(morselSize: Int, workers: Int, executor: Executor) exte
     taskCloser.close(success = true)
   }
 
-  private def createAction(query: Query,
-                           incoming: Message,
-                           pipeline: Pipeline,
-                           q: QueryContext,
-                           state: QueryState): Runnable = {
+  /*
+  A task is run either by a worker, with a query context of its own, or by the thread that is executing the query,
+  with the query context of that thread
+   */
+  private type Task = QueryContext => Unit
+
+  private def createTask(query: Query,
+                         incoming: Message,
+                         pipeline: Pipeline,
+                         state: QueryState): Task = {
     // We remember that the loop has started even before the task has been scheduled
     query.startLoop(incoming.iterationState)
-    new Runnable {
-      override def run(): Unit = try {
-        val queryContext = q.createNewQueryContext()
-        var message = incoming
-        var continuation: Continuation = null
-        while (continuation == null || !continuation.isInstanceOf[EndOfLoop]) {
+    continueTask(query, incoming, pipeline, state)
+  }
+
+  /*
+  Runs a loop for at most MORSELS_PER_TURN morsels. A loop that is not done by then is put back in the pending tasks of
+  its query, and the worker is given back to the executor. The fair share of the query is then looked at again before
+  the loop goes on, so a long scan does not keep its workers after other queries have started.
+   */
+  private def continueTask(query: Query,
+                           incoming: Message,
+                           pipeline: Pipeline,
+                           state: QueryState): Task = {
+    (queryContext: QueryContext) => try {
+      var message = incoming
+      var continuation: Continuation = null
+      var morsels = 0
+      var yielded = false
+      while (!yielded && (continuation == null || !continuation.isInstanceOf[EndOfLoop])) {
+        if (pipeline.isCancelled(state)) {
+          Continuation.closeSource(message)
+          continuation = EndOfLoop(message.iterationState)
+        } else {
           continuation = execute(query, pipeline, message, queryContext, state)
           message = ContinueLoopWith(continuation)
+          morsels += 1
+          if (morsels >= MORSELS_PER_TURN && canMoveToAnotherThread(continuation)) {
+            query.schedule(continueTask(query, message, pipeline, state))
+            yielded = true
+          }
         }
+      }
 
-        // Once we have exhausted this loop, we check if we just closed the last loop.
+      // Once we have exhausted this loop, we check if we just closed the last loop.
+      if (!yielded) {
         val loopsLeft = query.endLoop(message.iterationState)
         val weJustClosedTheLastLoop = loopsLeft == 0
         if (weJustClosedTheLastLoop) {
@@ -82,44 +125,57 @@ class ParallelDispatcher(morselSize: Int, workers: Int, executor: Executor) exte
 
             case Some(eagerConsumingPipeline) =>
               query.eagerReceiver = None
-              val startEager = StartLoopWithEagerData(query.eagerData.asScala.toArray, incoming.iterationState)
-              executor.execute(createAction(query, startEager, eagerConsumingPipeline, queryContext, state))
+              val startEager = StartLoopWithEagerData(query.takeEagerData(), incoming.iterationState)
+              query.schedule(createTask(query, startEager, eagerConsumingPipeline, state))
           }
-
         }
-      } catch {
-        case e: Exception =>
-          query.markFailure(e)
-          query.releaseBlockedThreads()
-          throw e
       }
+    } catch {
+      case e: Exception =>
+        query.markFailure(e)
+        query.releaseBlockedThreads()
     }
   }
 
+  private def canMoveToAnotherThread(continuation: Continuation) = continuation match {
+    case c: Continue => !c.needsSameThread
+    case _ => false
+  }
+
   private def execute(query: Query, pipeline: Pipeline, message: Message, queryContext: QueryContext, state: QueryState) = {
     val data = Morsel.create(pipeline.slots, morselSize)
     val continuation = pipeline.operate(message, data, queryContext, state)
 
     pipeline.parent match {
       case Some(mother) if mother.dependency.isInstanceOf[Eager] && query.eagerReceiver.contains(mother) =>
-        query.eagerData.add(data)
+        query.addEagerData(data)
 
       case Some(mother) if mother.dependency.isInstanceOf[Eager] && query.eagerReceiver.isEmpty =>
         query.eagerReceiver = Some(mother)
-        query.eagerData.add(data)
+        query.addEagerData(data)
 
       case Some(mother) if mother.dependency.isInstanceOf[Eager] =>
         throw new InternalException("This is not the same eager receiver as I want to use")
 
       case Some(mother) if mother.dependency.isInstanceOf[Lazy] =>
         val nextStep = StartLoopWithSingleMorsel(data, message.iterationState)
-        executor.execute(createAction(query, nextStep, mother, queryContext, state))
+        query.schedule(createTask(query, nextStep, mother, state))
 
       case _ =>
     }
     continuation
   }
 
+  private def leafStartMessages(leaf: Pipeline, queryContext: QueryContext, iteration: Iteration): Seq[Message] =
+    leaf.start match {
+      case parallelLeaf: ParallelLeafOperator =>
+        parallelLeaf.createScan(queryContext) match {
+          case Some(scan) => (0 until workers).map(_ => StartParallelLeafLoop(scan, iteration))
+          case None => Seq(StartLeafLoop(iteration))
+        }
+      case _ => Seq(StartLeafLoop(iteration))
+    }
+
   private def getLeaf(pipeline: Pipeline): Pipeline = {
     var leafOp = pipeline
     while (leafOp.dependency != NoDependencies) {
@@ -129,12 +185,22 @@ class ParallelDispatcher(morselSize: Int, workers: Int, executor: Executor) exte
     leafOp
   }
 
-  class Query() {
+  /*
+  The number of workers a single query may occupy at once. The workers are split evenly between the queries that
+  are currently running, but every query can always use at least one.
+   */
+  private def fairShare: Int = Math.max(1, workers / Math.max(1, activeQueries.get()))
+
+  class Query(context: QueryContext) {
     private val loopCount = new concurrent.ConcurrentHashMap[Iteration, AtomicInteger]()
     private val error = new AtomicReference[Throwable]()
-    private val latch = new BinaryLatch
-    var eagerReceiver: Option[Pipeline] = None
-    lazy val eagerData = new java.util.concurrent.ConcurrentLinkedQueue[Morsel]()
+    private val pending = new LinkedBlockingDeque[Task]()
+    private val running = new AtomicInteger()
+    // Released whenever a task is scheduled or the query finishes, so the calling thread knows when to look again
+    private val signals = new Semaphore(0)
+    @volatile private var finished = false
+    @volatile var eagerReceiver: Option[Pipeline] = None
+    private val eagerData = new ConcurrentLinkedQueue[Morsel]()
 
     def startLoop(iteration: Iteration): Unit = {
       loopCount.computeIfAbsent(iteration, createAtomicInteger).incrementAndGet()
@@ -147,12 +213,75 @@ class ParallelDispatcher(morselSize: Int, workers: Int, executor: Executor) exte
       i
     }
 
+    def addEagerData(data: Morsel): Unit = eagerData.add(data)
+
+    /*
+    Takes all morsels collected for the current eager receiver. It is only called once every loop feeding that receiver
+    has ended, and it leaves the queue empty, so the next eager stage of the query starts with only its own input.
+     */
+    def takeEagerData(): Array[Morsel] = {
+      val data = new ArrayBuffer[Morsel]()
+      var morsel = eagerData.poll()
+      while (morsel != null) {
+        data += morsel
+        morsel = eagerData.poll()
+      }
+      data.toArray
+    }
+
     def failure: Throwable = error.get()
     def markFailure(t: Throwable): Unit = error.compareAndSet(null, t)
 
-    def blockUntilQueryFinishes(): Unit = latch.await()
+    def schedule(task: Task): Unit = {
+      pending.addLast(task)
+      signals.release()
+      submitPending()
+    }
+
+    /*
+    Hands pending tasks to the executor while this query is using less than its fair share of the workers. It is
+    called again whenever one of its tasks finishes, so tasks left pending are picked up as soon as there is room.
+     */
+    private def submitPending(): Unit = {
+      var submitted = running.get()
+      while (submitted < fairShare && !pending.isEmpty) {
+        if (running.compareAndSet(submitted, submitted + 1)) {
+          val task = pending.pollFirst()
+          if (task == null) running.decrementAndGet()
+          else executor.execute(new Runnable {
+            override def run(): Unit = try {
+              task(context.createNewQueryContext())
+            } catch {
+              case e: Exception =>
+                markFailure(e)
+                releaseBlockedThreads()
+            } finally {
+              running.decrementAndGet()
+              submitPending()
+            }
+          })
+        }
+        submitted = running.get()
+      }
+    }
 
-    def releaseBlockedThreads(): Unit = latch.release()
+    /*
+    Runs pending tasks on the calling thread, using the query context of that thread, until the query has finished.
+    The thread only waits when there is nothing left for it to do.
+     */
+    def runUntilQueryFinishes(): Unit = {
+      while (!finished) {
+        signals.acquire()
+        // The newest task most likely works on data this thread has just produced, the workers take the oldest ones
+        val task = pending.pollLast()
+        if (task != null) task(context)
+      }
+    }
+
+    def releaseBlockedThreads(): Unit = {
+      finished = true
+      signals.release()
+    }
 
     private val createAtomicInteger = new function.Function[Iteration, AtomicInteger] {
       override def apply(t: Iteration) = new AtomicInteger(0)
@@ -160,3 +289,8 @@ class ParallelDispatcher(morselSize: Int, workers: Int, executor: Executor) exte
 
   }
 }
+
+object ParallelDispatcher {
+  // The number of morsels a task produces before it lets other tasks have the worker
+  val MORSELS_PER_TURN = 8
+}
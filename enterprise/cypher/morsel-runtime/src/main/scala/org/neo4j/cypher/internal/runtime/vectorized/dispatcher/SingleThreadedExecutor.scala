@@ -54,25 +54,29 @@ class SingleThreadedExecutor(morselSize: Int = 100000) extends Dispatcher {
 
       while (jobStack.nonEmpty) {
         val (message, pipeline) = jobStack.pop()
-        val data = Morsel.create(pipeline.slots, morselSize)
-        val continuation = pipeline.operate(message, data, queryContext, state)
-        if (continuation != EndOfLoop(iteration)) {
-          jobStack.push((ContinueLoopWith(continuation), pipeline))
-        }
+        if (pipeline.isCancelled(state)) {
+          Continuation.closeSource(message)
+        } else {
+          val data = Morsel.create(pipeline.slots, morselSize)
+          val continuation = pipeline.operate(message, data, queryContext, state)
+          if (continuation != EndOfLoop(iteration)) {
+            jobStack.push((ContinueLoopWith(continuation), pipeline))
+          }
 
-        pipeline.parent match {
-          case Some(mother) if mother.dependency.isInstanceOf[Eager] =>
-            if(eagerRecipient != null && mother != eagerRecipient) {
-              taskCloser.close(success = false)
-              throw new InternalException("oh noes")
-            }
-            eagerRecipient = mother
-            eagerAcc.append(data)
+          pipeline.parent match {
+            case Some(mother) if mother.dependency.isInstanceOf[Eager] =>
+              if(eagerRecipient != null && mother != eagerRecipient) {
+                taskCloser.close(success = false)
+                throw new InternalException("oh noes")
+              }
+              eagerRecipient = mother
+              eagerAcc.append(data)
 
-          case Some(mother) if mother.dependency.isInstanceOf[Lazy] =>
-            jobStack.push((StartLoopWithSingleMorsel(data, iteration), pipeline.parent.get))
+            case Some(mother) if mother.dependency.isInstanceOf[Lazy] =>
+              jobStack.push((StartLoopWithSingleMorsel(data, iteration), pipeline.parent.get))
 
-          case _ =>
+            case _ =>
+          }
         }
       }
     }
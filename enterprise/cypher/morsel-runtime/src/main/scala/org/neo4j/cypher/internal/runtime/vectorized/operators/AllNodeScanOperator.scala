@@ -21,15 +21,19 @@ package org.neo4j.cypher.internal.runtime.vectorized.operators
 
 import org.neo4j.cypher.internal.runtime.QueryContext
 import org.neo4j.cypher.internal.runtime.vectorized._
-import org.neo4j.internal.kernel.api.NodeCursor
+import org.neo4j.internal.kernel.api.{NodeCursor, Scan}
 
-class AllNodeScanOperator(longsPerRow: Int, refsPerRow: Int, offset: Int) extends Operator {
+class AllNodeScanOperator(longsPerRow: Int, refsPerRow: Int, offset: Int) extends ParallelLeafOperator {
+
+  override def createScan(context: QueryContext): Option[Scan[_]] =
+    Some(context.transactionalContext.dataRead.allNodesScan())
 
   override def operate(message: Message,
                        data: Morsel,
                        context: QueryContext,
                        state: QueryState): Continuation = {
     var nodeCursor: NodeCursor = null
+    var scan: Scan[NodeCursor] = null
     var iterationState: Iteration = null
     val read = context.transactionalContext.dataRead
 
@@ -38,6 +42,16 @@ class AllNodeScanOperator(longsPerRow: Int, refsPerRow: Int, offset: Int) extend
         nodeCursor = context.transactionalContext.cursors.allocateNodeCursor()
         read.allNodesScan(nodeCursor)
         iterationState = is
+      case StartParallelLeafLoop(s, is) =>
+        scan = s.asInstanceOf[Scan[NodeCursor]]
+        iterationState = is
+      case ContinueLoopWith(ContinueWithSource(ScanSource(s, cursor: NodeCursor), is, _)) =>
+        nodeCursor = cursor
+        scan = s.asInstanceOf[Scan[NodeCursor]]
+        iterationState = is
+      case ContinueLoopWith(ContinueWithSource(s: Scan[_], is, _)) =>
+        scan = s.asInstanceOf[Scan[NodeCursor]]
+        iterationState = is
       case ContinueLoopWith(ContinueWithSource(it, is, _)) =>
         nodeCursor = it.asInstanceOf[NodeCursor]
         iterationState = is
@@ -45,11 +59,26 @@ class AllNodeScanOperator(longsPerRow: Int, refsPerRow: Int, offset: Int) extend
     }
 
     val longs: Array[Long] = data.longs
+    val batchSize = data.validRows
+
+    if (nodeCursor == null) {
+      // A parallel loop that is not in the middle of a batch reserves one with a cursor of the current thread
+      nodeCursor = context.transactionalContext.cursors.allocateNodeCursor()
+      if (!scan.reserveBatch(nodeCursor, batchSize)) {
+        nodeCursor.close()
+        data.validRows = 0
+        return EndOfLoop(iterationState)
+      }
+    }
 
     var processedRows = 0
     var hasMore = true
     while (processedRows < data.validRows && hasMore) {
       hasMore = nodeCursor.next()
+      // Rather than handing on an empty morsel, a batch without any rows is followed by the next one right away
+      while (!hasMore && processedRows == 0 && scan != null && scan.reserveBatch(nodeCursor, batchSize)) {
+        hasMore = nodeCursor.next()
+      }
       if (hasMore) {
         longs(processedRows * longsPerRow + offset) = nodeCursor.nodeReference()
         processedRows += 1
@@ -58,16 +87,24 @@ class AllNodeScanOperator(longsPerRow: Int, refsPerRow: Int, offset: Int) extend
 
     data.validRows = processedRows
 
-    if (hasMore)
-      ContinueWithSource(nodeCursor, iterationState, needsSameThread = false)
+    if (hasMore) {
+      if (scan == null)
+        ContinueWithSource(nodeCursor, iterationState, needsSameThread = false)
+      else
+        ContinueWithSource(ScanSource(scan, nodeCursor), iterationState, needsSameThread = true)
+    }
     else {
       if (nodeCursor != null) {
         nodeCursor.close()
         nodeCursor = null
       }
-      EndOfLoop(iterationState)
+      // At the end of a batch the loop holds no cursor, so it can go on with its next batch on any thread
+      if (scan != null && processedRows > 0)
+        ContinueWithSource(scan, iterationState, needsSameThread = false)
+      else
+        EndOfLoop(iterationState)
     }
   }
 
   override def addDependency(pipeline: Pipeline): Dependency = NoDependencies
-}
\ No newline at end of file
+}
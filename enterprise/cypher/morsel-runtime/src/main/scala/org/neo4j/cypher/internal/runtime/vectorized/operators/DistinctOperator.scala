@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.vectorized.operators
+
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.{Slot, SlotConfiguration}
+import org.neo4j.cypher.internal.runtime.QueryContext
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Expression
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{QueryState => OldQueryState}
+import org.neo4j.cypher.internal.runtime.slotted.helpers.SlottedPipeBuilderUtils.makeSetValueInSlotFunctionFor
+import org.neo4j.cypher.internal.runtime.vectorized._
+import org.neo4j.values.AnyValue
+import org.neo4j.values.virtual.VirtualValues
+
+import scala.collection.mutable
+
+/*
+Consumes all input morsels and writes every distinct combination of the grouping values once. The rows are eagerly
+collected, so that the set of seen values does not have to be shared between workers
+ */
+class DistinctOperator(fromSlots: SlotConfiguration,
+                       toSlots: SlotConfiguration,
+                       groupingExpressions: Map[Slot, Expression]) extends Operator {
+
+  private val expressions = groupingExpressions.values.toArray
+  private val setters = groupingExpressions.keys.map(makeSetValueInSlotFunctionFor).toArray
+
+  override def operate(message: Message, output: Morsel, context: QueryContext, state: QueryState): Continuation = {
+    var iterationState: Iteration = null
+    var position: DistinctPosition = null
+
+    message match {
+      case StartLoopWithEagerData(inputs, is) =>
+        iterationState = is
+        position = new DistinctPosition(inputs)
+      case ContinueLoopWith(ContinueWithSource(p: DistinctPosition, is, _)) =>
+        iterationState = is
+        position = p
+      case _ => throw new IllegalStateException()
+    }
+
+    val inputs = position.inputs
+    val queryState = new OldQueryState(context, resources = null, params = state.params)
+    val outputRow = new MorselExecutionContext(output, toSlots.numberOfLongs, toSlots.numberOfReferences, currentRow = 0)
+    var writePos = 0
+
+    while (position.morselPos < inputs.length && writePos < output.validRows) {
+      val input = inputs(position.morselPos)
+      val inputRow = new MorselExecutionContext(input, fromSlots.numberOfLongs, fromSlots.numberOfReferences, currentRow = 0)
+      while (position.rowPos < input.validRows && writePos < output.validRows) {
+        inputRow.currentRow = position.rowPos
+        // A fresh array per row, since the list value wraps it rather than copying it
+        val values = new Array[AnyValue](expressions.length)
+        var i = 0
+        while (i < expressions.length) {
+          values(i) = expressions(i)(inputRow, queryState)
+          i += 1
+        }
+
+        if (position.seen.add(VirtualValues.list(values: _*))) {
+          outputRow.currentRow = writePos
+          i = 0
+          while (i < setters.length) {
+            setters(i)(outputRow, values(i))
+            i += 1
+          }
+          writePos += 1
+        }
+        position.rowPos += 1
+      }
+
+      if (position.rowPos >= input.validRows) {
+        position.morselPos += 1
+        position.rowPos = 0
+      }
+    }
+
+    output.validRows = writePos
+    if (position.morselPos < inputs.length)
+      ContinueWithSource(position, iterationState, needsSameThread = false)
+    else
+      EndOfLoop(iterationState)
+  }
+
+  override def addDependency(pipeline: Pipeline): Dependency = Eager(pipeline)
+
+  private class DistinctPosition(val inputs: Array[Morsel]) {
+    val seen = mutable.Set[AnyValue]()
+    var morselPos = 0
+    var rowPos = 0
+  }
+}
@@ -22,15 +22,19 @@ package org.neo4j.cypher.internal.runtime.vectorized.operators
 import org.neo4j.cypher.internal.runtime.QueryContext
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.LazyLabel
 import org.neo4j.cypher.internal.runtime.vectorized._
-import org.neo4j.internal.kernel.api.NodeLabelIndexCursor
+import org.neo4j.internal.kernel.api.{NodeLabelIndexCursor, Scan}
 
-class LabelScanOperator(longsPerRow: Int, refsPerRow: Int, offset: Int, label: LazyLabel) extends Operator {
+class LabelScanOperator(longsPerRow: Int, refsPerRow: Int, offset: Int, label: LazyLabel) extends ParallelLeafOperator {
+
+  override def createScan(context: QueryContext): Option[Scan[_]] =
+    label.getOptId(context).map(labelId => context.transactionalContext.dataRead.nodeLabelScan(labelId.id))
 
   override def operate(message: Message,
                        data: Morsel,
                        context: QueryContext,
                        state: QueryState): Continuation = {
     var nodeCursor: NodeLabelIndexCursor  = null
+    var scan: Scan[NodeLabelIndexCursor] = null
     var iterationState: Iteration = null
     val read = context.transactionalContext.dataRead
     val labelId = label.getOptId(context)
@@ -41,19 +45,43 @@ class LabelScanOperator(longsPerRow: Int, refsPerRow: Int, offset: Int, label: L
         nodeCursor = context.transactionalContext.cursors.allocateNodeLabelIndexCursor()
         read.nodeLabelScan(labelId.get.id,  nodeCursor)
         iterationState = is
+      case StartParallelLeafLoop(s, is) =>
+        scan = s.asInstanceOf[Scan[NodeLabelIndexCursor]]
+        iterationState = is
+      case ContinueLoopWith(ContinueWithSource(ScanSource(s, cursor: NodeLabelIndexCursor), is, _)) =>
+        nodeCursor = cursor
+        scan = s.asInstanceOf[Scan[NodeLabelIndexCursor]]
+        iterationState = is
+      case ContinueLoopWith(ContinueWithSource(s: Scan[_], is, _)) =>
+        scan = s.asInstanceOf[Scan[NodeLabelIndexCursor]]
+        iterationState = is
       case ContinueLoopWith(ContinueWithSource(it, is, _)) =>
         nodeCursor = it.asInstanceOf[NodeLabelIndexCursor]
         iterationState = is
       case _ => throw new IllegalStateException()
-
     }
 
     val longs: Array[Long] = data.longs
+    val batchSize = data.validRows
+
+    if (nodeCursor == null) {
+      // A parallel loop that is not in the middle of a batch reserves one with a cursor of the current thread
+      nodeCursor = context.transactionalContext.cursors.allocateNodeLabelIndexCursor()
+      if (!scan.reserveBatch(nodeCursor, batchSize)) {
+        nodeCursor.close()
+        data.validRows = 0
+        return EndOfLoop(iterationState)
+      }
+    }
 
     var processedRows = 0
     var hasMore = true
     while (processedRows < data.validRows && hasMore) {
       hasMore = nodeCursor.next()
+      // Rather than handing on an empty morsel, a batch without any rows is followed by the next one right away
+      while (!hasMore && processedRows == 0 && scan != null && scan.reserveBatch(nodeCursor, batchSize)) {
+        hasMore = nodeCursor.next()
+      }
       if (hasMore) {
         longs(processedRows * longsPerRow + offset) = nodeCursor.nodeReference()
         processedRows += 1
@@ -62,16 +90,24 @@ class LabelScanOperator(longsPerRow: Int, refsPerRow: Int, offset: Int, label: L
 
     data.validRows = processedRows
 
-    if (hasMore)
-      ContinueWithSource(nodeCursor, iterationState, needsSameThread = false)
+    if (hasMore) {
+      if (scan == null)
+        ContinueWithSource(nodeCursor, iterationState, needsSameThread = false)
+      else
+        ContinueWithSource(ScanSource(scan, nodeCursor), iterationState, needsSameThread = true)
+    }
     else {
       if (nodeCursor != null) {
         nodeCursor.close()
         nodeCursor = null
       }
-      EndOfLoop(iterationState)
+      // At the end of a batch the loop holds no cursor, so it can go on with its next batch on any thread
+      if (scan != null && processedRows > 0)
+        ContinueWithSource(scan, iterationState, needsSameThread = false)
+      else
+        EndOfLoop(iterationState)
     }
   }
 
   override def addDependency(pipeline: Pipeline): Dependency = NoDependencies
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.vectorized.operators
+
+import java.util.concurrent.atomic.AtomicLong
+
+import org.neo4j.cypher.internal.runtime.QueryContext
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.{Expression, NumericHelper}
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{QueryState => OldQueryState}
+import org.neo4j.cypher.internal.runtime.vectorized._
+
+/*
+Implements LIMIT without waiting for all of its input. Every morsel reserves its rows from a counter that is shared by
+all workers of the query, and is cut down to the rows it got, so rows are passed on as soon as they are produced. Once
+no rows are left, the LIMIT tells the query so, which cancels the loops feeding it.
+ */
+class LimitOperator(limit: Expression) extends MiddleOperator with NumericHelper {
+
+  override def operate(iterationState: Iteration,
+                       data: Morsel,
+                       context: QueryContext,
+                       state: QueryState): Unit = {
+    val remaining = state.operatorState(this, () => {
+      val queryState = new OldQueryState(context, resources = null, params = state.params)
+      new AtomicLong(Math.max(0L, asInt(limit(ExecutionContext.empty, queryState)).value()))
+    })
+
+    var reserved = -1L
+    while (reserved < 0) {
+      val left = remaining.get()
+      val rows = Math.min(left, data.validRows.toLong)
+      if (rows == 0 || remaining.compareAndSet(left, left - rows))
+        reserved = rows
+    }
+
+    data.validRows = reserved.toInt
+    if (remaining.get() == 0)
+      state.limitReached(this)
+  }
+}
@@ -23,11 +23,16 @@ import java.util.{Comparator, PriorityQueue}
 
 import org.neo4j.cypher.internal.compatibility.v3_4.runtime.{LongSlot, RefSlot, SlotConfiguration}
 import org.neo4j.cypher.internal.runtime.QueryContext
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.{Expression, NumericHelper}
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{QueryState => OldQueryState}
 import org.neo4j.cypher.internal.runtime.slotted.pipes.ColumnOrder
 import org.neo4j.cypher.internal.runtime.vectorized._
 
-// This operator takes pre-sorted inputs, and merges them together, producing a stream of Morsels with the sorted data
-class MergeSortOperator(orderBy: Seq[ColumnOrder], slots: SlotConfiguration) extends Operator {
+// This operator takes pre-sorted inputs, and merges them together, producing a stream of Morsels with the sorted data.
+// With a limit, it stops once that many rows have been produced, which is how Top is implemented
+class MergeSortOperator(orderBy: Seq[ColumnOrder], slots: SlotConfiguration, limit: Option[Expression] = None)
+  extends Operator with NumericHelper {
 
   private val comparator: Comparator[MorselWithReadPos] = orderBy
       .map(createComparator)
@@ -42,6 +47,7 @@ class MergeSortOperator(orderBy: Seq[ColumnOrder], slots: SlotConfiguration) ext
 
     var iterationState: Iteration = null
     var sortedInputs: PriorityQueue[MorselWithReadPos] = null
+    var remaining: Long = Long.MaxValue
     var writePos = 0
 
     message match {
@@ -51,8 +57,13 @@ class MergeSortOperator(orderBy: Seq[ColumnOrder], slots: SlotConfiguration) ext
         inputs.foreach { morsel =>
           if (morsel.validRows > 0) sortedInputs.add(new MorselWithReadPos(morsel, 0))
         }
-      case ContinueLoopWith(ContinueWithSource(inputs: PriorityQueue[_], is, _)) =>
-        sortedInputs = inputs.asInstanceOf[PriorityQueue[MorselWithReadPos]]
+        limit.foreach { expression =>
+          val queryState = new OldQueryState(context, resources = null, params = state.params)
+          remaining = asInt(expression(ExecutionContext.empty, queryState)).value()
+        }
+      case ContinueLoopWith(ContinueWithSource(MergeState(inputs, left), is, _)) =>
+        sortedInputs = inputs
+        remaining = left
         iterationState = is
       case _ => throw new IllegalStateException()
 
@@ -60,7 +71,7 @@ class MergeSortOperator(orderBy: Seq[ColumnOrder], slots: SlotConfiguration) ext
     val longCount = slots.numberOfLongs
     val refCount = slots.numberOfReferences
 
-    while(!sortedInputs.isEmpty && writePos < output.validRows) {
+    while(!sortedInputs.isEmpty && writePos < output.validRows && remaining > 0) {
       val next: MorselWithReadPos = sortedInputs.poll()
       val fromLongIdx = next.pos * longCount
       val fromRefIdx = next.pos * refCount
@@ -69,6 +80,7 @@ class MergeSortOperator(orderBy: Seq[ColumnOrder], slots: SlotConfiguration) ext
       System.arraycopy(next.m.longs, fromLongIdx, output.longs, toLongIdx, longCount)
       System.arraycopy(next.m.refs, fromRefIdx, output.refs, toRefIdx, refCount)
       writePos += 1
+      remaining -= 1
       next.pos += 1
 
       // If there is more data in this Morsel, we'll re-insert it into the sortedInputs
@@ -77,8 +89,8 @@ class MergeSortOperator(orderBy: Seq[ColumnOrder], slots: SlotConfiguration) ext
       }
     }
 
-    val next = if (!sortedInputs.isEmpty) {
-      ContinueWithSource(sortedInputs, iterationState, needsSameThread = false)
+    val next = if (!sortedInputs.isEmpty && remaining > 0) {
+      ContinueWithSource(MergeState(sortedInputs, remaining), iterationState, needsSameThread = false)
     } else
       EndOfLoop(iterationState)
 
@@ -116,3 +128,5 @@ class MergeSortOperator(orderBy: Seq[ColumnOrder], slots: SlotConfiguration) ext
 }
 
 class MorselWithReadPos(val m: Morsel, var pos: Int)
+
+case class MergeState(sortedInputs: PriorityQueue[MorselWithReadPos], remaining: Long)
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.vectorized.operators
+
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.SlotConfiguration
+import org.neo4j.cypher.internal.runtime.QueryContext
+import org.neo4j.cypher.internal.runtime.interpreted.commands.predicates.Predicate
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{LazyTypes, QueryState => OldQueryState}
+import org.neo4j.cypher.internal.runtime.slotted.helpers.NullChecker.entityIsNull
+import org.neo4j.cypher.internal.runtime.vectorized._
+import org.neo4j.cypher.internal.util.v3_4.InternalException
+import org.neo4j.cypher.internal.v3_4.expressions.SemanticDirection
+import org.neo4j.internal.kernel.api.helpers.RelationshipSelectionCursor
+
+/*
+Expands like ExpandAllOperator, but keeps every input row: rows without any relationship matching the predicate are
+written once, with the relationship and the other node set to null
+ */
+class OptionalExpandAllOperator(toSlots: SlotConfiguration,
+                                fromSlots: SlotConfiguration,
+                                fromOffset: Int,
+                                relOffset: Int,
+                                toOffset: Int,
+                                dir: SemanticDirection,
+                                types: LazyTypes,
+                                predicate: Predicate) extends Operator {
+
+  override def operate(source: Message,
+                       output: Morsel,
+                       context: QueryContext,
+                       state: QueryState): Continuation = {
+
+    var readPos = 0
+    var writePos = 0
+    var expansion: OptionalExpansion = null
+    var input: Morsel = null
+    var iterationState: Iteration = null
+
+    source match {
+      case StartLoopWithSingleMorsel(data, is) =>
+        input = data
+        iterationState = is
+      case ContinueLoopWith(ContinueWithData(data, index, is)) =>
+        input = data
+        readPos = index
+        iterationState = is
+      case ContinueLoopWith(ContinueWithDataAndSource(data, index, e: OptionalExpansion, is)) =>
+        input = data
+        readPos = index
+        iterationState = is
+        expansion = e
+      case _ =>
+        throw new InternalException("Unknown continuation received")
+    }
+
+    val inputLongCount = fromSlots.numberOfLongs
+    val inputRefCount = fromSlots.numberOfReferences
+    val outputLongCount = toSlots.numberOfLongs
+    val outputRefCount = toSlots.numberOfReferences
+    val outputRow = new MorselExecutionContext(output, outputLongCount, outputRefCount, currentRow = writePos)
+    val queryState = new OldQueryState(context, resources = null, params = state.params)
+
+    def copyInputRow(): Unit = {
+      System.arraycopy(input.longs, readPos * inputLongCount, output.longs, writePos * outputLongCount, inputLongCount)
+      System.arraycopy(input.refs, readPos * inputRefCount, output.refs, writePos * outputRefCount, inputRefCount)
+    }
+
+    while (readPos < input.validRows && writePos < output.validRows) {
+
+      val fromNode = input.longs(readPos * inputLongCount + fromOffset)
+      if (expansion == null) {
+        val relationships = if (entityIsNull(fromNode)) null else context.getRelationshipsCursor(fromNode, dir, types.types(context))
+        expansion = new OptionalExpansion(relationships)
+      }
+
+      val relationships = expansion.relationships
+      while (writePos < output.validRows && relationships != null && relationships.next()) {
+        // The row is written before the predicate is evaluated against it, rejected rows are simply overwritten
+        copyInputRow()
+        output.longs(writePos * outputLongCount + relOffset) = relationships.relationshipReference()
+        output.longs(writePos * outputLongCount + toOffset) = relationships.otherNodeReference()
+        outputRow.currentRow = writePos
+        if (predicate.isTrue(outputRow, queryState)) {
+          expansion.matched = true
+          writePos += 1
+        }
+      }
+
+      //we haven't filled up the rows, so this input row is done
+      if (writePos < output.validRows) {
+        if (!expansion.matched) {
+          copyInputRow()
+          output.longs(writePos * outputLongCount + relOffset) = -1
+          output.longs(writePos * outputLongCount + toOffset) = -1
+          writePos += 1
+        }
+        if (relationships != null) relationships.close()
+        expansion = null
+        readPos += 1
+      }
+    }
+
+    val next = if (expansion != null)
+      ContinueWithDataAndSource(input, readPos, expansion, iterationState)
+    else if (readPos < input.validRows)
+      ContinueWithData(input, readPos, iterationState)
+    else
+      EndOfLoop(iterationState)
+
+    output.validRows = writePos
+    next
+  }
+
+  override def addDependency(pipeline: Pipeline): Dependency = Lazy(pipeline)
+
+  private class OptionalExpansion(val relationships: RelationshipSelectionCursor, var matched: Boolean = false)
+}
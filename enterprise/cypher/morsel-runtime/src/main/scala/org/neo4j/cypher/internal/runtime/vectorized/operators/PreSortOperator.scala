@@ -23,14 +23,19 @@ import java.util.Comparator
 
 import org.neo4j.cypher.internal.compatibility.v3_4.runtime.{LongSlot, RefSlot, SlotConfiguration}
 import org.neo4j.cypher.internal.runtime.QueryContext
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.{Expression, NumericHelper}
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{QueryState => OldQueryState}
 import org.neo4j.cypher.internal.runtime.slotted.pipes.ColumnOrder
 import org.neo4j.cypher.internal.runtime.vectorized.{Iteration, MiddleOperator, Morsel, QueryState}
 import org.neo4j.values.AnyValue
 
 /*
-Responsible for sorting the Morsel in place, which will then be merged together with other sorted Morsels
+Responsible for sorting the Morsel in place, which will then be merged together with other sorted Morsels.
+When a limit is given, only the first rows up to the limit are kept, since no other row can make it into the result
  */
-class PreSortOperator(orderBy: Seq[ColumnOrder], slots: SlotConfiguration) extends MiddleOperator {
+class PreSortOperator(orderBy: Seq[ColumnOrder], slots: SlotConfiguration, limit: Option[Expression] = None)
+  extends MiddleOperator with NumericHelper {
 
   override def operate(iterationState: Iteration, data: Morsel, context: QueryContext, state: QueryState): Unit = {
 
@@ -51,6 +56,12 @@ class PreSortOperator(orderBy: Seq[ColumnOrder], slots: SlotConfiguration) exten
     // Copy the now sorted arrays into the Morsel
     System.arraycopy(newLongs, 0, data.longs, 0, newLongs.length)
     System.arraycopy(newRefs, 0, data.refs, 0, newRefs.length)
+
+    limit.foreach { expression =>
+      val queryState = new OldQueryState(context, resources = null, params = state.params)
+      val count = asInt(expression(ExecutionContext.empty, queryState)).value()
+      data.validRows = Math.max(0, Math.min(data.validRows, count))
+    }
   }
 
   private def createSortedMorselData(data: Morsel, arrayToSort: Array[Object]): (Array[Long], Array[AnyValue]) = {
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.vectorized.operators
+
+import org.neo4j.internal.kernel.api.{AutoCloseablePlus, Scan}
+
+/*
+The source of a parallel leaf loop that stopped in the middle of a batch: the scan shared by all workers, and the cursor
+over the batch this loop reserved last. The cursor is owned by the worker thread that allocated it, from the query
+context of that thread, so the loop is continued with needsSameThread set. A loop that stopped at the end of a batch
+has closed its cursor and continues with just the scan, on any thread, allocating a new cursor from the query context
+of the thread it continues on.
+ */
+case class ScanSource(scan: Scan[_], cursor: AutoCloseablePlus) extends AutoCloseable {
+  override def close(): Unit = cursor.close()
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.vectorized.operators
+
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.SlotConfiguration
+import org.neo4j.cypher.internal.runtime.QueryContext
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.{Expression, NumericHelper}
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{QueryState => OldQueryState}
+import org.neo4j.cypher.internal.runtime.vectorized._
+
+/*
+Implements SKIP. Workers produce morsels in no particular order, so the operator waits for all of its input before it
+drops the first `skip` rows and passes on the remaining ones
+ */
+class SkipOperator(slots: SlotConfiguration, skip: Expression) extends Operator with NumericHelper {
+
+  override def operate(message: Message, output: Morsel, context: QueryContext, state: QueryState): Continuation = {
+    var iterationState: Iteration = null
+    var position: SkipPosition = null
+
+    message match {
+      case StartLoopWithEagerData(inputs, is) =>
+        iterationState = is
+        val queryState = new OldQueryState(context, resources = null, params = state.params)
+        position = new SkipPosition(inputs, Math.max(0L, asInt(skip(ExecutionContext.empty, queryState)).value()))
+      case ContinueLoopWith(ContinueWithSource(p: SkipPosition, is, _)) =>
+        iterationState = is
+        position = p
+      case _ => throw new IllegalStateException()
+    }
+
+    val longCount = slots.numberOfLongs
+    val refCount = slots.numberOfReferences
+    val inputs = position.inputs
+    var writePos = 0
+
+    while (position.morselPos < inputs.length && writePos < output.validRows) {
+      val input = inputs(position.morselPos)
+      if (position.toSkip >= input.validRows - position.rowPos) {
+        // The rest of this morsel is skipped without looking at the individual rows
+        position.toSkip -= input.validRows - position.rowPos
+        position.nextMorsel()
+      } else {
+        position.rowPos += position.toSkip.toInt
+        position.toSkip = 0
+        val rows = Math.min(input.validRows - position.rowPos, output.validRows - writePos)
+        System.arraycopy(input.longs, position.rowPos * longCount, output.longs, writePos * longCount, rows * longCount)
+        System.arraycopy(input.refs, position.rowPos * refCount, output.refs, writePos * refCount, rows * refCount)
+        writePos += rows
+        position.rowPos += rows
+        if (position.rowPos >= input.validRows) position.nextMorsel()
+      }
+    }
+
+    output.validRows = writePos
+    if (position.morselPos < inputs.length)
+      ContinueWithSource(position, iterationState, needsSameThread = false)
+    else
+      EndOfLoop(iterationState)
+  }
+
+  override def addDependency(pipeline: Pipeline): Dependency = Eager(pipeline)
+
+  private class SkipPosition(val inputs: Array[Morsel], var toSkip: Long) {
+    var morselPos = 0
+    var rowPos = 0
+
+    def nextMorsel(): Unit = {
+      morselPos += 1
+      rowPos = 0
+    }
+  }
+}
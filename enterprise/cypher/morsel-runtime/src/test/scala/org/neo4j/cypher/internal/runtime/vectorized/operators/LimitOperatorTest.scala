@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.vectorized.operators
+
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.SlotConfiguration
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Literal
+import org.neo4j.cypher.internal.runtime.vectorized._
+import org.neo4j.cypher.internal.util.v3_4.test_helpers.CypherFunSuite
+import org.neo4j.values.AnyValue
+import org.neo4j.values.virtual.VirtualValues
+
+class LimitOperatorTest extends CypherFunSuite {
+
+  test("should share the limit between the morsels of a query") {
+    // Given
+    val limit = new LimitOperator(Literal(7))
+    val state = QueryState(VirtualValues.EMPTY_MAP, null)
+    val first = morsel(5)
+    val second = morsel(5)
+    val third = morsel(5)
+
+    // When
+    limit.operate(new Iteration(None), first, null, state)
+    limit.operate(new Iteration(None), second, null, state)
+    limit.operate(new Iteration(None), third, null, state)
+
+    // Then
+    first.validRows should equal(5)
+    second.validRows should equal(2)
+    third.validRows should equal(0)
+  }
+
+  test("should start over for every query") {
+    // Given
+    val limit = new LimitOperator(Literal(3))
+    val data = morsel(5)
+    limit.operate(new Iteration(None), data, null, QueryState(VirtualValues.EMPTY_MAP, null))
+
+    // When
+    val nextQuery = morsel(5)
+    limit.operate(new Iteration(None), nextQuery, null, QueryState(VirtualValues.EMPTY_MAP, null))
+
+    // Then
+    data.validRows should equal(3)
+    nextQuery.validRows should equal(3)
+  }
+
+  test("should cancel the pipelines feeding it once no rows are left") {
+    // Given
+    val limit = new LimitOperator(Literal(7))
+    val state = QueryState(VirtualValues.EMPTY_MAP, null)
+    val leaf = Pipeline(mock[Operator], IndexedSeq.empty, SlotConfiguration.empty, NoDependencies)()
+    val limited = Pipeline(mock[Operator], IndexedSeq(limit), SlotConfiguration.empty, Lazy(leaf))()
+    val downstream = Pipeline(mock[Operator], IndexedSeq.empty, SlotConfiguration.empty, Lazy(limited))()
+    downstream.construct
+
+    // When
+    limit.operate(new Iteration(None), morsel(5), null, state)
+
+    // Then
+    leaf.isCancelled(state) should equal(false)
+    limited.isCancelled(state) should equal(false)
+
+    // When
+    limit.operate(new Iteration(None), morsel(5), null, state)
+
+    // Then
+    leaf.isCancelled(state) should equal(true)
+    limited.isCancelled(state) should equal(true)
+    downstream.isCancelled(state) should equal(false)
+    leaf.isCancelled(QueryState(VirtualValues.EMPTY_MAP, null)) should equal(false)
+  }
+
+  private def morsel(rows: Int) = new Morsel(Array.tabulate[Long](rows)(_.toLong), new Array[AnyValue](0), rows)
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.slotted.expressions.compiled;
+
+import org.neo4j.values.AnyValue;
+import org.neo4j.values.AnyValues;
+import org.neo4j.values.storable.BooleanValue;
+import org.neo4j.values.storable.DateTimeValue;
+import org.neo4j.values.storable.DateValue;
+import org.neo4j.values.storable.FloatingPointValue;
+import org.neo4j.values.storable.LocalDateTimeValue;
+import org.neo4j.values.storable.LocalTimeValue;
+import org.neo4j.values.storable.NumberValue;
+import org.neo4j.values.storable.PointValue;
+import org.neo4j.values.storable.TextValue;
+import org.neo4j.values.storable.TimeValue;
+import org.neo4j.values.storable.Value;
+
+import static org.neo4j.values.storable.BooleanValue.FALSE;
+import static org.neo4j.values.storable.BooleanValue.TRUE;
+import static org.neo4j.values.storable.Values.NO_VALUE;
+import static org.neo4j.values.storable.Values.booleanValue;
+
+/**
+ * Static methods called from generated expression classes. Predicates are represented as {@link BooleanValue#TRUE},
+ * {@link BooleanValue#FALSE} or {@link org.neo4j.values.storable.Values#NO_VALUE}, so that generated code can test
+ * them by reference.
+ */
+public final class CompiledHelpers
+{
+    private CompiledHelpers()
+    {
+        throw new UnsupportedOperationException( "Do not instantiate" );
+    }
+
+    /**
+     * Combines the operands of an AND, where the generated code has already skipped the right hand side when the
+     * left hand side was false.
+     */
+    public static Value and( AnyValue lhs, AnyValue rhs )
+    {
+        if ( lhs == FALSE || rhs == FALSE )
+        {
+            return FALSE;
+        }
+        return lhs == NO_VALUE || rhs == NO_VALUE ? NO_VALUE : TRUE;
+    }
+
+    /**
+     * Combines the operands of an OR, where the generated code has already skipped the right hand side when the
+     * left hand side was true.
+     */
+    public static Value or( AnyValue lhs, AnyValue rhs )
+    {
+        if ( lhs == TRUE || rhs == TRUE )
+        {
+            return TRUE;
+        }
+        return lhs == NO_VALUE || rhs == NO_VALUE ? NO_VALUE : FALSE;
+    }
+
+    public static Value not( AnyValue value )
+    {
+        if ( value == NO_VALUE )
+        {
+            return NO_VALUE;
+        }
+        return value == TRUE ? FALSE : TRUE;
+    }
+
+    public static Value equal( AnyValue lhs, AnyValue rhs )
+    {
+        Boolean result = lhs.ternaryEquals( rhs );
+        return result == null ? NO_VALUE : booleanValue( result );
+    }
+
+    public static Value notEqual( AnyValue lhs, AnyValue rhs )
+    {
+        return not( equal( lhs, rhs ) );
+    }
+
+    public static Value primitiveEqual( AnyValue lhs, AnyValue rhs )
+    {
+        return booleanValue( lhs.equals( rhs ) );
+    }
+
+    public static Value lessThan( AnyValue lhs, AnyValue rhs )
+    {
+        Integer comparison = compare( lhs, rhs );
+        return comparison == null ? NO_VALUE : booleanValue( comparison < 0 );
+    }
+
+    public static Value lessThanOrEqual( AnyValue lhs, AnyValue rhs )
+    {
+        Integer comparison = compare( lhs, rhs );
+        return comparison == null ? NO_VALUE : booleanValue( comparison <= 0 );
+    }
+
+    public static Value greaterThan( AnyValue lhs, AnyValue rhs )
+    {
+        Integer comparison = compare( lhs, rhs );
+        return comparison == null ? NO_VALUE : booleanValue( comparison > 0 );
+    }
+
+    public static Value greaterThanOrEqual( AnyValue lhs, AnyValue rhs )
+    {
+        Integer comparison = compare( lhs, rhs );
+        return comparison == null ? NO_VALUE : booleanValue( comparison >= 0 );
+    }
+
+    /**
+     * Same semantics as the interpreted ComparablePredicate: values of different kinds, nulls and NaN are not
+     * comparable.
+     */
+    private static Integer compare( AnyValue lhs, AnyValue rhs )
+    {
+        if ( lhs == NO_VALUE || rhs == NO_VALUE || isNaN( lhs ) || isNaN( rhs ) || !comparable( lhs, rhs ) )
+        {
+            return null;
+        }
+        return AnyValues.TERNARY_COMPARATOR.ternaryCompare( lhs, rhs );
+    }
+
+    private static boolean isNaN( AnyValue value )
+    {
+        return value instanceof FloatingPointValue && Double.isNaN( ((FloatingPointValue) value).doubleValue() );
+    }
+
+    private static boolean comparable( AnyValue lhs, AnyValue rhs )
+    {
+        return bothOf( NumberValue.class, lhs, rhs ) ||
+               bothOf( TextValue.class, lhs, rhs ) ||
+               bothOf( BooleanValue.class, lhs, rhs ) ||
+               bothOf( PointValue.class, lhs, rhs ) ||
+               bothOf( DateValue.class, lhs, rhs ) ||
+               bothOf( LocalTimeValue.class, lhs, rhs ) ||
+               bothOf( TimeValue.class, lhs, rhs ) ||
+               bothOf( LocalDateTimeValue.class, lhs, rhs ) ||
+               bothOf( DateTimeValue.class, lhs, rhs );
+    }
+
+    private static boolean bothOf( Class<?> type, AnyValue lhs, AnyValue rhs )
+    {
+        return type.isInstance( lhs ) && type.isInstance( rhs );
+    }
+}
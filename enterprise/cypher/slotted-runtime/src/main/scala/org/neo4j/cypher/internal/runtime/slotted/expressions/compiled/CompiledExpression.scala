@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.slotted.expressions.compiled
+
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Expression
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.QueryState
+import org.neo4j.values.AnyValue
+
+/**
+  * Base class of the classes generated by ExpressionCompiler. Parts of the expression that could not be compiled
+  * are kept as interpreted commands and called through `fallback`.
+  */
+abstract class CompiledExpression {
+
+  private var fallbacks: Array[Expression] = Array.empty
+
+  def evaluate(context: ExecutionContext, state: QueryState): AnyValue
+
+  final def fallback(index: Int, context: ExecutionContext, state: QueryState): AnyValue =
+    fallbacks(index)(context, state)
+
+  private[compiled] def withFallbacks(expressions: Array[Expression]): CompiledExpression = {
+    fallbacks = expressions
+    this
+  }
+
+  private[compiled] def fallbackExpressions: Seq[Expression] = fallbacks
+
+  /**
+    * @return a new instance of the same generated class, calling the fallbacks of this one rewritten by `f`
+    */
+  private[compiled] def rewriteFallbacks(f: Expression => Expression): CompiledExpression =
+    getClass.newInstance().withFallbacks(fallbacks.map(_.rewrite(f)))
+}
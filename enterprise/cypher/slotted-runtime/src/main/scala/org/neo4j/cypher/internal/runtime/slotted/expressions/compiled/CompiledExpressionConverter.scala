@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.slotted.expressions.compiled
+
+import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.{ExpressionConverter, ExpressionConverters}
+import org.neo4j.cypher.internal.runtime.interpreted.commands.{expressions => commands}
+import org.neo4j.cypher.internal.v3_4.{expressions => ast}
+import org.neo4j.util.FeatureToggles
+
+/**
+  * Compiles predicates to bytecode, and leaves everything else to the interpreted converters that follow it.
+  *
+  * @param interpreted the converters without this one, used when a compiled predicate has to be re-evaluated
+  */
+class CompiledExpressionConverter(interpreted: ExpressionConverters) extends ExpressionConverter {
+
+  override def toCommandExpression(expression: ast.Expression, self: ExpressionConverters): Option[commands.Expression] =
+    if (CompiledExpressionConverter.ENABLED && ExpressionCompiler.isCompiledPredicate(expression))
+      ExpressionCompiler.compilePredicate(expression, self, interpreted)
+    else
+      None
+}
+
+object CompiledExpressionConverter {
+  val ENABLED: Boolean = FeatureToggles.flag(classOf[CompiledExpressionConverter], "enabled", true)
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.slotted.expressions.compiled
+
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Expression
+import org.neo4j.cypher.internal.runtime.interpreted.commands.predicates.Predicate
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.QueryState
+import org.neo4j.values.storable.{BooleanValue, Value}
+
+import scala.util.control.NonFatal
+
+/**
+  * A predicate evaluated by generated code. The generated code only ever returns TRUE, FALSE or NO_VALUE,
+  * so results are checked by reference.
+  *
+  * The interpreted AND and OR hold on to errors until all operands have been evaluated, since a later false
+  * (or true) operand decides the result anyway. The generated code does not, so when it fails the row is
+  * evaluated again by the interpreted predicate, which either gets the same error or the deciding operand.
+  *
+  * Rewriting applies to the interpreted predicate and to the interpreted parts called by the generated code, such as
+  * property lookups whose key tokens get resolved. The generated code itself stays as it is, so rewrites must not change
+  * what the predicate means.
+  */
+case class CompiledPredicate(compiled: CompiledExpression, interpreted: Predicate) extends Predicate {
+
+  override def apply(ctx: ExecutionContext, state: QueryState): Value = evaluate(ctx, state)
+
+  override def isTrue(m: ExecutionContext, state: QueryState): Boolean = evaluate(m, state) eq BooleanValue.TRUE
+
+  override def isMatch(m: ExecutionContext, state: QueryState): Option[Boolean] = evaluate(m, state) match {
+    case BooleanValue.TRUE => Some(true)
+    case BooleanValue.FALSE => Some(false)
+    case _ => None
+  }
+
+  private def evaluate(ctx: ExecutionContext, state: QueryState): Value =
+    try {
+      compiled.evaluate(ctx, state).asInstanceOf[Value]
+    } catch {
+      case NonFatal(_) => interpreted(ctx, state)
+    }
+
+  override def containsIsNull: Boolean = interpreted.containsIsNull
+
+  override def rewrite(f: (Expression) => Expression): Expression =
+    f(CompiledPredicate(compiled.rewriteFallbacks(f), interpreted.rewrite(f).asInstanceOf[Predicate]))
+
+  override def arguments: Seq[Expression] = interpreted.arguments
+
+  override def symbolTableDependencies: Set[String] = interpreted.symbolTableDependencies
+
+  override def toString: String = interpreted.toString
+}
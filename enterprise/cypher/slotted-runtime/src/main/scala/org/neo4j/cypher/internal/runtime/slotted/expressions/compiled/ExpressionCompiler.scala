@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.slotted.expressions.compiled
+
+import java.util.concurrent.atomic.AtomicLong
+
+import org.neo4j.codegen.Expression.{constantInt, constantLong, getStatic, invoke, ternary}
+import org.neo4j.codegen.FieldReference.staticField
+import org.neo4j.codegen.MethodReference.methodReference
+import org.neo4j.codegen.Parameter.param
+import org.neo4j.codegen.TypeReference.typeReference
+import org.neo4j.codegen.bytecode.ByteCode.BYTECODE
+import org.neo4j.codegen.{ClassGenerator, CodeBlock, CodeGenerator, Expression, TypeReference}
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.{ast => runtimeAst}
+import org.neo4j.cypher.internal.frontend.v3_4.helpers.using
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.ExpressionConverters
+import org.neo4j.cypher.internal.runtime.interpreted.commands.{expressions => commands}
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.QueryState
+import org.neo4j.cypher.internal.v3_4.{expressions => ast}
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.{BooleanValue, DoubleValue, LongValue, TextValue, Value, Values}
+
+import scala.collection.mutable.ArrayBuffer
+import scala.util.control.NonFatal
+
+/**
+  * Compiles slotted predicates to bytecode. Slots are read straight from the long and reference arrays of the row,
+  * comparisons between node or relationship ids are done on primitive longs and AND/OR short-circuit without
+  * allocating. Sub-expressions that are not supported are converted to interpreted commands and called from the
+  * generated code.
+  */
+object ExpressionCompiler {
+
+  private val PACKAGE_NAME = "org.neo4j.cypher.internal.runtime.slotted.expressions.compiled.generated"
+  private val classCounter = new AtomicLong()
+
+  def isCompiledPredicate(expression: ast.Expression): Boolean = expression match {
+    case _: ast.And | _: ast.Ands | _: ast.Or | _: ast.Ors | _: ast.Not => true
+    case _: ast.Equals | _: ast.NotEquals | _: runtimeAst.PrimitiveEquals => true
+    case _: ast.LessThan | _: ast.LessThanOrEqual | _: ast.GreaterThan | _: ast.GreaterThanOrEqual => true
+    case _: ast.IsNull | _: ast.IsNotNull | _: runtimeAst.IsPrimitiveNull => true
+    case _ => false
+  }
+
+  /**
+    * @param converters used for the parts of the predicate that are not compiled
+    * @param interpreted used for the interpreted version of the whole predicate
+    * @return the compiled predicate, or None if code generation failed and the predicate should be interpreted
+    */
+  def compilePredicate(expression: ast.Expression, converters: ExpressionConverters,
+                       interpreted: ExpressionConverters): Option[CompiledPredicate] = {
+    val generator = CodeGenerator.generateCode(classOf[CompiledExpression].getClassLoader, BYTECODE)
+    val className = "Predicate" + classCounter.incrementAndGet()
+    try {
+      var fallbacks: Array[commands.Expression] = null
+      val handle = using(generator.generateClass(typeRef[CompiledExpression], PACKAGE_NAME, className)) { clazz =>
+        val code = new PredicateCode(clazz, converters)
+        using(clazz.generateMethod(typeRef[AnyValue], "evaluate",
+                                   param(typeRef[ExecutionContext], "context"),
+                                   param(typeRef[QueryState], "state"))) { body =>
+          body.returns(code.predicate(body, expression))
+        }
+        fallbacks = code.fallbacks.toArray
+        clazz.handle()
+      }
+      val compiled = handle.newInstance().asInstanceOf[CompiledExpression].withFallbacks(fallbacks)
+      Some(CompiledPredicate(compiled, interpreted.toCommandPredicate(expression)))
+    } catch {
+      case NonFatal(_) => None
+    }
+  }
+
+  private class PredicateCode(clazz: ClassGenerator, converters: ExpressionConverters) {
+
+    val fallbacks = ArrayBuffer.empty[commands.Expression]
+    private var names = 0
+
+    def predicate(block: CodeBlock, expression: ast.Expression): Expression = expression match {
+      case ast.And(lhs, rhs) => shortCircuit(block, Seq(lhs, rhs), FALSE, "and")
+      case ast.Ands(exprs) => shortCircuit(block, exprs.toSeq, FALSE, "and")
+      case ast.Or(lhs, rhs) => shortCircuit(block, Seq(lhs, rhs), TRUE, "or")
+      case ast.Ors(exprs) => shortCircuit(block, exprs.toSeq, TRUE, "or")
+      case ast.Not(inner) => invoke(helper("not", 1), predicate(block, inner))
+      case ast.Equals(lhs, rhs) => compare(block, lhs, rhs, "equal", Expression.equal)
+      case ast.NotEquals(lhs, rhs) => compare(block, lhs, rhs, "notEqual", Expression.notEqual)
+      case runtimeAst.PrimitiveEquals(lhs, rhs) => compare(block, lhs, rhs, "primitiveEqual", Expression.equal)
+      case ast.LessThan(lhs, rhs) => compare(block, lhs, rhs, "lessThan", Expression.lt)
+      case ast.LessThanOrEqual(lhs, rhs) => compare(block, lhs, rhs, "lessThanOrEqual", Expression.lte)
+      case ast.GreaterThan(lhs, rhs) => compare(block, lhs, rhs, "greaterThan", Expression.gt)
+      case ast.GreaterThanOrEqual(lhs, rhs) => compare(block, lhs, rhs, "greaterThanOrEqual", Expression.gte)
+      case ast.IsNull(inner) => booleanOf(Expression.equal(value(block, inner), NO_VALUE))
+      case ast.IsNotNull(inner) => booleanOf(Expression.notEqual(value(block, inner), NO_VALUE))
+      case runtimeAst.IsPrimitiveNull(offset) => booleanOf(Expression.equal(longAt(block, offset), NULL_ENTITY))
+      case _ => fallback(block, converters.toCommandPredicate(expression))
+    }
+
+    private def value(block: CodeBlock, expression: ast.Expression): Expression = expression match {
+      case runtimeAst.ReferenceFromSlot(offset, _) =>
+        invoke(block.load("context"), GET_REF_AT, constantInt(offset))
+      case runtimeAst.IdFromSlot(offset) =>
+        invoke(LONG_VALUE, longAt(block, offset))
+      case runtimeAst.NullCheck(offset, inner) => nullCheck(block, offset, inner)
+      case runtimeAst.NullCheckVariable(offset, inner) => nullCheck(block, offset, inner)
+      case runtimeAst.NullCheckProperty(offset, inner) => nullCheck(block, offset, inner)
+      case _: ast.Null => NO_VALUE
+      case _: ast.True => TRUE
+      case _: ast.False => FALSE
+      case e: ast.IntegerLiteral => literal(invoke(LONG_VALUE, constantLong(e.value)))
+      case e: ast.DoubleLiteral => literal(invoke(DOUBLE_VALUE, Expression.constant(e.value)))
+      case e: ast.StringLiteral => literal(invoke(STRING_VALUE, Expression.constant(e.value)))
+      case e if isCompiledPredicate(e) => predicate(block, e)
+      case _ => fallback(block, converters.toCommandExpression(expression))
+    }
+
+    // Ids read from long slots and integer literals can be compared without creating values
+    private def primitiveLong(block: CodeBlock, expression: ast.Expression): Option[Expression] = expression match {
+      case runtimeAst.IdFromSlot(offset) => Some(longAt(block, offset))
+      case e: ast.IntegerLiteral => Some(constantLong(e.value))
+      case _ => None
+    }
+
+    private def compare(block: CodeBlock, lhs: ast.Expression, rhs: ast.Expression, helperName: String,
+                        primitive: (Expression, Expression) => Expression): Expression =
+      (primitiveLong(block, lhs), primitiveLong(block, rhs)) match {
+        case (Some(l), Some(r)) => booleanOf(primitive(l, r))
+        case _ => invoke(helper(helperName, 2), value(block, lhs), value(block, rhs))
+      }
+
+    /*
+     * Generates
+     *
+     *   AnyValue result = <first operand>;
+     *   if (result != decisive) {
+     *     result = combine(result, <second operand>);
+     *     if (result != decisive) {
+     *       ...
+     *     }
+     *   }
+     */
+    private def shortCircuit(block: CodeBlock, operands: Seq[ast.Expression], decisive: Expression,
+                             combine: String): Expression = {
+      val result = block.declare(typeRef[AnyValue], nextName())
+      block.assign(result, predicate(block, operands.head))
+
+      def remaining(outer: CodeBlock, operands: Seq[ast.Expression]): Unit = if (operands.nonEmpty) {
+        using(outer.ifStatement(Expression.notEqual(Expression.load(result), decisive))) { inner =>
+          inner.assign(result, invoke(helper(combine, 2), Expression.load(result), predicate(inner, operands.head)))
+          remaining(inner, operands.tail)
+        }
+      }
+
+      remaining(block, operands.tail)
+      Expression.load(result)
+    }
+
+    private def nullCheck(block: CodeBlock, offset: Int, inner: ast.Expression): Expression = {
+      val result = block.declare(typeRef[AnyValue], nextName())
+      block.assign(result, NO_VALUE)
+      using(block.ifStatement(Expression.notEqual(longAt(block, offset), NULL_ENTITY))) { notNull =>
+        notNull.assign(result, value(notNull, inner))
+      }
+      Expression.load(result)
+    }
+
+    private def literal(initializer: Expression): Expression =
+      getStatic(clazz.staticField(typeRef[AnyValue], nextName(), initializer))
+
+    private def fallback(block: CodeBlock, command: commands.Expression): Expression = {
+      fallbacks += command
+      invoke(block.self(), FALLBACK, constantInt(fallbacks.size - 1), block.load("context"), block.load("state"))
+    }
+
+    private def longAt(block: CodeBlock, offset: Int): Expression =
+      invoke(block.load("context"), GET_LONG_AT, constantInt(offset))
+
+    private def booleanOf(test: Expression): Expression = ternary(test, TRUE, FALSE)
+
+    private def nextName(): String = {
+      names += 1
+      "v" + names
+    }
+  }
+
+  private def typeRef[T](implicit manifest: Manifest[T]): TypeReference = typeReference(manifest.runtimeClass)
+
+  private def helper(name: String, arity: Int) =
+    methodReference(typeRef[CompiledHelpers], typeRef[Value], name, Seq.fill(arity)(typeRef[AnyValue]): _*)
+
+  private val GET_LONG_AT = methodReference(typeRef[ExecutionContext], typeRef[Long], "getLongAt", typeRef[Int])
+  private val GET_REF_AT = methodReference(typeRef[ExecutionContext], typeRef[AnyValue], "getRefAt", typeRef[Int])
+  private val FALLBACK = methodReference(typeRef[CompiledExpression], typeRef[AnyValue], "fallback",
+                                         typeRef[Int], typeRef[ExecutionContext], typeRef[QueryState])
+  private val LONG_VALUE = methodReference(typeRef[Values], typeRef[LongValue], "longValue", typeRef[Long])
+  private val DOUBLE_VALUE = methodReference(typeRef[Values], typeRef[DoubleValue], "doubleValue", typeRef[Double])
+  private val STRING_VALUE = methodReference(typeRef[Values], typeRef[TextValue], "stringValue", typeRef[String])
+
+  private val TRUE = getStatic(staticField(typeRef[BooleanValue], typeRef[BooleanValue], "TRUE"))
+  private val FALSE = getStatic(staticField(typeRef[BooleanValue], typeRef[BooleanValue], "FALSE"))
+  private val NO_VALUE = getStatic(staticField(typeRef[Values], typeRef[Value], "NO_VALUE"))
+  private val NULL_ENTITY = constantLong(-1L)
+}
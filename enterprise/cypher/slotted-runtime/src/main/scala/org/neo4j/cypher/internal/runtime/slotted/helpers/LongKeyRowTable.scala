@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.slotted.helpers
+
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.slotted.helpers.LongKeyRowTable.NO_ROW
+import org.neo4j.values.AnyValue
+
+/**
+  * Hash table from keys of a fixed number of longs to slotted rows, used to build the probe side of hash joins.
+  *
+  * Nothing is allocated per key or per row. Keys live in one long array using open addressing, and the rows are
+  * copied into flat arrays of longs and references. Rows with the same key are chained through their row numbers,
+  * in the order they were added.
+  */
+class LongKeyRowTable(keyWidth: Int, longsPerRow: Int, refsPerRow: Int) {
+
+  private var capacity = 16
+  private var keys = new Array[Long](capacity * keyWidth)
+  private var firstRows = newEmptyHeads(capacity)
+  private var lastRows = new Array[Int](capacity)
+  private var usedEntries = 0
+
+  private var rowLongs = new Array[Long](16 * longsPerRow)
+  private var rowRefs = new Array[AnyValue](16 * refsPerRow)
+  private var nextRows = new Array[Int](16)
+  private var rowCount = 0
+
+  def isEmpty: Boolean = rowCount == 0
+
+  def add(key: Array[Long], row: ExecutionContext): Unit = {
+    if (rowCount == nextRows.length) growRows()
+    val rowNumber = rowCount
+    System.arraycopy(row.longs(), 0, rowLongs, rowNumber * longsPerRow, longsPerRow)
+    System.arraycopy(row.refs(), 0, rowRefs, rowNumber * refsPerRow, refsPerRow)
+    nextRows(rowNumber) = NO_ROW
+    rowCount += 1
+
+    val entry = findEntry(key, keys, firstRows)
+    if (firstRows(entry) == NO_ROW) {
+      System.arraycopy(key, 0, keys, entry * keyWidth, keyWidth)
+      firstRows(entry) = rowNumber
+      lastRows(entry) = rowNumber
+      usedEntries += 1
+      if (usedEntries * 4 >= capacity * 3) growEntries()
+    } else {
+      nextRows(lastRows(entry)) = rowNumber
+      lastRows(entry) = rowNumber
+    }
+  }
+
+  /**
+    * @return the first row added with this key, or NO_ROW
+    */
+  def firstRow(key: Array[Long]): Int = firstRows(findEntry(key, keys, firstRows))
+
+  /**
+    * @return the row added with the same key after the given row, or NO_ROW
+    */
+  def nextRow(row: Int): Int = nextRows(row)
+
+  def copyRowTo(row: Int, target: ExecutionContext): Unit = {
+    System.arraycopy(rowLongs, row * longsPerRow, target.longs(), 0, longsPerRow)
+    System.arraycopy(rowRefs, row * refsPerRow, target.refs(), 0, refsPerRow)
+  }
+
+  private def findEntry(key: Array[Long], keys: Array[Long], heads: Array[Int]): Int = {
+    val mask = heads.length - 1
+    var entry = hash(key) & mask
+    while (heads(entry) != NO_ROW && !keyEquals(keys, entry, key)) {
+      entry = (entry + 1) & mask
+    }
+    entry
+  }
+
+  private def keyEquals(keys: Array[Long], entry: Int, key: Array[Long]): Boolean = keyWidth match {
+    case 1 => keys(entry) == key(0)
+    case 2 => keys(entry * 2) == key(0) && keys(entry * 2 + 1) == key(1)
+    case _ =>
+      val offset = entry * keyWidth
+      var i = 0
+      while (i < keyWidth) {
+        if (keys(offset + i) != key(i)) return false
+        i += 1
+      }
+      true
+  }
+
+  private def hash(key: Array[Long]): Int = keyWidth match {
+    case 1 => mix(key(0))
+    case 2 => mix(key(0) * 0x9E3779B97F4A7C15L + key(1))
+    case _ =>
+      var h = 0L
+      var i = 0
+      while (i < keyWidth) {
+        h = h * 0x9E3779B97F4A7C15L + key(i)
+        i += 1
+      }
+      mix(h)
+  }
+
+  // The finalizer of MurmurHash3, node ids are dense and need their bits spread before masking
+  private def mix(value: Long): Int = {
+    var h = value
+    h ^= h >>> 33
+    h *= 0xff51afd7ed558ccdL
+    h ^= h >>> 33
+    h *= 0xc4ceb9fe1a85ec53L
+    h ^= h >>> 33
+    h.toInt
+  }
+
+  private def growEntries(): Unit = {
+    val oldKeys = keys
+    val oldFirstRows = firstRows
+    val oldLastRows = lastRows
+    capacity *= 2
+    keys = new Array[Long](capacity * keyWidth)
+    firstRows = newEmptyHeads(capacity)
+    lastRows = new Array[Int](capacity)
+
+    val key = new Array[Long](keyWidth)
+    var oldEntry = 0
+    while (oldEntry < oldFirstRows.length) {
+      if (oldFirstRows(oldEntry) != NO_ROW) {
+        System.arraycopy(oldKeys, oldEntry * keyWidth, key, 0, keyWidth)
+        val entry = findEntry(key, keys, firstRows)
+        System.arraycopy(key, 0, keys, entry * keyWidth, keyWidth)
+        firstRows(entry) = oldFirstRows(oldEntry)
+        lastRows(entry) = oldLastRows(oldEntry)
+      }
+      oldEntry += 1
+    }
+  }
+
+  private def growRows(): Unit = {
+    val rows = nextRows.length * 2
+    nextRows = java.util.Arrays.copyOf(nextRows, rows)
+    rowLongs = java.util.Arrays.copyOf(rowLongs, rows * longsPerRow)
+    rowRefs = java.util.Arrays.copyOf(rowRefs, rows * refsPerRow)
+  }
+
+  private def newEmptyHeads(size: Int): Array[Int] = {
+    val heads = new Array[Int](size)
+    java.util.Arrays.fill(heads, NO_ROW)
+    heads
+  }
+}
+
+object LongKeyRowTable {
+  val NO_ROW: Int = -1
+}
@@ -19,13 +19,13 @@
  */
 package org.neo4j.cypher.internal.runtime.slotted.pipes
 
-import java.util
-
 import org.neo4j.cypher.internal.compatibility.v3_4.runtime.SlotConfiguration
-import org.neo4j.cypher.internal.runtime.slotted.helpers.NullChecker.entityIsNull
 import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
-import org.neo4j.cypher.internal.runtime.interpreted.pipes.{Pipe, QueryState}
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{Pipe, PipeWithSource, QueryState}
 import org.neo4j.cypher.internal.runtime.slotted.SlottedExecutionContext
+import org.neo4j.cypher.internal.runtime.slotted.helpers.LongKeyRowTable
+import org.neo4j.cypher.internal.runtime.slotted.helpers.LongKeyRowTable.NO_ROW
+import org.neo4j.cypher.internal.runtime.slotted.helpers.NullChecker.entityIsNull
 import org.neo4j.cypher.internal.util.v3_4.attribution.Id
 
 case class NodeHashJoinSlottedPipe(leftSide: Array[Int],
@@ -36,27 +36,86 @@ case class NodeHashJoinSlottedPipe(leftSide: Array[Int],
                                    longsToCopy: Array[(Int, Int)],
                                    refsToCopy: Array[(Int, Int)])
                                   (val id: Id = Id.INVALID_ID)
-  extends AbstractHashJoinPipe[HashKey, Array[Int]](left, right, slots) {
+  extends PipeWithSource(left) {
+
+  override protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+
+    if (input.isEmpty)
+      return Iterator.empty
+
+    val rhsIterator = right.createResults(state)
+
+    if (rhsIterator.isEmpty)
+      return Iterator.empty
+
+    val table = buildProbeTable(input)
+
+    // This will only happen if all the lhs-values evaluate to null, which is probably rare.
+    // But, it's cheap to check and will save us from exhausting the rhs, so it's probably worth it
+    if (table.isEmpty)
+      return Iterator.empty
+
+    new Iterator[ExecutionContext] {
+      private val key = new Array[Long](rightSide.length)
+      private var rhs: ExecutionContext = _
+      private var matchingRow = NO_ROW
+
+      override def hasNext: Boolean = {
+        while (matchingRow == NO_ROW && rhsIterator.hasNext) {
+          rhs = rhsIterator.next()
+          if (computeKey(rhs, rightSide, key))
+            matchingRow = table.firstRow(key)
+        }
+        matchingRow != NO_ROW
+      }
+
+      override def next(): ExecutionContext = {
+        if (!hasNext)
+          return Iterator.empty.next()
+
+        val newRow = SlottedExecutionContext(slots)
+        table.copyRowTo(matchingRow, newRow)
+        copyDataFromRhs(newRow, rhs)
+        matchingRow = table.nextRow(matchingRow)
+        newRow
+      }
+    }
+  }
+
+  private def buildProbeTable(input: Iterator[ExecutionContext]): LongKeyRowTable = {
+    val first = input.next()
+    val table = new LongKeyRowTable(leftSide.length, first.longs().length, first.refs().length)
+    val key = new Array[Long](leftSide.length)
+
+    var row = first
+    while (row != null) {
+      if (computeKey(row, leftSide, key))
+        table.add(key, row)
+      row = if (input.hasNext) input.next() else null
+    }
+
+    table
+  }
 
   /**
-    * Creates an array of longs to do the hash join on. If any of the nodes is null, nothing will match and we'll simply return a None
+    * Fills in the node ids to do the hash join on. If any of the nodes is null, nothing will match
     *
     * @param context The execution context to get the node ids from
-    * @return A Some[Array] if all nodes are valid, or None if any is null
+    * @return true if all nodes are valid, false if any is null
     */
-  override def computeKey(context: ExecutionContext, keyColumns: Array[Int], ignored: QueryState): Option[HashKey] = {
-    val key = new Array[Long](keyColumns.length)
-    for (i <- keyColumns.indices) {
-      val idx = keyColumns(i)
-      val nodeId = context.getLongAt(idx)
+  private def computeKey(context: ExecutionContext, keyColumns: Array[Int], key: Array[Long]): Boolean = {
+    var i = 0
+    while (i < keyColumns.length) {
+      val nodeId = context.getLongAt(keyColumns(i))
       if (entityIsNull(nodeId))
-        return None
+        return false
       key(i) = nodeId
+      i += 1
     }
-    Some(HashKey(key))
+    true
   }
 
-  override def copyDataFromRhs(newRow: SlottedExecutionContext, rhs: ExecutionContext): Unit = {
+  private def copyDataFromRhs(newRow: SlottedExecutionContext, rhs: ExecutionContext): Unit = {
     longsToCopy foreach {
       case (from, to) => newRow.setLongAt(to, rhs.getLongAt(from))
     }
@@ -65,14 +124,3 @@ case class NodeHashJoinSlottedPipe(leftSide: Array[Int],
     }
   }
 }
-
-case class HashKey(longs: Array[Long]) {
-  override def hashCode(): Int = util.Arrays.hashCode(longs)
-
-  override def equals(obj: scala.Any): Boolean = obj match {
-    case HashKey(other) => util.Arrays.equals(longs, other)
-    case _ => false
-  }
-
-  override def canEqual(that: Any): Boolean = that.isInstanceOf[HashKey]
-}
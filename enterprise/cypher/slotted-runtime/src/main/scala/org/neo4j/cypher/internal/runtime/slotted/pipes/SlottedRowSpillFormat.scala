@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.slotted.pipes
+
+import java.io.{DataInputStream, DataOutputStream}
+
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.SlotConfiguration
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.spill.{EstimatedHeapSize, RowSpillFormat, SpilledValueReader, SpilledValueWriter}
+import org.neo4j.cypher.internal.runtime.slotted.SlottedExecutionContext
+
+/**
+  * Slotted rows are spilled as their long slots followed by their reference slots.
+  */
+class SlottedRowSpillFormat(slots: SlotConfiguration) extends RowSpillFormat[ExecutionContext] {
+  override def write(row: ExecutionContext, out: DataOutputStream, values: SpilledValueWriter): Unit = {
+    val longs = row.longs()
+    var i = 0
+    while (i < longs.length) {
+      out.writeLong(longs(i))
+      i += 1
+    }
+    val refs = row.refs()
+    i = 0
+    while (i < refs.length) {
+      values.write(refs(i))
+      i += 1
+    }
+  }
+
+  override def read(in: DataInputStream, values: SpilledValueReader): ExecutionContext = {
+    val row = SlottedExecutionContext(slots)
+    var i = 0
+    while (i < row.longs.length) {
+      row.longs(i) = in.readLong()
+      i += 1
+    }
+    i = 0
+    while (i < row.refs.length) {
+      row.refs(i) = values.read()
+      i += 1
+    }
+    row
+  }
+
+  override def estimatedHeapSize(row: ExecutionContext): Long = {
+    var size = 8L * row.longs().length
+    val refs = row.refs()
+    var i = 0
+    while (i < refs.length) {
+      size += EstimatedHeapSize.of(refs(i))
+      i += 1
+    }
+    size
+  }
+}
@@ -24,6 +24,7 @@ import java.util.Comparator
 import org.neo4j.cypher.internal.compatibility.v3_4.runtime.{LongSlot, RefSlot, Slot, SlotConfiguration}
 import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.{Pipe, PipeWithSource, QueryState}
+import org.neo4j.cypher.internal.runtime.interpreted.spill.SpillingSorter
 import org.neo4j.cypher.internal.util.v3_4.attribution.Id
 import org.neo4j.values.{AnyValue, AnyValues}
 
@@ -38,11 +39,10 @@ case class SortSlottedPipe(source: Pipe,
     .map(ExecutionContextOrdering.comparator)
     .reduceLeft[Comparator[ExecutionContext]]((a, b) => a.thenComparing(b))
 
-  override protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
-    val array = input.toArray
-    java.util.Arrays.sort(array, comparator)
-    array.toIterator
-  }
+  private val sorter = new SpillingSorter(comparator, new SlottedRowSpillFormat(slots))
+
+  override protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] =
+    sorter.sort(input, state.query.resources)
 }
 
 object ExecutionContextOrdering {
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.slotted.expressions.compiled
+
+import org.mockito.Mockito.when
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.executionplan.builders.prepare.KeyTokenResolver
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.{SlotConfiguration, ast => runtimeAst}
+import org.neo4j.cypher.internal.planner.v3_4.spi.TokenContext
+import org.neo4j.cypher.internal.runtime.interpreted.QueryStateHelper
+import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.{CommunityExpressionConverter, ExpressionConverters}
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.{Expression, Property}
+import org.neo4j.cypher.internal.runtime.interpreted.commands.predicates.Predicate
+import org.neo4j.cypher.internal.runtime.interpreted.commands.values.{KeyToken, TokenType}
+import org.neo4j.cypher.internal.runtime.slotted.SlottedExecutionContext
+import org.neo4j.cypher.internal.runtime.slotted.expressions.SlottedExpressionConverters
+import org.neo4j.cypher.internal.util.v3_4.InputPosition
+import org.neo4j.cypher.internal.util.v3_4.symbols._
+import org.neo4j.cypher.internal.util.v3_4.test_helpers.CypherFunSuite
+import org.neo4j.cypher.internal.v3_4.{expressions => ast}
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.Values.{NO_VALUE, longValue, stringValue}
+
+class CompiledExpressionConverterTest extends CypherFunSuite {
+
+  private val pos = InputPosition.NONE
+  private val interpreted = new ExpressionConverters(SlottedExpressionConverters, CommunityExpressionConverter)
+  private val converters = new ExpressionConverters(new CompiledExpressionConverter(interpreted),
+                                                    SlottedExpressionConverters, CommunityExpressionConverter)
+
+  private val slots = SlotConfiguration.empty
+    .newLong("n", nullable = true, CTNode)
+    .newReference("x", nullable = true, CTAny)
+
+  test("should compare ids read from long slots") {
+    val predicate = compile(ast.Equals(runtimeAst.IdFromSlot(0), literal(42))(pos))
+
+    evaluate(predicate, 42, longValue(1)) should equal(Some(true))
+    evaluate(predicate, 41, longValue(1)) should equal(Some(false))
+  }
+
+  test("should compare references with cypher semantics") {
+    val predicate = compile(ast.LessThan(runtimeAst.ReferenceFromSlot(0, "x"), literal(10))(pos))
+
+    evaluate(predicate, 0, longValue(9)) should equal(Some(true))
+    evaluate(predicate, 0, longValue(10)) should equal(Some(false))
+    evaluate(predicate, 0, stringValue("9")) should equal(None)
+    evaluate(predicate, 0, NO_VALUE) should equal(None)
+  }
+
+  test("should use three valued logic for AND and OR") {
+    val xIsSmall = ast.LessThan(runtimeAst.ReferenceFromSlot(0, "x"), literal(10))(pos)
+    val nIsNull = runtimeAst.IsPrimitiveNull(0)
+    val and = compile(ast.And(xIsSmall, ast.Not(nIsNull)(pos))(pos))
+    val or = compile(ast.Ors(Set(xIsSmall, nIsNull))(pos))
+
+    evaluate(and, 1, longValue(1)) should equal(Some(true))
+    evaluate(and, -1, longValue(1)) should equal(Some(false))
+    evaluate(and, 1, NO_VALUE) should equal(None)
+    evaluate(and, -1, NO_VALUE) should equal(Some(false))
+
+    evaluate(or, 1, longValue(1)) should equal(Some(true))
+    evaluate(or, 1, longValue(11)) should equal(Some(false))
+    evaluate(or, 1, NO_VALUE) should equal(None)
+    evaluate(or, -1, NO_VALUE) should equal(Some(true))
+  }
+
+  test("should return null for properties of a null entity") {
+    val predicate = compile(ast.IsNull(runtimeAst.NullCheck(0, runtimeAst.IdFromSlot(0)))(pos))
+
+    evaluate(predicate, -1, NO_VALUE) should equal(Some(true))
+    evaluate(predicate, 1, NO_VALUE) should equal(Some(false))
+  }
+
+  test("should interpret the parts it cannot compile") {
+    val listContainsX = ast.In(runtimeAst.ReferenceFromSlot(0, "x"),
+                               ast.ListLiteral(Seq(literal(1), literal(2)))(pos))(pos)
+    val predicate = compile(ast.Not(listContainsX)(pos))
+
+    evaluate(predicate, 0, longValue(1)) should equal(Some(false))
+    evaluate(predicate, 0, longValue(3)) should equal(Some(true))
+  }
+
+  test("should let a false operand of AND win over an error in another operand") {
+    val divideByZero = ast.Equals(ast.Divide(literal(1), literal(0))(pos), literal(1))(pos)
+    val predicate = compile(ast.And(divideByZero, ast.False()(pos))(pos))
+
+    evaluate(predicate, 0, longValue(1)) should equal(Some(false))
+  }
+
+  test("should resolve the key tokens of the interpreted predicate and of the interpreted parts") {
+    // Given
+    val xProp = ast.Property(runtimeAst.ReferenceFromSlot(0, "x"), ast.PropertyKeyName("prop")(pos))(pos)
+    val predicate = compile(ast.Equals(xProp, literal(1))(pos))
+    val tokenContext = mock[TokenContext]
+    when(tokenContext.getOptPropertyKeyId("prop")).thenReturn(Some(7))
+
+    // When
+    val rewritten = predicate.rewrite(KeyTokenResolver.resolveExpressions(_, tokenContext))
+
+    // Then
+    val compiledPredicate = rewritten.asInstanceOf[CompiledPredicate]
+    propertyKeys(compiledPredicate.interpreted) should equal(Seq(KeyToken.Resolved("prop", 7, TokenType.PropertyKey)))
+    compiledPredicate.compiled.fallbackExpressions.flatMap(propertyKeys) should equal(
+      Seq(KeyToken.Resolved("prop", 7, TokenType.PropertyKey)))
+    compiledPredicate.compiled should not be theSameInstanceAs(predicate.asInstanceOf[CompiledPredicate].compiled)
+  }
+
+  test("should not compile expressions that are not predicates") {
+    converters.toCommandExpression(runtimeAst.IdFromSlot(0)) should not be a[CompiledPredicate]
+  }
+
+  private def propertyKeys(expression: Expression): Seq[KeyToken] =
+    expression.filter(_.isInstanceOf[Property]).map(_.asInstanceOf[Property].propertyKey)
+
+  private def literal(value: Long) = ast.SignedDecimalIntegerLiteral(value.toString)(pos)
+
+  private def compile(expression: ast.Expression): Predicate = {
+    val predicate = converters.toCommandPredicate(expression)
+    predicate shouldBe a[CompiledPredicate]
+    predicate
+  }
+
+  private def evaluate(predicate: Predicate, n: Long, x: AnyValue): Option[Boolean] = {
+    val row = SlottedExecutionContext(slots)
+    row.setLongAt(0, n)
+    row.setRefAt(0, x)
+    predicate.isMatch(row, QueryStateHelper.empty)
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.slotted.helpers
+
+import org.neo4j.cypher.internal.compatibility.v3_4.runtime.SlotConfiguration
+import org.neo4j.cypher.internal.runtime.slotted.SlottedExecutionContext
+import org.neo4j.cypher.internal.runtime.slotted.helpers.LongKeyRowTable.NO_ROW
+import org.neo4j.cypher.internal.util.v3_4.symbols._
+import org.neo4j.cypher.internal.util.v3_4.test_helpers.CypherFunSuite
+import org.neo4j.values.storable.TextValue
+import org.neo4j.values.storable.Values.stringValue
+
+class LongKeyRowTableTest extends CypherFunSuite {
+
+  private val slots = SlotConfiguration.empty
+    .newLong("a", nullable = false, CTNode)
+    .newLong("b", nullable = false, CTNode)
+    .newReference("x", nullable = true, CTAny)
+
+  test("should chain rows with the same key in insertion order") {
+    val table = new LongKeyRowTable(1, 2, 1)
+    table.add(Array(1L), row(1, 10, "first"))
+    table.add(Array(2L), row(2, 20, "other"))
+    table.add(Array(1L), row(1, 11, "second"))
+
+    rowsFor(table, 1L) should equal(List((1L, 10L, "first"), (1L, 11L, "second")))
+    rowsFor(table, 2L) should equal(List((2L, 20L, "other")))
+    rowsFor(table, 3L) should be(empty)
+  }
+
+  test("should keep all keys when growing") {
+    val table = new LongKeyRowTable(2, 2, 1)
+    for (i <- 0L until 10000L) {
+      table.add(Array(i, i * 7), row(i, i * 7, i.toString))
+    }
+
+    for (i <- 0L until 10000L) {
+      rowsFor(table, i, i * 7) should equal(List((i, i * 7, i.toString)))
+    }
+    rowsFor(table, 1L, 1L) should be(empty)
+  }
+
+  test("should support wide keys") {
+    val table = new LongKeyRowTable(3, 2, 1)
+    table.add(Array(1L, 2L, 3L), row(1, 2, "x"))
+
+    rowsFor(table, 1L, 2L, 3L) should equal(List((1L, 2L, "x")))
+    rowsFor(table, 1L, 2L, 4L) should be(empty)
+  }
+
+  test("should be empty until a row is added") {
+    val table = new LongKeyRowTable(1, 2, 1)
+    table.isEmpty should be(true)
+    table.add(Array(0L), row(0, 0, "x"))
+    table.isEmpty should be(false)
+  }
+
+  private def row(a: Long, b: Long, x: String) = {
+    val row = SlottedExecutionContext(slots)
+    row.setLongAt(0, a)
+    row.setLongAt(1, b)
+    row.setRefAt(0, stringValue(x))
+    row
+  }
+
+  private def rowsFor(table: LongKeyRowTable, key: Long*): List[(Long, Long, String)] = {
+    val result = List.newBuilder[(Long, Long, String)]
+    var current = table.firstRow(key.toArray)
+    while (current != NO_ROW) {
+      val target = SlottedExecutionContext(slots)
+      table.copyRowTo(current, target)
+      result += ((target.getLongAt(0), target.getLongAt(1), target.getRefAt(0).asInstanceOf[TextValue].stringValue()))
+      current = table.nextRow(current)
+    }
+    result.result()
+  }
+}
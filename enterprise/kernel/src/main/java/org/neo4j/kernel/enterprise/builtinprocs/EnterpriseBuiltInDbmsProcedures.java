@@ -333,6 +333,19 @@ public class EnterpriseBuiltInDbmsProcedures
         }
     }
 
+    @Description( "List the locks that transactions currently executing at this instance are waiting for, " +
+            "together with the transactions holding those locks." )
+    @Procedure( name = "dbms.listLockWaits", mode = DBMS )
+    public Stream<LockWaitResult> listLockWaits()
+    {
+        securityContext.assertCredentialsNotExpired();
+        Map<KernelTransactionHandle,List<QuerySnapshot>> handleQuerySnapshotsMap =
+                getKernelTransactions().activeTransactions().stream()
+                        .filter( transaction -> isAdminOrSelf( transaction.securityContext().subject().username() ) )
+                        .collect( toMap( identity(), getTransactionQueries() ) );
+        return new TransactionDependenciesResolver( handleQuerySnapshotsMap ).lockWaits();
+    }
+
     private Function<KernelTransactionHandle,List<QuerySnapshot>> getTransactionQueries()
     {
         return transactionHandle -> transactionHandle.executingQueries()
@@ -22,6 +22,7 @@ package org.neo4j.kernel.enterprise.builtinprocs;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
@@ -33,6 +34,7 @@ import java.util.Set;
 import java.util.StringJoiner;
 import java.util.TreeSet;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import org.neo4j.kernel.api.KernelTransactionHandle;
 import org.neo4j.kernel.api.query.QuerySnapshot;
@@ -46,6 +48,7 @@ import static java.util.stream.Collectors.toMap;
 public class TransactionDependenciesResolver
 {
     private final Map<KernelTransactionHandle,List<QuerySnapshot>> handleSnapshotsMap;
+    private final List<LockWaitResult> lockWaits = new ArrayList<>();
     private Map<KernelTransactionHandle,Set<KernelTransactionHandle>> directDependencies;
 
     TransactionDependenciesResolver( Map<KernelTransactionHandle,List<QuerySnapshot>> handleSnapshotsMap )
@@ -83,6 +86,14 @@ public class TransactionDependenciesResolver
         return describe( allBlockers );
     }
 
+    /**
+     * @return one entry for every lock a transaction is waiting for, per transaction holding that lock.
+     */
+    public Stream<LockWaitResult> lockWaits()
+    {
+        return lockWaits.stream();
+    }
+
     public Map<String,Object> describeBlockingLocks( KernelTransactionHandle handle )
     {
         List<QuerySnapshot> querySnapshots = handleSnapshotsMap.get( handle );
@@ -134,6 +145,7 @@ public class TransactionDependenciesResolver
                         Set<KernelTransactionHandle> kernelTransactionHandles =
                                 directDependencies.computeIfAbsent( txHandle, handle -> new HashSet<>() );
                         kernelTransactionHandles.add( kernelTransactionHandle );
+                        lockWaits.add( new LockWaitResult( txHandle, kernelTransactionHandle, activeLock ) );
                     }
                 }
             }
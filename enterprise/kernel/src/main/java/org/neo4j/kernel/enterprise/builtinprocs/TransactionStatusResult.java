@@ -63,6 +63,7 @@ public class TransactionStatusResult
     public final Long idleTimeMillis;
     public final Long allocatedBytes;
     public final Long allocatedDirectBytes;
+    public final long transactionStateBytes;
     public final long pageHits;
     public final long pageFaults;
 
@@ -81,6 +82,7 @@ public class TransactionStatusResult
         cpuTimeMillis = statistic.getCpuTimeMillis();
         allocatedBytes = statistic.getHeapAllocatedBytes();
         allocatedDirectBytes = statistic.getDirectAllocatedBytes();
+        transactionStateBytes = statistic.getTransactionStateBytes();
         waitTimeMillis = statistic.getWaitTimeMillis();
         idleTimeMillis = statistic.getIdleTimeMillis();
         pageHits = statistic.getPageHits();
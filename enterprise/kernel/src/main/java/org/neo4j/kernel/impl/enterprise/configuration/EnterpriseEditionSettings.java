@@ -25,6 +25,7 @@ import org.neo4j.configuration.Description;
 import org.neo4j.configuration.Internal;
 import org.neo4j.configuration.LoadableConfig;
 import org.neo4j.graphdb.config.Setting;
+import org.neo4j.kernel.impl.enterprise.lock.forseti.DeadlockHandling;
 import org.neo4j.kernel.impl.store.id.IdType;
 
 import static org.neo4j.kernel.configuration.Settings.STRING;
@@ -52,6 +53,15 @@ public class EnterpriseEditionSettings implements LoadableConfig
     public static final Setting<String> security_module = setting( "unsupported.dbms.security.module", STRING,
             ENTERPRISE_SECURITY_MODULE_ID );
 
+    @Internal
+    @Description( "How the lock manager deals with transactions that may deadlock. 'DETECT' lets transactions wait " +
+            "and aborts one of them when a wait cycle is found. 'WAIT_DIE' aborts a transaction instead of letting " +
+            "it wait for a lock held by an older transaction. 'WOUND_WAIT' lets a transaction wait for a lock held " +
+            "by a younger transaction only after wounding it, making it abort as soon as it waits for a lock itself." )
+    public static final Setting<DeadlockHandling> lock_deadlock_handling = setting(
+            "unsupported.dbms.locks.deadlock_handling", options( DeadlockHandling.class ),
+            DeadlockHandling.DETECT.name() );
+
     @Description( "Configure the operating mode of the database -- 'SINGLE' for stand-alone operation, " +
             "'HA' for operating as a member in an HA cluster, 'ARBITER' for a cluster member with no database in an HA cluster, " +
             "'CORE' for operating as a core member of a Causal Cluster, " +
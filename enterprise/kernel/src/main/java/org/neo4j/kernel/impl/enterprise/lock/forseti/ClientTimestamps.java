@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+/**
+ * Hands out the timestamps that order clients for deadlock prevention.
+ * <p/>
+ * A transaction aborted to prevent a deadlock is expected to be retried, and a retry that got a new timestamp would
+ * be younger than before and could be aborted again and again. Transactions are retried by the thread that ran them,
+ * so a client aborted to prevent a deadlock leaves its timestamp and the lock it was waiting for behind, and the next
+ * client leased by its thread takes them along. That client only goes back to the timestamp of the aborted attempt
+ * once it waits for the same lock, which tells a retry apart from an unrelated transaction that happens to run on the
+ * same thread. The aborted attempt is forgotten when that client is closed, so it is never passed on any further.
+ */
+class ClientTimestamps
+{
+    private final AtomicLong next = new AtomicLong();
+    private final ThreadLocal<AbortedClient> abortedClient = new ThreadLocal<>();
+
+    /**
+     * @return the timestamp of a new client.
+     */
+    long timestampForNewClient()
+    {
+        return next.incrementAndGet();
+    }
+
+    /**
+     * Called when a client is leased by the current thread.
+     *
+     * @return the client aborted last by this thread to prevent a deadlock, or {@code null} if there is none since the
+     * previous client leased by this thread.
+     */
+    AbortedClient takeAbortedClient()
+    {
+        AbortedClient aborted = abortedClient.get();
+        if ( aborted != null )
+        {
+            abortedClient.remove();
+        }
+        return aborted;
+    }
+
+    /**
+     * Called by the thread of a client that is aborted to prevent a deadlock.
+     *
+     * @param timestamp timestamp of the aborted client, to be kept when its transaction is retried.
+     * @param type type of the resource that the aborted client was waiting for.
+     * @param resourceId id of the resource that the aborted client was waiting for.
+     */
+    void aborted( long timestamp, ResourceType type, long resourceId )
+    {
+        abortedClient.set( new AbortedClient( timestamp, type, resourceId ) );
+    }
+
+    static final class AbortedClient
+    {
+        final long timestamp;
+        private final ResourceType type;
+        private final long resourceId;
+
+        private AbortedClient( long timestamp, ResourceType type, long resourceId )
+        {
+            this.timestamp = timestamp;
+            this.type = type;
+            this.resourceId = resourceId;
+        }
+
+        boolean wasWaitingFor( ResourceType type, long resourceId )
+        {
+            return this.type.typeId() == type.typeId() && this.resourceId == resourceId;
+        }
+    }
+}
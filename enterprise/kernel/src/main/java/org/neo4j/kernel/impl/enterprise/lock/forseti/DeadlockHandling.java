@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+/**
+ * How {@link ForsetiLockManager} deals with transactions that may deadlock.
+ * <p/>
+ * The timestamp based schemes order clients by the time they were handed out to a transaction, and only ever let a
+ * client wait for clients of one side of that order. Wait cycles can then never form, so there is no need to look
+ * for them while waiting, at the price of aborting some transactions that would not actually have deadlocked.
+ */
+public enum DeadlockHandling
+{
+    /**
+     * Detect deadlocks by propagating wait lists between waiting clients, and verify them by traversing the
+     * waiter/lock-owner graph. Which client aborts is decided by {@link DeadlockStrategies}.
+     */
+    DETECT,
+
+    /**
+     * A client may only wait for locks held by younger clients. A client that would have to wait for a lock held by
+     * an older client aborts instead.
+     */
+    WAIT_DIE,
+
+    /**
+     * A client may only wait for locks held by older clients. A client that waits for a lock held by a younger
+     * client wounds that younger client, which aborts as soon as it is itself waiting for a lock.
+     */
+    WOUND_WAIT
+}
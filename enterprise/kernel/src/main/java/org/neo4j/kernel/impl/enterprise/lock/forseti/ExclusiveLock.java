@@ -56,6 +56,21 @@ class ExclusiveLock implements ForsetiLockManager.Lock
         owners.add( owner );
     }
 
+    @Override
+    public boolean isHeldByClientOlderThan( ForsetiClient client )
+    {
+        return owner != client && owner.isOlderThan( client );
+    }
+
+    @Override
+    public void woundWaitingHoldersYoungerThan( ForsetiClient client )
+    {
+        if ( owner != client && client.isOlderThan( owner ) )
+        {
+            owner.woundIfWaiting();
+        }
+    }
+
     @Override
     public String toString()
     {
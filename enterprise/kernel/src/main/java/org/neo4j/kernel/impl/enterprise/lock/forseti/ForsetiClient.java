@@ -81,6 +81,12 @@ public class ForsetiClient implements Locks.Client
     /** How to resolve deadlocks. */
     private final DeadlockResolutionStrategy deadlockResolutionStrategy;
 
+    /** Whether to detect deadlocks, or prevent them by ordering clients by {@link #timestamp}. */
+    private final DeadlockHandling deadlockHandling;
+
+    /** Source of the timestamps that order clients for deadlock prevention. */
+    private final ClientTimestamps timestamps;
+
     /** Handle to return client to pool when closed. */
     private final Pool<ForsetiClient> clientPool;
 
@@ -138,15 +144,36 @@ public class ForsetiClient implements Locks.Client
      */
     private volatile ForsetiLockManager.Lock waitingForLock;
 
+    /**
+     * When the transaction using this client first started, used to order clients when preventing deadlocks.
+     * Lower is older. Kept when a transaction aborted to prevent a deadlock is retried, see {@link ClientTimestamps}.
+     */
+    private volatile long timestamp;
+
+    /**
+     * The client that the thread leasing this client aborted last to prevent a deadlock, if this client may be its
+     * retry. Only accessed by the thread using this client.
+     */
+    private ClientTimestamps.AbortedClient retryOf;
+
+    /**
+     * Set by an older client waiting for a lock we hold, when using {@link DeadlockHandling#WOUND_WAIT}.
+     * A wounded client aborts the next time it waits for a lock.
+     */
+    private volatile boolean wounded;
+
     public ForsetiClient( int id, ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps,
                           WaitStrategy<AcquireLockTimeoutException>[] waitStrategies, Pool<ForsetiClient> clientPool,
-                          DeadlockResolutionStrategy deadlockResolutionStrategy, IntFunction<ForsetiClient> clientById,
+                          DeadlockResolutionStrategy deadlockResolutionStrategy, DeadlockHandling deadlockHandling,
+                          ClientTimestamps timestamps, IntFunction<ForsetiClient> clientById,
                           long lockAcquisitionTimeoutMillis, Clock clock )
     {
         this.clientId = id;
         this.lockMaps = lockMaps;
         this.waitStrategies = waitStrategies;
         this.deadlockResolutionStrategy = deadlockResolutionStrategy;
+        this.deadlockHandling = deadlockHandling;
+        this.timestamps = timestamps;
         this.clientPool = clientPool;
         this.clientById = clientById;
         this.sharedLockCounts = new PrimitiveLongIntMap[lockMaps.length];
@@ -168,6 +195,9 @@ public class ForsetiClient implements Locks.Client
     public void reset()
     {
         stateHolder.reset();
+        timestamp = timestamps.timestampForNewClient();
+        retryOf = timestamps.takeAbortedClient();
+        wounded = false;
     }
 
     @Override
@@ -717,6 +747,7 @@ public class ForsetiClient implements Locks.Client
         stateHolder.closeClient();
         waitForAllClientsToLeave();
         releaseAllLocks();
+        retryOf = null;
         clientPool.release( this );
     }
 
@@ -789,6 +820,19 @@ public class ForsetiClient implements Locks.Client
         return waitList.size();
     }
 
+    boolean isOlderThan( ForsetiClient other )
+    {
+        return timestamp < other.timestamp;
+    }
+
+    void woundIfWaiting()
+    {
+        if ( waitingForLock != null )
+        {
+            wounded = true;
+        }
+    }
+
     void copyWaitListTo( SimpleBitSet other )
     {
         other.put( waitList );
@@ -967,9 +1011,50 @@ public class ForsetiClient implements Locks.Client
     {
         waitingForLock = lock;
         clearWaitList();
-        lock.copyHolderWaitListsInto( waitList );
-        applyWaitStrategy( type, tries );
+        if ( deadlockHandling == DeadlockHandling.DETECT )
+        {
+            lock.copyHolderWaitListsInto( waitList );
+            applyWaitStrategy( type, tries );
+            detectDeadlock( lock, type, resourceId, tries );
+        }
+        else
+        {
+            preventDeadlock( lock, type, resourceId );
+            applyWaitStrategy( type, tries );
+        }
+    }
+
+    private void preventDeadlock( ForsetiLockManager.Lock lock, ResourceType type, long resourceId )
+    {
+        if ( retryOf != null && retryOf.wasWaitingFor( type, resourceId ) )
+        {
+            // Waiting for the same lock as the aborted client makes this its retry, which keeps the older timestamp
+            timestamp = Math.min( timestamp, retryOf.timestamp );
+            retryOf = null;
+        }
+        if ( wounded )
+        {
+            timestamps.aborted( timestamp, type, resourceId );
+            throw new DeadlockDetectedException( this + " can't acquire " + lock + " on " + type + "(" + resourceId +
+                    "), because it holds a lock that an older client is waiting for." );
+        }
+        if ( deadlockHandling == DeadlockHandling.WAIT_DIE )
+        {
+            if ( lock.isHeldByClientOlderThan( this ) )
+            {
+                timestamps.aborted( timestamp, type, resourceId );
+                throw new DeadlockDetectedException( this + " can't acquire " + lock + " on " + type + "(" +
+                        resourceId + "), because it is held by an older client." );
+            }
+        }
+        else
+        {
+            lock.woundWaitingHoldersYoungerThan( this );
+        }
+    }
 
+    private void detectDeadlock( ForsetiLockManager.Lock lock, ResourceType type, long resourceId, int tries )
+    {
         int b = lock.detectDeadlock( id() );
         if ( b != -1 && deadlockResolutionStrategy.shouldAbort( this, clientById.apply( b ) ) )
         {
@@ -32,6 +32,7 @@ import org.neo4j.collection.pool.LinkedQueuePool;
 import org.neo4j.collection.pool.Pool;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.enterprise.configuration.EnterpriseEditionSettings;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.util.collection.SimpleBitSet;
 import org.neo4j.storageengine.api.lock.AcquireLockTimeoutException;
@@ -145,6 +146,18 @@ public class ForsetiLockManager implements Locks
          * @param owners The set into which to collect the current owners of this lock.
          */
         void collectOwners( Set<ForsetiClient> owners );
+
+        /**
+         * Check if this lock is held by any client, other than the given one, that started before the given client.
+         * Used for deadlock prevention with {@link DeadlockHandling#WAIT_DIE}.
+         */
+        boolean isHeldByClientOlderThan( ForsetiClient client );
+
+        /**
+         * Wound each client, other than the given one, that holds this lock, started after the given client and is
+         * itself waiting for a lock. Used for deadlock prevention with {@link DeadlockHandling#WOUND_WAIT}.
+         */
+        void woundWaitingHoldersYoungerThan( ForsetiClient client );
     }
 
     /**
@@ -285,6 +298,10 @@ public class ForsetiLockManager implements Locks
         private final ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps;
         private final WaitStrategy<AcquireLockTimeoutException>[] waitStrategies;
         private final DeadlockResolutionStrategy deadlockResolutionStrategy = DeadlockStrategies.DEFAULT;
+        private final DeadlockHandling deadlockHandling;
+
+        /** Hands out the timestamps that order clients for deadlock prevention. */
+        private final ClientTimestamps timestamps = new ClientTimestamps();
 
         ForsetiClientFlyweightPool( Config config, Clock clock, ConcurrentMap<Long,Lock>[] lockMaps,
                 WaitStrategy<AcquireLockTimeoutException>[] waitStrategies )
@@ -294,6 +311,7 @@ public class ForsetiLockManager implements Locks
             this.clock = clock;
             this.lockMaps = lockMaps;
             this.waitStrategies = waitStrategies;
+            this.deadlockHandling = config.get( EnterpriseEditionSettings.lock_deadlock_handling );
         }
 
         @Override
@@ -306,7 +324,8 @@ public class ForsetiLockManager implements Locks
             }
             long lockAcquisitionTimeoutMillis = config.get( GraphDatabaseSettings.lock_acquisition_timeout ).toMillis();
             ForsetiClient client = new ForsetiClient( id, lockMaps, waitStrategies, this,
-                    deadlockResolutionStrategy, clientsById::get, lockAcquisitionTimeoutMillis, clock );
+                    deadlockResolutionStrategy, deadlockHandling, timestamps, clientsById::get,
+                    lockAcquisitionTimeoutMillis, clock );
             clientsById.put( id, client );
             return client;
         }
@@ -231,6 +231,39 @@ class SharedLock implements ForsetiLockManager.Lock
         }
     }
 
+    @Override
+    public boolean isHeldByClientOlderThan( ForsetiClient client )
+    {
+        for ( AtomicReferenceArray<ForsetiClient> holders : clientsHoldingThisLock )
+        {
+            for ( int j = 0; holders != null && j < holders.length(); j++ )
+            {
+                ForsetiClient holder = holders.get( j );
+                if ( holder != null && holder != client && holder.isOlderThan( client ) )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void woundWaitingHoldersYoungerThan( ForsetiClient client )
+    {
+        for ( AtomicReferenceArray<ForsetiClient> holders : clientsHoldingThisLock )
+        {
+            for ( int j = 0; holders != null && j < holders.length(); j++ )
+            {
+                ForsetiClient holder = holders.get( j );
+                if ( holder != null && holder != client && client.isOlderThan( holder ) )
+                {
+                    holder.woundIfWaiting();
+                }
+            }
+        }
+    }
+
     @Override
     public String toString()
     {
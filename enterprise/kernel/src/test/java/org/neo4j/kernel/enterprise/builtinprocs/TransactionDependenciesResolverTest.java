@@ -42,6 +42,7 @@ import org.neo4j.time.Clocks;
 import org.neo4j.values.virtual.VirtualValues;
 
 import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.Matchers.isEmptyString;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -81,6 +82,28 @@ public class TransactionDependenciesResolverTest
         assertTrue( resolver.isBlocked( handle2 ) );
     }
 
+    @Test
+    public void listLockWaitsOfBlockedTransactions()
+    {
+        HashMap<KernelTransactionHandle,List<QuerySnapshot>> map = new HashMap<>();
+        TestKernelTransactionHandle handle1 = new TestKernelTransactionHandleWithLocks( new StubKernelTransaction(), 1,
+                singletonList( ActiveLock.exclusiveLock( ResourceTypes.NODE, 1 ) ) );
+        TestKernelTransactionHandle handle2 = new TestKernelTransactionHandleWithLocks( new StubKernelTransaction(), 2 );
+
+        map.put( handle1, singletonList( createQuerySnapshot( 1 ) ) );
+        map.put( handle2, singletonList( createQuerySnapshotWaitingForLock( 2, true, ResourceTypes.NODE, 1 ) ) );
+        TransactionDependenciesResolver resolver = new TransactionDependenciesResolver( map );
+
+        List<LockWaitResult> lockWaits = resolver.lockWaits().collect( toList() );
+        assertEquals( 1, lockWaits.size() );
+        LockWaitResult lockWait = lockWaits.get( 0 );
+        assertEquals( handle2.getUserTransactionName(), lockWait.waitingTransactionId );
+        assertEquals( handle1.getUserTransactionName(), lockWait.blockingTransactionId );
+        assertEquals( ActiveLock.EXCLUSIVE_MODE, lockWait.mode );
+        assertEquals( ResourceTypes.NODE.name(), lockWait.resourceType );
+        assertEquals( 1, lockWait.resourceId );
+    }
+
     @Test
     public void detectBlockedTransactionsBySharedLock()
     {
@@ -147,6 +147,7 @@ public class TransactionStatusResultTest
         assertEquals( Long.valueOf( 1809 ), statusResult.idleTimeMillis );
         assertEquals( Long.valueOf( 1 ), statusResult.allocatedBytes );
         assertEquals( Long.valueOf( 0 ), statusResult.allocatedDirectBytes );
+        assertEquals( 0L, statusResult.transactionStateBytes );
         assertEquals( 0L, statusResult.pageHits );
         assertEquals( 0L, statusResult.pageFaults );
     }
@@ -172,6 +173,7 @@ public class TransactionStatusResultTest
         assertEquals( Long.valueOf( 1809 ), statusResult.idleTimeMillis );
         assertEquals( Long.valueOf( 1 ), statusResult.allocatedBytes );
         assertEquals( Long.valueOf( 0 ), statusResult.allocatedDirectBytes );
+        assertEquals( 0L, statusResult.transactionStateBytes );
         assertEquals( 0, statusResult.pageHits );
         assertEquals( 0, statusResult.pageFaults );
     }
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.enterprise.configuration.EnterpriseEditionSettings;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.time.Clocks;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.neo4j.kernel.impl.locking.LockTracer.NONE;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.NODE;
+
+public class ForsetiDeadlockPreventionTest
+{
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test( timeout = 10_000 )
+    public void waitDieShouldAbortYoungerClientWaitingForOlder()
+    {
+        Locks locks = lockManager( DeadlockHandling.WAIT_DIE );
+        try ( Locks.Client older = locks.newClient();
+              Locks.Client younger = locks.newClient() )
+        {
+            older.acquireExclusive( NONE, NODE, 1 );
+            try
+            {
+                younger.acquireExclusive( NONE, NODE, 1 );
+                fail( "Younger client should not be allowed to wait for an older one" );
+            }
+            catch ( DeadlockDetectedException e )
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test( timeout = 10_000 )
+    public void waitDieShouldLetOlderClientWaitForYounger() throws Exception
+    {
+        Locks locks = lockManager( DeadlockHandling.WAIT_DIE );
+        try ( Locks.Client older = locks.newClient();
+              Locks.Client younger = locks.newClient() )
+        {
+            younger.acquireExclusive( NONE, NODE, 1 );
+            Future<Object> olderAcquisition = executor.submit( () ->
+            {
+                older.acquireExclusive( NONE, NODE, 1 );
+                return null;
+            } );
+            assertWaiting( olderAcquisition );
+
+            younger.releaseExclusive( NODE, 1 );
+            olderAcquisition.get();
+        }
+    }
+
+    @Test( timeout = 10_000 )
+    public void retriedClientShouldKeepTimestampOfAbortedAttempt() throws Exception
+    {
+        Locks locks = lockManager( DeadlockHandling.WAIT_DIE );
+        abortYoungerClientWaitingForNode( locks, 1 );
+
+        // a transaction started by another thread after the aborted attempt
+        Locks.Client newer = executor.submit( locks::newClient ).get();
+        newer.acquireExclusive( NONE, NODE, 1 );
+
+        try ( Locks.Client retry = locks.newClient() )
+        {
+            Future<Object> retryAcquisition = executor.submit( () ->
+            {
+                retry.acquireExclusive( NONE, NODE, 1 );
+                return null;
+            } );
+            assertWaiting( retryAcquisition );
+
+            newer.close();
+            retryAcquisition.get();
+        }
+    }
+
+    @Test( timeout = 10_000 )
+    public void clientWaitingForAnotherLockShouldNotKeepTimestampOfAbortedAttempt() throws Exception
+    {
+        Locks locks = lockManager( DeadlockHandling.WAIT_DIE );
+        abortYoungerClientWaitingForNode( locks, 1 );
+
+        Locks.Client newer = executor.submit( locks::newClient ).get();
+        newer.acquireExclusive( NONE, NODE, 2 );
+
+        try ( Locks.Client unrelated = locks.newClient() )
+        {
+            unrelated.acquireExclusive( NONE, NODE, 2 );
+            fail( "Client unrelated to the aborted attempt should be younger than the newer client" );
+        }
+        catch ( DeadlockDetectedException e )
+        {
+            // expected
+        }
+        finally
+        {
+            newer.close();
+        }
+    }
+
+    @Test( timeout = 10_000 )
+    public void abortedAttemptShouldBeForgottenWhenNextClientOfThreadCloses() throws Exception
+    {
+        Locks locks = lockManager( DeadlockHandling.WAIT_DIE );
+        abortYoungerClientWaitingForNode( locks, 1 );
+        locks.newClient().close();
+
+        Locks.Client newer = executor.submit( locks::newClient ).get();
+        newer.acquireExclusive( NONE, NODE, 1 );
+
+        try ( Locks.Client unrelated = locks.newClient() )
+        {
+            unrelated.acquireExclusive( NONE, NODE, 1 );
+            fail( "Client leased after the retry should be younger than the newer client" );
+        }
+        catch ( DeadlockDetectedException e )
+        {
+            // expected
+        }
+        finally
+        {
+            newer.close();
+        }
+    }
+
+    @Test( timeout = 10_000 )
+    public void woundWaitShouldAbortYoungerClientHoldingLockWhenItWaits() throws Exception
+    {
+        Locks locks = lockManager( DeadlockHandling.WOUND_WAIT );
+        Locks.Client older = locks.newClient();
+        Locks.Client younger = locks.newClient();
+        older.acquireExclusive( NONE, NODE, 2 );
+        younger.acquireExclusive( NONE, NODE, 1 );
+
+        Future<Object> olderAcquisition = executor.submit( () ->
+        {
+            older.acquireExclusive( NONE, NODE, 1 );
+            return null;
+        } );
+        Future<Object> youngerAcquisition = executor.submit( () ->
+        {
+            younger.acquireExclusive( NONE, NODE, 2 );
+            return null;
+        } );
+
+        try
+        {
+            youngerAcquisition.get();
+            fail( "Younger client should have been wounded by the older one" );
+        }
+        catch ( ExecutionException e )
+        {
+            assertThat( e.getCause(), instanceOf( DeadlockDetectedException.class ) );
+        }
+        younger.close();
+        olderAcquisition.get();
+        older.close();
+    }
+
+    private static void abortYoungerClientWaitingForNode( Locks locks, long nodeId )
+    {
+        try ( Locks.Client older = locks.newClient() )
+        {
+            older.acquireExclusive( NONE, NODE, nodeId );
+            try ( Locks.Client younger = locks.newClient() )
+            {
+                younger.acquireExclusive( NONE, NODE, nodeId );
+                fail( "Younger client should not be allowed to wait for an older one" );
+            }
+            catch ( DeadlockDetectedException e )
+            {
+                // expected
+            }
+        }
+    }
+
+    private static void assertWaiting( Future<Object> acquisition ) throws Exception
+    {
+        try
+        {
+            acquisition.get( 100, TimeUnit.MILLISECONDS );
+            fail( "Should be waiting for the lock" );
+        }
+        catch ( TimeoutException e )
+        {
+            // expected
+        }
+    }
+
+    private static Locks lockManager( DeadlockHandling deadlockHandling )
+    {
+        Config config = Config.defaults( EnterpriseEditionSettings.lock_deadlock_handling, deadlockHandling.name() );
+        return new ForsetiLockManager( config, Clocks.systemClock(), ResourceTypes.values() );
+    }
+}
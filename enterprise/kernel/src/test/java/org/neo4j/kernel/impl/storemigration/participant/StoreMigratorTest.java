@@ -120,6 +120,9 @@ public class StoreMigratorTest
         assertFalse( storeMigrator.countStoreRebuildRequired( StoreVersion.STANDARD_V3_4.versionString() ) );
         actualVersions.add( StoreVersion.STANDARD_V3_4.versionString() );
 
+        assertFalse( storeMigrator.countStoreRebuildRequired( StoreVersion.ALIGNED_V3_4.versionString() ) );
+        actualVersions.add( StoreVersion.ALIGNED_V3_4.versionString() );
+
         assertTrue( storeMigrator.countStoreRebuildRequired( StoreVersion.HIGH_LIMIT_V3_0_0.versionString() ) );
         actualVersions.add( StoreVersion.HIGH_LIMIT_V3_0_0.versionString() );
         assertTrue( storeMigrator.countStoreRebuildRequired( StoreVersion.HIGH_LIMIT_V3_0_6.versionString() ) );
@@ -40,6 +40,12 @@ public class CypherMetrics extends LifecycleAdapter
     @Documented( "The total number of seconds waited between query replans" )
     public static final String REPLAN_WAIT_TIME = name( NAME_PREFIX, "replan_wait_time" );
 
+    @Documented( "The total number of queries Cypher has re-planned in the background" )
+    public static final String BACKGROUND_REPLAN_EVENTS = name( NAME_PREFIX, "background_replan_events" );
+
+    @Documented( "The total number of milliseconds spent re-planning queries in the background" )
+    public static final String BACKGROUND_REPLAN_TIME = name( NAME_PREFIX, "background_replan_time" );
+
     private final MetricRegistry registry;
     private final Monitors monitors;
     private final PlanCacheMetricsMonitor cacheMonitor = new PlanCacheMetricsMonitor();
@@ -56,6 +62,8 @@ public class CypherMetrics extends LifecycleAdapter
         monitors.addMonitorListener( cacheMonitor );
         registry.register( REPLAN_EVENTS, (Gauge<Long>) cacheMonitor::numberOfReplans );
         registry.register( REPLAN_WAIT_TIME, (Gauge<Long>) cacheMonitor::replanWaitTime );
+        registry.register( BACKGROUND_REPLAN_EVENTS, (Gauge<Long>) cacheMonitor::numberOfBackgroundReplans );
+        registry.register( BACKGROUND_REPLAN_TIME, (Gauge<Long>) cacheMonitor::backgroundReplanTime );
     }
 
     @Override
@@ -63,6 +71,8 @@ public class CypherMetrics extends LifecycleAdapter
     {
         registry.remove( REPLAN_EVENTS );
         registry.remove( REPLAN_WAIT_TIME );
+        registry.remove( BACKGROUND_REPLAN_EVENTS );
+        registry.remove( BACKGROUND_REPLAN_TIME );
         monitors.removeMonitorListener( cacheMonitor );
     }
 }
@@ -25,6 +25,7 @@ import com.codahale.metrics.MetricRegistry;
 import java.util.function.Supplier;
 
 import org.neo4j.kernel.impl.annotations.Documented;
+import org.neo4j.kernel.impl.api.KernelTransactionMemoryMonitor;
 import org.neo4j.kernel.impl.transaction.TransactionCounters;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
@@ -69,6 +70,9 @@ public class TransactionMetrics extends LifecycleAdapter
     @Documented( "The total number of terminated write transactions" )
     public static final String WRITE_TX_TERMINATED = name( TRANSACTION_PREFIX, "terminated_write" );
 
+    @Documented( "The estimated amount of memory in bytes used by the state of all active transactions" )
+    public static final String TX_STATE_MEMORY = name( TRANSACTION_PREFIX, "tx_state_memory" );
+
     @Documented( "The ID of the last committed transaction" )
     public static final String LAST_COMMITTED_TX_ID = name( TRANSACTION_PREFIX, "last_committed_tx_id" );
     @Documented( "The ID of the last closed transaction" )
@@ -77,13 +81,15 @@ public class TransactionMetrics extends LifecycleAdapter
     private final MetricRegistry registry;
     private final TransactionCounters transactionCounters;
     private final Supplier<TransactionIdStore> transactionIdStore;
+    private final Supplier<KernelTransactionMemoryMonitor> transactionMemoryMonitor;
 
-    public TransactionMetrics( MetricRegistry registry,
-            Supplier<TransactionIdStore> transactionIdStore, TransactionCounters transactionCounters )
+    public TransactionMetrics( MetricRegistry registry, Supplier<TransactionIdStore> transactionIdStore,
+            TransactionCounters transactionCounters, Supplier<KernelTransactionMemoryMonitor> transactionMemoryMonitor )
     {
         this.registry = registry;
         this.transactionIdStore = transactionIdStore;
         this.transactionCounters = transactionCounters;
+        this.transactionMemoryMonitor = transactionMemoryMonitor;
     }
 
     @Override
@@ -114,6 +120,9 @@ public class TransactionMetrics extends LifecycleAdapter
         registry.register( WRITE_TX_TERMINATED,
                 (Gauge<Long>) transactionCounters::getNumberOfTerminatedWriteTransactions );
 
+        registry.register( TX_STATE_MEMORY, (Gauge<Long>) () ->
+                transactionMemoryMonitor.get().totalTransactionStateBytes() );
+
         registry.register( LAST_COMMITTED_TX_ID, (Gauge<Long>) () ->
                 transactionIdStore.get().getLastCommittedTransactionId() );
         registry.register( LAST_CLOSED_TX_ID, (Gauge<Long>) () ->
@@ -142,6 +151,8 @@ public class TransactionMetrics extends LifecycleAdapter
         registry.remove( READ_TX_TERMINATED );
         registry.remove( WRITE_TX_TERMINATED );
 
+        registry.remove( TX_STATE_MEMORY );
+
         registry.remove( LAST_COMMITTED_TX_ID );
         registry.remove( LAST_CLOSED_TX_ID );
     }
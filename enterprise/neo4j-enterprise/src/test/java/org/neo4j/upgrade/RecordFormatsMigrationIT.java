@@ -38,6 +38,7 @@ import org.neo4j.kernel.impl.enterprise.configuration.OnlineBackupSettings;
 import org.neo4j.kernel.impl.pagecache.ConfigurableStandalonePageCacheFactory;
 import org.neo4j.kernel.impl.store.format.RecordFormatSelector;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
+import org.neo4j.kernel.impl.store.format.aligned.AlignedV3_4;
 import org.neo4j.kernel.impl.store.format.highlimit.HighLimit;
 import org.neo4j.kernel.impl.store.format.highlimit.v300.HighLimitV3_0_0;
 import org.neo4j.kernel.impl.store.format.standard.Standard;
@@ -103,6 +104,34 @@ public class RecordFormatsMigrationIT
         assertLatestHighLimitStore();
     }
 
+    @Test
+    public void migrateAlignedToHighLimit()
+    {
+        executeAndStopDb( startDb( AlignedV3_4.NAME ), this::createNode );
+        assertStoreFormat( AlignedV3_4.RECORD_FORMATS );
+
+        executeAndStopDb( startHighLimitFormatDb(), this::assertNodeExists );
+        assertLatestHighLimitStore();
+    }
+
+    @Test
+    public void migrateHighLimitToAligned()
+    {
+        executeAndStopDb( startHighLimitFormatDb(), this::createNode );
+        assertLatestHighLimitStore();
+
+        try
+        {
+            startDb( AlignedV3_4.NAME );
+            fail( "Should not be possible to migrate to a lower format family" );
+        }
+        catch ( Exception e )
+        {
+            assertThat( Exceptions.rootCause( e ), instanceOf( UnexpectedUpgradingStoreFormatException.class ) );
+        }
+        assertLatestHighLimitStore();
+    }
+
     private void createNode( GraphDatabaseService db )
     {
         try ( Transaction tx = db.beginTx() )
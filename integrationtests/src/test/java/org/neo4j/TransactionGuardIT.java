@@ -52,6 +52,7 @@ import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.collection.MapUtil;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.FileUtils;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.GraphDatabaseDependencies;
 import org.neo4j.kernel.api.exceptions.Status;
 import org.neo4j.kernel.configuration.BoltConnector;
@@ -728,10 +729,11 @@ public class TransactionGuardIT
         }
 
         @Override
-        protected IdGeneratorFactory createIdGeneratorFactory( FileSystemAbstraction fs,
-                IdTypeConfigurationProvider idTypeConfigurationProvider )
+        protected IdGeneratorFactory createIdGeneratorFactory( FileSystemAbstraction fs, PageCache pageCache,
+                Config config, IdTypeConfigurationProvider idTypeConfigurationProvider )
         {
-            IdGeneratorFactory generatorFactory = super.createIdGeneratorFactory( fs, idTypeConfigurationProvider );
+            IdGeneratorFactory generatorFactory =
+                    super.createIdGeneratorFactory( fs, pageCache, config, idTypeConfigurationProvider );
             return new TerminationIdGeneratorFactory( generatorFactory );
         }
     }
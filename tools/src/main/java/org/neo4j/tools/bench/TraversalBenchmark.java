@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2002-2018 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.tools.bench;
+
+import java.io.File;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.Args;
+
+import static java.lang.String.format;
+
+/**
+ * Measures traversal throughput of a record format, for comparing e.g. {@code standard} and {@code aligned}.
+ * Creates a random graph in the given, empty, directory and then times
+ * <ul>
+ * <li>a sequential pass over all nodes and their relationships, in id order, and</li>
+ * <li>the same number of expansions starting from randomly chosen nodes.</li>
+ * </ul>
+ * Use a page cache smaller than the store to measure I/O bound behaviour, or larger for the cache bound case.
+ */
+public class TraversalBenchmark
+{
+    private static final RelationshipType TYPE = RelationshipType.withName( "LINK" );
+    private static final int BATCH_SIZE = 10_000;
+
+    public static void main( String[] args )
+    {
+        Args arguments = Args.parse( args );
+        if ( arguments.orphans().size() != 1 )
+        {
+            printUsageAndExit();
+        }
+        File storeDir = new File( arguments.orphans().get( 0 ) );
+        String recordFormat = arguments.get( "format", "standard" );
+        int nodes = arguments.getNumber( "nodes", 1_000_000 ).intValue();
+        int degree = arguments.getNumber( "degree", 10 ).intValue();
+        int rounds = arguments.getNumber( "rounds", 5 ).intValue();
+        String pageCacheMemory = arguments.get( "pagecache", "512m" );
+
+        GraphDatabaseService db = new GraphDatabaseFactory()
+                .newEmbeddedDatabaseBuilder( storeDir )
+                .setConfig( GraphDatabaseSettings.record_format, recordFormat )
+                .setConfig( GraphDatabaseSettings.pagecache_memory, pageCacheMemory )
+                .newGraphDatabase();
+        try
+        {
+            populate( db, nodes, degree );
+            for ( int round = 0; round < rounds; round++ )
+            {
+                long start = System.nanoTime();
+                long sequential = sequentialTraversal( db );
+                long sequentialNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                long random = randomTraversal( db, nodes );
+                long randomNanos = System.nanoTime() - start;
+
+                System.out.println( format( "%s round %d: sequential %,d rels/s, random %,d rels/s", recordFormat, round,
+                        perSecond( sequential, sequentialNanos ), perSecond( random, randomNanos ) ) );
+            }
+        }
+        finally
+        {
+            db.shutdown();
+        }
+    }
+
+    private static void populate( GraphDatabaseService db, int nodes, int degree )
+    {
+        for ( int created = 0; created < nodes; )
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                for ( int i = 0; i < BATCH_SIZE && created < nodes; i++, created++ )
+                {
+                    db.createNode().setProperty( "id", created );
+                }
+                tx.success();
+            }
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long relationships = (long) nodes * degree;
+        for ( long created = 0; created < relationships; )
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                for ( int i = 0; i < BATCH_SIZE && created < relationships; i++, created++ )
+                {
+                    Node start = db.getNodeById( random.nextInt( nodes ) );
+                    Node end = db.getNodeById( random.nextInt( nodes ) );
+                    start.createRelationshipTo( end, TYPE ).setProperty( "weight", random.nextInt() );
+                }
+                tx.success();
+            }
+        }
+    }
+
+    private static long sequentialTraversal( GraphDatabaseService db )
+    {
+        long count = 0;
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( Node node : db.getAllNodes() )
+            {
+                count += expand( node );
+            }
+            tx.success();
+        }
+        return count;
+    }
+
+    private static long randomTraversal( GraphDatabaseService db, int nodes )
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long count = 0;
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( int i = 0; i < nodes; i++ )
+            {
+                count += expand( db.getNodeById( random.nextInt( nodes ) ) );
+            }
+            tx.success();
+        }
+        return count;
+    }
+
+    private static long expand( Node node )
+    {
+        long count = 0;
+        for ( Relationship relationship : node.getRelationships() )
+        {
+            if ( relationship.getOtherNode( node ).hasProperty( "id" ) )
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long perSecond( long count, long nanos )
+    {
+        return nanos == 0 ? 0 : count * 1_000_000_000L / nanos;
+    }
+
+    private static void printUsageAndExit()
+    {
+        System.out.println( "Measures sequential and random traversal throughput of a record format." );
+        System.out.println();
+        System.out.println( "Options:" );
+        System.out.println( "-format     record format to use, default standard" );
+        System.out.println( "-nodes      number of nodes to create, default 1000000" );
+        System.out.println( "-degree     average number of relationships per node, default 10" );
+        System.out.println( "-rounds     number of measured rounds, default 5" );
+        System.out.println( "-pagecache  page cache size, default 512m" );
+        System.out.println();
+        System.out.println( "Usage:" );
+        System.out.println( "./traversalBenchmark [options] <empty store directory>" );
+        System.exit( 1 );
+    }
+}